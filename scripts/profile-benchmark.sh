@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Profile benchmark: runs the same load scenario against the default configuration (SQL logging
+# on, pool and batching at defaults) and against the prod profile, and compares their throughput.
+#
+#   scripts/profile-benchmark.sh [scenario] [seconds] [patients]
+#
+# Needs the jar from "mvn package". Both runs seed the same synthetic data before the load starts
+# (seeding is synchronous in both), each in an empty data directory that is removed afterwards.
+set -euo pipefail
+
+SCENARIO=${1:-morning-rush}
+SECONDS_PER_RUN=${2:-60}
+PATIENTS=${3:-100000}
+CONCURRENCY=${CONCURRENCY:-16}
+PORT=${PORT:-18082}
+cd "$(dirname "$0")/.."
+
+# Runs the scenario under the given profiles and prints the runner's "Total:" line
+run() {
+  local profiles=$1 data_dir
+  data_dir=$(mktemp -d)
+  java -jar target/dental-clinic-api-1.0.0.jar --spring.profiles.active="$profiles" --server.port="$PORT" \
+      --clinic.data-dir="$data_dir" --clinic.cache.bus.transport=none --clinic.seed.async=false \
+      --clinic.synthetic.enabled=true --clinic.synthetic.patients="$PATIENTS" \
+      --clinic.load.scenario="$SCENARIO" --clinic.load.duration-seconds="$SECONDS_PER_RUN" \
+      --clinic.load.concurrency="$CONCURRENCY" --clinic.load.exit-on-finish=true > "$data_dir/app.log" 2>&1 || true
+  local total
+  total=$(grep -o 'Total: .*' "$data_dir/app.log" | tail -1)
+  rm -rf "$data_dir"
+  if [ -z "$total" ]; then
+    echo "No load report from the $profiles run" >&2
+    return 1
+  fi
+  echo "$total"
+}
+
+rps() { sed -E 's/.*, ([0-9.]+) req\/s.*/\1/'; }
+
+baseline=$(run default)
+echo "default: $baseline"
+tuned=$(run prod)
+echo "prod:    $tuned"
+
+awk -v s="$SCENARIO" -v a="$(echo "$baseline" | rps)" -v b="$(echo "$tuned" | rps)" \
+    'BEGIN { printf "%s: prod profile at %.2fx the throughput of the default configuration\n", s, b / a }'
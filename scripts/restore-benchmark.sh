@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Restore benchmark: takes one full backup of synthetic production-sized data and restores it
+# with an increasing number of insert threads, reporting load time and rows per second.
+#
+#   scripts/restore-benchmark.sh [patients] [threads...]
+#
+# Needs the jar from "mvn package". Uses an empty data directory that is removed afterwards.
+set -euo pipefail
+
+PATIENTS=${1:-100000}
+shift || true
+THREADS=("$@")
+if [ ${#THREADS[@]} -eq 0 ]; then
+  THREADS=(1 2 4 8)
+fi
+PORT=${PORT:-18081}
+TIMEOUT_S=${TIMEOUT_S:-600}
+cd "$(dirname "$0")/.."
+
+data_dir=$(mktemp -d)
+java -jar target/dental-clinic-api-1.0.0.jar --server.port="$PORT" --clinic.data-dir="$data_dir" \
+    --clinic.synthetic.enabled=true --clinic.synthetic.patients="$PATIENTS" \
+    --clinic.cache.bus.transport=none > "$data_dir/app.log" 2>&1 &
+pid=$!
+trap 'kill $pid 2>/dev/null || true; rm -rf "$data_dir"' EXIT
+
+deadline=$(( $(date +%s) + TIMEOUT_S ))
+until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health/readiness")" = 200 ]; do
+  if (( $(date +%s) > deadline )); then
+    echo "Timed out waiting for the application" >&2
+    exit 1
+  fi
+  sleep 1
+done
+
+# Evaluate a Python expression over the JSON document on stdin (bound to d)
+field() { python3 -c "import json, sys; d = json.load(sys.stdin); print($1)"; }
+
+backup=$(curl -sf -X POST "http://localhost:$PORT/api/admin/backups?type=full")
+id=$(echo "$backup" | field "d['id']")
+echo "backup $id: $(echo "$backup" | field "d['durationMs']") ms," \
+  "$(echo "$backup" | field "sum(t['rows']['rows'] for t in d['tables'])") rows," \
+  "$(echo "$backup" | field "sum(t['rows']['bytes'] for t in d['tables']) // 1024") KB"
+
+for threads in "${THREADS[@]}"; do
+  result=$(curl -sf -X POST "http://localhost:$PORT/api/admin/backups/$id/restore?threads=$threads")
+  echo "restore with $threads threads: load $(echo "$result" | field "d['loadMs']") ms," \
+    "$(echo "$result" | field "d['rowsPerSecond']") rows/s, total with index rebuild $(echo "$result" | field "d['durationMs']") ms"
+done
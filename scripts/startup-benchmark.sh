@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# Startup benchmark: time to the first successful /actuator/health and /api/dashboard/quick-stats,
+# and resident memory once both answer, as the median of several cold starts.
+#
+#   scripts/startup-benchmark.sh [jvm|cds|native] [runs]
+#
+#   jvm     target/dental-clinic-api-1.0.0.jar from a plain "mvn package"
+#   cds     AOT-processed jar with the class data archive from "mvn -Pcds package"
+#   native  target/dental-clinic-api from "mvn -Pnative native:compile"
+#
+# Every run starts from an empty data directory, so seeding is part of the measurement.
+set -euo pipefail
+
+MODE=${1:-jvm}
+RUNS=${2:-5}
+PORT=${PORT:-18080}
+PROFILES=${PROFILES:-prod,durable}
+TIMEOUT_S=${TIMEOUT_S:-120}
+cd "$(dirname "$0")/.."
+
+case "$MODE" in
+  jvm)    CMD=(java -jar target/dental-clinic-api-1.0.0.jar) ;;
+  cds)    CMD=(java -XX:SharedArchiveFile=target/app.jsa -Dspring.aot.enabled=true -jar target/dental-clinic-api-1.0.0.jar) ;;
+  native) CMD=(target/dental-clinic-api) ;;
+  *)      echo "Unknown mode: $MODE (jvm, cds or native)" >&2; exit 1 ;;
+esac
+
+now_ms() { date +%s%3N; }
+
+# Poll a URL until it answers 200; prints the elapsed milliseconds since $1
+wait_for() {
+  local start=$1 url=$2 deadline=$(( $(date +%s) + TIMEOUT_S ))
+  until curl -sf -o /dev/null "$url"; do
+    if (( $(date +%s) > deadline )); then
+      echo "Timed out waiting for $url" >&2
+      return 1
+    fi
+    sleep 0.02
+  done
+  echo $(( $(now_ms) - start ))
+}
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+health=() stats=() rss=()
+for run in $(seq 1 "$RUNS"); do
+  data_dir=$(mktemp -d)
+  start=$(now_ms)
+  "${CMD[@]}" --spring.profiles.active="$PROFILES" --server.port="$PORT" \
+      --clinic.data-dir="$data_dir" --clinic.cache.bus.transport=none > "$data_dir/app.log" 2>&1 &
+  pid=$!
+  trap 'kill $pid 2>/dev/null || true' EXIT
+
+  health+=("$(wait_for "$start" "http://localhost:$PORT/actuator/health")")
+  stats+=("$(wait_for "$start" "http://localhost:$PORT/api/dashboard/quick-stats")")
+  rss+=("$(awk '/^VmRSS/ { print int($2 / 1024) }' "/proc/$pid/status")")
+  echo "run $run: health ${health[-1]} ms, quick-stats ${stats[-1]} ms, rss ${rss[-1]} MB"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  rm -rf "$data_dir"
+done
+
+echo "$MODE median over $RUNS runs:" \
+  "health $(printf '%s\n' "${health[@]}" | median) ms," \
+  "quick-stats $(printf '%s\n' "${stats[@]}" | median) ms," \
+  "rss $(printf '%s\n' "${rss[@]}" | median) MB"
@@ -2,6 +2,7 @@ package com.nepbay.dentalclinicapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Dental Clinic API - Main Application
@@ -12,6 +13,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * including patients, appointments, and dashboard analytics.
  */
 @SpringBootApplication
+@EnableScheduling
 public class DentalClinicApiApplication {
 
 	public static void main(String[] args) {
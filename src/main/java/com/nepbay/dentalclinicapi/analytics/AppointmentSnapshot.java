@@ -0,0 +1,243 @@
+package com.nepbay.dentalclinicapi.analytics;
+
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appointment Snapshot
+ * Immutable, off-heap, column-oriented copy of the appointments table for analytical queries.
+ * Each row is 13 bytes spread over primitive columns in direct buffers:
+ *   epoch day (int), minute of day (short, -1 = no time), status ordinal (byte),
+ *   treatment dictionary code (short), patient dictionary code (int).
+ * Patients are encoded by patient_id; appointments not yet linked to a patient fall back to the
+ * name, so two namesakes count as two patients and a renamed patient still counts once.
+ * Queries run as two tight passes: a filter that fills a selection bitmap, then a group-by over it.
+ */
+public final class AppointmentSnapshot {
+
+    public static final int ROW_BYTES = 4 + 2 + 1 + 2 + 4;
+
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    private final int rows;
+    private final IntBuffer epochDays;
+    private final ShortBuffer minutes;
+    private final ByteBuffer statuses;
+    private final ShortBuffer treatments;
+    private final IntBuffer patients;
+    private final String[] treatmentDictionary;
+    private final int patientCount;
+    private final LocalDateTime builtAt;
+
+    private AppointmentSnapshot(Builder builder) {
+        this.rows = builder.rows;
+        this.epochDays = builder.epochDays;
+        this.minutes = builder.minutes;
+        this.statuses = builder.statuses;
+        this.treatments = builder.treatments;
+        this.patients = builder.patients;
+        this.treatmentDictionary = builder.treatmentDictionary.toArray(new String[0]);
+        this.patientCount = builder.patientCodes.size();
+        this.builtAt = LocalDateTime.now();
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getDistinctPatients() {
+        return patientCount;
+    }
+
+    public int getDistinctTreatments() {
+        return treatmentDictionary.length;
+    }
+
+    public long getOffHeapBytes() {
+        return (long) epochDays.capacity() * 4 + (long) minutes.capacity() * 2 + statuses.capacity()
+                + (long) treatments.capacity() * 2 + (long) patients.capacity() * 4;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * Rows whose appointment date is within [from, to], as a bitmap
+     */
+    public long[] selectDateRange(LocalDate from, LocalDate to) {
+        int lo = (int) from.toEpochDay();
+        int hi = (int) to.toEpochDay();
+        long[] selection = new long[(rows + 63) >>> 6];
+        for (int i = 0; i < rows; i++) {
+            int day = epochDays.get(i);
+            // Branch-free range check: selected when lo <= day <= hi
+            long hit = ((long) (day - lo) | (long) (hi - day)) >>> 63 ^ 1L;
+            selection[i >>> 6] |= hit << (i & 63);
+        }
+        return selection;
+    }
+
+    /**
+     * Count rows per (weekday, hour, status) for the selected rows: int[7][24][statuses]
+     * Weekday index 0 is Monday; rows without a time are skipped.
+     */
+    public int[][][] countByWeekdayHourStatus(long[] selection) {
+        int[][][] counts = new int[7][24][STATUSES.length];
+        forEachSelected(selection, i -> {
+            int minute = minutes.get(i);
+            if (minute >= 0) {
+                counts[weekday(epochDays.get(i))][minute / 60][statuses.get(i)]++;
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Count selected rows per treatment
+     */
+    public Map<String, Integer> countByTreatment(long[] selection) {
+        int[] counts = new int[treatmentDictionary.length];
+        forEachSelected(selection, i -> counts[treatments.get(i)]++);
+        Map<String, Integer> result = new HashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                result.put(treatmentDictionary[code], counts[code]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count selected rows per status
+     */
+    public int[] countByStatus(long[] selection) {
+        int[] counts = new int[STATUSES.length];
+        forEachSelected(selection, i -> counts[statuses.get(i)]++);
+        return counts;
+    }
+
+    /**
+     * Number of distinct patients among the selected rows
+     */
+    public int countDistinctPatients(long[] selection) {
+        long[] seen = new long[(patientCount + 63) >>> 6];
+        forEachSelected(selection, i -> {
+            int patient = patients.get(i);
+            seen[patient >>> 6] |= 1L << (patient & 63);
+        });
+        int distinct = 0;
+        for (long word : seen) {
+            distinct += Long.bitCount(word);
+        }
+        return distinct;
+    }
+
+    /**
+     * Monday = 0 ... Sunday = 6 (1970-01-01 was a Thursday)
+     */
+    public static int weekday(int epochDay) {
+        return Math.floorMod(epochDay + 3, 7);
+    }
+
+    private void forEachSelected(long[] selection, RowConsumer consumer) {
+        for (int word = 0; word < selection.length; word++) {
+            long bits = selection[word];
+            while (bits != 0) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                consumer.accept(i);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowConsumer {
+        void accept(int row);
+    }
+
+    /**
+     * Appends rows into growable direct buffers and dictionary-encodes strings
+     */
+    public static final class Builder {
+
+        private int rows;
+        private IntBuffer epochDays;
+        private ShortBuffer minutes;
+        private ByteBuffer statuses;
+        private ShortBuffer treatments;
+        private IntBuffer patients;
+        private final List<String> treatmentDictionary = new ArrayList<>();
+        private final Map<String, Short> treatmentCodes = new HashMap<>();
+        // Keyed by the Long patient id, or by the String name for unlinked appointments
+        private final Map<Object, Integer> patientCodes = new HashMap<>();
+
+        public Builder(int expectedRows) {
+            allocate(Math.max(expectedRows, 1024));
+        }
+
+        public void add(LocalDate date, Integer minuteOfDay, AppointmentStatus status, String treatment,
+                        Long patientId, String patientName) {
+            if (rows == epochDays.capacity()) {
+                allocate(rows * 2);
+            }
+            epochDays.put(rows, (int) date.toEpochDay());
+            minutes.put(rows, minuteOfDay == null ? -1 : minuteOfDay.shortValue());
+            statuses.put(rows, (byte) status.ordinal());
+            treatments.put(rows, treatmentCode(treatment == null || treatment.isBlank() ? "Unspecified" : treatment));
+            Object patientKey = patientId != null ? patientId : patientName;
+            patients.put(rows, patientCodes.computeIfAbsent(patientKey, key -> patientCodes.size()));
+            rows++;
+        }
+
+        public AppointmentSnapshot build() {
+            return new AppointmentSnapshot(this);
+        }
+
+        private short treatmentCode(String treatment) {
+            Short code = treatmentCodes.get(treatment);
+            if (code == null) {
+                if (treatmentDictionary.size() == Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct treatments for a short dictionary");
+                }
+                code = (short) treatmentDictionary.size();
+                treatmentDictionary.add(treatment);
+                treatmentCodes.put(treatment, code);
+            }
+            return code;
+        }
+
+        private void allocate(int capacity) {
+            IntBuffer newEpochDays = direct(capacity * 4).asIntBuffer();
+            ShortBuffer newMinutes = direct(capacity * 2).asShortBuffer();
+            ByteBuffer newStatuses = direct(capacity);
+            ShortBuffer newTreatments = direct(capacity * 2).asShortBuffer();
+            IntBuffer newPatients = direct(capacity * 4).asIntBuffer();
+            if (rows > 0) {
+                newEpochDays.put(0, epochDays, 0, rows);
+                newMinutes.put(0, minutes, 0, rows);
+                newStatuses.put(0, statuses, 0, rows);
+                newTreatments.put(0, treatments, 0, rows);
+                newPatients.put(0, patients, 0, rows);
+            }
+            epochDays = newEpochDays;
+            minutes = newMinutes;
+            statuses = newStatuses;
+            treatments = newTreatments;
+            patients = newPatients;
+        }
+
+        private static ByteBuffer direct(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+}
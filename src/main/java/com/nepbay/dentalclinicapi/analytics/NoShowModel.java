@@ -0,0 +1,275 @@
+package com.nepbay.dentalclinicapi.analytics;
+
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * No-Show Model
+ * Scores the risk that a booked appointment ends as NO_SHOW. The patient's own no-show rate,
+ * shrunk towards the clinic-wide rate while the patient has few outcomes, is adjusted by how much
+ * more (or less) often patients miss appointments in the same weekday/hour and with the same
+ * booking lead time, and by the patient's cancellation habit. Adjustments are applied as odds
+ * ratios, so a risky slot raises a reliable patient's score less than an unreliable one's.
+ *
+ * Built from a Tally of the whole appointments table; afterwards single patients' histories can
+ * be replaced as their outcomes are recorded, the clinic-wide rates stay until the next rebuild.
+ */
+public final class NoShowModel {
+
+    // Lead time buckets in days between booking and appointment: 0, 1, 2-3, 4-7, 8-14, 15-30, 31+
+    private static final int[] LEAD_BUCKET_UPPER_DAYS = {0, 1, 3, 7, 14, 30};
+    private static final int LEAD_BUCKETS = LEAD_BUCKET_UPPER_DAYS.length + 1;
+
+    // Outcomes a patient needs before their own rate counts as much as the clinic-wide one
+    private static final double PATIENT_PRIOR_WEIGHT = 4;
+    // Outcomes a weekday/hour or lead time cell needs before its rate counts as much as the clinic-wide one
+    private static final double CELL_PRIOR_WEIGHT = 20;
+    // Cancellations predict no-shows more weakly than no-shows do: their odds ratio is dampened
+    private static final double CANCELLATION_EXPONENT = 0.5;
+
+    private static final double MIN_SCORE = 0.001;
+    private static final double MAX_SCORE = 0.99;
+
+    private static final int NO_SHOWS = 0;
+    private static final int COMPLETED = 1;
+    private static final int CANCELLED = 2;
+
+    private final double baseRate;
+    private final double baseCancellationRate;
+    private final double[][] slotLift = new double[7][24];
+    private final double[] leadLift = new double[LEAD_BUCKETS];
+    private final Map<Object, int[]> patients;
+    private final long outcomes;
+
+    public NoShowModel(Tally tally) {
+        this.outcomes = tally.noShows + tally.completed;
+        // Without history every lift is 1 and every patient scores the (assumed) 10% base rate
+        this.baseRate = outcomes == 0 ? 0.1 : clamp((double) tally.noShows / outcomes);
+        long decided = outcomes + tally.cancelled;
+        this.baseCancellationRate = decided == 0 ? 0.1 : clamp((double) tally.cancelled / decided);
+        for (int weekday = 0; weekday < 7; weekday++) {
+            for (int hour = 0; hour < 24; hour++) {
+                slotLift[weekday][hour] = lift(tally.slotNoShows[weekday][hour], tally.slotOutcomes[weekday][hour]);
+            }
+        }
+        for (int bucket = 0; bucket < LEAD_BUCKETS; bucket++) {
+            leadLift[bucket] = lift(tally.leadNoShows[bucket], tally.leadOutcomes[bucket]);
+        }
+        this.patients = new ConcurrentHashMap<>(tally.patients);
+    }
+
+    /**
+     * Key appointments are grouped by: the linked patient, or the lower-cased name of an unlinked one
+     */
+    public static Object patientKey(Long patientId, String patientName) {
+        if (patientId != null) {
+            return patientId;
+        }
+        return patientName == null ? "" : patientName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Whether the appointment still awaits its outcome and so gets a score
+     */
+    public static boolean isOpen(AppointmentStatus status, LocalDate date, LocalDate today) {
+        return (status == AppointmentStatus.SCHEDULED || status == AppointmentStatus.CONFIRMED)
+                && date != null && !date.isBefore(today);
+    }
+
+    /**
+     * No-show probability of an open appointment; bookedOn is the day it was made (same day if unknown)
+     */
+    public double score(Object patientKey, LocalDate date, LocalTime time, LocalDate bookedOn) {
+        int[] history = patients.get(patientKey);
+        int noShows = history == null ? 0 : history[NO_SHOWS];
+        int completed = history == null ? 0 : history[COMPLETED];
+        int cancelled = history == null ? 0 : history[CANCELLED];
+
+        double patientRate = (noShows + PATIENT_PRIOR_WEIGHT * baseRate) / (noShows + completed + PATIENT_PRIOR_WEIGHT);
+        double cancellationRate = (cancelled + PATIENT_PRIOR_WEIGHT * baseCancellationRate)
+                / (noShows + completed + cancelled + PATIENT_PRIOR_WEIGHT);
+
+        double odds = odds(patientRate);
+        if (time != null) {
+            odds *= slotLift[date.getDayOfWeek().getValue() - 1][time.getHour()];
+        }
+        odds *= leadLift[leadBucket(bookedOn, date)];
+        odds *= Math.pow(odds(cancellationRate) / odds(baseCancellationRate), CANCELLATION_EXPONENT);
+        return Math.max(MIN_SCORE, Math.min(MAX_SCORE, odds / (1 + odds)));
+    }
+
+    /**
+     * Replace one patient's outcome counts (after an outcome was recorded)
+     */
+    public void replacePatient(Object patientKey, PatientHistory history) {
+        if (history.isEmpty()) {
+            patients.remove(patientKey);
+        } else {
+            patients.put(patientKey, history.counts);
+        }
+    }
+
+    /**
+     * Probability that at least k of the given appointments end as no-shows, each independently
+     */
+    public static double probabilityOfAtLeast(List<Double> risks, int k) {
+        if (k <= 0) {
+            return 1.0;
+        }
+        // distribution[j] = probability of exactly j no-shows among the appointments seen so far
+        double[] distribution = new double[risks.size() + 1];
+        distribution[0] = 1.0;
+        int seen = 0;
+        for (double risk : risks) {
+            seen++;
+            for (int j = seen; j >= 0; j--) {
+                distribution[j] = distribution[j] * (1 - risk) + (j > 0 ? distribution[j - 1] * risk : 0);
+            }
+        }
+        double atLeast = 0;
+        for (int j = k; j < distribution.length; j++) {
+            atLeast += distribution[j];
+        }
+        return atLeast;
+    }
+
+    public double getBaseRate() {
+        return baseRate;
+    }
+
+    public long getOutcomes() {
+        return outcomes;
+    }
+
+    public int getPatients() {
+        return patients.size();
+    }
+
+    /**
+     * Odds ratio of a cell against the clinic-wide rate, its rate shrunk towards that rate when it has few outcomes
+     */
+    private double lift(int noShows, int cellOutcomes) {
+        double rate = (noShows + CELL_PRIOR_WEIGHT * baseRate) / (cellOutcomes + CELL_PRIOR_WEIGHT);
+        return odds(rate) / odds(baseRate);
+    }
+
+    private static int leadBucket(LocalDate bookedOn, LocalDate date) {
+        long days = bookedOn == null ? 0 : Math.max(0, ChronoUnit.DAYS.between(bookedOn, date));
+        for (int bucket = 0; bucket < LEAD_BUCKET_UPPER_DAYS.length; bucket++) {
+            if (days <= LEAD_BUCKET_UPPER_DAYS[bucket]) {
+                return bucket;
+            }
+        }
+        return LEAD_BUCKETS - 1;
+    }
+
+    private static double odds(double probability) {
+        double p = clamp(probability);
+        return p / (1 - p);
+    }
+
+    private static double clamp(double probability) {
+        return Math.max(MIN_SCORE, Math.min(MAX_SCORE, probability));
+    }
+
+    /**
+     * Outcome counts of one patient
+     */
+    public static final class PatientHistory {
+
+        private final int[] counts = new int[3];
+
+        public void add(AppointmentStatus status) {
+            switch (status) {
+                case NO_SHOW -> counts[NO_SHOWS]++;
+                case COMPLETED -> counts[COMPLETED]++;
+                case CANCELLED -> counts[CANCELLED]++;
+                default -> {
+                    // Not an outcome (yet)
+                }
+            }
+        }
+
+        public boolean isEmpty() {
+            return counts[NO_SHOWS] == 0 && counts[COMPLETED] == 0 && counts[CANCELLED] == 0;
+        }
+    }
+
+    /**
+     * Counts gathered from a range of appointments; tallies of disjoint ranges are merged
+     */
+    public static final class Tally {
+
+        private final Map<Object, int[]> patients = new HashMap<>();
+        private final int[][] slotNoShows = new int[7][24];
+        private final int[][] slotOutcomes = new int[7][24];
+        private final int[] leadNoShows = new int[LEAD_BUCKETS];
+        private final int[] leadOutcomes = new int[LEAD_BUCKETS];
+        private long noShows;
+        private long completed;
+        private long cancelled;
+        private long rows;
+
+        public void add(Object patientKey, LocalDate date, LocalTime time, LocalDate bookedOn, AppointmentStatus status) {
+            rows++;
+            boolean noShow = status == AppointmentStatus.NO_SHOW;
+            if (status == AppointmentStatus.CANCELLED) {
+                cancelled++;
+                patients.computeIfAbsent(patientKey, key -> new int[3])[CANCELLED]++;
+                return;
+            }
+            if (!noShow && status != AppointmentStatus.COMPLETED) {
+                return;
+            }
+            patients.computeIfAbsent(patientKey, key -> new int[3])[noShow ? NO_SHOWS : COMPLETED]++;
+            int hit = noShow ? 1 : 0;
+            if (noShow) {
+                noShows++;
+            } else {
+                completed++;
+            }
+            if (time != null) {
+                int weekday = date.getDayOfWeek().getValue() - 1;
+                slotNoShows[weekday][time.getHour()] += hit;
+                slotOutcomes[weekday][time.getHour()]++;
+            }
+            int bucket = leadBucket(bookedOn, date);
+            leadNoShows[bucket] += hit;
+            leadOutcomes[bucket]++;
+        }
+
+        public void merge(Tally other) {
+            other.patients.forEach((key, counts) -> {
+                int[] merged = patients.computeIfAbsent(key, k -> new int[3]);
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i] += counts[i];
+                }
+            });
+            for (int weekday = 0; weekday < 7; weekday++) {
+                for (int hour = 0; hour < 24; hour++) {
+                    slotNoShows[weekday][hour] += other.slotNoShows[weekday][hour];
+                    slotOutcomes[weekday][hour] += other.slotOutcomes[weekday][hour];
+                }
+            }
+            for (int bucket = 0; bucket < LEAD_BUCKETS; bucket++) {
+                leadNoShows[bucket] += other.leadNoShows[bucket];
+                leadOutcomes[bucket] += other.leadOutcomes[bucket];
+            }
+            noShows += other.noShows;
+            completed += other.completed;
+            cancelled += other.cancelled;
+            rows += other.rows;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+    }
+}
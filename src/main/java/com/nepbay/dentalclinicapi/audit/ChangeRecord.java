@@ -0,0 +1,22 @@
+package com.nepbay.dentalclinicapi.audit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Change Record
+ * One entry of the audit trail: who changed which fields of an entity, and when
+ */
+public record ChangeRecord(
+        String entityType,
+        Long entityId,
+        String action,
+        String changedBy,
+        LocalDateTime changedAt,
+        List<FieldChange> changes) {
+
+    /**
+     * Old and new value of a single field (values rendered as strings)
+     */
+    public record FieldChange(String field, String oldValue, String newValue) {}
+}
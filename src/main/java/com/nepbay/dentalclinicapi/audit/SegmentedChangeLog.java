@@ -0,0 +1,195 @@
+package com.nepbay.dentalclinicapi.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented Change Log
+ * Append-only log stored as fixed-size, memory-mapped segment files (changes-000001.log, ...).
+ * Every entry is framed as [int length][int crc32][payload]; a zero length marks the end of the
+ * written part of a segment. When an entry does not fit, a new segment is started.
+ * On open, the last segment is scanned and cut at the first torn or corrupt entry.
+ *
+ * Appends must come from a single writer thread; reads of already appended entries may run concurrently.
+ */
+public class SegmentedChangeLog implements AutoCloseable {
+
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Path> segments = new CopyOnWriteArrayList<>();
+
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+
+    /**
+     * Location of an entry in the log
+     */
+    public record Position(int segment, int offset) {}
+
+    /**
+     * Callback for entries found while scanning the log
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(Position position, byte[] payload);
+    }
+
+    public SegmentedChangeLog(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Open (or create) the log and replay every valid entry to the visitor
+     */
+    public void open(EntryVisitor visitor) throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().matches("changes-\\d{6}\\.log"))
+                 .sorted()
+                 .forEach(segments::add);
+        }
+
+        int end = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            end = replay(i, visitor);
+        }
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            map(segments.size() - 1, end);
+        }
+    }
+
+    /**
+     * Append one entry; returns where it was written
+     */
+    public Position append(byte[] payload) throws IOException {
+        int needed = HEADER_BYTES + payload.length;
+        if (needed + 4 > segmentBytes) {
+            throw new IOException("Change record of " + payload.length + " bytes exceeds the segment size");
+        }
+        if (active.remaining() < needed + 4) {
+            roll();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int offset = active.position();
+        // Write the payload first and the length last, so a torn write never looks complete
+        active.position(offset + HEADER_BYTES);
+        active.put(payload);
+        active.putInt(offset + 4, (int) crc.getValue());
+        active.putInt(offset, payload.length);
+        return new Position(segments.size() - 1, offset);
+    }
+
+    /**
+     * Flush appended entries of the active segment to disk
+     */
+    public void force() {
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    /**
+     * Read and verify the entry at a position
+     */
+    public byte[] read(Position position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segments.get(position.segment()), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, position.offset());
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position.offset() + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Checksum mismatch in " + segments.get(position.segment()) + " at " + position.offset());
+            }
+            return payload.array();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+    }
+
+    private int replay(int segment, EntryVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(segments.get(segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int offset = 0;
+            while (offset + HEADER_BYTES <= buffer.limit()) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + HEADER_BYTES + length > buffer.limit()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_BYTES, payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                    // Torn tail from a crash: everything after this point is discarded
+                    break;
+                }
+                visitor.visit(new Position(segment, offset), payload);
+                offset += HEADER_BYTES + length;
+            }
+            return offset;
+        }
+    }
+
+    private void roll() throws IOException {
+        force();
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+        segments.add(directory.resolve(String.format("changes-%06d.log", segments.size() + 1)));
+        map(segments.size() - 1, 0);
+    }
+
+    private void map(int segment, int position) throws IOException {
+        activeChannel = FileChannel.open(segments.get(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        // Clear any garbage after the last valid entry so the end marker is a zero length
+        for (int i = position; i < Math.min(segmentBytes, position + HEADER_BYTES); i++) {
+            active.put(i, (byte) 0);
+        }
+        active.position(position);
+    }
+
+    /**
+     * Delete all segments (used when the database itself does not survive restarts)
+     */
+    public static void reset(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".log")).toList()) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
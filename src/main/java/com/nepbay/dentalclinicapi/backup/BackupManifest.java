@@ -0,0 +1,36 @@
+package com.nepbay.dentalclinicapi.backup;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Backup Manifest
+ * Written last into a backup directory (manifest.json), so a directory without one is an
+ * unfinished backup. An incremental backup holds the rows changed since its parent's snapshot
+ * plus the ids of every row that existed at its own snapshot, from which deletions follow.
+ */
+public record BackupManifest(
+        String id,
+        String type,
+        String parent,
+        LocalDateTime snapshotAt,
+        LocalDateTime changedSince,
+        long durationMs,
+        List<TableEntry> tables) {
+
+    public static final String FULL = "full";
+    public static final String INCREMENTAL = "incremental";
+
+    /**
+     * One table of the backup: its rows file and, for incrementals, its ids file
+     */
+    public record TableEntry(String table, FileEntry rows, FileEntry ids) {}
+
+    public record FileEntry(String file, long rows, long bytes, long crc32) {}
+
+    @JsonIgnore
+    public boolean isFull() {
+        return FULL.equals(type);
+    }
+}
@@ -0,0 +1,377 @@
+package com.nepbay.dentalclinicapi.backup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Table Snapshot File
+ * Rows of one table in a compact typed binary format, gzip-compressed and written through a
+ * file channel. Layout (before compression):
+ *   [int magic][int version][utf table][int columns]([utf name][byte kind])*  header
+ *   ([byte 1]([byte present][value])*)*                                         one entry per row
+ *   [byte 0][long rows]                                                         trailer
+ * The CRC32 of the compressed bytes is returned by the writer and kept in the backup manifest, so
+ * a file can be verified with a plain channel read before anything is decompressed.
+ */
+public final class TableSnapshotFile {
+
+    private static final int MAGIC = 0x44434231; // "DCB1"
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private TableSnapshotFile() {
+    }
+
+    /**
+     * Value encoding of a column, derived from its JDBC type
+     */
+    public enum Kind {
+        LONG, INT, STRING, DATE, TIME, TIMESTAMP, DECIMAL, BOOLEAN, DOUBLE;
+
+        static Kind of(int sqlType) {
+            switch (sqlType) {
+                case Types.BIGINT:
+                    return LONG;
+                case Types.INTEGER:
+                case Types.SMALLINT:
+                case Types.TINYINT:
+                    return INT;
+                case Types.DATE:
+                    return DATE;
+                case Types.TIME:
+                    return TIME;
+                case Types.TIMESTAMP:
+                    return TIMESTAMP;
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    return DECIMAL;
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    return BOOLEAN;
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                case Types.REAL:
+                    return DOUBLE;
+                default:
+                    return STRING;
+            }
+        }
+
+        Object read(ResultSet rs, int index) throws SQLException {
+            switch (this) {
+                case LONG:
+                    return rs.getObject(index, Long.class);
+                case INT:
+                    return rs.getObject(index, Integer.class);
+                case DATE:
+                    return rs.getObject(index, LocalDate.class);
+                case TIME:
+                    return rs.getObject(index, LocalTime.class);
+                case TIMESTAMP:
+                    return rs.getObject(index, LocalDateTime.class);
+                case DECIMAL:
+                    return rs.getBigDecimal(index);
+                case BOOLEAN:
+                    return rs.getObject(index, Boolean.class);
+                case DOUBLE:
+                    return rs.getObject(index, Double.class);
+                default:
+                    return rs.getString(index);
+            }
+        }
+
+        private void write(DataOutputStream out, Object value) throws IOException {
+            switch (this) {
+                case LONG:
+                    out.writeLong((Long) value);
+                    break;
+                case INT:
+                    out.writeInt((Integer) value);
+                    break;
+                case DATE:
+                    out.writeLong(((LocalDate) value).toEpochDay());
+                    break;
+                case TIME:
+                    out.writeLong(((LocalTime) value).toNanoOfDay());
+                    break;
+                case TIMESTAMP:
+                    LocalDateTime timestamp = (LocalDateTime) value;
+                    out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+                    out.writeInt(timestamp.getNano());
+                    break;
+                case DECIMAL:
+                    writeString(out, ((BigDecimal) value).toPlainString());
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) value);
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) value);
+                    break;
+                default:
+                    writeString(out, (String) value);
+            }
+        }
+
+        private Object read(DataInputStream in) throws IOException {
+            switch (this) {
+                case LONG:
+                    return in.readLong();
+                case INT:
+                    return in.readInt();
+                case DATE:
+                    return LocalDate.ofEpochDay(in.readLong());
+                case TIME:
+                    return LocalTime.ofNanoOfDay(in.readLong());
+                case TIMESTAMP:
+                    return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+                case DECIMAL:
+                    return new BigDecimal(readString(in));
+                case BOOLEAN:
+                    return in.readBoolean();
+                case DOUBLE:
+                    return in.readDouble();
+                default:
+                    return readString(in);
+            }
+        }
+    }
+
+    public record Column(String name, Kind kind) {}
+
+    /**
+     * What was written: row count, compressed size and CRC32 of the file
+     */
+    public record Summary(long rows, long bytes, long crc32) {}
+
+    /**
+     * Columns of a result set, in select order
+     */
+    public static List<Column> columnsOf(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        List<Column> columns = new ArrayList<>(meta.getColumnCount());
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            columns.add(new Column(meta.getColumnLabel(i).toLowerCase(), Kind.of(meta.getColumnType(i))));
+        }
+        return columns;
+    }
+
+    /**
+     * Bind one decoded row to the parameters of an INSERT listing the same columns
+     */
+    public static void bind(PreparedStatement statement, List<Column> columns, Object[] row) throws SQLException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (row[i] == null) {
+                statement.setNull(i + 1, Types.NULL);
+            } else {
+                statement.setObject(i + 1, row[i]);
+            }
+        }
+    }
+
+    /**
+     * CRC32 of a file as stored, read through a direct buffer without decompressing it
+     */
+    public static long checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Streams rows into a new file; close() writes the trailer and returns the summary
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final CheckedOutputStream checked;
+        private final GZIPOutputStream gzip;
+        private final DataOutputStream out;
+        private final List<Column> columns;
+        private long rows;
+        private Summary summary;
+
+        public Writer(Path file, String table, List<Column> columns) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.checked = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32());
+            this.gzip = new GZIPOutputStream(checked, BUFFER_BYTES);
+            this.out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_BYTES));
+            this.columns = List.copyOf(columns);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(table);
+            out.writeInt(columns.size());
+            for (Column column : columns) {
+                out.writeUTF(column.name());
+                out.writeByte(column.kind().ordinal());
+            }
+        }
+
+        /**
+         * Copy the current row of a result set with the columns this file was opened with
+         */
+        public void write(ResultSet rs) throws IOException, SQLException {
+            out.writeByte(1);
+            for (int i = 0; i < columns.size(); i++) {
+                writeValue(columns.get(i).kind(), columns.get(i).kind().read(rs, i + 1));
+            }
+            rows++;
+        }
+
+        public void write(Object[] row) throws IOException {
+            out.writeByte(1);
+            for (int i = 0; i < columns.size(); i++) {
+                writeValue(columns.get(i).kind(), row[i]);
+            }
+            rows++;
+        }
+
+        private void writeValue(Kind kind, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(1);
+                kind.write(out, value);
+            }
+        }
+
+        public Summary summary() {
+            return summary;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (summary != null) {
+                return;
+            }
+            long bytes;
+            try {
+                out.writeByte(0);
+                out.writeLong(rows);
+                out.flush();
+                gzip.finish();
+                checked.flush();
+                channel.force(true);
+                bytes = channel.size();
+            } finally {
+                out.close();
+            }
+            summary = new Summary(rows, bytes, checked.getChecksum().getValue());
+        }
+    }
+
+    /**
+     * Decodes a file row by row
+     */
+    public static final class Reader implements AutoCloseable {
+
+        private final DataInputStream in;
+        private final String table;
+        private final List<Column> columns;
+        private long rows;
+
+        public Reader(Path file) throws IOException {
+            InputStream channelStream = Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ));
+            this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(channelStream, BUFFER_BYTES), BUFFER_BYTES));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                in.close();
+                throw new IOException("Not a table snapshot file: " + file);
+            }
+            this.table = in.readUTF();
+            int count = in.readInt();
+            List<Column> read = new ArrayList<>(count);
+            Kind[] kinds = Kind.values();
+            for (int i = 0; i < count; i++) {
+                read.add(new Column(in.readUTF(), kinds[in.readByte()]));
+            }
+            this.columns = List.copyOf(read);
+        }
+
+        public String table() {
+            return table;
+        }
+
+        public List<Column> columns() {
+            return columns;
+        }
+
+        /**
+         * Next row, or null after the last one (the trailer row count is checked then)
+         */
+        public Object[] next() throws IOException {
+            byte marker = in.readByte();
+            if (marker == 0) {
+                long expected = in.readLong();
+                if (expected != rows) {
+                    throw new IOException("Snapshot of " + table + " is truncated: " + rows + " of " + expected + " rows");
+                }
+                return null;
+            }
+            Object[] row = new Object[columns.size()];
+            for (int i = 0; i < row.length; i++) {
+                if (in.readByte() != 0) {
+                    row[i] = columns.get(i).kind().read(in);
+                }
+            }
+            rows++;
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new EOFException("Corrupt string length " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Snapshot ends inside a value");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
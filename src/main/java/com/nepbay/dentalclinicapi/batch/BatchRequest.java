@@ -0,0 +1,18 @@
+package com.nepbay.dentalclinicapi.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch Request
+ * Body of POST /api/batch: the API requests a screen needs, answered together in one round trip.
+ */
+public record BatchRequest(List<Part> requests) {
+
+    /**
+     * One request of the batch; id (default: its position) labels the matching response,
+     * path may carry a query string, headers and body are optional
+     */
+    public record Part(String id, String method, String path, Map<String, String> headers, JsonNode body) {}
+}
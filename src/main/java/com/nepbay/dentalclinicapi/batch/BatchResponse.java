@@ -0,0 +1,15 @@
+package com.nepbay.dentalclinicapi.batch;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch Response
+ * The responses of a batch in request order; body is the parsed JSON of the response (its text
+ * for other content types). deduplicatedCalls counts repository reads answered from another
+ * request's identical call.
+ */
+public record BatchResponse(List<Part> responses, int deduplicatedCalls) {
+
+    public record Part(String id, int status, Map<String, String> headers, Object body) {}
+}
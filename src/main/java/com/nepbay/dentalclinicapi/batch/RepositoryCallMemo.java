@@ -0,0 +1,87 @@
+package com.nepbay.dentalclinicapi.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Repository Call Memo
+ * Shared by the requests of a batch that run together: the first of several identical repository
+ * reads (same repository, method and arguments) goes to the database, the others wait for and
+ * reuse its result, so widgets that all load today's appointments cost one query. Requests
+ * running at the same time cannot see each other's writes, so a memo only ever spans reads and
+ * a new one is started after every write of the batch.
+ *
+ * Lists are copied per caller, since services sort and filter the lists repositories return.
+ * Entities are not: every caller gets the same instances, bare, in an Optional or inside its list
+ * copy, exactly as NearCache hands them out. That is safe because GET paths treat entities as
+ * read-only (the one exception, the transient noShowRisk set by NoShowScoringService.applyScores,
+ * writes the same value for the same appointment in every request) and entities have no lazy
+ * associations that another thread could initialize through the loading request's session.
+ */
+public class RepositoryCallMemo {
+
+    /**
+     * A repository call that may throw anything the repository throws
+     */
+    @FunctionalInterface
+    public interface Call {
+        Object call() throws Throwable;
+    }
+
+    private static final ThreadLocal<RepositoryCallMemo> CURRENT = new ThreadLocal<>();
+
+    private record Key(Class<?> repository, String method, List<Object> arguments) {}
+
+    private final Map<Key, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger deduplicated = new AtomicInteger();
+
+    /**
+     * Memo of the batch request running on this thread, or null outside a batch
+     */
+    public static RepositoryCallMemo current() {
+        return CURRENT.get();
+    }
+
+    public void bind() {
+        CURRENT.set(this);
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    public Object call(Class<?> repository, String method, Object[] arguments, Call call) throws Throwable {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<Object> existing = calls.putIfAbsent(new Key(repository, method, Arrays.asList(arguments)), result);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+            try {
+                return copyOf(existing.join());
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+        try {
+            Object value = call.call();
+            result.complete(value);
+            return copyOf(value);
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int getDeduplicated() {
+        return deduplicated.get();
+    }
+
+    private static Object copyOf(Object value) {
+        return value instanceof List<?> list ? new ArrayList<>(list) : value;
+    }
+}
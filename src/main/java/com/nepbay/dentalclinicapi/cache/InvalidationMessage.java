@@ -0,0 +1,8 @@
+package com.nepbay.dentalclinicapi.cache;
+
+/**
+ * Invalidation Message
+ * One cache invalidation sent between nodes. A null key clears the whole cache. The sequence is
+ * per origin node and strictly increasing, so receivers can tell when a message went missing.
+ */
+public record InvalidationMessage(String origin, long sequence, String cache, String key) {}
@@ -0,0 +1,28 @@
+package com.nepbay.dentalclinicapi.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Invalidation Transport
+ * Carries invalidation messages between nodes. Delivery is best effort: a lost message is
+ * covered by the near caches' TTL and by the bus's sequence-gap check.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Short name used in logs and stats
+     */
+    String getName();
+
+    /**
+     * Start receiving; messages from other nodes (and possibly this one) are passed to the receiver
+     */
+    void start(Consumer<InvalidationMessage> receiver);
+
+    /**
+     * Send a message to every other node
+     */
+    void publish(InvalidationMessage message);
+
+    void close();
+}
@@ -0,0 +1,53 @@
+package com.nepbay.dentalclinicapi.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Local Invalidation Hub
+ * In-JVM transport: every application context in the same JVM that joins the same channel
+ * receives the others' messages synchronously. Used for single-node runs and for tests that
+ * start several app instances side by side.
+ */
+public class LocalInvalidationHub implements InvalidationTransport {
+
+    private static final Map<String, List<LocalInvalidationHub>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private volatile Consumer<InvalidationMessage> receiver;
+
+    public LocalInvalidationHub(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public String getName() {
+        return "local:" + channel;
+    }
+
+    @Override
+    public void start(Consumer<InvalidationMessage> receiver) {
+        this.receiver = receiver;
+        CHANNELS.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(this);
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        for (LocalInvalidationHub member : CHANNELS.getOrDefault(channel, List.of())) {
+            if (member != this && member.receiver != null) {
+                member.receiver.accept(message);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        List<LocalInvalidationHub> members = CHANNELS.get(channel);
+        if (members != null) {
+            members.remove(this);
+        }
+    }
+}
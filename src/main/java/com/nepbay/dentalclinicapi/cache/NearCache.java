@@ -0,0 +1,104 @@
+package com.nepbay.dentalclinicapi.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Near Cache
+ * Small per-node cache in front of the database. Entries expire after a fixed TTL, which bounds
+ * staleness even if an invalidation from another node is lost; invalidations normally remove
+ * them much sooner. Cached values are shared between requests and must be treated as read-only.
+ *
+ * A load that was running when an invalidation arrived is not cached: every invalidation bumps
+ * the cache generation, and a loaded value is only stored if the generation is unchanged.
+ */
+public class NearCache<V> {
+
+    private final String name;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    public NearCache(String name, long ttlMillis, int maxEntries) {
+        this.name = name;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Cached value for the key, or the loader's result (null results are not cached)
+     */
+    public V get(Object key, Supplier<V> loader) {
+        String cacheKey = String.valueOf(key);
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(cacheKey);
+        if (entry != null && now - entry.expiresAt() < 0) {
+            hits.incrementAndGet();
+            return entry.value();
+        }
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        V value = loader.get();
+        if (value != null && ttlNanos > 0) {
+            if (entries.size() >= maxEntries) {
+                evict(now);
+            }
+            entries.put(cacheKey, new Entry<>(value, now + ttlNanos));
+            // Drop it again if an invalidation raced with the load
+            if (generation.get() != loadGeneration) {
+                entries.remove(cacheKey);
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(String key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+        invalidations.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("ttlMs", ttlNanos / 1_000_000L);
+        return stats;
+    }
+
+    /**
+     * Make room: drop expired entries, and if that is not enough, an arbitrary tenth of the rest
+     */
+    private void evict(long now) {
+        entries.values().removeIf(entry -> now - entry.expiresAt() >= 0);
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
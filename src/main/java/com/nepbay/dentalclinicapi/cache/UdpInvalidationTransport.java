@@ -0,0 +1,153 @@
+package com.nepbay.dentalclinicapi.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * UDP Invalidation Transport
+ * Sends each message as one datagram to a fixed list of peers (host:port) and listens on its own
+ * port. No broker to run; messages are small and fire-and-forget, which suits invalidations.
+ */
+public class UdpInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(UdpInvalidationTransport.class);
+
+    private static final int MAGIC = 0x43494E56; // "CINV"
+    private static final int MAX_DATAGRAM = 1400;
+
+    private final int port;
+    private final List<InetSocketAddress> peers;
+    private DatagramChannel channel;
+    private Thread listener;
+
+    public UdpInvalidationTransport(int port, List<InetSocketAddress> peers) {
+        this.port = port;
+        this.peers = peers;
+    }
+
+    /**
+     * Parse "host:port,host:port" into peer addresses
+     */
+    public static List<InetSocketAddress> parsePeers(String peers) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        if (peers == null || peers.isBlank()) {
+            return addresses;
+        }
+        for (String peer : peers.split(",")) {
+            String trimmed = peer.trim();
+            int colon = trimmed.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid cache bus peer (expected host:port): " + trimmed);
+            }
+            addresses.add(new InetSocketAddress(trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1))));
+        }
+        return addresses;
+    }
+
+    @Override
+    public String getName() {
+        return "udp:" + port;
+    }
+
+    @Override
+    public void start(Consumer<InvalidationMessage> receiver) {
+        try {
+            channel = DatagramChannel.open();
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not bind cache invalidation port " + port, e);
+        }
+        listener = new Thread(() -> receive(receiver), "cache-invalidation-udp");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        ByteBuffer datagram = ByteBuffer.wrap(encode(message));
+        for (InetSocketAddress peer : peers) {
+            try {
+                channel.send(datagram.rewind(), peer);
+            } catch (IOException e) {
+                // The peer's TTL bounds how stale it can get without this message
+                log.debug("Could not send cache invalidation to {}: {}", peer, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.debug("Error closing cache invalidation channel", e);
+        }
+    }
+
+    private void receive(Consumer<InvalidationMessage> receiver) {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+                InvalidationMessage message = decode(buffer);
+                if (message != null) {
+                    receiver.accept(message);
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Dropped malformed cache invalidation datagram: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static byte[] encode(InvalidationMessage message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeUTF(message.origin());
+            out.writeLong(message.sequence());
+            out.writeUTF(message.cache());
+            out.writeBoolean(message.key() != null);
+            if (message.key() != null) {
+                out.writeUTF(message.key());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static InvalidationMessage decode(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) {
+            return null;
+        }
+        String origin = in.readUTF();
+        long sequence = in.readLong();
+        String cache = in.readUTF();
+        String key = in.readBoolean() ? in.readUTF() : null;
+        return new InvalidationMessage(origin, sequence, cache, key);
+    }
+}
@@ -0,0 +1,35 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.nepbay.dentalclinicapi.batch.RepositoryCallMemo;
+import com.nepbay.dentalclinicapi.service.DatabaseGuard.Operation;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Batch Memo Aspect
+ * Answers identical repository reads made by the requests of one batch (see BatchService) from a
+ * single call. Ordered ahead of the DatabaseGuard, so a deduplicated read takes no bulkhead permit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BatchMemoAspect {
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object deduplicate(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallMemo memo = RepositoryCallMemo.current();
+        String method = joinPoint.getSignature().getName();
+        if (memo == null || DatabaseGuardAspect.classify(method) == Operation.WRITE) {
+            return joinPoint.proceed();
+        }
+        // Keyed by the repository interface: findById of two repositories are different calls
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getTarget());
+        Class<?> repository = interfaces.length > 0 ? interfaces[0] : joinPoint.getTarget().getClass();
+        return memo.call(repository, method, joinPoint.getArgs(), joinPoint::proceed);
+    }
+}
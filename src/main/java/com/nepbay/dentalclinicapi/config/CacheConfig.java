@@ -0,0 +1,34 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.nepbay.dentalclinicapi.cache.NearCache;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.service.CacheInvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache Configuration
+ * Per-node near caches for single-entity reads, registered with the invalidation bus.
+ * The TTL is the worst-case staleness when an invalidation from another node is lost.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Value("${clinic.cache.ttl-ms:10000}")
+    private long ttlMillis;
+
+    @Value("${clinic.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Bean
+    public NearCache<Patient> patientCache(CacheInvalidationBus bus) {
+        return bus.register(new NearCache<>(CacheInvalidationBus.PATIENTS, ttlMillis, maxEntries));
+    }
+
+    @Bean
+    public NearCache<Appointment> appointmentCache(CacheInvalidationBus bus) {
+        return bus.register(new NearCache<>(CacheInvalidationBus.APPOINTMENTS, ttlMillis, maxEntries));
+    }
+}
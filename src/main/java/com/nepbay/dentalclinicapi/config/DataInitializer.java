@@ -6,9 +6,11 @@ import com.nepbay.dentalclinicapi.repository.PatientRepository;
 import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Arrays;
 
 /**
  * Data Initializer
@@ -16,6 +18,7 @@ import java.time.LocalTime;
  * Created by: Nepbay on 2025-08-26 12:12:48 UTC
  */
 @Component
+@Order(1)
 public class DataInitializer implements CommandLineRunner {
     
     @Autowired
@@ -24,8 +27,15 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private AppointmentRepository appointmentRepository;
     
+    @Autowired
+    private StartupSeeding startupSeeding;
+    
     @Override
     public void run(String... args) throws Exception {
+        startupSeeding.submit("sample-data", this::seed);
+    }
+    
+    private void seed() {
         if (patientRepository.count() == 0) {
             System.out.println("🔄 Adding sample data to dental clinic database...");
             
@@ -41,10 +51,8 @@ public class DataInitializer implements CommandLineRunner {
                 new Patient("Mehmet Özkan", "0555-876-5432", "mehmet.ozkan@email.com", "876 Spruce Ave, Konya")
             };
             
-            // Save patients
-            for (Patient patient : patients) {
-                patientRepository.save(patient);
-            }
+            // Save patients in one batch
+            patientRepository.saveAll(Arrays.asList(patients));
             
             // Create sample appointments
             Appointment[] appointments = {
@@ -60,10 +68,8 @@ public class DataInitializer implements CommandLineRunner {
                 new Appointment("Jane Smith", LocalDate.now().plusDays(8), LocalTime.of(16, 0), "Teeth Whitening")
             };
             
-            // Save appointments
-            for (Appointment appointment : appointments) {
-                appointmentRepository.save(appointment);
-            }
+            // Save appointments in one batch
+            appointmentRepository.saveAll(Arrays.asList(appointments));
             
             System.out.println("✅ Sample data added successfully!");
             System.out.println("👥 Patients: " + patientRepository.count());
@@ -0,0 +1,53 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.nepbay.dentalclinicapi.service.DatabaseGuard;
+import com.nepbay.dentalclinicapi.service.DatabaseGuard.Operation;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Database Guard Aspect
+ * Routes every Spring Data repository call through the DatabaseGuard, classified by the method
+ * name: writes (save, delete, update and the bulk link/assign queries), searches (name
+ * fragments), dashboard aggregates (counts and sums) and plain reads.
+ */
+@Aspect
+@Component
+public class DatabaseGuardAspect {
+
+    private static final String[] WRITE_PREFIXES = {"save", "delete", "update", "insert", "assign", "link", "mark", "remove", "flush"};
+    private static final String[] AGGREGATE_PREFIXES = {"count", "sum", "avg"};
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object guard(ProceedingJoinPoint joinPoint) throws Throwable {
+        return databaseGuard.execute(classify(joinPoint.getSignature().getName()), joinPoint::proceed);
+    }
+
+    static Operation classify(String method) {
+        if (startsWithAny(method, WRITE_PREFIXES)) {
+            return Operation.WRITE;
+        }
+        if (method.startsWith("search") || method.contains("Containing") || method.contains("Like")) {
+            return Operation.SEARCH;
+        }
+        if (startsWithAny(method, AGGREGATE_PREFIXES)) {
+            return Operation.DASHBOARD;
+        }
+        return Operation.READ;
+    }
+
+    private static boolean startsWithAny(String method, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (method.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
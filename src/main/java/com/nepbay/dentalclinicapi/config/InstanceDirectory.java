@@ -0,0 +1,42 @@
+package com.nepbay.dentalclinicapi.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Instance Directory
+ * Scratch directory owned by one running instance, for the files of the audit log and search index
+ * when no directory is configured. Outside the durable profile the database lives in memory, so
+ * nothing on disk may outlive the process or be shared with another instance on the same host:
+ * the directory gets a unique name under java.io.tmpdir and is deleted at shutdown.
+ */
+public final class InstanceDirectory {
+
+    private InstanceDirectory() {}
+
+    /**
+     * A new, empty directory for this instance
+     */
+    public static Path create(String purpose) throws IOException {
+        return Files.createTempDirectory("dental-clinic-" + purpose + "-");
+    }
+
+    /**
+     * Delete a directory created by create() and everything in it
+     */
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            List<Path> sorted = paths.sorted(Comparator.reverseOrder()).toList();
+            for (Path path : sorted) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.nepbay.dentalclinicapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load Scenario Runner
+ * Drives scripted clinic workloads against this in-process server once it is ready and
+ * reports throughput and latency percentiles per operation. Enable with e.g.
+ *   --clinic.load.scenario=morning-rush --clinic.load.duration-seconds=60 --clinic.load.concurrency=16
+ * Scenarios: morning-rush (reception), dashboard-polling (wall screens), end-of-day (closing),
+ * dashboard-polling-v2 (the same polling against the reactive /api/v2 endpoints) and v1-vs-v2,
+ * which runs both polling scenarios back to back and reports the peak JVM thread count of each.
+ * Combine with clinic.synthetic.enabled=true to run against production-sized data.
+ * The report names the active profiles; scripts/profile-benchmark.sh runs the same scenario under
+ * the default and the prod configuration and compares their throughput.
+ */
+@Component
+@ConditionalOnProperty(name = "clinic.load.scenario")
+public class LoadScenarioRunner implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadScenarioRunner.class);
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\":(\\d+)");
+
+    @Value("${clinic.load.scenario}")
+    private String scenario;
+
+    @Value("${clinic.load.duration-seconds:30}")
+    private int durationSeconds;
+
+    @Value("${clinic.load.concurrency:8}")
+    private int concurrency;
+
+    @Value("${clinic.load.exit-on-finish:false}")
+    private boolean exitOnFinish;
+
+    private final Environment environment;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+
+    private final AtomicLong phoneCounter = new AtomicLong(System.currentTimeMillis() % 1_000_000_000L);
+
+    private volatile String baseUrl;
+
+    private volatile List<Long> todayIds = List.of();
+
+    public LoadScenarioRunner(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        baseUrl = "http://localhost:" + environment.getProperty("local.server.port");
+        Thread runner = new Thread(this::runScenario, "load-scenario");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    private void runScenario() {
+        refreshTodayIds();
+        if ("v1-vs-v2".equals(scenario)) {
+            runPhase("dashboard-polling");
+            runPhase("dashboard-polling-v2");
+        } else {
+            runPhase(scenario);
+        }
+
+        if (exitOnFinish) {
+            System.exit(0);
+        }
+    }
+
+    private void runPhase(String name) {
+        List<WeightedOperation> operations = operationsFor(name);
+        int totalWeight = operations.stream().mapToInt(WeightedOperation::weight).sum();
+        stats.clear();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        log.info("Load scenario '{}' starting: {} workers for {} s against {}", name, concurrency, durationSeconds, baseUrl);
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+                        for (WeightedOperation operation : operations) {
+                            roll -= operation.weight();
+                            if (roll < 0) {
+                                execute(operation);
+                                break;
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        report(name, (System.nanoTime() - start) / 1_000_000_000.0, threads.getPeakThreadCount());
+    }
+
+    private List<WeightedOperation> operationsFor(String name) {
+        switch (name) {
+            case "morning-rush":
+                return List.of(
+                    new WeightedOperation("GET /api/appointments/today", 35, () -> get("/api/appointments/today")),
+                    new WeightedOperation("POST /api/patients", 10, this::createPatient),
+                    new WeightedOperation("POST /api/appointments", 20, this::createAppointment),
+                    new WeightedOperation("PATCH status CONFIRMED/IN_PROGRESS", 20,
+                        () -> patchStatus(ThreadLocalRandom.current().nextBoolean() ? "CONFIRMED" : "IN_PROGRESS")),
+                    new WeightedOperation("GET /api/patients/search", 15, () -> get("/api/patients/search?name=" + randomSearchTerm())));
+            case "dashboard-polling":
+                return List.of(
+                    new WeightedOperation("GET /api/dashboard/quick-stats", 40, () -> get("/api/dashboard/quick-stats")),
+                    new WeightedOperation("GET /api/dashboard/stats", 20, () -> get("/api/dashboard/stats")),
+                    new WeightedOperation("GET /api/dashboard/recent-activity", 20, () -> get("/api/dashboard/recent-activity")),
+                    new WeightedOperation("GET /api/appointments/today", 20, () -> get("/api/appointments/today")));
+            case "dashboard-polling-v2":
+                return List.of(
+                    new WeightedOperation("GET /api/v2/dashboard/stats", 60, () -> get("/api/v2/dashboard/stats")),
+                    new WeightedOperation("GET /api/v2/appointments/upcoming (ndjson)", 20,
+                        () -> getStream("/api/v2/appointments/upcoming")),
+                    new WeightedOperation("GET /api/v2/appointments/today", 20, () -> get("/api/v2/appointments/today")));
+            case "end-of-day":
+                return List.of(
+                    new WeightedOperation("PATCH status COMPLETED/NO_SHOW", 50,
+                        () -> patchStatus(ThreadLocalRandom.current().nextInt(10) == 0 ? "NO_SHOW" : "COMPLETED")),
+                    new WeightedOperation("GET /api/appointments/today", 20, () -> get("/api/appointments/today")),
+                    new WeightedOperation("GET /api/dashboard/stats", 15, () -> get("/api/dashboard/stats")),
+                    new WeightedOperation("GET /api/appointments/month", 15, () -> get("/api/appointments/month")));
+            default:
+                throw new IllegalArgumentException("Unknown load scenario: " + name
+                    + " (expected morning-rush, dashboard-polling, dashboard-polling-v2, v1-vs-v2 or end-of-day)");
+        }
+    }
+
+    private void execute(WeightedOperation operation) {
+        OperationStats operationStats = stats.computeIfAbsent(operation.name(), key -> new OperationStats());
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = operation.action().call();
+        } catch (Exception e) {
+            ok = false;
+        }
+        operationStats.record(System.nanoTime() - start, ok);
+    }
+
+    private boolean get(String path) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET());
+        return response.statusCode() < 400;
+    }
+
+    private boolean getStream(String path) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/x-ndjson")
+                .GET());
+        return response.statusCode() < 400;
+    }
+
+    private boolean createPatient() throws Exception {
+        long n = phoneCounter.incrementAndGet() % 1_000_000_000L;
+        String body = String.format("{\"name\":\"Load Test %d\",\"phone\":\"0599%09d\"}", n, n);
+        return post("/api/patients", body);
+    }
+
+    private boolean createAppointment() throws Exception {
+        int minutes = ThreadLocalRandom.current().nextInt(18) * 30;
+        String time = String.format("%02d:%02d:00", 9 + minutes / 60, minutes % 60);
+        String body = String.format("{\"patientName\":\"Load Test\",\"appointmentDate\":\"%s\",\"appointmentTime\":\"%s\"}",
+                LocalDate.now(), time);
+        boolean ok = post("/api/appointments", body);
+        if (ThreadLocalRandom.current().nextInt(20) == 0) {
+            refreshTodayIds();
+        }
+        return ok;
+    }
+
+    private boolean patchStatus(String status) throws Exception {
+        List<Long> ids = todayIds;
+        if (ids.isEmpty()) {
+            return get("/api/appointments/today");
+        }
+        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/appointments/" + id + "/status?status=" + status))
+                .method("PATCH", HttpRequest.BodyPublishers.noBody()));
+        return response.statusCode() < 400;
+    }
+
+    private boolean post(String path, String json) throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+        return response.statusCode() < 400;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void refreshTodayIds() {
+        try {
+            String body = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/appointments/today")).GET()).body();
+            List<Long> ids = new ArrayList<>();
+            Matcher matcher = ID_PATTERN.matcher(body);
+            while (matcher.find()) {
+                ids.add(Long.parseLong(matcher.group(1)));
+            }
+            todayIds = ids;
+        } catch (Exception e) {
+            log.debug("Could not refresh today's appointment ids: {}", e.getMessage());
+        }
+    }
+
+    private static String randomSearchTerm() {
+        String[] terms = {"Ahmet", "Yılmaz", "Kaya", "Ayşe", "Demir", "John", "Fatma", "Özkan"};
+        return URLEncoder.encode(terms[ThreadLocalRandom.current().nextInt(terms.length)], StandardCharsets.UTF_8);
+    }
+
+    private void report(String name, double seconds, int peakThreads) {
+        StringBuilder out = new StringBuilder();
+        String[] profiles = environment.getActiveProfiles();
+        out.append(String.format("%nLoad scenario '%s' finished in %.1f s (profiles %s, %d workers, peak JVM threads %d)%n",
+                name, seconds, profiles.length == 0 ? "default" : String.join(",", profiles), concurrency, peakThreads));
+        out.append(String.format("%-42s %9s %7s %9s %9s %9s %9s%n", "operation", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms"));
+        long totalRequests = 0;
+        Map<String, OperationStats> sorted = new LinkedHashMap<>();
+        stats.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        for (Map.Entry<String, OperationStats> entry : sorted.entrySet()) {
+            long[] latencies = entry.getValue().sortedLatencies();
+            totalRequests += latencies.length;
+            out.append(String.format("%-42s %9d %7d %9.1f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), latencies.length, entry.getValue().errors.get(), latencies.length / seconds,
+                    percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99)));
+        }
+        out.append(String.format("Total: %d requests, %.1f req/s", totalRequests, totalRequests / seconds));
+        log.info(out.toString());
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1_000_000.0;
+    }
+
+    private record WeightedOperation(String name, int weight, Callable<Boolean> action) {}
+
+    private static class OperationStats {
+        private final List<Long> latencies = new ArrayList<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        synchronized void record(long nanos, boolean ok) {
+            latencies.add(nanos);
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+
+        synchronized long[] sortedLatencies() {
+            long[] values = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(values);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nepbay.dentalclinicapi.config;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import java.time.Duration;
+
+/**
+ * Reactive Data Configuration
+ * R2DBC access to the same H2 database the JPA stack uses, for the read-only /api/v2 endpoints.
+ * The connection pool (itself a ConnectionFactory) is deliberately not a bean: Boot's DataSource
+ * auto-configuration backs off when one exists, and R2dbcAutoConfiguration is excluded for the
+ * same reason (see application.properties). Only the DatabaseClient is a bean.
+ */
+@Configuration
+public class ReactiveDataConfig implements DisposableBean {
+
+    private static final String JDBC_PREFIX = "jdbc:h2:";
+
+    @Value("${spring.datasource.url}")
+    private String jdbcUrl;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Value("${clinic.reactive.pool-size:8}")
+    private int poolSize;
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        connectionPool = createConnectionPool();
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    private ConnectionPool createConnectionPool() {
+        if (!jdbcUrl.startsWith(JDBC_PREFIX)) {
+            throw new IllegalStateException("The reactive API only supports H2, not " + jdbcUrl);
+        }
+        // Same URL as the JDBC pool, so both stacks open the same in-process database
+        H2ConnectionFactory factory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(jdbcUrl.substring(JDBC_PREFIX.length()))
+                .username(username)
+                .password(password)
+                .build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(factory)
+                .initialSize(1)
+                .maxSize(poolSize)
+                .maxIdleTime(Duration.ofMinutes(10))
+                .build());
+    }
+}
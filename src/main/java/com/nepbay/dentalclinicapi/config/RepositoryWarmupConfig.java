@@ -0,0 +1,54 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.repository.PatientRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Repository Warm-up Configuration
+ * Runs the dashboard queries once at startup so Hibernate query plans are compiled
+ * and the H2 page cache holds the table and index pages before the first request
+ */
+@Configuration
+public class RepositoryWarmupConfig {
+
+    @Bean
+    public WarmupTask patientRepositoryWarmup(PatientRepository patientRepository) {
+        return new WarmupTask() {
+            @Override
+            public String getName() {
+                return "patient-queries";
+            }
+
+            @Override
+            public void warmUp() {
+                patientRepository.countTotalPatients();
+                patientRepository.findRecentPatients();
+                patientRepository.existsByPhone("");
+                patientRepository.existsByEmail("");
+            }
+        };
+    }
+
+    @Bean
+    public WarmupTask appointmentRepositoryWarmup(AppointmentRepository appointmentRepository) {
+        return new WarmupTask() {
+            @Override
+            public String getName() {
+                return "appointment-queries";
+            }
+
+            @Override
+            public void warmUp() {
+                appointmentRepository.countTotalAppointments();
+                for (AppointmentStatus status : AppointmentStatus.values()) {
+                    appointmentRepository.countByStatus(status);
+                }
+                appointmentRepository.findTodayAppointments();
+                appointmentRepository.findRecentAppointments();
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.nepbay.dentalclinicapi.service.SlowQueryService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Slow Query Aspect
+ * Marks the calls the slow query log is kept for: the public methods of AppointmentService and
+ * PatientService and every Spring Data repository method. Nested calls (a service calling a
+ * repository) are reported as part of the outermost one.
+ */
+@Aspect
+@Component
+public class SlowQueryAspect {
+
+    @Autowired
+    private SlowQueryService slowQueryService;
+
+    @Around("execution(public * com.nepbay.dentalclinicapi.service.AppointmentService.*(..))"
+            + " || execution(public * com.nepbay.dentalclinicapi.service.PatientService.*(..))"
+            + " || target(org.springframework.data.repository.Repository)")
+    public Object monitor(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!slowQueryService.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        slowQueryService.enterCall(ownerName(joinPoint) + "." + joinPoint.getSignature().getName());
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            slowQueryService.exitCall(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The repository interface rather than CrudRepository or JpaRepository for inherited methods
+     */
+    private static String ownerName(ProceedingJoinPoint joinPoint) {
+        if (joinPoint.getTarget() instanceof Repository<?, ?> repository) {
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(repository);
+            if (interfaces.length > 0) {
+                return interfaces[0].getSimpleName();
+            }
+        }
+        return joinPoint.getSignature().getDeclaringType().getSimpleName();
+    }
+}
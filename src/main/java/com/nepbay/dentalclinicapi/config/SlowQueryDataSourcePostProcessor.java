@@ -0,0 +1,181 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.nepbay.dentalclinicapi.diagnostics.CapturedStatement;
+import com.nepbay.dentalclinicapi.service.SlowQueryService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Slow Query DataSource Post Processor
+ * Wraps the application DataSource so every statement is timed and its bind values, row count
+ * and calling service method are handed to the SlowQueryService. Capturing at the JDBC level
+ * (like the query budget tests do) also covers the JdbcTemplate queries of the search, duplicate
+ * and timeline code. Result sets are only wrapped inside a monitored call, so reads elsewhere
+ * pay for two nanoTime calls per statement and nothing per row.
+ */
+@Component
+public class SlowQueryDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final Environment environment;
+    private final ObjectProvider<SlowQueryService> slowQueryServiceProvider;
+    private volatile SlowQueryService slowQueryService;
+
+    public SlowQueryDataSourcePostProcessor(Environment environment, ObjectProvider<SlowQueryService> slowQueryServiceProvider) {
+        this.environment = environment;
+        this.slowQueryServiceProvider = slowQueryServiceProvider;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource) || !environment.getProperty("clinic.diagnostics.enabled", Boolean.class, true)) {
+            return bean;
+        }
+        return proxy(bean, invocation -> {
+            Object result = invocation.proceed();
+            return result instanceof Connection ? capturingConnection(result) : result;
+        });
+    }
+
+    /**
+     * The service is looked up on first use: it needs a JdbcTemplate, which needs this DataSource
+     */
+    private SlowQueryService slowQueryService() {
+        SlowQueryService service = slowQueryService;
+        if (service == null) {
+            service = slowQueryServiceProvider.getIfAvailable();
+            slowQueryService = service;
+        }
+        return service;
+    }
+
+    private Object capturingConnection(Object connection) {
+        return proxy(connection, invocation -> {
+            Object result = invocation.proceed();
+            SlowQueryService service = slowQueryService();
+            if (service == null) {
+                return result;
+            }
+            String name = invocation.getMethod().getName();
+            if ((name.equals("prepareStatement") || name.equals("prepareCall")) && result instanceof PreparedStatement
+                    && invocation.getArguments()[0] instanceof String sql) {
+                return capturingStatement(result, service, new CapturedStatement(sql, service.currentMethod()));
+            }
+            if (name.equals("createStatement") && result instanceof Statement) {
+                return capturingStatement(result, service, null);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * A prepared statement starts with its capture; a plain statement gets one per execute(sql)
+     */
+    private static Object capturingStatement(Object statement, SlowQueryService service, CapturedStatement prepared) {
+        CapturedStatement[] current = {prepared};
+        return proxy(statement, invocation -> {
+            String name = invocation.getMethod().getName();
+            Object[] arguments = invocation.getArguments();
+            if (name.startsWith("set") && arguments.length >= 2 && arguments[0] instanceof Integer index) {
+                if (current[0] != null) {
+                    if (current[0].isCompleted()) {
+                        current[0] = current[0].reuse(service.currentMethod());
+                    }
+                    current[0].bind(index, name.equals("setNull") ? null : arguments[1]);
+                }
+                return invocation.proceed();
+            }
+            if (name.equals("addBatch")) {
+                if (arguments.length > 0 && arguments[0] instanceof String sql && (current[0] == null || !current[0].getSql().equals(sql))) {
+                    current[0] = new CapturedStatement(sql, service.currentMethod());
+                }
+                if (current[0] != null) {
+                    current[0].addBatch();
+                }
+                return invocation.proceed();
+            }
+            if (name.equals("close")) {
+                if (current[0] != null) {
+                    service.statementCompleted(current[0]);
+                }
+                return invocation.proceed();
+            }
+            if (!name.startsWith("execute")) {
+                return invocation.proceed();
+            }
+            if (arguments.length > 0 && arguments[0] instanceof String sql) {
+                current[0] = new CapturedStatement(sql, service.currentMethod());
+            } else if (current[0] != null && current[0].isCompleted()) {
+                current[0] = current[0].reuse(service.currentMethod());
+            }
+            CapturedStatement captured = current[0];
+            if (captured == null) {
+                return invocation.proceed();
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invocation.proceed();
+            } finally {
+                captured.executed(System.nanoTime() - start);
+            }
+            if (result instanceof ResultSet && service.isTracing()) {
+                return countingResultSet(result, service, captured);
+            }
+            if (result instanceof Integer count) {
+                captured.updated(count);
+            } else if (result instanceof Long count) {
+                captured.updated(count);
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    captured.updated(count);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    captured.updated(count);
+                }
+            }
+            service.statementCompleted(captured);
+            return result;
+        });
+    }
+
+    /**
+     * Counts rows and adds the time spent fetching them; the statement completes when the result set is closed
+     */
+    private static Object countingResultSet(Object resultSet, SlowQueryService service, CapturedStatement captured) {
+        return proxy(resultSet, invocation -> {
+            String name = invocation.getMethod().getName();
+            if (name.equals("next")) {
+                long start = System.nanoTime();
+                Object result = invocation.proceed();
+                captured.executed(System.nanoTime() - start);
+                if (Boolean.TRUE.equals(result)) {
+                    captured.rowRead();
+                } else {
+                    captured.noRows();
+                }
+                return result;
+            }
+            if (name.equals("close")) {
+                captured.noRows();
+                service.statementCompleted(captured);
+            }
+            return invocation.proceed();
+        });
+    }
+
+    private static Object proxy(Object target, MethodInterceptor interceptor) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addAdvice(interceptor);
+        return factory.getProxy();
+    }
+}
@@ -0,0 +1,77 @@
+package com.nepbay.dentalclinicapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Startup Seeding
+ * Runs the data seeding steps (sample data, synthetic data) in order. With clinic.seed.async=true
+ * they run on a background thread instead of blocking startup, so a new node serves health checks
+ * and requests at once; the warm-up tasks, which build their state from the data, follow the seeding
+ * and the node only reports ready for traffic when both are done.
+ */
+@Component
+public class StartupSeeding {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupSeeding.class);
+
+    /**
+     * One seeding step (a CommandLineRunner body)
+     */
+    @FunctionalInterface
+    public interface SeedStep {
+        void run() throws Exception;
+    }
+
+    @Value("${clinic.seed.async:false}")
+    private boolean async;
+
+    private ExecutorService executor;
+    private CompletableFuture<Void> seeded = CompletableFuture.completedFuture(null);
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Run a seeding step now, or queue it behind the previous ones when seeding is asynchronous
+     */
+    public synchronized void submit(String name, SeedStep step) throws Exception {
+        if (!async) {
+            step.run();
+            return;
+        }
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "data-seeder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        seeded = seeded.thenRunAsync(() -> runStep(name, step), executor);
+    }
+
+    /**
+     * Completes once every submitted step has run (immediately when seeding is synchronous)
+     */
+    public synchronized CompletableFuture<Void> whenSeeded() {
+        return seeded;
+    }
+
+    private static void runStep(String name, SeedStep step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+            log.info("Seeding step '{}' finished in {} ms", name, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Seeding step '{}' failed", name, e);
+            throw new CompletionException(e);
+        }
+    }
+}
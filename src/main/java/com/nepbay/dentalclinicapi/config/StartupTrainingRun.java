@@ -0,0 +1,45 @@
+package com.nepbay.dentalclinicapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Startup Training Run
+ * With clinic.startup.training-run=true the application shuts down as soon as it is ready (after
+ * seeding and warm-up). The cds build profile runs it once with -XX:ArchiveClassesAtExit to record
+ * a Class Data Sharing archive of every class loaded during startup.
+ * Checked at runtime rather than with @ConditionalOnProperty, which AOT processing would fix at build time.
+ */
+@Component
+public class StartupTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTrainingRun.class);
+
+    @Autowired
+    private StartupSeeding startupSeeding;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Value("${clinic.startup.training-run:false}")
+    private boolean trainingRun;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!trainingRun) {
+            return;
+        }
+        startupSeeding.whenSeeded().handle((result, error) -> {
+            log.info("Training run finished, shutting down");
+            System.exit(SpringApplication.exit(context));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.nepbay.dentalclinicapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Startup Warmer
+ * Runs every WarmupTask in parallel after the data is in place and before
+ * the application reports ready, so the first requests after a restart hit warm state.
+ * When seeding is asynchronous (clinic.seed.async) the warm-up follows it in the background,
+ * and readiness (/actuator/health/readiness) stays REFUSING_TRAFFIC until it has finished.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class StartupWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmer.class);
+
+    @Autowired
+    private List<WarmupTask> tasks;
+
+    @Autowired
+    private StartupSeeding startupSeeding;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${clinic.warmup.enabled:true}")
+    private boolean enabled;
+
+    private volatile boolean warm;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!startupSeeding.isAsync()) {
+            warmUp();
+            warm = true;
+            return;
+        }
+        startupSeeding.whenSeeded().handle((result, error) -> {
+            try {
+                warmUp();
+            } catch (Exception e) {
+                log.warn("Warm-up failed: {}", e.getMessage());
+            }
+            markReady();
+            return null;
+        });
+    }
+
+    /**
+     * Hold readiness back while background seeding and warm-up are still running
+     */
+    @EventListener
+    public synchronized void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !warm) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+
+    private synchronized void markReady() {
+        warm = true;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    private void warmUp() throws Exception {
+        if (!enabled || tasks.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (WarmupTask task : tasks) {
+                futures.add(executor.submit(() -> runTask(task)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        log.info("Warm-up of {} tasks finished in {} ms", tasks.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void runTask(WarmupTask task) {
+        long start = System.nanoTime();
+        try {
+            task.warmUp();
+            log.debug("Warm-up task '{}' took {} ms", task.getName(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // A cold cache is slower, not wrong: never fail startup over warm-up
+            log.warn("Warm-up task '{}' failed: {}", task.getName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.PatientMatching;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Synthetic Data Generator
+ * Fills the database with realistic volumes of patients and appointments for load testing.
+ * Runs after DataInitializer when clinic.synthetic.enabled=true, e.g.
+ *   --clinic.synthetic.enabled=true --clinic.synthetic.patients=1000000
+ * Rows are written with parallel JDBC batch inserts; the output is reproducible for a given seed.
+ * A rerun against a database that already holds patients only tops it up to the requested count.
+ * Phone numbers and emails are derived from the reserved patient ids, so they never collide with
+ * rows from an earlier run, and appointments carry the patient_id of the patient they were made for.
+ */
+@Component
+@Order(2)
+@ConditionalOnProperty(name = "clinic.synthetic.enabled", havingValue = "true")
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final String[] FIRST_NAMES = {
+        "Ahmet", "Mehmet", "Ayşe", "Fatma", "Mustafa", "Emine", "Ali", "Hatice", "Hüseyin", "Zeynep",
+        "Elif", "İbrahim", "Murat", "Özlem", "Can", "Deniz", "Şule", "Çağla", "Gül", "Burak",
+        "Emre", "Ebru", "Hakan", "Sibel", "Yusuf", "Merve", "Oğuz", "Esra", "Kemal", "Derya",
+        "John", "Jane", "Mike", "Sarah", "David", "Emma", "Daniel", "Laura"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Yılmaz", "Kaya", "Demir", "Şahin", "Çelik", "Yıldız", "Yıldırım", "Öztürk", "Aydın", "Özdemir",
+        "Arslan", "Doğan", "Kılıç", "Aslan", "Çetin", "Kara", "Koç", "Kurt", "Özkan", "Şimşek",
+        "Polat", "Korkmaz", "Erdoğan", "Güneş", "Aksoy",
+        "Doe", "Smith", "Johnson", "Wilson", "Brown", "Taylor"
+    };
+
+    private static final String[] CITIES = {
+        "Istanbul", "Ankara", "Izmir", "Bursa", "Antalya", "Adana", "Gaziantep", "Konya", "Kayseri", "Eskişehir"
+    };
+
+    // Treatments ordered by how often they are booked
+    private static final String[] TREATMENTS = {
+        "Regular Checkup", "Teeth Cleaning", "General Consultation", "Tooth Filling", "Follow-up Checkup",
+        "Root Canal", "Teeth Whitening", "Orthodontic Consultation", "Periodontal Treatment",
+        "Wisdom Tooth Extraction", "Dental Implant Consultation", "Crown Placement"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${clinic.synthetic.patients:100000}")
+    private int patientCount;
+
+    @Value("${clinic.synthetic.appointments-per-patient:4}")
+    private int appointmentsPerPatient;
+
+    @Value("${clinic.synthetic.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${clinic.synthetic.threads:0}")
+    private int threads;
+
+    @Value("${clinic.synthetic.seed:42}")
+    private long seed;
+
+    @Value("${clinic.synthetic.history-days:730}")
+    private int historyDays;
+
+    @Value("${clinic.synthetic.future-days:90}")
+    private int futureDays;
+
+    @Autowired
+    private StartupSeeding startupSeeding;
+
+    @Override
+    public void run(String... args) throws Exception {
+        startupSeeding.submit("synthetic-data", this::generate);
+    }
+
+    private void generate() throws Exception {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patients", Long.class);
+        if (existing != null && existing >= patientCount) {
+            log.info("Synthetic data skipped: {} patients already present", existing);
+            return;
+        }
+
+        int missing = patientCount - (existing == null ? 0 : existing.intValue());
+        long appointmentCount = (long) missing * appointmentsPerPatient;
+        log.info("Generating {} patients and {} appointments...", missing, appointmentCount);
+        long start = System.nanoTime();
+
+        // Reserve id ranges past anything Hibernate may already hold in its pooled optimizer
+        long patientBase = reserveIds("patients_seq", missing);
+        long appointmentBase = reserveIds("appointments_seq", appointmentCount);
+
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long chunk = Math.max(batchSize, (missing + workers - 1) / workers);
+            for (long from = 0; from < missing; from += chunk) {
+                long fromIndex = from;
+                long toIndex = Math.min(missing, from + chunk);
+                futures.add(executor.submit(() -> insertChunk(patientBase, appointmentBase, fromIndex, toIndex)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Synthetic data generated in {} ms ({} rows/s)", millis,
+                (missing + appointmentCount) * 1000 / Math.max(millis, 1));
+    }
+
+    /**
+     * Reserve a contiguous block of ids and move the sequence past it
+     */
+    private long reserveIds(String sequence, long count) {
+        Long current = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+        long base = current + 100;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (base + count + 100));
+        return base;
+    }
+
+    private void insertChunk(long patientBase, long appointmentBase, long fromIndex, long toIndex) {
+        SplittableRandom random = new SplittableRandom(seed ^ (fromIndex * 0x9E3779B97F4A7C15L));
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> patientRows = new ArrayList<>(batchSize);
+        List<Object[]> appointmentRows = new ArrayList<>(batchSize * appointmentsPerPatient);
+
+        for (long i = fromIndex; i < toIndex; i++) {
+            long patientId = patientBase + i;
+            String name = pickSkewed(FIRST_NAMES, random) + " " + pickSkewed(LAST_NAMES, random);
+            LocalDateTime registeredAt = now.minusDays(random.nextInt(historyDays + 365)).minusMinutes(random.nextInt(1440));
+            String phone = phoneFor(patientId);
+            patientRows.add(new Object[] {
+                patientId,
+                name,
+                phone,
+                PatientMatching.canonicalPhone(phone),
+                emailFor(name, patientId),
+                (1 + random.nextInt(999)) + " " + pickSkewed(LAST_NAMES, random) + " Sk, " + pickSkewed(CITIES, random),
+                Timestamp.valueOf(registeredAt),
+                Timestamp.valueOf(registeredAt)
+            });
+
+            for (int j = 0; j < appointmentsPerPatient; j++) {
+                appointmentRows.add(appointmentRow(appointmentBase + i * appointmentsPerPatient + j, patientId, name, today, now, random));
+            }
+
+            if (patientRows.size() >= batchSize) {
+                flush(patientRows, appointmentRows);
+            }
+        }
+        flush(patientRows, appointmentRows);
+    }
+
+    private Object[] appointmentRow(long id, long patientId, String patientName, LocalDate today, LocalDateTime now, SplittableRandom random) {
+        LocalDate date = today.plusDays(random.nextInt(-historyDays, futureDays + 1));
+        // Clinic is closed on Sundays and runs a half day on Saturdays
+        if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            date = date.minusDays(1 + random.nextInt(6));
+        }
+        LocalTime time = slotFor(date, random);
+        AppointmentStatus status = statusFor(date, today, random);
+        LocalDateTime createdAt = date.atStartOfDay().minusDays(1 + random.nextInt(60)).plusMinutes(random.nextInt(1440));
+        if (createdAt.isAfter(now)) {
+            createdAt = now.minusMinutes(random.nextInt(1440));
+        }
+        return new Object[] {
+            id,
+            patientId,
+            patientName,
+            Date.valueOf(date),
+            Time.valueOf(time),
+            pickSkewed(TREATMENTS, random),
+            random.nextInt(5) == 0 ? "Patient reported sensitivity" : null,
+            status.name(),
+            Timestamp.valueOf(createdAt),
+            Timestamp.valueOf(createdAt)
+        };
+    }
+
+    private void flush(List<Object[]> patientRows, List<Object[]> appointmentRows) {
+        if (!patientRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO patients (id, name, phone, canonical_phone, email, address, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                patientRows);
+            patientRows.clear();
+        }
+        if (!appointmentRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO appointments (id, patient_id, patient_name, appointment_date, appointment_time, treatment, notes, status, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                appointmentRows);
+            appointmentRows.clear();
+        }
+    }
+
+    /**
+     * Morning-heavy 30-minute slots between 09:00 and 17:30 (09:00-12:30 on Saturdays)
+     */
+    private LocalTime slotFor(LocalDate date, SplittableRandom random) {
+        int slots = date.getDayOfWeek() == DayOfWeek.SATURDAY ? 8 : 18;
+        int slot = random.nextInt(3) == 0 ? random.nextInt(Math.min(slots, 7)) : random.nextInt(slots);
+        return LocalTime.of(9, 0).plusMinutes(30L * slot);
+    }
+
+    private AppointmentStatus statusFor(LocalDate date, LocalDate today, SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (date.isBefore(today)) {
+            if (roll < 78) return AppointmentStatus.COMPLETED;
+            if (roll < 86) return AppointmentStatus.NO_SHOW;
+            if (roll < 96) return AppointmentStatus.CANCELLED;
+            return AppointmentStatus.RESCHEDULED;
+        }
+        if (date.isEqual(today)) {
+            if (roll < 40) return AppointmentStatus.CONFIRMED;
+            if (roll < 60) return AppointmentStatus.SCHEDULED;
+            if (roll < 70) return AppointmentStatus.IN_PROGRESS;
+            if (roll < 92) return AppointmentStatus.COMPLETED;
+            return AppointmentStatus.CANCELLED;
+        }
+        if (roll < 70) return AppointmentStatus.SCHEDULED;
+        if (roll < 95) return AppointmentStatus.CONFIRMED;
+        return AppointmentStatus.CANCELLED;
+    }
+
+    /**
+     * Skewed pick: earlier entries are much more common, like real name frequencies
+     */
+    private static String pickSkewed(String[] values, SplittableRandom random) {
+        double r = random.nextDouble();
+        return values[(int) (values.length * r * r)];
+    }
+
+    /**
+     * Numbers in the 0530-0539 block, one per patient id; ids are never handed out twice
+     */
+    private static String phoneFor(long patientId) {
+        long number = 5_300_000_000L + patientId;
+        String digits = "0" + number;
+        return digits.substring(0, 4) + "-" + digits.substring(4, 7) + "-" + digits.substring(7);
+    }
+
+    private static String emailFor(String name, long patientId) {
+        String local = name.toLowerCase(new Locale("tr"))
+                .replace('ı', 'i').replace('ş', 's').replace('ğ', 'g')
+                .replace('ç', 'c').replace('ö', 'o').replace('ü', 'u')
+                .replace(' ', '.');
+        return local + "." + patientId + "@example.com";
+    }
+}
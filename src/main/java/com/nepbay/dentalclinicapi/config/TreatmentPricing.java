@@ -0,0 +1,52 @@
+package com.nepbay.dentalclinicapi.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Treatment Pricing
+ * Initial contents of the treatment catalog, configured as
+ *   clinic.pricing.default-price=150
+ *   clinic.pricing.treatments.root-canal=800
+ *   clinic.pricing.durations.root-canal=90
+ * Keys are treatment codes (name slugs, "Root Canal" -> "root-canal"). The catalog is seeded from
+ * these when the treatments table is empty; after that it is managed through /api/treatments.
+ * The default price applies to completed appointments whose treatment is not in the catalog.
+ */
+@Component
+@ConfigurationProperties(prefix = "clinic.pricing")
+public class TreatmentPricing {
+
+    private BigDecimal defaultPrice = BigDecimal.valueOf(150);
+
+    private Map<String, BigDecimal> treatments = new HashMap<>();
+
+    private Map<String, Integer> durations = new HashMap<>();
+
+    public BigDecimal getDefaultPrice() {
+        return defaultPrice;
+    }
+
+    public void setDefaultPrice(BigDecimal defaultPrice) {
+        this.defaultPrice = defaultPrice;
+    }
+
+    public Map<String, BigDecimal> getTreatments() {
+        return treatments;
+    }
+
+    public void setTreatments(Map<String, BigDecimal> treatments) {
+        this.treatments = treatments;
+    }
+
+    public Map<String, Integer> getDurations() {
+        return durations;
+    }
+
+    public void setDurations(Map<String, Integer> durations) {
+        this.durations = durations;
+    }
+}
@@ -0,0 +1,19 @@
+package com.nepbay.dentalclinicapi.config;
+
+/**
+ * Warmup Task
+ * A unit of startup work (cache fill, index rebuild, query plan warm-up)
+ * run in parallel by the StartupWarmer before the node accepts traffic
+ */
+public interface WarmupTask {
+
+    /**
+     * Short name used in startup logs
+     */
+    String getName();
+
+    /**
+     * Load the state this task owns; must be safe to run concurrently with other tasks
+     */
+    void warmUp();
+}
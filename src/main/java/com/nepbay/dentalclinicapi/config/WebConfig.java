@@ -0,0 +1,29 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Web Configuration
+ * Registers additional wire formats for the REST API
+ */
+@Configuration
+public class WebConfig {
+
+    /**
+     * CBOR (application/cbor) alongside JSON on every /api/** endpoint.
+     * Clients opt in with "Accept: application/cbor"; JSON stays the default.
+     * Built from Spring Boot's builder so spring.jackson.* settings apply to both formats.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cborMapper = builder.createXmlMapper(false)
+                .factory(new CBORFactory())
+                .build();
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+}
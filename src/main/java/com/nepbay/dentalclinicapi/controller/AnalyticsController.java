@@ -0,0 +1,146 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.service.AppointmentSnapshotService;
+import com.nepbay.dentalclinicapi.service.NoShowScoringService;
+import com.nepbay.dentalclinicapi.service.RevenueService;
+import com.nepbay.dentalclinicapi.service.RollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analytics Controller
+ * Time-series analytics answered from pre-aggregated daily rollups
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class AnalyticsController {
+    
+    @Autowired
+    private RollupService rollupService;
+    
+    @Autowired
+    private AppointmentSnapshotService snapshotService;
+    
+    @Autowired
+    private RevenueService revenueService;
+    
+    @Autowired
+    private NoShowScoringService noShowScoringService;
+    
+    /**
+     * GET /api/analytics/timeseries?metric=&from=&to=&granularity=&dimension= - Get a metric over time
+     * Metrics: new_patients, appointments, appointments.status, appointments.treatment, revenue, revenue.treatment
+     * Granularity: day (default), week, month, year; at most RollupService.MAX_BUCKETS points per series
+     */
+    @GetMapping("/timeseries")
+    public ResponseEntity<Map<String, Object>> getTimeSeries(
+            @RequestParam String metric,
+            @RequestParam LocalDate from,
+            @RequestParam LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) String dimension) {
+        if (!RollupService.METRICS.contains(metric)) {
+            throw new IllegalArgumentException("Unknown metric '" + metric + "', expected one of " + RollupService.METRICS);
+        }
+        checkRange(from, to, granularity);
+        List<Map<String, Object>> points = rollupService.getTimeSeries(metric, dimension, from, to, granularity);
+        
+        Map<String, Object> series = new HashMap<>();
+        series.put("metric", metric);
+        series.put("dimension", dimension);
+        series.put("granularity", granularity);
+        series.put("from", from);
+        series.put("to", to);
+        series.put("points", points);
+        return ResponseEntity.ok(series);
+    }
+    
+    /**
+     * GET /api/analytics/snapshot - Get size and age of the columnar appointment snapshot
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> getSnapshotInfo() {
+        return ResponseEntity.ok(snapshotService.getSnapshotInfo());
+    }
+    
+    /**
+     * GET /api/analytics/no-show-rates?from=&to= - Get no-show rates by weekday and hour
+     */
+    @GetMapping("/no-show-rates")
+    public ResponseEntity<List<Map<String, Object>>> getNoShowRates(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to) {
+        return ResponseEntity.ok(snapshotService.getNoShowRates(fromOrDefault(from), toOrDefault(to)));
+    }
+    
+    /**
+     * POST /api/analytics/no-show-scores/recompute - Rebuild the no-show model from all history and rescore open appointments
+     */
+    @PostMapping("/no-show-scores/recompute")
+    public ResponseEntity<Map<String, Object>> recomputeNoShowScores() {
+        return ResponseEntity.ok(noShowScoringService.recompute());
+    }
+    
+    /**
+     * GET /api/analytics/treatment-mix?from=&to= - Get treatment and status mix
+     */
+    @GetMapping("/treatment-mix")
+    public ResponseEntity<Map<String, Object>> getTreatmentMix(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to) {
+        return ResponseEntity.ok(snapshotService.getTreatmentMix(fromOrDefault(from), toOrDefault(to)));
+    }
+    
+    /**
+     * GET /api/analytics/utilization?from=&to= - Get chair utilization heatmap by weekday and hour
+     */
+    @GetMapping("/utilization")
+    public ResponseEntity<List<Map<String, Object>>> getUtilization(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to) {
+        return ResponseEntity.ok(snapshotService.getUtilizationHeatmap(fromOrDefault(from), toOrDefault(to)));
+    }
+    
+    /**
+     * GET /api/analytics/revenue?from=&to=&granularity= - Get revenue per period and per treatment at catalog prices
+     */
+    @GetMapping("/revenue")
+    public ResponseEntity<Map<String, Object>> getRevenue(
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(defaultValue = "month") String granularity) {
+        LocalDate start = fromOrDefault(from);
+        LocalDate end = toOrDefault(to);
+        checkRange(start, end, granularity);
+        return ResponseEntity.ok(revenueService.getRevenue(start, end, granularity));
+    }
+    
+    // A known granularity over a forward range of at most RollupService.MAX_BUCKETS buckets
+    private static void checkRange(LocalDate from, LocalDate to, String granularity) {
+        if (!RollupService.GRANULARITIES.contains(granularity)) {
+            throw new IllegalArgumentException("Unknown granularity '" + granularity + "', expected one of " + RollupService.GRANULARITIES);
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (RollupService.bucketCount(from, to, granularity) > RollupService.MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range too long for granularity '" + granularity
+                    + "', at most " + RollupService.MAX_BUCKETS + " points per series");
+        }
+    }
+    
+    // Snapshot queries default to the last 12 months
+    private LocalDate fromOrDefault(LocalDate from) {
+        return from != null ? from : LocalDate.now().minusYears(1);
+    }
+    
+    private LocalDate toOrDefault(LocalDate to) {
+        return to != null ? to : LocalDate.now();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.resilience.ServiceUnavailableException;
+import com.nepbay.dentalclinicapi.service.ConflictException;
+import com.nepbay.dentalclinicapi.service.IdempotencyKeyReusedException;
+import com.nepbay.dentalclinicapi.service.NotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.validation.BindException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+/**
+ * API Exception Handler
+ * Maps every exception a controller lets through to a status and an ErrorResponse body: invalid
+ * input 400, unknown ids 404, clashes with the current data 409, a reused Idempotency-Key 422,
+ * anything else 500. Database unavailability is 503 with a Retry-After header, so clients back
+ * off instead of retrying into a struggling database.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiExceptionHandler.class);
+
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 5;
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException e, HttpServletRequest request) {
+        return unavailable(e.getMessage(), e.getOperation(), e.getRetryAfterSeconds(), request);
+    }
+
+    /**
+     * Connection and lock failures of calls that bypass the repositories (JdbcTemplate) and so DatabaseGuard
+     */
+    @ExceptionHandler({DataAccessResourceFailureException.class, TransientDataAccessException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<ErrorResponse> handleDatabaseFailure(RuntimeException e, HttpServletRequest request) {
+        return unavailable("Database is not responding", null, DEFAULT_RETRY_AFTER_SECONDS, request);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(IllegalArgumentException e, HttpServletRequest request) {
+        return error(HttpStatus.BAD_REQUEST, e.getMessage(), request);
+    }
+
+    /**
+     * Request bodies and parameters Spring could not bind: malformed JSON, a non-numeric id, a bad date
+     */
+    @ExceptionHandler({HttpMessageNotReadableException.class, TypeMismatchException.class, MissingServletRequestParameterException.class})
+    public ResponseEntity<ErrorResponse> handleUnreadableRequest(Exception e, HttpServletRequest request) {
+        return error(HttpStatus.BAD_REQUEST, e instanceof HttpMessageNotReadableException
+                ? "Request body is not readable" : e.getMessage(), request);
+    }
+
+    /**
+     * Bean validation failures (@Valid), one "field: message" per rejected field
+     */
+    @ExceptionHandler(BindException.class)
+    public ResponseEntity<ErrorResponse> handleValidation(BindException e, HttpServletRequest request) {
+        String message = e.getFieldErrors().stream()
+                .map(FieldError::getField)
+                .distinct()
+                .map(field -> field + ": " + e.getFieldError(field).getDefaultMessage())
+                .collect(Collectors.joining(", "));
+        return error(HttpStatus.BAD_REQUEST, message.isEmpty() ? "Request is not valid" : message, request);
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNotFound(NotFoundException e, HttpServletRequest request) {
+        return error(HttpStatus.NOT_FOUND, e.getMessage(), request);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ErrorResponse> handleConflict(ConflictException e, HttpServletRequest request) {
+        return error(HttpStatus.CONFLICT, e.getMessage(), request);
+    }
+
+    /**
+     * A concurrent request changed the same row first (version check); more specific than the 503 above
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrentUpdate(OptimisticLockingFailureException e, HttpServletRequest request) {
+        return error(HttpStatus.CONFLICT, "The record was changed by another request, reload and try again", request);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReused(IdempotencyKeyReusedException e, HttpServletRequest request) {
+        return error(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), request);
+    }
+
+    /**
+     * Everything else; Spring MVC's own errors (unknown route, wrong method or media type) keep their status
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleUnexpected(Exception e, HttpServletRequest request) {
+        if (e instanceof org.springframework.web.ErrorResponse mvcError) {
+            HttpStatusCode status = mvcError.getStatusCode();
+            if (status.is4xxClientError()) {
+                HttpStatus resolved = HttpStatus.resolve(status.value());
+                return error(resolved != null ? resolved : HttpStatus.BAD_REQUEST, mvcError.getBody().getDetail(), request);
+            }
+        }
+        log.error("Unhandled error on {} {}", request.getMethod(), request.getRequestURI(), e);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error, see the server log", request);
+    }
+
+    private static ResponseEntity<ErrorResponse> error(HttpStatus status, String message, HttpServletRequest request) {
+        return ResponseEntity.status(status)
+                .body(new ErrorResponse(LocalDateTime.now(), status.value(), status.getReasonPhrase(), message,
+                        request.getRequestURI(), null, null));
+    }
+
+    private static ResponseEntity<ErrorResponse> unavailable(String message, String operation, long retryAfterSeconds, HttpServletRequest request) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(new ErrorResponse(LocalDateTime.now(), status.value(), status.getReasonPhrase(), message,
+                        request.getRequestURI(), operation, retryAfterSeconds));
+    }
+}
@@ -1,15 +1,27 @@
 package com.nepbay.dentalclinicapi.controller;
 
+import com.nepbay.dentalclinicapi.audit.ChangeRecord;
 import com.nepbay.dentalclinicapi.model.Appointment;
 import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.resilience.ServiceUnavailableException;
+import com.nepbay.dentalclinicapi.service.AppointmentSearchService;
 import com.nepbay.dentalclinicapi.service.AppointmentService;
+import com.nepbay.dentalclinicapi.service.CalendarResponseCache;
+import com.nepbay.dentalclinicapi.service.IdempotencyService;
+import com.nepbay.dentalclinicapi.service.LastKnownGoodCache;
+import com.nepbay.dentalclinicapi.service.NotFoundException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Appointment Controller
@@ -21,20 +33,30 @@ import java.util.List;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
 public class AppointmentController {
     
+    private static final String UPCOMING = "appointments.upcoming";
+    
     @Autowired
     private AppointmentService appointmentService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private AppointmentSearchService appointmentSearchService;
+    
+    @Autowired
+    private CalendarResponseCache calendarResponseCache;
+    
+    @Autowired
+    private LastKnownGoodCache lastKnownGoodCache;
+    
     /**
      * GET /api/appointments - Get all appointments
      */
     @GetMapping
     public ResponseEntity<List<Appointment>> getAllAppointments() {
-        try {
-            List<Appointment> appointments = appointmentService.getAllAppointments();
-            return ResponseEntity.ok(appointments);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        List<Appointment> appointments = appointmentService.getAllAppointments();
+        return ResponseEntity.ok(appointments);
     }
     
     /**
@@ -42,48 +64,40 @@ public class AppointmentController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<Appointment> getAppointmentById(@PathVariable Long id) {
-        try {
-            Appointment appointment = appointmentService.getAppointmentById(id);
-            if (appointment != null) {
-                return ResponseEntity.ok(appointment);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        return ResponseEntity.ok(requireAppointment(id));
+    }
+    
+    /**
+     * GET /api/appointments/{id}/history - Field-level change history, oldest first
+     * Also available after the appointment was deleted; changes are attributed via the X-User header
+     */
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<ChangeRecord>> getAppointmentHistory(@PathVariable Long id) {
+        List<ChangeRecord> history = appointmentService.getAppointmentHistory(id);
+        if (history.isEmpty()) {
+            requireAppointment(id);
         }
+        return ResponseEntity.ok(history);
     }
     
     /**
      * POST /api/appointments - Create new appointment
+     * Retries carrying the same Idempotency-Key header replay the first successful response
      */
     @PostMapping
-    public ResponseEntity<?> createAppointment(@Valid @RequestBody Appointment appointment) {
-        try {
-            Appointment createdAppointment = appointmentService.createAppointment(appointment);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdAppointment);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error: Could not create appointment");
-        }
+    public ResponseEntity<?> createAppointment(@Valid @RequestBody Appointment appointment,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("POST /api/appointments", idempotencyKey, appointment,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(appointmentService.createAppointment(appointment)));
     }
     
     /**
      * PUT /api/appointments/{id} - Update appointment
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateAppointment(@PathVariable Long id, @Valid @RequestBody Appointment appointment) {
-        try {
-            Appointment updatedAppointment = appointmentService.updateAppointment(id, appointment);
-            return ResponseEntity.ok(updatedAppointment);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error: Could not update appointment");
-        }
+    public ResponseEntity<Appointment> updateAppointment(@PathVariable Long id, @Valid @RequestBody Appointment appointment) {
+        Appointment updatedAppointment = appointmentService.updateAppointment(id, appointment);
+        return ResponseEntity.ok(updatedAppointment);
     }
     
     /**
@@ -91,31 +105,17 @@ public class AppointmentController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteAppointment(@PathVariable Long id) {
-        try {
-            appointmentService.deleteAppointment(id);
-            return ResponseEntity.ok("Appointment deleted successfully");
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error: Could not delete appointment");
-        }
+        appointmentService.deleteAppointment(id);
+        return ResponseEntity.ok("Appointment deleted successfully");
     }
     
     /**
      * PATCH /api/appointments/{id}/status - Update appointment status
      */
     @PatchMapping("/{id}/status")
-    public ResponseEntity<?> updateAppointmentStatus(@PathVariable Long id, @RequestParam AppointmentStatus status) {
-        try {
-            Appointment updatedAppointment = appointmentService.updateAppointmentStatus(id, status);
-            return ResponseEntity.ok(updatedAppointment);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error: Could not update appointment status");
-        }
+    public ResponseEntity<Appointment> updateAppointmentStatus(@PathVariable Long id, @RequestParam AppointmentStatus status) {
+        Appointment updatedAppointment = appointmentService.updateAppointmentStatus(id, status);
+        return ResponseEntity.ok(updatedAppointment);
     }
     
     /**
@@ -123,64 +123,104 @@ public class AppointmentController {
      */
     @GetMapping("/search")
     public ResponseEntity<List<Appointment>> searchAppointments(@RequestParam String patient) {
-        try {
-            List<Appointment> appointments = appointmentService.searchAppointmentsByPatient(patient);
-            return ResponseEntity.ok(appointments);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        List<Appointment> appointments = appointmentService.searchAppointmentsByPatient(patient);
+        return ResponseEntity.ok(appointments);
     }
     
     /**
-     * GET /api/appointments/today - Get today's appointments
+     * GET /api/appointments/search/text?q={words}&from=&to=&status=&limit= - Full-text search
+     * Ranked matches in notes, treatment and patient name; "sensitiv*" matches by prefix
+     */
+    @GetMapping("/search/text")
+    public ResponseEntity<?> searchAppointmentText(
+            @RequestParam String q,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(appointmentSearchService.search(q, from, to, status, limit));
+    }
+    
+    /**
+     * GET /api/appointments/search/index - Size of the full-text index
+     */
+    @GetMapping("/search/index")
+    public ResponseEntity<Map<String, Object>> getSearchIndexInfo() {
+        return ResponseEntity.ok(appointmentSearchService.getIndexInfo());
+    }
+    
+    /**
+     * POST /api/appointments/search/rebuild - Re-index all appointments from the database
+     */
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex() {
+        return ResponseEntity.ok(appointmentSearchService.rebuild());
+    }
+    
+    /**
+     * GET /api/appointments/today - Get today's appointments (JSON is served from the calendar response cache)
      */
     @GetMapping("/today")
-    public ResponseEntity<List<Appointment>> getTodayAppointments() {
-        try {
-            List<Appointment> appointments = appointmentService.getTodayAppointments();
-            return ResponseEntity.ok(appointments);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    public ResponseEntity<?> getTodayAppointments(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (acceptsJson(accept)) {
+            return calendarView(CalendarResponseCache.TODAY, appointmentService::getTodayAppointments);
         }
+        List<Appointment> appointments = appointmentService.getTodayAppointments();
+        return ResponseEntity.ok(appointments);
     }
     
     /**
-     * GET /api/appointments/upcoming - Get upcoming appointments
+     * GET /api/appointments/upcoming - Get upcoming appointments, open ones with their no-show risk (the last known list while the database is unavailable)
      */
     @GetMapping("/upcoming")
     public ResponseEntity<List<Appointment>> getUpcomingAppointments() {
         try {
             List<Appointment> appointments = appointmentService.getUpcomingAppointments();
-            return ResponseEntity.ok(appointments);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return ResponseEntity.ok(lastKnownGoodCache.remember(UPCOMING, appointments));
+        } catch (ServiceUnavailableException e) {
+            LastKnownGoodCache.Snapshot<List<Appointment>> stale = lastKnownGoodCache.recall(UPCOMING);
+            if (stale == null) {
+                throw e;
+            }
+            // Appointments that have since moved into the past are no longer upcoming
+            LocalDate today = LocalDate.now();
+            return StaleResponses.ok(stale.asOf()).body(stale.value().stream()
+                    .filter(appointment -> !appointment.getAppointmentDate().isBefore(today))
+                    .toList());
         }
     }
     
     /**
-     * GET /api/appointments/week - Get this week's appointments
+     * GET /api/appointments/availability?date= - Free chairs per slot, expected no-shows and overbooking suggestions
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<?> getAvailability(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(appointmentService.getAvailability(date != null ? date : LocalDate.now()));
+    }
+    
+    /**
+     * GET /api/appointments/week - Get this week's appointments (JSON is served from the calendar response cache)
      */
     @GetMapping("/week")
-    public ResponseEntity<List<Appointment>> getThisWeekAppointments() {
-        try {
-            List<Appointment> appointments = appointmentService.getAppointmentsThisWeek();
-            return ResponseEntity.ok(appointments);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    public ResponseEntity<?> getThisWeekAppointments(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (acceptsJson(accept)) {
+            return calendarView(CalendarResponseCache.WEEK, appointmentService::getAppointmentsThisWeek);
         }
+        List<Appointment> appointments = appointmentService.getAppointmentsThisWeek();
+        return ResponseEntity.ok(appointments);
     }
     
     /**
-     * GET /api/appointments/month - Get this month's appointments
+     * GET /api/appointments/month - Get this month's appointments (JSON is served from the calendar response cache)
      */
     @GetMapping("/month")
-    public ResponseEntity<List<Appointment>> getThisMonthAppointments() {
-        try {
-            List<Appointment> appointments = appointmentService.getAppointmentsThisMonth();
-            return ResponseEntity.ok(appointments);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    public ResponseEntity<?> getThisMonthAppointments(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (acceptsJson(accept)) {
+            return calendarView(CalendarResponseCache.MONTH, appointmentService::getAppointmentsThisMonth);
         }
+        List<Appointment> appointments = appointmentService.getAppointmentsThisMonth();
+        return ResponseEntity.ok(appointments);
     }
     
     /**
@@ -190,11 +230,37 @@ public class AppointmentController {
     public ResponseEntity<List<Appointment>> getAppointmentsByDateRange(
             @RequestParam LocalDate startDate, 
             @RequestParam LocalDate endDate) {
+        List<Appointment> appointments = appointmentService.getAppointmentsByDateRange(startDate, endDate);
+        return ResponseEntity.ok(appointments);
+    }
+    
+    private Appointment requireAppointment(Long id) {
+        Appointment appointment = appointmentService.getAppointmentById(id);
+        if (appointment == null) {
+            throw new NotFoundException("Appointment not found with ID: " + id);
+        }
+        return appointment;
+    }
+    
+    // The last copy of the view's current bucket is served while the database is unavailable
+    private ResponseEntity<byte[]> calendarView(String view, Supplier<List<Appointment>> loader) {
         try {
-            List<Appointment> appointments = appointmentService.getAppointmentsByDateRange(startDate, endDate);
-            return ResponseEntity.ok(appointments);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return cachedJson(calendarResponseCache.get(view, loader));
+        } catch (ServiceUnavailableException e) {
+            LastKnownGoodCache.Snapshot<byte[]> stale = calendarResponseCache.getStale(view);
+            if (stale == null) {
+                throw e;
+            }
+            return StaleResponses.ok(stale.asOf()).contentType(MediaType.APPLICATION_JSON).body(stale.value());
         }
     }
+    
+    // The calendar response cache holds JSON; CBOR clients take the regular path
+    private static boolean acceptsJson(String accept) {
+        return accept == null || !accept.contains("cbor");
+    }
+    
+    private static ResponseEntity<byte[]> cachedJson(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.AppointmentSeries;
+import com.nepbay.dentalclinicapi.model.SeriesException;
+import com.nepbay.dentalclinicapi.service.AppointmentSeriesService;
+import com.nepbay.dentalclinicapi.service.AppointmentService;
+import com.nepbay.dentalclinicapi.service.NotFoundException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Appointment Series Controller
+ * REST API endpoints for recurring appointments and their per-occurrence exceptions
+ */
+@RestController
+@RequestMapping("/api/appointment-series")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class AppointmentSeriesController {
+    
+    @Autowired
+    private AppointmentSeriesService seriesService;
+    
+    @Autowired
+    private AppointmentService appointmentService;
+    
+    /**
+     * GET /api/appointment-series - Get all series
+     */
+    @GetMapping
+    public ResponseEntity<List<AppointmentSeries>> getAllSeries() {
+        return ResponseEntity.ok(seriesService.getAllSeries());
+    }
+    
+    /**
+     * GET /api/appointment-series/{id} - Get series by ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<AppointmentSeries> getSeriesById(@PathVariable Long id) {
+        AppointmentSeries series = seriesService.getSeriesById(id);
+        if (series == null) {
+            throw new NotFoundException("Appointment series not found with ID: " + id);
+        }
+        return ResponseEntity.ok(series);
+    }
+    
+    /**
+     * POST /api/appointment-series - Create new series
+     */
+    @PostMapping
+    public ResponseEntity<AppointmentSeries> createSeries(@Valid @RequestBody AppointmentSeries series) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(seriesService.createSeries(series));
+    }
+    
+    /**
+     * PUT /api/appointment-series/{id} - Update series rule and details
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<AppointmentSeries> updateSeries(@PathVariable Long id, @Valid @RequestBody AppointmentSeries series) {
+        return ResponseEntity.ok(seriesService.updateSeries(id, series));
+    }
+    
+    /**
+     * DELETE /api/appointment-series/{id} - Delete series (booked occurrences are kept)
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<String> deleteSeries(@PathVariable Long id) {
+        seriesService.deleteSeries(id);
+        return ResponseEntity.ok("Appointment series deleted successfully");
+    }
+    
+    /**
+     * GET /api/appointment-series/{id}/occurrences?from=&to= - Expanded occurrences in a window
+     */
+    @GetMapping("/{id}/occurrences")
+    public ResponseEntity<List<Appointment>> getOccurrences(@PathVariable Long id, @RequestParam LocalDate from, @RequestParam LocalDate to) {
+        return ResponseEntity.ok(seriesService.getOccurrences(id, from, to));
+    }
+    
+    /**
+     * GET /api/appointment-series/{id}/exceptions - Per-occurrence exceptions
+     */
+    @GetMapping("/{id}/exceptions")
+    public ResponseEntity<List<SeriesException>> getExceptions(@PathVariable Long id) {
+        return ResponseEntity.ok(seriesService.getExceptions(id));
+    }
+    
+    /**
+     * PUT /api/appointment-series/{id}/exceptions/{date} - Skip, move or change one occurrence
+     */
+    @PutMapping("/{id}/exceptions/{date}")
+    public ResponseEntity<SeriesException> saveException(@PathVariable Long id, @PathVariable LocalDate date,
+                                                         @Valid @RequestBody SeriesException exception) {
+        return ResponseEntity.ok(seriesService.saveException(id, date, exception));
+    }
+    
+    /**
+     * DELETE /api/appointment-series/{id}/exceptions/{date} - Restore one occurrence to the rule
+     */
+    @DeleteMapping("/{id}/exceptions/{date}")
+    public ResponseEntity<String> deleteException(@PathVariable Long id, @PathVariable LocalDate date) {
+        seriesService.deleteException(id, date);
+        return ResponseEntity.ok("Occurrence exception deleted successfully");
+    }
+    
+    /**
+     * POST /api/appointment-series/{id}/occurrences/{date}/book - Book one occurrence as a regular appointment
+     */
+    @PostMapping("/{id}/occurrences/{date}/book")
+    public ResponseEntity<Appointment> bookOccurrence(@PathVariable Long id, @PathVariable LocalDate date) {
+        Appointment appointment = appointmentService.bookSeriesOccurrence(id, date);
+        return ResponseEntity.status(HttpStatus.CREATED).body(appointment);
+    }
+}
@@ -0,0 +1,81 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.backup.BackupManifest;
+import com.nepbay.dentalclinicapi.service.BackupService;
+import com.nepbay.dentalclinicapi.service.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backup Controller
+ * Admin endpoints to take, list, verify and restore backups of patients and appointments
+ */
+@RestController
+@RequestMapping("/api/admin/backups")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class BackupController {
+
+    @Autowired
+    private BackupService backupService;
+
+    /**
+     * GET /api/admin/backups - List finished backups, oldest first
+     */
+    @GetMapping
+    public ResponseEntity<List<BackupManifest>> getAllBackups() throws IOException {
+        return ResponseEntity.ok(backupService.listBackups());
+    }
+
+    /**
+     * GET /api/admin/backups/restore-status - Outcome of the latest restore on this node
+     */
+    @GetMapping("/restore-status")
+    public ResponseEntity<Map<String, Object>> getRestoreStatus() {
+        Map<String, Object> status = backupService.getLastRestore();
+        if (status == null) {
+            throw new NotFoundException("No backup has been restored on this node");
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * GET /api/admin/backups/{id} - Get the manifest of a backup
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<BackupManifest> getBackupById(@PathVariable String id) throws IOException {
+        BackupManifest backup = backupService.getBackup(id);
+        if (backup == null) {
+            throw new NotFoundException("Backup not found: " + id);
+        }
+        return ResponseEntity.ok(backup);
+    }
+
+    /**
+     * POST /api/admin/backups?type=full|incremental - Take a backup while the clinic keeps working
+     */
+    @PostMapping
+    public ResponseEntity<BackupManifest> createBackup(@RequestParam(defaultValue = BackupManifest.FULL) String type) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(backupService.createBackup(type));
+    }
+
+    /**
+     * POST /api/admin/backups/{id}/verify - Check the checksums of a backup and the backups it builds on
+     */
+    @PostMapping("/{id}/verify")
+    public ResponseEntity<Map<String, Object>> verifyBackup(@PathVariable String id) throws IOException {
+        return ResponseEntity.ok(backupService.verify(id));
+    }
+
+    /**
+     * POST /api/admin/backups/{id}/restore?threads= - Replace patients and appointments with a backup
+     */
+    @PostMapping("/{id}/restore")
+    public ResponseEntity<Map<String, Object>> restoreBackup(@PathVariable String id, @RequestParam(required = false) Integer threads) throws IOException {
+        return ResponseEntity.ok(backupService.restore(id, threads));
+    }
+}
@@ -0,0 +1,40 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.batch.BatchRequest;
+import com.nepbay.dentalclinicapi.batch.BatchResponse;
+import com.nepbay.dentalclinicapi.service.BatchService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.Map;
+
+/**
+ * Batch Controller
+ * Several API requests in one round trip, for screens that load many widgets at once
+ */
+@RestController
+@RequestMapping("/api/batch")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class BatchController {
+    
+    @Autowired
+    private BatchService batchService;
+    
+    /**
+     * POST /api/batch - Run the given requests; GETs run concurrently and share identical repository reads
+     */
+    @PostMapping
+    public ResponseEntity<BatchResponse> executeBatch(@RequestBody BatchRequest batch, HttpServletRequest request, HttpServletResponse response) {
+        return ResponseEntity.ok(batchService.execute(batch, request, response));
+    }
+    
+    /**
+     * GET /api/batch/stats - Batches run on this node and repository reads saved by deduplication
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getBatchStats() {
+        return ResponseEntity.ok(batchService.getStats());
+    }
+}
@@ -1,11 +1,19 @@
 package com.nepbay.dentalclinicapi.controller;
 
 import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.resilience.ServiceUnavailableException;
 import com.nepbay.dentalclinicapi.service.PatientService;
 import com.nepbay.dentalclinicapi.service.AppointmentService;
+import com.nepbay.dentalclinicapi.service.CacheInvalidationBus;
+import com.nepbay.dentalclinicapi.service.CalendarResponseCache;
+import com.nepbay.dentalclinicapi.service.DatabaseGuard;
+import com.nepbay.dentalclinicapi.service.LastKnownGoodCache;
+import com.nepbay.dentalclinicapi.service.PatientTimelineService;
+import com.nepbay.dentalclinicapi.service.RollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,14 +27,35 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
 public class DashboardController {
     
+    private static final String STATS = "dashboard.stats";
+    private static final String QUICK_STATS = "dashboard.quick-stats";
+    
     @Autowired
     private PatientService patientService;
     
     @Autowired
     private AppointmentService appointmentService;
     
+    @Autowired
+    private RollupService rollupService;
+    
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
+    @Autowired
+    private CalendarResponseCache calendarResponseCache;
+    
+    @Autowired
+    private PatientTimelineService patientTimelineService;
+    
+    @Autowired
+    private LastKnownGoodCache lastKnownGoodCache;
+    
+    @Autowired
+    private DatabaseGuard databaseGuard;
+    
     /**
-     * GET /api/dashboard/stats - Get comprehensive dashboard statistics
+     * GET /api/dashboard/stats - Get comprehensive dashboard statistics (the last known ones, flagged stale, while the database is unavailable)
      */
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
@@ -52,17 +81,16 @@ public class DashboardController {
             stats.put("cancelledAppointments", appointmentService.getAppointmentCountByStatus(AppointmentStatus.CANCELLED));
             stats.put("noShowAppointments", appointmentService.getAppointmentCountByStatus(AppointmentStatus.NO_SHOW));
             
-            // Revenue Estimation (simple calculation)
-            Long completedCount = appointmentService.getAppointmentCountByStatus(AppointmentStatus.COMPLETED);
-            stats.put("estimatedRevenue", completedCount * 150); // $150 per completed appointment
+            // Revenue from the per-treatment price table (daily rollups)
+            stats.put("estimatedRevenue", rollupService.getTotal(RollupService.REVENUE));
             
             // Growth Metrics
             stats.put("patientGrowthRate", calculateGrowthRate());
             stats.put("appointmentCompletionRate", calculateCompletionRate());
             
-            return ResponseEntity.ok(stats);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).build();
+            return ResponseEntity.ok(lastKnownGoodCache.remember(STATS, stats));
+        } catch (ServiceUnavailableException e) {
+            return staleStats(STATS, e);
         }
     }
     
@@ -71,22 +99,18 @@ public class DashboardController {
      */
     @GetMapping("/recent-activity")
     public ResponseEntity<Map<String, Object>> getRecentActivity() {
-        try {
-            Map<String, Object> activity = new HashMap<>();
-            
-            activity.put("recentPatients", patientService.getRecentPatients());
-            activity.put("recentAppointments", appointmentService.getRecentAppointments());
-            activity.put("todayAppointments", appointmentService.getTodayAppointments());
-            activity.put("upcomingAppointments", appointmentService.getUpcomingAppointments().stream().limit(5).toList());
-            
-            return ResponseEntity.ok(activity);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).build();
-        }
+        Map<String, Object> activity = new HashMap<>();
+        
+        activity.put("recentPatients", patientService.getRecentPatients());
+        activity.put("recentAppointments", appointmentService.getRecentAppointments());
+        activity.put("todayAppointments", appointmentService.getTodayAppointments());
+        activity.put("upcomingAppointments", appointmentService.getUpcomingAppointments().stream().limit(5).toList());
+        
+        return ResponseEntity.ok(activity);
     }
     
     /**
-     * GET /api/dashboard/quick-stats - Get quick statistics for cards
+     * GET /api/dashboard/quick-stats - Get quick statistics for cards (the last known ones, flagged stale, while the database is unavailable)
      */
     @GetMapping("/quick-stats")
     public ResponseEntity<Map<String, Object>> getQuickStats() {
@@ -96,32 +120,59 @@ public class DashboardController {
             quickStats.put("patients", patientService.getTotalPatientCount());
             quickStats.put("todayAppointments", appointmentService.getTodayAppointments().size());
             quickStats.put("weekAppointments", appointmentService.getAppointmentsThisWeek().size());
-            quickStats.put("revenue", appointmentService.getAppointmentCountByStatus(AppointmentStatus.COMPLETED) * 150);
+            quickStats.put("revenue", rollupService.getTotal(RollupService.REVENUE));
             
-            return ResponseEntity.ok(quickStats);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).build();
+            return ResponseEntity.ok(lastKnownGoodCache.remember(QUICK_STATS, quickStats));
+        } catch (ServiceUnavailableException e) {
+            return staleStats(QUICK_STATS, e);
         }
     }
     
+    /**
+     * GET /api/dashboard/cache - Near cache, calendar response and timeline page cache hit rates, and invalidation bus traffic on this node
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> stats = cacheInvalidationBus.getStats();
+        stats.put("calendarResponses", calendarResponseCache.getStats());
+        stats.put("timelinePages", patientTimelineService.getStats());
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * GET /api/dashboard/resilience - Circuit breaker state and bulkhead occupancy per class of database operation
+     */
+    @GetMapping("/resilience")
+    public ResponseEntity<Map<String, Object>> getResilienceStats() {
+        return ResponseEntity.ok(databaseGuard.getStats());
+    }
+    
+    private ResponseEntity<Map<String, Object>> staleStats(String key, ServiceUnavailableException e) {
+        LastKnownGoodCache.Snapshot<Map<String, Object>> stale = lastKnownGoodCache.recall(key);
+        if (stale == null) {
+            throw e;
+        }
+        Map<String, Object> stats = new HashMap<>(stale.value());
+        stats.put("stale", true);
+        stats.put("asOf", stale.asOf());
+        return StaleResponses.ok(stale.asOf()).body(stats);
+    }
+    
     // Helper methods for calculations
     private double calculateGrowthRate() {
-        try {
-            long thisMonth = patientService.getPatientsRegisteredThisMonth().size();
-            // Simple growth rate calculation (this month vs assumed previous month)
-            return thisMonth > 0 ? (thisMonth * 100.0 / Math.max(thisMonth, 1)) : 0.0;
-        } catch (Exception e) {
-            return 0.0;
+        // New patients this month vs the whole previous month, from daily rollups
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        double thisMonth = rollupService.getTotal(RollupService.NEW_PATIENTS, monthStart, LocalDate.now());
+        double lastMonth = rollupService.getTotal(RollupService.NEW_PATIENTS, monthStart.minusMonths(1), monthStart.minusDays(1));
+        if (lastMonth == 0) {
+            return thisMonth > 0 ? 100.0 : 0.0;
         }
+        return (thisMonth - lastMonth) * 100.0 / lastMonth;
     }
     
     private double calculateCompletionRate() {
-        try {
-            Long total = appointmentService.getTotalAppointmentCount();
-            Long completed = appointmentService.getAppointmentCountByStatus(AppointmentStatus.COMPLETED);
-            return total > 0 ? (completed * 100.0 / total) : 0.0;
-        } catch (Exception e) {
-            return 0.0;
-        }
+        Long total = appointmentService.getTotalAppointmentCount();
+        Long completed = appointmentService.getAppointmentCountByStatus(AppointmentStatus.COMPLETED);
+        return total > 0 ? (completed * 100.0 / total) : 0.0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import java.time.LocalDateTime;
+
+/**
+ * Error Response
+ * Body of every error answered by the API (see ApiExceptionHandler);
+ * retryAfterSeconds is set when the database refused the call and repeats the Retry-After header.
+ */
+public record ErrorResponse(
+        LocalDateTime timestamp,
+        int status,
+        String error,
+        String message,
+        String path,
+        String operation,
+        Long retryAfterSeconds) {}
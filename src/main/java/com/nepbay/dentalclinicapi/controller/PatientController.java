@@ -1,7 +1,12 @@
 package com.nepbay.dentalclinicapi.controller;
 
+import com.nepbay.dentalclinicapi.audit.ChangeRecord;
 import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.service.DuplicatePatientIndex;
+import com.nepbay.dentalclinicapi.service.NotFoundException;
 import com.nepbay.dentalclinicapi.service.PatientService;
+import com.nepbay.dentalclinicapi.service.PatientTimelineService;
+import com.nepbay.dentalclinicapi.service.IdempotencyService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -22,17 +27,19 @@ public class PatientController {
     @Autowired
     private PatientService patientService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private PatientTimelineService patientTimelineService;
+    
     /**
      * GET /api/patients - Get all patients
      */
     @GetMapping
     public ResponseEntity<List<Patient>> getAllPatients() {
-        try {
-            List<Patient> patients = patientService.getAllPatients();
-            return ResponseEntity.ok(patients);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        List<Patient> patients = patientService.getAllPatients();
+        return ResponseEntity.ok(patients);
     }
     
     /**
@@ -40,48 +47,55 @@ public class PatientController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<Patient> getPatientById(@PathVariable Long id) {
-        try {
-            Patient patient = patientService.getPatientById(id);
-            if (patient != null) {
-                return ResponseEntity.ok(patient);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        return ResponseEntity.ok(requirePatient(id));
+    }
+    
+    /**
+     * GET /api/patients/{id}/history - Field-level change history, oldest first
+     * Also available after the patient was deleted; changes are attributed via the X-User header
+     */
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<ChangeRecord>> getPatientHistory(@PathVariable Long id) {
+        List<ChangeRecord> history = patientService.getPatientHistory(id);
+        if (history.isEmpty()) {
+            requirePatient(id);
         }
+        return ResponseEntity.ok(history);
     }
     
     /**
-     * POST /api/patients - Create new patient
+     * GET /api/patients/{id}/timeline?cursor=&limit= - Appointments, status changes and notes, latest first
+     * Pass the returned nextCursor to get the following page; it is prefetched while this one is shown
      */
-    @PostMapping
-    public ResponseEntity<?> createPatient(@Valid @RequestBody Patient patient) {
-        try {
-            Patient createdPatient = patientService.createPatient(patient);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdPatient);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error: Could not create patient");
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<PatientTimelineService.TimelinePage> getPatientTimeline(@PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > 100) {
+            throw new IllegalArgumentException("limit must be between 1 and 100");
         }
+        requirePatient(id);
+        return ResponseEntity.ok(patientTimelineService.getPage(id, cursor, limit));
+    }
+    
+    /**
+     * POST /api/patients - Create new patient (409 if the phone number or email is taken)
+     * Retries carrying the same Idempotency-Key header replay the first successful response
+     */
+    @PostMapping
+    public ResponseEntity<?> createPatient(@Valid @RequestBody Patient patient,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("POST /api/patients", idempotencyKey, patient,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(patientService.createPatient(patient)));
     }
     
     /**
-     * PUT /api/patients/{id} - Update patient
+     * PUT /api/patients/{id} - Update patient (409 if the new phone number or email is taken)
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updatePatient(@PathVariable Long id, @Valid @RequestBody Patient patient) {
-        try {
-            Patient updatedPatient = patientService.updatePatient(id, patient);
-            return ResponseEntity.ok(updatedPatient);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error: Could not update patient");
-        }
+    public ResponseEntity<Patient> updatePatient(@PathVariable Long id, @Valid @RequestBody Patient patient) {
+        Patient updatedPatient = patientService.updatePatient(id, patient);
+        return ResponseEntity.ok(updatedPatient);
     }
     
     /**
@@ -89,15 +103,8 @@ public class PatientController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deletePatient(@PathVariable Long id) {
-        try {
-            patientService.deletePatient(id);
-            return ResponseEntity.ok("Patient deleted successfully");
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error: Could not delete patient");
-        }
+        patientService.deletePatient(id);
+        return ResponseEntity.ok("Patient deleted successfully");
     }
     
     /**
@@ -105,12 +112,39 @@ public class PatientController {
      */
     @GetMapping("/search")
     public ResponseEntity<List<Patient>> searchPatients(@RequestParam String name) {
-        try {
-            List<Patient> patients = patientService.searchPatientsByName(name);
-            return ResponseEntity.ok(patients);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        List<Patient> patients = patientService.searchPatientsByName(name);
+        return ResponseEntity.ok(patients);
+    }
+    
+    /**
+     * GET /api/patients/by-phone/{phone} - Caller ID: the patient with this phone number in any format (from the in-memory index)
+     */
+    @GetMapping("/by-phone/{phone}")
+    public ResponseEntity<DuplicatePatientIndex.ContactMatch> getPatientByPhone(@PathVariable String phone) {
+        DuplicatePatientIndex.ContactMatch match = patientService.findPatientByPhone(phone);
+        if (match == null) {
+            throw new NotFoundException("No patient with phone number " + phone);
         }
+        return ResponseEntity.ok(match);
+    }
+    
+    /**
+     * GET /api/patients/duplicates/check?name=&phone=&email= - Find likely duplicates before creating a patient
+     */
+    @GetMapping("/duplicates/check")
+    public ResponseEntity<List<DuplicatePatientIndex.DuplicateCandidate>> checkDuplicates(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String email) {
+        return ResponseEntity.ok(patientService.findDuplicateCandidates(name, phone, email));
+    }
+    
+    /**
+     * GET /api/patients/duplicates/scan - Scan all patients for likely duplicate pairs
+     */
+    @GetMapping("/duplicates/scan")
+    public ResponseEntity<List<DuplicatePatientIndex.DuplicatePair>> scanDuplicates() {
+        return ResponseEntity.ok(patientService.scanForDuplicates());
     }
     
     /**
@@ -118,12 +152,8 @@ public class PatientController {
      */
     @GetMapping("/count")
     public ResponseEntity<Long> getPatientCount() {
-        try {
-            Long count = patientService.getTotalPatientCount();
-            return ResponseEntity.ok(count);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        Long count = patientService.getTotalPatientCount();
+        return ResponseEntity.ok(count);
     }
     
     /**
@@ -131,11 +161,15 @@ public class PatientController {
      */
     @GetMapping("/recent")
     public ResponseEntity<List<Patient>> getRecentPatients() {
-        try {
-            List<Patient> patients = patientService.getRecentPatients();
-            return ResponseEntity.ok(patients);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        List<Patient> patients = patientService.getRecentPatients();
+        return ResponseEntity.ok(patients);
+    }
+    
+    private Patient requirePatient(Long id) {
+        Patient patient = patientService.getPatientById(id);
+        if (patient == null) {
+            throw new NotFoundException("Patient not found with ID: " + id);
         }
+        return patient;
     }
 }
\ No newline at end of file
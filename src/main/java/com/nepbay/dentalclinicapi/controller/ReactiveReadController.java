@@ -0,0 +1,120 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.service.ReactiveReadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Reactive Read Controller
+ * Read-only v2 API backed by R2DBC. List endpoints return a Flux: with
+ * Accept: application/x-ndjson (or text/event-stream) rows are streamed one per line as they
+ * are read, with backpressure from the client connection; with application/json the list is
+ * collected and written as a regular array, exactly like v1.
+ */
+@RestController
+@RequestMapping("/api/v2")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class ReactiveReadController {
+    
+    @Autowired
+    private ReactiveReadService reactiveReadService;
+    
+    /**
+     * GET /api/v2/appointments - Stream all appointments by date and time
+     */
+    @GetMapping("/appointments")
+    public Flux<Appointment> getAllAppointments() {
+        return reactiveReadService.getAllAppointments();
+    }
+    
+    /**
+     * GET /api/v2/appointments/{id} - Get appointment by ID
+     */
+    @GetMapping("/appointments/{id}")
+    public Mono<ResponseEntity<Appointment>> getAppointmentById(@PathVariable Long id) {
+        return reactiveReadService.getAppointmentById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * GET /api/v2/appointments/today - Stream today's appointments
+     */
+    @GetMapping("/appointments/today")
+    public Flux<Appointment> getTodayAppointments() {
+        return reactiveReadService.getTodayAppointments();
+    }
+    
+    /**
+     * GET /api/v2/appointments/upcoming - Stream upcoming appointments
+     */
+    @GetMapping("/appointments/upcoming")
+    public Flux<Appointment> getUpcomingAppointments() {
+        return reactiveReadService.getUpcomingAppointments();
+    }
+    
+    /**
+     * GET /api/v2/appointments/week - Stream this week's appointments
+     */
+    @GetMapping("/appointments/week")
+    public Flux<Appointment> getAppointmentsThisWeek() {
+        return reactiveReadService.getAppointmentsThisWeek();
+    }
+    
+    /**
+     * GET /api/v2/appointments/month - Stream this month's appointments
+     */
+    @GetMapping("/appointments/month")
+    public Flux<Appointment> getAppointmentsThisMonth() {
+        return reactiveReadService.getAppointmentsThisMonth();
+    }
+    
+    /**
+     * GET /api/v2/appointments/date-range - Stream appointments by date range
+     */
+    @GetMapping("/appointments/date-range")
+    public Flux<Appointment> getAppointmentsByDateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate) {
+        return reactiveReadService.getAppointmentsByDateRange(startDate, endDate);
+    }
+    
+    /**
+     * GET /api/v2/patients - Stream all patients
+     */
+    @GetMapping("/patients")
+    public Flux<Patient> getAllPatients() {
+        return reactiveReadService.getAllPatients();
+    }
+    
+    /**
+     * GET /api/v2/patients/{id} - Get patient by ID
+     */
+    @GetMapping("/patients/{id}")
+    public Mono<ResponseEntity<Patient>> getPatientById(@PathVariable Long id) {
+        return reactiveReadService.getPatientById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * GET /api/v2/patients/search?name={name} - Search patients by name
+     */
+    @GetMapping("/patients/search")
+    public Flux<Patient> searchPatients(@RequestParam String name) {
+        return reactiveReadService.searchPatientsByName(name);
+    }
+    
+    /**
+     * GET /api/v2/dashboard/stats - Dashboard counters
+     */
+    @GetMapping("/dashboard/stats")
+    public Mono<Map<String, Object>> getDashboardStats() {
+        return reactiveReadService.getDashboardStats();
+    }
+}
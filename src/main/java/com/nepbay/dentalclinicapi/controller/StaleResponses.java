@@ -0,0 +1,24 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import java.time.LocalDateTime;
+
+/**
+ * Stale Responses
+ * Headers of a last known good response served while the database is unavailable: the standard
+ * Warning 110 and the time the copy was taken, so the front desk can show how old the schedule is.
+ */
+final class StaleResponses {
+
+    static final String STALE_SINCE = "X-Stale-Since";
+
+    private StaleResponses() {
+    }
+
+    static ResponseEntity.BodyBuilder ok(LocalDateTime asOf) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.WARNING, "110 - \"Response is Stale\"")
+                .header(STALE_SINCE, asOf.toString());
+    }
+}
@@ -0,0 +1,68 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Treatment;
+import com.nepbay.dentalclinicapi.service.NotFoundException;
+import com.nepbay.dentalclinicapi.service.TreatmentService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+/**
+ * Treatment Controller
+ * REST API endpoints for the treatment catalog (codes, durations and prices)
+ */
+@RestController
+@RequestMapping("/api/treatments")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class TreatmentController {
+
+    @Autowired
+    private TreatmentService treatmentService;
+
+    /**
+     * GET /api/treatments - Get the treatment catalog, by name
+     */
+    @GetMapping
+    public ResponseEntity<List<Treatment>> getAllTreatments() {
+        return ResponseEntity.ok(treatmentService.getAllTreatments());
+    }
+
+    /**
+     * GET /api/treatments/{id} - Get treatment by ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Treatment> getTreatmentById(@PathVariable Long id) {
+        Treatment treatment = treatmentService.getTreatmentById(id);
+        if (treatment == null) {
+            throw new NotFoundException("Treatment not found with ID: " + id);
+        }
+        return ResponseEntity.ok(treatment);
+    }
+
+    /**
+     * POST /api/treatments - Add a treatment to the catalog
+     */
+    @PostMapping
+    public ResponseEntity<Treatment> createTreatment(@Valid @RequestBody Treatment treatment) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(treatmentService.createTreatment(treatment));
+    }
+
+    /**
+     * PUT /api/treatments/{id} - Update a treatment
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<Treatment> updateTreatment(@PathVariable Long id, @Valid @RequestBody Treatment treatment) {
+        return ResponseEntity.ok(treatmentService.updateTreatment(id, treatment));
+    }
+
+    /**
+     * DELETE /api/treatments/{id} - Deactivate a treatment (appointments keep referring to it)
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Treatment> deactivateTreatment(@PathVariable Long id) {
+        return ResponseEntity.ok(treatmentService.deactivateTreatment(id));
+    }
+}
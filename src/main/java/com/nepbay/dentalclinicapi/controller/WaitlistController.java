@@ -0,0 +1,94 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.WaitlistEntry;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry.WaitlistStatus;
+import com.nepbay.dentalclinicapi.service.NotFoundException;
+import com.nepbay.dentalclinicapi.service.WaitlistService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Waitlist Controller
+ * REST API endpoints for the waitlist and the slot offers made from cancellations
+ */
+@RestController
+@RequestMapping("/api/waitlist")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class WaitlistController {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    /**
+     * GET /api/waitlist?status= - Get waitlist entries, longest waiting first
+     */
+    @GetMapping
+    public ResponseEntity<List<WaitlistEntry>> getEntries(@RequestParam(required = false) WaitlistStatus status) {
+        return ResponseEntity.ok(waitlistService.getEntries(status));
+    }
+
+    /**
+     * GET /api/waitlist/{id} - Get waitlist entry by ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<WaitlistEntry> getEntryById(@PathVariable Long id) {
+        WaitlistEntry entry = waitlistService.getEntryById(id);
+        if (entry == null) {
+            throw new NotFoundException("Waitlist entry not found with ID: " + id);
+        }
+        return ResponseEntity.ok(entry);
+    }
+
+    /**
+     * POST /api/waitlist - Put a patient on the waitlist
+     */
+    @PostMapping
+    public ResponseEntity<WaitlistEntry> createEntry(@Valid @RequestBody WaitlistEntry entry) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(waitlistService.createEntry(entry));
+    }
+
+    /**
+     * DELETE /api/waitlist/{id} - Take a patient off the waitlist
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<WaitlistEntry> removeEntry(@PathVariable Long id) {
+        return ResponseEntity.ok(waitlistService.removeEntry(id));
+    }
+
+    /**
+     * GET /api/waitlist/offers - Entries holding an unanswered slot offer
+     */
+    @GetMapping("/offers")
+    public ResponseEntity<List<WaitlistEntry>> getOpenOffers() {
+        return ResponseEntity.ok(waitlistService.getOpenOffers());
+    }
+
+    /**
+     * POST /api/waitlist/{id}/accept - Accept the offered slot and book the appointment
+     */
+    @PostMapping("/{id}/accept")
+    public ResponseEntity<WaitlistEntry> acceptOffer(@PathVariable Long id) {
+        return ResponseEntity.ok(waitlistService.acceptOffer(id));
+    }
+
+    /**
+     * POST /api/waitlist/{id}/decline - Decline the offered slot and keep waiting
+     */
+    @PostMapping("/{id}/decline")
+    public ResponseEntity<WaitlistEntry> declineOffer(@PathVariable Long id) {
+        return ResponseEntity.ok(waitlistService.declineOffer(id));
+    }
+
+    /**
+     * GET /api/waitlist/matcher - Size of the in-memory matching index
+     */
+    @GetMapping("/matcher")
+    public ResponseEntity<Map<String, Object>> getMatcherStats() {
+        return ResponseEntity.ok(waitlistService.getMatcherStats());
+    }
+}
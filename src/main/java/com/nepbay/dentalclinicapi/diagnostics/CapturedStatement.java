@@ -0,0 +1,110 @@
+package com.nepbay.dentalclinicapi.diagnostics;
+
+import java.util.Arrays;
+
+/**
+ * Captured Statement
+ * A statement as seen on the JDBC connection: its SQL, the raw values bound to it, how long it
+ * executed and how many rows its result set returned. Raw values are only kept until the slow
+ * query record (which redacts them) has been built.
+ */
+public final class CapturedStatement {
+
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private final String sql;
+    private final String method;
+    private Object[] parameters = NO_PARAMETERS;
+    private int parameterCount;
+    private int batchSize;
+    private long nanos;
+    private long rows = -1;
+    private boolean completed;
+
+    public CapturedStatement(String sql, String method) {
+        this.sql = sql;
+        this.method = method;
+    }
+
+    /**
+     * Remember a bound value (1-based index, as in PreparedStatement.setXxx)
+     */
+    public void bind(int index, Object value) {
+        if (index > parameters.length) {
+            parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+        }
+        parameters[index - 1] = value;
+        parameterCount = Math.max(parameterCount, index);
+    }
+
+    public void addBatch() {
+        batchSize++;
+    }
+
+    public void executed(long elapsedNanos) {
+        nanos += elapsedNanos;
+    }
+
+    public void rowRead() {
+        rows = rows < 0 ? 1 : rows + 1;
+    }
+
+    public void noRows() {
+        if (rows < 0) {
+            rows = 0;
+        }
+    }
+
+    public void updated(long count) {
+        rows = Math.max(rows, 0) + Math.max(count, 0);
+    }
+
+    /**
+     * Mark the statement complete; false if it already was
+     */
+    public boolean complete() {
+        if (completed) {
+            return false;
+        }
+        completed = true;
+        return true;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * A fresh capture for the next execution of the same prepared statement, keeping its bound values
+     */
+    public CapturedStatement reuse(String currentMethod) {
+        CapturedStatement next = new CapturedStatement(sql, currentMethod);
+        next.parameters = parameters.clone();
+        next.parameterCount = parameterCount;
+        return next;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public Object[] getParameters() {
+        return Arrays.copyOf(parameters, parameterCount);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+}
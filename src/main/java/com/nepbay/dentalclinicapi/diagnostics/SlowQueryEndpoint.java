@@ -0,0 +1,57 @@
+package com.nepbay.dentalclinicapi.diagnostics;
+
+import com.nepbay.dentalclinicapi.service.SlowQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Slow Query Endpoint
+ * GET /actuator/slowqueries?endpoint=&since=2024-01-31T09:00&limit= lists the slow query log, newest first;
+ * POST with {"thresholdMs": n} changes the threshold; DELETE clears the log.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    @Autowired
+    private SlowQueryService slowQueryService;
+
+    @ReadOperation
+    public Map<String, Object> slowQueries(@Nullable String endpoint, @Nullable String since, @Nullable Integer limit) {
+        LocalDateTime from = since != null ? LocalDateTime.parse(since) : null;
+        List<SlowQueryRecord> records = slowQueryService.getRecords().stream()
+                .filter(record -> endpoint == null || record.endpoint().contains(endpoint))
+                .filter(record -> from == null || !record.at().isBefore(from))
+                .limit(limit != null && limit > 0 ? limit : DEFAULT_LIMIT)
+                .toList();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", slowQueryService.isEnabled());
+        result.put("thresholdMs", slowQueryService.getThresholdMillis());
+        result.put("recorded", slowQueryService.getRecordedCount());
+        result.put("dropped", slowQueryService.getDroppedCount());
+        result.put("records", records);
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> setThreshold(long thresholdMs) {
+        slowQueryService.setThresholdMillis(thresholdMs);
+        return Map.of("thresholdMs", slowQueryService.getThresholdMillis());
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryService.clear();
+    }
+}
@@ -0,0 +1,30 @@
+package com.nepbay.dentalclinicapi.diagnostics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Slow Query Record
+ * One slow service or repository call (or one slow statement issued outside of them): where it
+ * came from and its slowest statements, with redacted bind parameters and the H2 query plan.
+ */
+public record SlowQueryRecord(
+        LocalDateTime at,
+        String endpoint,
+        String method,
+        double durationMs,
+        int statementCount,
+        List<Statement> statements) {
+
+    /**
+     * One statement of the call; rows is null when the result was not read inside the call
+     */
+    public record Statement(
+            String sql,
+            List<String> parameters,
+            Integer batchSize,
+            Long rows,
+            double durationMs,
+            String method,
+            String plan) {}
+}
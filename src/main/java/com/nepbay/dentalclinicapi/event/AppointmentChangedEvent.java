@@ -0,0 +1,58 @@
+package com.nepbay.dentalclinicapi.event;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import java.time.LocalDate;
+
+/**
+ * Appointment Changed Event
+ * Published by AppointmentService after an appointment is created, updated, re-statused or deleted.
+ * Listeners keep derived state (rollups, indexes, caches) in step with the appointments table.
+ */
+public class AppointmentChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    private final Appointment appointment;
+    private final LocalDate previousDate;
+    private final Long previousPatientId;
+    private final ChangeType changeType;
+
+    public AppointmentChangedEvent(Appointment appointment, LocalDate previousDate, ChangeType changeType) {
+        this(appointment, previousDate, appointment.getPatientId(), changeType);
+    }
+
+    public AppointmentChangedEvent(Appointment appointment, LocalDate previousDate, Long previousPatientId, ChangeType changeType) {
+        this.appointment = appointment;
+        this.previousDate = previousDate;
+        this.previousPatientId = previousPatientId;
+        this.changeType = changeType;
+    }
+
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * Appointment date before the change (null for newly created appointments)
+     */
+    public LocalDate getPreviousDate() {
+        return previousDate;
+    }
+
+    /**
+     * Patient the appointment was linked to before the change; differs from the appointment's own
+     * patient id when an update moved it to another patient's chart
+     */
+    public Long getPreviousPatientId() {
+        return previousPatientId;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+}
@@ -0,0 +1,32 @@
+package com.nepbay.dentalclinicapi.event;
+
+import com.nepbay.dentalclinicapi.model.Patient;
+
+/**
+ * Patient Changed Event
+ * Published by PatientService after a patient is created, updated or deleted
+ */
+public class PatientChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Patient patient;
+    private final ChangeType changeType;
+
+    public PatientChangedEvent(Patient patient, ChangeType changeType) {
+        this.patient = patient;
+        this.changeType = changeType;
+    }
+
+    public Patient getPatient() {
+        return patient;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+}
@@ -0,0 +1,21 @@
+package com.nepbay.dentalclinicapi.event;
+
+import com.nepbay.dentalclinicapi.model.AppointmentSeries;
+
+/**
+ * Series Changed Event
+ * Published by AppointmentSeriesService when a series or one of its exceptions changes, which
+ * changes the expanded occurrences of every window the series overlaps.
+ */
+public class SeriesChangedEvent {
+
+    private final AppointmentSeries series;
+
+    public SeriesChangedEvent(AppointmentSeries series) {
+        this.series = series;
+    }
+
+    public AppointmentSeries getSeries() {
+        return series;
+    }
+}
@@ -17,8 +17,10 @@ import java.time.LocalDateTime;
 @Table(name = "appointments")
 public class Appointment {
     
+    // Sequence (not IDENTITY) ids so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Patient name is required")
@@ -26,6 +28,10 @@ public class Appointment {
     @Column(name = "patient_name", nullable = false, length = 100)
     private String patientName;
     
+    // Patient the appointment belongs to (null until linked, e.g. a name that matches no or several patients)
+    @Column(name = "patient_id")
+    private Long patientId;
+    
     @NotNull(message = "Appointment date is required")
     @Column(name = "appointment_date", nullable = false)
     private LocalDate appointmentDate;
@@ -37,6 +43,10 @@ public class Appointment {
     @Column(length = 200)
     private String treatment;
     
+    // Catalog treatment the name resolved to (null for free-text treatments not in the catalog)
+    @Column(name = "treatment_id")
+    private Long treatmentId;
+    
     @Size(max = 1000, message = "Notes cannot be longer than 1000 characters")
     @Column(length = 1000)
     private String notes;
@@ -51,6 +61,17 @@ public class Appointment {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Set only on occurrences expanded from an AppointmentSeries (which have no id of their own)
+    @Transient
+    private Long seriesId;
+    
+    @Transient
+    private LocalDate occurrenceDate;
+    
+    // Probability of a no-show, filled in from NoShowScoringService for open appointments on upcoming/availability views
+    @Transient
+    private Double noShowRisk;
+    
     // Enum for appointment status
     public enum AppointmentStatus {
         SCHEDULED,
@@ -110,6 +131,14 @@ public class Appointment {
         this.patientName = patientName;
     }
     
+    public Long getPatientId() {
+        return patientId;
+    }
+    
+    public void setPatientId(Long patientId) {
+        this.patientId = patientId;
+    }
+    
     public LocalDate getAppointmentDate() {
         return appointmentDate;
     }
@@ -134,6 +163,14 @@ public class Appointment {
         this.treatment = treatment;
     }
     
+    public Long getTreatmentId() {
+        return treatmentId;
+    }
+    
+    public void setTreatmentId(Long treatmentId) {
+        this.treatmentId = treatmentId;
+    }
+    
     public String getNotes() {
         return notes;
     }
@@ -166,6 +203,33 @@ public class Appointment {
         this.updatedAt = updatedAt;
     }
     
+    public Long getSeriesId() {
+        return seriesId;
+    }
+    
+    public void setSeriesId(Long seriesId) {
+        this.seriesId = seriesId;
+    }
+    
+    /**
+     * Original date of a series occurrence (differs from appointmentDate when it was moved)
+     */
+    public LocalDate getOccurrenceDate() {
+        return occurrenceDate;
+    }
+    
+    public void setOccurrenceDate(LocalDate occurrenceDate) {
+        this.occurrenceDate = occurrenceDate;
+    }
+    
+    public Double getNoShowRisk() {
+        return noShowRisk;
+    }
+    
+    public void setNoShowRisk(Double noShowRisk) {
+        this.noShowRisk = noShowRisk;
+    }
+    
     @Override
     public String toString() {
         return "Appointment{" +
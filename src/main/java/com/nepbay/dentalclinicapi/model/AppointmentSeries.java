@@ -0,0 +1,235 @@
+package com.nepbay.dentalclinicapi.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Appointment Series Entity
+ * A recurring appointment rule, e.g. "every 6 months cleaning" (MONTHLY, interval 6) or
+ * "weekly ortho adjustment for 12 weeks" (WEEKLY, interval 1, 12 occurrences).
+ * Occurrences are not stored; they are expanded on demand for the queried window.
+ */
+@Entity
+@Table(name = "appointment_series")
+public class AppointmentSeries {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_series_seq")
+    @SequenceGenerator(name = "appointment_series_seq", sequenceName = "appointment_series_seq", allocationSize = 50)
+    private Long id;
+    
+    @NotBlank(message = "Patient name is required")
+    @Size(max = 100, message = "Patient name cannot be longer than 100 characters")
+    @Column(name = "patient_name", nullable = false, length = 100)
+    private String patientName;
+    
+    @Size(max = 200, message = "Treatment description cannot be longer than 200 characters")
+    @Column(length = 200)
+    private String treatment;
+    
+    @Size(max = 1000, message = "Notes cannot be longer than 1000 characters")
+    @Column(length = 1000)
+    private String notes;
+    
+    @Column(name = "appointment_time")
+    private LocalTime appointmentTime;
+    
+    @NotNull(message = "Start date is required")
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+    
+    // Last possible occurrence date as given by the client; null when the series is open-ended
+    @Column(name = "end_date")
+    private LocalDate endDate;
+    
+    @NotNull(message = "Frequency is required")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Frequency frequency;
+    
+    @Min(value = 1, message = "Interval must be at least 1")
+    @Column(name = "interval_count", nullable = false)
+    private int intervalCount = 1;
+    
+    @Min(value = 1, message = "Occurrence count must be at least 1")
+    @Column(name = "occurrence_count")
+    private Integer occurrenceCount;
+    
+    // Earlier of endDate and the date of the last counted occurrence, kept so window queries can
+    // skip finished series; recomputed on every write rather than stored into endDate, so changing
+    // the count later moves the bound with it
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Recurrence unit; intervalCount says how many units lie between occurrences
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY
+    }
+    
+    // Constructors
+    public AppointmentSeries() {}
+    
+    public AppointmentSeries(String patientName, String treatment, LocalDate startDate, Frequency frequency, int intervalCount) {
+        this.patientName = patientName;
+        this.treatment = treatment;
+        this.startDate = startDate;
+        this.frequency = frequency;
+        this.intervalCount = intervalCount;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        lastDate = computeLastDate();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+        lastDate = computeLastDate();
+    }
+    
+    private LocalDate computeLastDate() {
+        if (occurrenceCount == null || startDate == null || frequency == null) {
+            return endDate;
+        }
+        long steps = (long) (occurrenceCount - 1) * Math.max(1, intervalCount);
+        LocalDate counted;
+        if (frequency == Frequency.DAILY) {
+            counted = startDate.plusDays(steps);
+        } else if (frequency == Frequency.WEEKLY) {
+            counted = startDate.plusWeeks(steps);
+        } else {
+            counted = startDate.plusMonths(steps);
+        }
+        return endDate != null && endDate.isBefore(counted) ? endDate : counted;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getPatientName() {
+        return patientName;
+    }
+    
+    public void setPatientName(String patientName) {
+        this.patientName = patientName;
+    }
+    
+    public String getTreatment() {
+        return treatment;
+    }
+    
+    public void setTreatment(String treatment) {
+        this.treatment = treatment;
+    }
+    
+    public String getNotes() {
+        return notes;
+    }
+    
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+    
+    public LocalTime getAppointmentTime() {
+        return appointmentTime;
+    }
+    
+    public void setAppointmentTime(LocalTime appointmentTime) {
+        this.appointmentTime = appointmentTime;
+    }
+    
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+    
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+    
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+    
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+    
+    public Frequency getFrequency() {
+        return frequency;
+    }
+    
+    public void setFrequency(Frequency frequency) {
+        this.frequency = frequency;
+    }
+    
+    public int getIntervalCount() {
+        return intervalCount;
+    }
+    
+    public void setIntervalCount(int intervalCount) {
+        this.intervalCount = intervalCount;
+    }
+    
+    public Integer getOccurrenceCount() {
+        return occurrenceCount;
+    }
+    
+    public void setOccurrenceCount(Integer occurrenceCount) {
+        this.occurrenceCount = occurrenceCount;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "AppointmentSeries{" +
+                "id=" + id +
+                ", patientName='" + patientName + '\'' +
+                ", frequency=" + frequency +
+                ", intervalCount=" + intervalCount +
+                ", startDate=" + startDate +
+                ", endDate=" + endDate +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package com.nepbay.dentalclinicapi.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Daily Rollup Entity
+ * One pre-aggregated value per (day, metric, dimension), e.g.
+ * (2026-03-14, "appointments.status", "COMPLETED") = 37
+ */
+@Entity
+@Table(name = "daily_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_daily_rollups_day_metric_dimension", columnNames = {"rollup_day", "metric", "dimension"})
+})
+public class DailyRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_rollups_seq")
+    @SequenceGenerator(name = "daily_rollups_seq", sequenceName = "daily_rollups_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+    
+    @Column(nullable = false, length = 50)
+    private String metric;
+    
+    // Empty string for metrics without a breakdown
+    @Column(nullable = false, length = 200)
+    private String dimension;
+    
+    @Column(name = "metric_value", nullable = false)
+    private double value;
+    
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+    
+    // Constructors
+    public DailyRollup() {}
+    
+    public DailyRollup(LocalDate day, String metric, String dimension, double value) {
+        this.day = day;
+        this.metric = metric;
+        this.dimension = dimension;
+        this.value = value;
+        this.computedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public LocalDate getDay() {
+        return day;
+    }
+    
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+    
+    public String getMetric() {
+        return metric;
+    }
+    
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+    
+    public String getDimension() {
+        return dimension;
+    }
+    
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+    }
+    
+    public double getValue() {
+        return value;
+    }
+    
+    public void setValue(double value) {
+        this.value = value;
+    }
+    
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+    
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
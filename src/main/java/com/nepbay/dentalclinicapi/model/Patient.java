@@ -15,8 +15,10 @@ import java.time.LocalDateTime;
 @Table(name = "patients")
 public class Patient {
     
+    // Sequence (not IDENTITY) ids so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patients_seq")
+    @SequenceGenerator(name = "patients_seq", sequenceName = "patients_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Patient name is required")
@@ -29,6 +31,10 @@ public class Patient {
     @Column(nullable = false, length = 20, unique = true)
     private String phone;
     
+    // The phone in one format (see PatientMatching.canonicalPhone); unique, unlike the number as typed
+    @Column(name = "canonical_phone", length = 24, unique = true)
+    private String canonicalPhone;
+    
     @Email(message = "Please provide a valid email address")
     @Size(max = 100, message = "Email cannot be longer than 100 characters")
     @Column(length = 100, unique = true)
@@ -69,11 +75,13 @@ public class Patient {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        canonicalPhone = PatientMatching.canonicalPhone(phone);
     }
     
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        canonicalPhone = PatientMatching.canonicalPhone(phone);
     }
     
     // Getters and Setters
@@ -101,6 +109,10 @@ public class Patient {
         this.phone = phone;
     }
     
+    public String getCanonicalPhone() {
+        return canonicalPhone;
+    }
+    
     public String getEmail() {
         return email;
     }
@@ -0,0 +1,181 @@
+package com.nepbay.dentalclinicapi.model;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Patient Matching
+ * Normalization and similarity functions used to recognise the same person entered twice:
+ * E.164 phone numbers, Turkish-aware folded names, phonetic keys and Jaro-Winkler similarity.
+ */
+public final class PatientMatching {
+
+    private static final String DEFAULT_COUNTRY_CODE = "90";
+
+    private PatientMatching() {}
+
+    /**
+     * Canonical E.164 form of a phone number, assuming Turkey for national numbers.
+     * "0555-456-7890", "05554567890", "+90 555 456 78 90" and "5554567890" all become "+905554567890".
+     * Returns null when there are no digits at all.
+     */
+    public static String canonicalPhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        boolean international = phone.trim().startsWith("+");
+        String digits = phone.replaceAll("[^0-9]", "");
+        if (digits.isEmpty()) {
+            return null;
+        }
+        if (international) {
+            return "+" + digits;
+        }
+        if (digits.startsWith("00")) {
+            return "+" + digits.substring(2);
+        }
+        if (digits.startsWith("0")) {
+            return "+" + DEFAULT_COUNTRY_CODE + digits.substring(1);
+        }
+        if (digits.length() == 12 && digits.startsWith(DEFAULT_COUNTRY_CODE)) {
+            return "+" + digits;
+        }
+        return "+" + DEFAULT_COUNTRY_CODE + digits;
+    }
+
+    /**
+     * Lower-cased email without surrounding whitespace, or null when blank
+     */
+    public static String canonicalEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Name folded to plain ASCII lower case: "Ahmet YILMAZ", "ahmet yılmaz" and "Ahmet Yilmaz"
+     * all become "ahmet yilmaz". Handles the dotless/dotted i pair that Locale.ROOT gets wrong.
+     */
+    public static String foldName(String name) {
+        if (name == null) {
+            return "";
+        }
+        String folded = name.replace('ı', 'i').replace('I', 'i').replace('İ', 'i');
+        folded = Normalizer.normalize(folded, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        folded = folded.toLowerCase(Locale.ROOT).replaceAll("[^a-z ]", " ");
+        return folded.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Order-insensitive phonetic key of a name: one Soundex-style code per token, sorted,
+     * so "Mehmet Özkan", "Mehmet Ozcan" and "Ozkan Mehmet" share a key.
+     */
+    public static String phoneticKey(String name) {
+        String folded = foldName(name);
+        if (folded.isEmpty()) {
+            return "";
+        }
+        String[] tokens = folded.split(" ");
+        String[] codes = new String[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            codes[i] = soundex(tokens[i]);
+        }
+        Arrays.sort(codes);
+        return String.join(" ", codes);
+    }
+
+    /**
+     * Jaro-Winkler similarity of two folded names, between 0.0 and 1.0
+     */
+    public static double nameSimilarity(String a, String b) {
+        return jaroWinkler(foldName(a), foldName(b));
+    }
+
+    private static String soundex(String token) {
+        StringBuilder code = new StringBuilder(4);
+        code.append(token.charAt(0));
+        char previous = soundexDigit(token.charAt(0));
+        for (int i = 1; i < token.length() && code.length() < 4; i++) {
+            char digit = soundexDigit(token.charAt(i));
+            if (digit != '0' && digit != previous) {
+                code.append(digit);
+            }
+            // h and w do not separate equal codes; vowels do
+            if (token.charAt(i) != 'h' && token.charAt(i) != 'w') {
+                previous = digit;
+            }
+        }
+        while (code.length() < 4) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+
+    private static char soundexDigit(char c) {
+        switch (c) {
+            case 'b': case 'f': case 'p': case 'v': case 'w':
+                return '1';
+            case 'c': case 'g': case 'j': case 'k': case 'q': case 's': case 'x': case 'z':
+                return '2';
+            case 'd': case 't':
+                return '3';
+            case 'l':
+                return '4';
+            case 'm': case 'n':
+                return '5';
+            case 'r':
+                return '6';
+            default:
+                return '0';
+        }
+    }
+
+    private static double jaroWinkler(String s1, String s2) {
+        if (s1.equals(s2)) {
+            return 1.0;
+        }
+        if (s1.isEmpty() || s2.isEmpty()) {
+            return 0.0;
+        }
+        int window = Math.max(0, Math.max(s1.length(), s2.length()) / 2 - 1);
+        boolean[] matched1 = new boolean[s1.length()];
+        boolean[] matched2 = new boolean[s2.length()];
+        int matches = 0;
+        for (int i = 0; i < s1.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(s2.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!matched2[j] && s1.charAt(i) == s2.charAt(j)) {
+                    matched1[i] = true;
+                    matched2[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < s1.length(); i++) {
+            if (matched1[i]) {
+                while (!matched2[j]) {
+                    j++;
+                }
+                if (s1.charAt(i) != s2.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / s1.length() + m / s2.length() + (m - transpositions / 2.0) / m) / 3.0;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(s1.length(), s2.length())) && s1.charAt(prefix) == s2.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+}
@@ -0,0 +1,147 @@
+package com.nepbay.dentalclinicapi.model;
+
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Series Exception Entity
+ * Overrides one occurrence of an AppointmentSeries, identified by its original date:
+ * skip it, move it (appointmentDate/appointmentTime), change its status or notes, or hand it
+ * over to a real Appointment row (appointmentId) once it is booked individually.
+ * Null fields inherit from the series.
+ */
+@Entity
+@Table(name = "appointment_series_exceptions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_series_exceptions_series_date", columnNames = {"series_id", "original_date"})
+})
+public class SeriesException {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointment_series_exceptions_seq")
+    @SequenceGenerator(name = "appointment_series_exceptions_seq", sequenceName = "appointment_series_exceptions_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "series_id", nullable = false)
+    private Long seriesId;
+    
+    @Column(name = "original_date", nullable = false)
+    private LocalDate originalDate;
+    
+    @Column(nullable = false)
+    private boolean skipped;
+    
+    @Column(name = "appointment_date")
+    private LocalDate appointmentDate;
+    
+    @Column(name = "appointment_time")
+    private LocalTime appointmentTime;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private AppointmentStatus status;
+    
+    @Size(max = 1000, message = "Notes cannot be longer than 1000 characters")
+    @Column(length = 1000)
+    private String notes;
+    
+    // Set when the occurrence was booked as a regular appointment
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public SeriesException() {}
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getSeriesId() {
+        return seriesId;
+    }
+    
+    public void setSeriesId(Long seriesId) {
+        this.seriesId = seriesId;
+    }
+    
+    public LocalDate getOriginalDate() {
+        return originalDate;
+    }
+    
+    public void setOriginalDate(LocalDate originalDate) {
+        this.originalDate = originalDate;
+    }
+    
+    public boolean isSkipped() {
+        return skipped;
+    }
+    
+    public void setSkipped(boolean skipped) {
+        this.skipped = skipped;
+    }
+    
+    public LocalDate getAppointmentDate() {
+        return appointmentDate;
+    }
+    
+    public void setAppointmentDate(LocalDate appointmentDate) {
+        this.appointmentDate = appointmentDate;
+    }
+    
+    public LocalTime getAppointmentTime() {
+        return appointmentTime;
+    }
+    
+    public void setAppointmentTime(LocalTime appointmentTime) {
+        this.appointmentTime = appointmentTime;
+    }
+    
+    public AppointmentStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(AppointmentStatus status) {
+        this.status = status;
+    }
+    
+    public String getNotes() {
+        return notes;
+    }
+    
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+    
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+    
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,141 @@
+package com.nepbay.dentalclinicapi.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Treatment Entity
+ * Catalog entry for a treatment the clinic offers: a stable code, display name, chair time and price.
+ * Appointments reference it by id; the free-text treatment name on the appointment is kept for display.
+ */
+@Entity
+@Table(name = "treatments", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_treatments_code", columnNames = "code")
+})
+public class Treatment {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "treatments_seq")
+    @SequenceGenerator(name = "treatments_seq", sequenceName = "treatments_seq", allocationSize = 50)
+    private Long id;
+    
+    // Slug of the name ("Root Canal" -> "root-canal"), used to match free-text treatment names
+    @Size(max = 60, message = "Code cannot be longer than 60 characters")
+    @Column(nullable = false, length = 60)
+    private String code;
+    
+    @NotBlank(message = "Treatment name is required")
+    @Size(max = 100, message = "Treatment name cannot be longer than 100 characters")
+    @Column(nullable = false, length = 100)
+    private String name;
+    
+    @Min(value = 5, message = "Duration must be at least 5 minutes")
+    @Column(name = "duration_minutes", nullable = false)
+    private int durationMinutes = 30;
+    
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.00", message = "Price cannot be negative")
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal price;
+    
+    @Column(nullable = false)
+    private boolean active = true;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public Treatment() {}
+    
+    public Treatment(String code, String name, int durationMinutes, BigDecimal price) {
+        this.code = code;
+        this.name = name;
+        this.durationMinutes = durationMinutes;
+        this.price = price;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public void setCode(String code) {
+        this.code = code;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+    
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,245 @@
+package com.nepbay.dentalclinicapi.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Waitlist Entry Entity
+ * A patient waiting for an earlier slot: acceptable date window, optional time window and
+ * treatment. When a matching appointment is cancelled the entry receives an offer for that slot.
+ */
+@Entity
+@Table(name = "waitlist_entries")
+public class WaitlistEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "waitlist_entries_seq")
+    @SequenceGenerator(name = "waitlist_entries_seq", sequenceName = "waitlist_entries_seq", allocationSize = 50)
+    private Long id;
+    
+    @NotBlank(message = "Patient name is required")
+    @Size(max = 100, message = "Patient name cannot be longer than 100 characters")
+    @Column(name = "patient_name", nullable = false, length = 100)
+    private String patientName;
+    
+    @Size(max = 20, message = "Phone number cannot be longer than 20 characters")
+    @Column(length = 20)
+    private String phone;
+    
+    // Null matches any treatment
+    @Size(max = 200, message = "Treatment description cannot be longer than 200 characters")
+    @Column(length = 200)
+    private String treatment;
+    
+    @NotNull(message = "Earliest date is required")
+    @Column(name = "earliest_date", nullable = false)
+    private LocalDate earliestDate;
+    
+    @NotNull(message = "Latest date is required")
+    @Column(name = "latest_date", nullable = false)
+    private LocalDate latestDate;
+    
+    // Null bounds mean any time of day
+    @Column(name = "earliest_time")
+    private LocalTime earliestTime;
+    
+    @Column(name = "latest_time")
+    private LocalTime latestTime;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+    
+    // Slot currently offered: the cancelled appointment and its date/time
+    @Column(name = "offered_appointment_id")
+    private Long offeredAppointmentId;
+    
+    @Column(name = "offered_date")
+    private LocalDate offeredDate;
+    
+    @Column(name = "offered_time")
+    private LocalTime offeredTime;
+    
+    @Column(name = "offer_expires_at")
+    private LocalDateTime offerExpiresAt;
+    
+    @Column(name = "booked_appointment_id")
+    private Long bookedAppointmentId;
+    
+    // Offers are claimed with a conditional update; the version makes concurrent accept/decline/expiry fail fast
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public enum WaitlistStatus {
+        WAITING,
+        OFFERED,
+        BOOKED,
+        REMOVED
+    }
+    
+    // Constructors
+    public WaitlistEntry() {}
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (status == null) {
+            status = WaitlistStatus.WAITING;
+        }
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getPatientName() {
+        return patientName;
+    }
+    
+    public void setPatientName(String patientName) {
+        this.patientName = patientName;
+    }
+    
+    public String getPhone() {
+        return phone;
+    }
+    
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+    
+    public String getTreatment() {
+        return treatment;
+    }
+    
+    public void setTreatment(String treatment) {
+        this.treatment = treatment;
+    }
+    
+    public LocalDate getEarliestDate() {
+        return earliestDate;
+    }
+    
+    public void setEarliestDate(LocalDate earliestDate) {
+        this.earliestDate = earliestDate;
+    }
+    
+    public LocalDate getLatestDate() {
+        return latestDate;
+    }
+    
+    public void setLatestDate(LocalDate latestDate) {
+        this.latestDate = latestDate;
+    }
+    
+    public LocalTime getEarliestTime() {
+        return earliestTime;
+    }
+    
+    public void setEarliestTime(LocalTime earliestTime) {
+        this.earliestTime = earliestTime;
+    }
+    
+    public LocalTime getLatestTime() {
+        return latestTime;
+    }
+    
+    public void setLatestTime(LocalTime latestTime) {
+        this.latestTime = latestTime;
+    }
+    
+    public WaitlistStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(WaitlistStatus status) {
+        this.status = status;
+    }
+    
+    public Long getOfferedAppointmentId() {
+        return offeredAppointmentId;
+    }
+    
+    public void setOfferedAppointmentId(Long offeredAppointmentId) {
+        this.offeredAppointmentId = offeredAppointmentId;
+    }
+    
+    public LocalDate getOfferedDate() {
+        return offeredDate;
+    }
+    
+    public void setOfferedDate(LocalDate offeredDate) {
+        this.offeredDate = offeredDate;
+    }
+    
+    public LocalTime getOfferedTime() {
+        return offeredTime;
+    }
+    
+    public void setOfferedTime(LocalTime offeredTime) {
+        this.offeredTime = offeredTime;
+    }
+    
+    public LocalDateTime getOfferExpiresAt() {
+        return offerExpiresAt;
+    }
+    
+    public void setOfferExpiresAt(LocalDateTime offerExpiresAt) {
+        this.offerExpiresAt = offerExpiresAt;
+    }
+    
+    public Long getBookedAppointmentId() {
+        return bookedAppointmentId;
+    }
+    
+    public void setBookedAppointmentId(Long bookedAppointmentId) {
+        this.bookedAppointmentId = bookedAppointmentId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -2,11 +2,14 @@ package com.nepbay.dentalclinicapi.repository;
 
 import com.nepbay.dentalclinicapi.model.Appointment;
 import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 /**
@@ -56,4 +59,43 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     // Find appointments by date range
     @Query("SELECT a FROM Appointment a WHERE a.appointmentDate BETWEEN :startDate AND :endDate ORDER BY a.appointmentDate ASC, a.appointmentTime ASC")
     List<Appointment> findAppointmentsByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Appointment counts per day, status, treatment name and catalog id (rollup source)
+    @Query("SELECT a.appointmentDate, a.status, a.treatment, a.treatmentId, COUNT(a) FROM Appointment a WHERE a.appointmentDate BETWEEN :startDate AND :endDate GROUP BY a.appointmentDate, a.status, a.treatment, a.treatmentId")
+    List<Object[]> countByDayStatusAndTreatment(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Days with appointments of a status and catalog treatment (rollup days a price change affects)
+    @Query("SELECT DISTINCT a.appointmentDate FROM Appointment a WHERE a.status = :status AND a.treatmentId = :treatmentId")
+    List<LocalDate> findDaysByStatusAndTreatmentId(@Param("status") AppointmentStatus status, @Param("treatmentId") Long treatmentId);
+    
+    // Earliest and latest appointment dates
+    @Query("SELECT MIN(a.appointmentDate), MAX(a.appointmentDate) FROM Appointment a")
+    List<Object[]> findDateBounds();
+    
+    // Appointments of a status per day and catalog treatment (null treatmentId = not in the catalog)
+    @Query("SELECT a.appointmentDate, a.treatmentId, COUNT(a) FROM Appointment a WHERE a.status = :status AND a.appointmentDate BETWEEN :startDate AND :endDate GROUP BY a.appointmentDate, a.treatmentId")
+    List<Object[]> countByDayAndTreatmentId(@Param("status") AppointmentStatus status, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Appointments of a status per catalog treatment over all history
+    @Query("SELECT a.treatmentId, COUNT(a) FROM Appointment a WHERE a.status = :status GROUP BY a.treatmentId")
+    List<Object[]> countByTreatmentId(@Param("status") AppointmentStatus status);
+    
+    // Free-text treatment names not yet linked to the catalog
+    @Query("SELECT DISTINCT a.treatment FROM Appointment a WHERE a.treatmentId IS NULL AND a.treatment IS NOT NULL")
+    List<String> findUnresolvedTreatmentNames();
+    
+    @Modifying
+    @Query("UPDATE Appointment a SET a.treatmentId = :treatmentId, a.updatedAt = CURRENT_TIMESTAMP WHERE a.treatmentId IS NULL AND a.treatment = :treatment")
+    int assignTreatmentId(@Param("treatment") String treatment, @Param("treatmentId") Long treatmentId);
+    
+    // First page of a patient's appointments, latest first (appointments without a time sort as midnight)
+    @Query("SELECT a FROM Appointment a WHERE a.patientId = :patientId ORDER BY a.appointmentDate DESC, COALESCE(a.appointmentTime, :midnight) DESC, a.id DESC")
+    List<Appointment> findTimelineStart(@Param("patientId") Long patientId, @Param("midnight") LocalTime midnight, Pageable pageable);
+    
+    // Next page: appointments ordered after (date, time, id) in the same order
+    @Query("SELECT a FROM Appointment a WHERE a.patientId = :patientId AND (a.appointmentDate < :date OR (a.appointmentDate = :date AND (COALESCE(a.appointmentTime, :midnight) < :time OR (COALESCE(a.appointmentTime, :midnight) = :time AND a.id < :id)))) ORDER BY a.appointmentDate DESC, COALESCE(a.appointmentTime, :midnight) DESC, a.id DESC")
+    List<Appointment> findTimelineAfter(@Param("patientId") Long patientId, @Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") Long id, @Param("midnight") LocalTime midnight, Pageable pageable);
+    
+    @Query("SELECT a.id FROM Appointment a WHERE a.patientId = :patientId")
+    List<Long> findIdsByPatientId(@Param("patientId") Long patientId);
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.nepbay.dentalclinicapi.repository;
+
+import com.nepbay.dentalclinicapi.model.AppointmentSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Appointment Series Repository
+ * Handles database operations for recurring appointment rules
+ */
+@Repository
+public interface AppointmentSeriesRepository extends JpaRepository<AppointmentSeries, Long> {
+    
+    // Series that can have occurrences inside [from, to]
+    @Query("SELECT s FROM AppointmentSeries s WHERE s.startDate <= :to AND (s.lastDate IS NULL OR s.lastDate >= :from)")
+    List<AppointmentSeries> findActiveBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    List<AppointmentSeries> findByPatientNameContainingIgnoreCase(String patientName);
+}
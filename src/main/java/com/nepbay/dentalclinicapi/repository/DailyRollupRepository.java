@@ -0,0 +1,40 @@
+package com.nepbay.dentalclinicapi.repository;
+
+import com.nepbay.dentalclinicapi.model.DailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily Rollup Repository
+ * Handles database operations for pre-aggregated daily metrics
+ */
+@Repository
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, Long> {
+    
+    // Per-day totals of a metric across all dimensions
+    @Query("SELECT r.day, SUM(r.value) FROM DailyRollup r WHERE r.metric = :metric AND r.day BETWEEN :from AND :to GROUP BY r.day ORDER BY r.day")
+    List<Object[]> sumByDay(@Param("metric") String metric, @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    // Per-day values of one dimension of a metric
+    @Query("SELECT r.day, SUM(r.value) FROM DailyRollup r WHERE r.metric = :metric AND r.dimension = :dimension AND r.day BETWEEN :from AND :to GROUP BY r.day ORDER BY r.day")
+    List<Object[]> sumByDay(@Param("metric") String metric, @Param("dimension") String dimension,
+                            @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    // Total of a metric over a period
+    @Query("SELECT COALESCE(SUM(r.value), 0) FROM DailyRollup r WHERE r.metric = :metric AND r.day BETWEEN :from AND :to")
+    Double sumBetween(@Param("metric") String metric, @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    // Total of a metric over all time
+    @Query("SELECT COALESCE(SUM(r.value), 0) FROM DailyRollup r WHERE r.metric = :metric")
+    Double sumAll(@Param("metric") String metric);
+    
+    // Remove all rollups of a day range before recomputing it
+    @Modifying
+    @Query("DELETE FROM DailyRollup r WHERE r.day BETWEEN :from AND :to")
+    int deleteByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
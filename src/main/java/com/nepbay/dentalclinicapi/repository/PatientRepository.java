@@ -3,7 +3,9 @@ package com.nepbay.dentalclinicapi.repository;
 import com.nepbay.dentalclinicapi.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +20,9 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     // Find patient by phone number
     Optional<Patient> findByPhone(String phone);
     
+    // Find patient by phone number in canonical form, whatever format it was typed in
+    Optional<Patient> findByCanonicalPhone(String canonicalPhone);
+    
     // Find patient by email
     Optional<Patient> findByEmail(String email);
     
@@ -35,7 +40,7 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     Long countTotalPatients();
     
     // Find patients registered today
-    @Query("SELECT p FROM Patient p WHERE DATE(p.createdAt) = CURRENT_DATE")
+    @Query("SELECT p FROM Patient p WHERE CAST(p.createdAt AS LocalDate) = CURRENT_DATE")
     List<Patient> findPatientsRegisteredToday();
     
     // Find patients registered this month
@@ -45,4 +50,12 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     // Find recent patients (last 10)
     @Query("SELECT p FROM Patient p ORDER BY p.createdAt DESC LIMIT 10")
     List<Patient> findRecentPatients();
+    
+    // New patient counts per registration day (rollup source)
+    @Query("SELECT CAST(p.createdAt AS LocalDate), COUNT(p) FROM Patient p WHERE p.createdAt >= :start AND p.createdAt < :end GROUP BY CAST(p.createdAt AS LocalDate)")
+    List<Object[]> countByRegistrationDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    
+    // Earliest registration timestamp
+    @Query("SELECT MIN(p.createdAt) FROM Patient p")
+    LocalDateTime findFirstRegistration();
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.nepbay.dentalclinicapi.repository;
+
+import com.nepbay.dentalclinicapi.model.SeriesException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Series Exception Repository
+ * Handles database operations for per-occurrence overrides of appointment series
+ */
+@Repository
+public interface SeriesExceptionRepository extends JpaRepository<SeriesException, Long> {
+    
+    List<SeriesException> findBySeriesIdOrderByOriginalDate(Long seriesId);
+    
+    Optional<SeriesException> findBySeriesIdAndOriginalDate(Long seriesId, LocalDate originalDate);
+    
+    // Exceptions of the given series whose original date falls inside the window
+    @Query("SELECT e FROM SeriesException e WHERE e.seriesId IN :seriesIds AND e.originalDate BETWEEN :from AND :to")
+    List<SeriesException> findForSeriesBetween(@Param("seriesIds") Collection<Long> seriesIds,
+                                               @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    // Occurrences moved into the window from an original date outside it
+    @Query("SELECT e FROM SeriesException e WHERE e.skipped = false AND e.appointmentId IS NULL " +
+           "AND e.appointmentDate BETWEEN :from AND :to AND (e.originalDate < :from OR e.originalDate > :to)")
+    List<SeriesException> findMovedInto(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    // Hands the occurrence to a booking unless another booking already took it; returns the rows changed
+    @Modifying
+    @Query("UPDATE SeriesException e SET e.appointmentId = :appointmentId WHERE e.id = :id AND e.appointmentId IS NULL")
+    int claimForAppointment(@Param("id") Long id, @Param("appointmentId") Long appointmentId);
+    
+    @Modifying
+    @Query("DELETE FROM SeriesException e WHERE e.seriesId = :seriesId")
+    int deleteBySeriesId(@Param("seriesId") Long seriesId);
+}
@@ -0,0 +1,18 @@
+package com.nepbay.dentalclinicapi.repository;
+
+import com.nepbay.dentalclinicapi.model.Treatment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * Treatment Repository
+ * Handles database operations for the treatment catalog
+ */
+@Repository
+public interface TreatmentRepository extends JpaRepository<Treatment, Long> {
+    
+    List<Treatment> findAllByOrderByNameAsc();
+    
+    boolean existsByCode(String code);
+}
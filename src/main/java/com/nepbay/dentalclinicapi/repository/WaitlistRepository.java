@@ -0,0 +1,36 @@
+package com.nepbay.dentalclinicapi.repository;
+
+import com.nepbay.dentalclinicapi.model.WaitlistEntry;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry.WaitlistStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Waitlist Repository
+ * Handles database operations for waitlist entries
+ */
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    
+    List<WaitlistEntry> findByStatusOrderByCreatedAtAsc(WaitlistStatus status);
+    
+    List<WaitlistEntry> findAllByOrderByCreatedAtAsc();
+    
+    // Offers whose answer window has passed
+    List<WaitlistEntry> findByStatusAndOfferExpiresAtBefore(WaitlistStatus status, LocalDateTime time);
+    
+    // Conditional claim: succeeds for exactly one caller even across nodes sharing the database
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'OFFERED', w.offeredAppointmentId = :appointmentId, " +
+           "w.offeredDate = :date, w.offeredTime = :time, w.offerExpiresAt = :expiresAt, w.version = w.version + 1, w.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE w.id = :id AND w.status = 'WAITING'")
+    int claim(@Param("id") Long id, @Param("appointmentId") Long appointmentId, @Param("date") LocalDate date,
+              @Param("time") LocalTime time, @Param("expiresAt") LocalDateTime expiresAt);
+}
@@ -0,0 +1,164 @@
+package com.nepbay.dentalclinicapi.resilience;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit Breaker
+ * Tracks the outcome of the last window calls. Once at least minimumCalls were made and the share
+ * of failures reaches failureRatePercent, the breaker opens and rejects calls for openMillis, so a
+ * struggling database gets room to recover instead of a growing queue. Then it lets
+ * halfOpenCalls trial calls through: if all succeed it closes, if one fails it opens again.
+ *
+ * Only infrastructure failures are recorded as failures (see DatabaseGuard); a call rejected by
+ * the breaker is not recorded at all.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialCallsStarted;
+    private int trialCallsSucceeded;
+    private long openings;
+
+    public CircuitBreaker(String name, int window, int minimumCalls, int failureRatePercent, long openMillis, int halfOpenCalls) {
+        this.name = name;
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, outcomes.length));
+        this.failureRatePercent = failureRatePercent;
+        this.openNanos = openMillis * 1_000_000L;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether a call may go ahead; a permitted call must be followed by onSuccess, onFailure or onIgnored
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialCallsStarted = 0;
+            trialCallsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialCallsStarted >= halfOpenCalls) {
+                return false;
+            }
+            trialCallsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialCallsSucceeded >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls && failures * 100 >= failureRatePercent * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * A permitted call did not reach the database after all (e.g. its bulkhead was full)
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialCallsStarted > 0) {
+            trialCallsStarted--;
+        }
+    }
+
+    /**
+     * Close the breaker and forget the recorded outcomes
+     */
+    public synchronized void reset() {
+        close();
+    }
+
+    /**
+     * Seconds until an open breaker lets trial calls through (at least 1)
+     */
+    public synchronized long getRetryAfterSeconds() {
+        long remaining = state == State.OPEN ? openNanos - (System.nanoTime() - openedAt) : 0;
+        return Math.max(1, (remaining + 999_999_999L) / 1_000_000_000L);
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", getState());
+        stats.put("calls", recorded);
+        stats.put("failures", failures);
+        stats.put("failureRate", recorded == 0 ? 0.0 : failures * 100.0 / recorded);
+        stats.put("openings", openings);
+        return stats;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        openings++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,30 @@
+package com.nepbay.dentalclinicapi.resilience;
+
+/**
+ * Service Unavailable Exception
+ * The database cannot take the call right now: its circuit breaker is open, its bulkhead is full
+ * or the call failed on an infrastructure error (no connection, lock or query timeout). Answered
+ * with 503 and a Retry-After header, or with a stale fallback where one exists.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final String operation;
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String operation, String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.operation = operation;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Operation class that was refused: read, search, dashboard or write
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,275 @@
+package com.nepbay.dentalclinicapi.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Inverted Index
+ * In-memory term -> document postings with BM25 ranking and per-document date/status filters.
+ * Each document keeps its sorted term list (the forward index), which is all that is written to
+ * disk: postings are rebuilt from it when a segment file is loaded. It also remembers its slot in
+ * each of its posting lists, so removing a document costs the same however common its terms are.
+ *
+ * Not thread-safe; callers guard it with a read/write lock.
+ */
+public final class InvertedIndex {
+
+    private static final int MAGIC = 0x43534958; // "CSIX"
+    private static final int VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    private long totalLength;
+
+    /**
+     * One indexed document: filter columns plus its terms (sorted), weighted term frequencies and
+     * its position in the posting list of each term
+     */
+    private record Document(long id, int epochDay, byte status, int length, String[] terms, int[] frequencies, int[] slots) {
+        Document(long id, int epochDay, byte status, int length, String[] terms, int[] frequencies) {
+            this(id, epochDay, status, length, terms, frequencies, new int[terms.length]);
+        }
+
+        int frequency(String term) {
+            int i = Arrays.binarySearch(terms, term);
+            return i < 0 ? 0 : frequencies[i];
+        }
+    }
+
+    /**
+     * Matching document id with its relevance score
+     */
+    public record Hit(long id, double score) {}
+
+    /**
+     * Filters applied while scoring; null statuses means any status
+     */
+    public record Filter(int fromEpochDay, int toEpochDay, boolean[] statuses) {
+        boolean accepts(Document document) {
+            return document.epochDay() >= fromEpochDay && document.epochDay() <= toEpochDay
+                    && (statuses == null || statuses[document.status()]);
+        }
+    }
+
+    /**
+     * Add or replace a document
+     */
+    public void put(long id, int epochDay, byte status, Map<String, Integer> termFrequencies) {
+        remove(id);
+        String[] terms = termFrequencies.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] frequencies = new int[terms.length];
+        int length = 0;
+        for (int i = 0; i < terms.length; i++) {
+            frequencies[i] = termFrequencies.get(terms[i]);
+            length += frequencies[i];
+        }
+        add(new Document(id, epochDay, status, length, terms, frequencies));
+    }
+
+    /**
+     * Remove a document if present
+     */
+    public void remove(long id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        totalLength -= previous.length();
+        for (int i = 0; i < previous.terms().length; i++) {
+            String term = previous.terms()[i];
+            PostingList list = postings.get(term);
+            int slot = previous.slots()[i];
+            list.removeAt(slot);
+            if (list.size == 0) {
+                postings.remove(term);
+            } else if (slot < list.size) {
+                // The last id of the list took over the slot; tell its document
+                Document moved = documents.get(list.ids[slot]);
+                moved.slots()[Arrays.binarySearch(moved.terms(), term)] = slot;
+            }
+        }
+    }
+
+    public boolean contains(long id) {
+        return documents.containsKey(id);
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    public Collection<Long> ids() {
+        return new ArrayList<>(documents.keySet());
+    }
+
+    /**
+     * BM25-ranked documents matching any of the query terms. A term ending in '*' matches
+     * every indexed term with that prefix.
+     */
+    public List<Hit> search(List<String> queryTerms, Filter filter, int limit) {
+        Map<Long, Double> scores = new HashMap<>();
+        double averageLength = documents.isEmpty() ? 1.0 : (double) totalLength / documents.size();
+
+        for (String queryTerm : queryTerms) {
+            Map<String, PostingList> matched = queryTerm.endsWith("*")
+                    ? postings.subMap(queryTerm.substring(0, queryTerm.length() - 1), true,
+                                      queryTerm.substring(0, queryTerm.length() - 1) + Character.MAX_VALUE, true)
+                    : postings.containsKey(queryTerm) ? Map.of(queryTerm, postings.get(queryTerm)) : Map.of();
+            for (Map.Entry<String, PostingList> entry : matched.entrySet()) {
+                PostingList list = entry.getValue();
+                double idf = Math.log(1.0 + (documents.size() - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    Document document = documents.get(list.ids[i]);
+                    if (!filter.accepts(document)) {
+                        continue;
+                    }
+                    int tf = document.frequency(entry.getKey());
+                    double norm = tf + K1 * (1 - B + B * document.length() / averageLength);
+                    scores.merge(document.id(), idf * tf * (K1 + 1) / norm, Double::sum);
+                }
+            }
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>((a, b) -> Double.compare(a.score(), b.score()));
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (top.size() < limit) {
+                top.add(new Hit(entry.getKey(), entry.getValue()));
+            } else if (entry.getValue() > top.peek().score()) {
+                top.poll();
+                top.add(new Hit(entry.getKey(), entry.getValue()));
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return hits;
+    }
+
+    /**
+     * Write the forward index to a segment file (via a temp file and atomic rename), ending with a CRC32
+     */
+    public void write(Path file, long watermark) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(temp), crc), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(watermark);
+            out.writeInt(documents.size());
+            for (Document document : documents.values()) {
+                out.writeLong(document.id());
+                out.writeInt(document.epochDay());
+                out.writeByte(document.status());
+                out.writeInt(document.terms().length);
+                for (int i = 0; i < document.terms().length; i++) {
+                    out.writeUTF(document.terms()[i]);
+                    out.writeShort(document.frequencies()[i]);
+                }
+            }
+            // The trailing checksum covers everything before it
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Segment file contents: the index and the watermark it was written with
+     */
+    public record Loaded(InvertedIndex index, long watermark) {}
+
+    /**
+     * Read a segment file written by write(); fails on a bad magic, version or checksum
+     */
+    public static Loaded read(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a search index segment: " + file);
+            }
+            long watermark = in.readLong();
+            int count = in.readInt();
+            InvertedIndex index = new InvertedIndex();
+            for (int d = 0; d < count; d++) {
+                long id = in.readLong();
+                int epochDay = in.readInt();
+                byte status = in.readByte();
+                int termCount = in.readInt();
+                String[] terms = new String[termCount];
+                int[] frequencies = new int[termCount];
+                int length = 0;
+                for (int i = 0; i < termCount; i++) {
+                    terms[i] = in.readUTF();
+                    frequencies[i] = in.readShort();
+                    length += frequencies[i];
+                }
+                index.add(new Document(id, epochDay, status, length, terms, frequencies));
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Checksum mismatch in search index segment: " + file);
+            }
+            return new Loaded(index, watermark);
+        }
+    }
+
+    private void add(Document document) {
+        documents.put(document.id(), document);
+        totalLength += document.length();
+        for (int i = 0; i < document.terms().length; i++) {
+            document.slots()[i] = postings.computeIfAbsent(document.terms()[i], t -> new PostingList()).add(document.id());
+        }
+    }
+
+    /**
+     * Unordered, growable list of primitive document ids
+     */
+    private static final class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        /**
+         * Append an id; returns its slot
+         */
+        int add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = id;
+            return size++;
+        }
+
+        /**
+         * Remove the id in a slot by moving the last id into it
+         */
+        void removeAt(int slot) {
+            ids[slot] = ids[--size];
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.config.InstanceDirectory;
+import com.nepbay.dentalclinicapi.config.WarmupTask;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.PatientMatching;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.search.InvertedIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Appointment Search Service
+ * Full-text search over appointment notes, treatment and patient name, backed by an in-process
+ * InvertedIndex. The index is kept current from appointment change events, persisted to a
+ * segment file on an interval and at shutdown, and on startup reloaded from that file and
+ * caught up with rows changed since it was written.
+ */
+@Service
+public class AppointmentSearchService implements WarmupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentSearchService.class);
+
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    // Treatment and patient name are short and precise, so a hit there counts more than one in the notes
+    private static final int NOTES_WEIGHT = 1;
+    private static final int TREATMENT_WEIGHT = 2;
+    private static final int PATIENT_WEIGHT = 2;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "at", "be", "for", "in", "is", "it", "of", "on", "or", "the", "to", "was", "with",
+            "ve", "ile", "bir", "bu", "da", "de", "icin", "mi", "ne");
+
+    private static final String SELECT_COLUMNS =
+            "SELECT id, appointment_date, status, treatment, notes, patient_name, updated_at FROM appointments";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    // Set by the durable profile; when empty each instance keeps its segment in a directory of its own
+    @Value("${clinic.search.dir:}")
+    private String directory;
+
+    @Value("${clinic.search.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${clinic.search.max-results:100}")
+    private int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private InvertedIndex index = new InvertedIndex();
+    private long watermark;
+    private boolean dirty;
+    private Path root;
+    private boolean temporary;
+
+    // Changes that arrive while a rebuild or catch-up scans the table, replayed after the scanned rows
+    private List<AppointmentChangedEvent> pendingDuringRebuild;
+
+    /**
+     * An appointment row as read by a scan, ready to index
+     */
+    private record Row(long id, int epochDay, byte status, Map<String, Integer> terms, long updatedAt) {}
+
+    @PostConstruct
+    public void start() throws IOException {
+        temporary = directory.isBlank();
+        root = temporary ? InstanceDirectory.create("search") : Path.of(directory);
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws IOException {
+        persist();
+        if (temporary) {
+            InstanceDirectory.delete(root);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "appointment-search-index";
+    }
+
+    /**
+     * Load the persisted segment (if any) and catch up with the table
+     */
+    @Override
+    public void warmUp() {
+        Path file = segmentFile();
+        if (Files.exists(file)) {
+            try {
+                InvertedIndex.Loaded loaded = InvertedIndex.read(file);
+                lock.writeLock().lock();
+                try {
+                    index = loaded.index();
+                    watermark = loaded.watermark();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                catchUp();
+                return;
+            } catch (IOException e) {
+                log.warn("Search index segment {} is unusable, rebuilding from the database", file, e);
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * Re-index every appointment into a fresh index and swap it in
+     */
+    public synchronized Map<String, Object> rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedIndex fresh = new InvertedIndex();
+        long[] newWatermark = {0};
+        scan(SELECT_COLUMNS, null, rs -> newWatermark[0] = Math.max(newWatermark[0], put(fresh, readRow(rs))));
+
+        lock.writeLock().lock();
+        try {
+            for (AppointmentChangedEvent event : pendingDuringRebuild) {
+                apply(fresh, event);
+            }
+            pendingDuringRebuild = null;
+            index = fresh;
+            watermark = Math.max(watermark, newWatermark[0]);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        persist();
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Search index rebuilt: {} appointments, {} terms, {} ms", fresh.size(), fresh.termCount(), millis);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("documents", fresh.size());
+        result.put("terms", fresh.termCount());
+        result.put("durationMs", millis);
+        return result;
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(index, event);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked appointments whose notes, treatment or patient name match the query.
+     * Words ending in '*' are prefix queries ("sensitiv*"). Optional date range and status filter.
+     */
+    public List<Map<String, Object>> search(String query, LocalDate from, LocalDate to, AppointmentStatus status, Integer limit) {
+        List<String> terms = new ArrayList<>();
+        for (String word : query.split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            for (String term : analyze(word).keySet()) {
+                terms.add(prefix ? term + "*" : term);
+            }
+        }
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query has no searchable words");
+        }
+
+        boolean[] statuses = null;
+        if (status != null) {
+            statuses = new boolean[STATUSES.length];
+            statuses[status.ordinal()] = true;
+        }
+        InvertedIndex.Filter filter = new InvertedIndex.Filter(
+                from == null ? Integer.MIN_VALUE : (int) from.toEpochDay(),
+                to == null ? Integer.MAX_VALUE : (int) to.toEpochDay(),
+                statuses);
+        int size = Math.max(1, Math.min(limit == null ? maxResults : limit, maxResults));
+
+        List<InvertedIndex.Hit> hits;
+        lock.readLock().lock();
+        try {
+            hits = index.search(terms, filter, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, Appointment> appointments = appointmentRepository
+                .findAllById(hits.stream().map(InvertedIndex.Hit::id).toList())
+                .stream().collect(Collectors.toMap(Appointment::getId, Function.identity()));
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (InvertedIndex.Hit hit : hits) {
+            Appointment appointment = appointments.get(hit.id());
+            if (appointment != null) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("score", hit.score());
+                result.put("appointment", appointment);
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Document and term counts of the live index
+     */
+    public Map<String, Object> getIndexInfo() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("documents", index.size());
+            info.put("terms", index.termCount());
+            info.put("segment", segmentFile().toAbsolutePath().toString());
+            return info;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the index to its segment file if it changed since the last write
+     */
+    @Scheduled(fixedDelayString = "${clinic.search.flush-ms:60000}", initialDelayString = "${clinic.search.flush-ms:60000}")
+    public synchronized void persist() {
+        // Read lock: writers wait, concurrent searches do not
+        lock.readLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            index.write(segmentFile(), watermark);
+            dirty = false;
+        } catch (IOException e) {
+            log.error("Could not write search index segment {}", segmentFile(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-index rows changed since the segment was written and drop rows that no longer exist.
+     * The table is read without holding the index lock, so searches and change events carry on
+     * meanwhile; events that arrive during the scan are replayed after it, as they may be newer.
+     */
+    private synchronized void catchUp() {
+        long start = System.nanoTime();
+        Set<Long> indexed;
+        long since;
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+            indexed = new HashSet<>(index.ids());
+            since = watermark;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM appointments", Long.class));
+        List<Row> changed = new ArrayList<>();
+        Set<Long> scanned = new HashSet<>();
+        // >= so rows written in the same millisecond as the segment are re-read too
+        scan(SELECT_COLUMNS + " WHERE updated_at IS NULL OR updated_at >= ?", new Timestamp(since), rs -> {
+            Row row = readRow(rs);
+            changed.add(row);
+            scanned.add(row.id());
+        });
+        // Rows missing from the segment but with an older timestamp (e.g. bulk-loaded): one more pass
+        if (existing.stream().anyMatch(id -> !indexed.contains(id) && !scanned.contains(id))) {
+            scan(SELECT_COLUMNS, null, rs -> {
+                long id = rs.getLong(1);
+                if (!indexed.contains(id) && scanned.add(id)) {
+                    changed.add(readRow(rs));
+                }
+            });
+        }
+
+        int stale = 0;
+        int documents;
+        lock.writeLock().lock();
+        try {
+            for (Long id : indexed) {
+                if (!existing.contains(id)) {
+                    index.remove(id);
+                    stale++;
+                }
+            }
+            for (Row row : changed) {
+                watermark = Math.max(watermark, put(index, row));
+            }
+            for (AppointmentChangedEvent event : pendingDuringRebuild) {
+                apply(index, event);
+            }
+            pendingDuringRebuild = null;
+            dirty = dirty || !changed.isEmpty() || stale > 0;
+            documents = index.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index loaded: {} appointments, {} re-indexed, {} removed, {} ms",
+                documents, changed.size(), stale, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void scan(String sql, Object parameter, RowHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            if (parameter != null) {
+                statement.setObject(1, parameter);
+            }
+            return statement;
+        }, (ResultSet rs) -> {
+            handler.handle(rs);
+        });
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * One result row of SELECT_COLUMNS, analyzed
+     */
+    private static Row readRow(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp(7);
+        return new Row(rs.getLong(1),
+                (int) rs.getDate(2).toLocalDate().toEpochDay(),
+                (byte) AppointmentStatus.valueOf(rs.getString(3)).ordinal(),
+                analyze(rs.getString(4), rs.getString(5), rs.getString(6)),
+                updatedAt == null ? 0 : updatedAt.getTime());
+    }
+
+    /**
+     * Index a scanned row; returns its updated_at in epoch millis
+     */
+    private static long put(InvertedIndex target, Row row) {
+        target.put(row.id(), row.epochDay(), row.status(), row.terms());
+        return row.updatedAt();
+    }
+
+    private void apply(InvertedIndex target, AppointmentChangedEvent event) {
+        Appointment appointment = event.getAppointment();
+        if (event.getChangeType() == AppointmentChangedEvent.ChangeType.DELETED) {
+            target.remove(appointment.getId());
+            return;
+        }
+        target.put(appointment.getId(),
+                (int) appointment.getAppointmentDate().toEpochDay(),
+                (byte) appointment.getStatus().ordinal(),
+                analyze(appointment.getTreatment(), appointment.getNotes(), appointment.getPatientName()));
+        LocalDateTime updatedAt = appointment.getUpdatedAt();
+        if (updatedAt != null) {
+            watermark = Math.max(watermark, updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * Weighted term frequencies of an appointment's searchable fields
+     */
+    private static Map<String, Integer> analyze(String treatment, String notes, String patientName) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        analyze(notes).forEach((term, count) -> frequencies.merge(term, count * NOTES_WEIGHT, Integer::sum));
+        analyze(treatment).forEach((term, count) -> frequencies.merge(term, count * TREATMENT_WEIGHT, Integer::sum));
+        analyze(patientName).forEach((term, count) -> frequencies.merge(term, count * PATIENT_WEIGHT, Integer::sum));
+        return frequencies;
+    }
+
+    /**
+     * Folded (Turkish-aware, accent-free, lower case) tokens minus stop words, with counts
+     */
+    private static Map<String, Integer> analyze(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        String folded = PatientMatching.foldName(text);
+        if (folded.isEmpty()) {
+            return frequencies;
+        }
+        for (String token : folded.split(" ")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+        }
+        return frequencies;
+    }
+
+    private Path segmentFile() {
+        return root.resolve("appointments.idx");
+    }
+}
@@ -0,0 +1,361 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.event.SeriesChangedEvent;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.AppointmentSeries;
+import com.nepbay.dentalclinicapi.model.SeriesException;
+import com.nepbay.dentalclinicapi.repository.AppointmentSeriesRepository;
+import com.nepbay.dentalclinicapi.repository.SeriesExceptionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Appointment Series Service
+ * Business logic for recurring appointments. Occurrences are computed from the rule only for
+ * the requested window (jumping straight to the first occurrence inside it), then exceptions
+ * of that window are applied. Nothing is stored per occurrence unless it has an exception.
+ */
+@Service
+public class AppointmentSeriesService {
+
+    public static final Comparator<Appointment> BY_DATE_AND_TIME = Comparator
+            .comparing(Appointment::getAppointmentDate)
+            .thenComparing(Appointment::getAppointmentTime, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Autowired
+    private AppointmentSeriesRepository seriesRepository;
+
+    @Autowired
+    private SeriesExceptionRepository exceptionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Guards against rules that would expand into an unreasonable number of occurrences
+    @Value("${clinic.series.max-occurrences-per-window:5000}")
+    private int maxOccurrencesPerWindow;
+
+    /**
+     * Get all series
+     */
+    public List<AppointmentSeries> getAllSeries() {
+        return seriesRepository.findAll();
+    }
+
+    /**
+     * Get series by ID
+     */
+    public AppointmentSeries getSeriesById(Long id) {
+        return seriesRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Create a new series
+     */
+    public AppointmentSeries createSeries(AppointmentSeries series) {
+        validate(series);
+        if (series.getTreatment() == null || series.getTreatment().isEmpty()) {
+            series.setTreatment("General Consultation");
+        }
+        AppointmentSeries saved = seriesRepository.save(series);
+        eventPublisher.publishEvent(new SeriesChangedEvent(saved));
+        return saved;
+    }
+
+    /**
+     * Update the rule and details of a series; existing exceptions are kept
+     */
+    public AppointmentSeries updateSeries(Long id, AppointmentSeries updated) {
+        AppointmentSeries existing = requireSeries(id);
+        validate(updated);
+        existing.setPatientName(updated.getPatientName());
+        existing.setTreatment(updated.getTreatment());
+        existing.setNotes(updated.getNotes());
+        existing.setAppointmentTime(updated.getAppointmentTime());
+        existing.setStartDate(updated.getStartDate());
+        existing.setEndDate(updated.getEndDate());
+        existing.setFrequency(updated.getFrequency());
+        existing.setIntervalCount(updated.getIntervalCount());
+        existing.setOccurrenceCount(updated.getOccurrenceCount());
+        AppointmentSeries saved = seriesRepository.save(existing);
+        eventPublisher.publishEvent(new SeriesChangedEvent(saved));
+        return saved;
+    }
+
+    /**
+     * Delete a series and its exceptions; occurrences already booked as appointments stay
+     */
+    public void deleteSeries(Long id) {
+        AppointmentSeries series = requireSeries(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            exceptionRepository.deleteBySeriesId(id);
+            seriesRepository.delete(series);
+        });
+        eventPublisher.publishEvent(new SeriesChangedEvent(series));
+    }
+
+    /**
+     * Exceptions of a series, by original date
+     */
+    public List<SeriesException> getExceptions(Long id) {
+        requireSeries(id);
+        return exceptionRepository.findBySeriesIdOrderByOriginalDate(id);
+    }
+
+    /**
+     * Create or replace the exception for the occurrence originally on the given date
+     */
+    public SeriesException saveException(Long id, LocalDate originalDate, SeriesException exception) {
+        AppointmentSeries series = requireSeries(id);
+        requireOccurrence(series, originalDate);
+        if (exception.getAppointmentDate() != null && exception.getAppointmentDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Cannot move an occurrence into the past");
+        }
+        SeriesException target = exceptionRepository.findBySeriesIdAndOriginalDate(id, originalDate)
+                .orElseGet(SeriesException::new);
+        if (target.getAppointmentId() != null) {
+            throw new ConflictException("This occurrence was booked as appointment " + target.getAppointmentId() + "; change that appointment instead");
+        }
+        target.setSeriesId(id);
+        target.setOriginalDate(originalDate);
+        target.setSkipped(exception.isSkipped());
+        target.setAppointmentDate(exception.getAppointmentDate());
+        target.setAppointmentTime(exception.getAppointmentTime());
+        target.setStatus(exception.getStatus());
+        target.setNotes(exception.getNotes());
+        SeriesException saved = exceptionRepository.save(target);
+        eventPublisher.publishEvent(new SeriesChangedEvent(series));
+        return saved;
+    }
+
+    /**
+     * Remove the exception of an occurrence, restoring it to the rule
+     */
+    public void deleteException(Long id, LocalDate originalDate) {
+        AppointmentSeries series = requireSeries(id);
+        SeriesException exception = exceptionRepository.findBySeriesIdAndOriginalDate(id, originalDate)
+                .orElseThrow(() -> new NotFoundException("No exception for " + originalDate + " in series " + id));
+        exceptionRepository.delete(exception);
+        eventPublisher.publishEvent(new SeriesChangedEvent(series));
+    }
+
+    /**
+     * The occurrence originally on the given date, as a new (unsaved) appointment to book.
+     * Fails if the occurrence does not exist, was skipped or is already booked.
+     */
+    public Appointment prepareBooking(Long id, LocalDate originalDate) {
+        AppointmentSeries series = requireSeries(id);
+        requireOccurrence(series, originalDate);
+        SeriesException exception = exceptionRepository.findBySeriesIdAndOriginalDate(id, originalDate).orElse(null);
+        if (exception != null && exception.getAppointmentId() != null) {
+            throw new ConflictException("This occurrence is already booked as appointment " + exception.getAppointmentId());
+        }
+        if (exception != null && exception.isSkipped()) {
+            throw new ConflictException("This occurrence was skipped");
+        }
+        Appointment appointment = occurrence(series, originalDate, exception);
+        appointment.setSeriesId(null);
+        appointment.setOccurrenceDate(null);
+        return appointment;
+    }
+
+    /**
+     * Hand an occurrence over to the regular appointment it was booked as. Runs inside the
+     * booking's transaction and fails if a concurrent booking took the occurrence first; the
+     * caller publishes the SeriesChangedEvent once the transaction commits.
+     */
+    public AppointmentSeries markBooked(Long id, LocalDate originalDate, Long appointmentId) {
+        AppointmentSeries series = requireSeries(id);
+        SeriesException exception = exceptionRepository.findBySeriesIdAndOriginalDate(id, originalDate).orElse(null);
+        if (exception != null) {
+            if (exceptionRepository.claimForAppointment(exception.getId(), appointmentId) == 0) {
+                throw new ConflictException("This occurrence is already booked");
+            }
+            return series;
+        }
+        exception = new SeriesException();
+        exception.setSeriesId(id);
+        exception.setOriginalDate(originalDate);
+        exception.setAppointmentId(appointmentId);
+        try {
+            // Flush now so the (series_id, original_date) constraint fails here rather than at commit
+            exceptionRepository.saveAndFlush(exception);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("This occurrence is already booked");
+        }
+        return series;
+    }
+
+    /**
+     * Occurrences of one series inside [from, to]
+     */
+    public List<Appointment> getOccurrences(Long id, LocalDate from, LocalDate to) {
+        AppointmentSeries series = requireSeries(id);
+        return expand(List.of(series), from, to);
+    }
+
+    /**
+     * Occurrences of all series inside [from, to], exceptions applied, ordered by date and time
+     */
+    public List<Appointment> expand(LocalDate from, LocalDate to) {
+        return expand(seriesRepository.findActiveBetween(from, to), from, to);
+    }
+
+    /**
+     * Regular appointments merged with the series occurrences of the same window
+     */
+    public List<Appointment> withOccurrences(List<Appointment> appointments, LocalDate from, LocalDate to) {
+        List<Appointment> occurrences = expand(from, to);
+        if (occurrences.isEmpty()) {
+            return appointments;
+        }
+        List<Appointment> merged = new ArrayList<>(appointments.size() + occurrences.size());
+        merged.addAll(appointments);
+        merged.addAll(occurrences);
+        merged.sort(BY_DATE_AND_TIME);
+        return merged;
+    }
+
+    /**
+     * Dates the rule produces inside [from, to], without walking from the start date
+     */
+    public List<LocalDate> occurrenceDates(AppointmentSeries series, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate last = series.getEndDate() != null && series.getEndDate().isBefore(to) ? series.getEndDate() : to;
+        LocalDate first = series.getStartDate().isAfter(from) ? series.getStartDate() : from;
+        if (first.isAfter(last)) {
+            return dates;
+        }
+        int interval = Math.max(1, series.getIntervalCount());
+        ChronoUnit unit = unit(series);
+        long step = unit == ChronoUnit.WEEKS ? 7L * interval : interval;
+        ChronoUnit stepUnit = unit == ChronoUnit.MONTHS ? ChronoUnit.MONTHS : ChronoUnit.DAYS;
+
+        // Index of the first occurrence on or after 'first'
+        long index = Math.max(0, stepUnit.between(series.getStartDate(), first) / step);
+        LocalDate date = series.getStartDate().plus(index * step, stepUnit);
+        while (date.isBefore(first)) {
+            index++;
+            date = series.getStartDate().plus(index * step, stepUnit);
+        }
+        while (!date.isAfter(last)
+                && (series.getOccurrenceCount() == null || index < series.getOccurrenceCount())
+                && dates.size() < maxOccurrencesPerWindow) {
+            dates.add(date);
+            index++;
+            // Always offset from the start date so month-end days do not drift (Jan 31 -> Feb 28 -> Mar 31)
+            date = series.getStartDate().plus(index * step, stepUnit);
+        }
+        return dates;
+    }
+
+    private List<Appointment> expand(List<AppointmentSeries> seriesList, LocalDate from, LocalDate to) {
+        List<SeriesException> movedInto = exceptionRepository.findMovedInto(from, to);
+        if (seriesList.isEmpty() && movedInto.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, AppointmentSeries> seriesById = seriesList.stream()
+                .collect(Collectors.toMap(AppointmentSeries::getId, Function.identity()));
+
+        Map<String, SeriesException> exceptions = new HashMap<>();
+        if (!seriesById.isEmpty()) {
+            for (SeriesException exception : exceptionRepository.findForSeriesBetween(seriesById.keySet(), from, to)) {
+                exceptions.put(exception.getSeriesId() + ":" + exception.getOriginalDate(), exception);
+            }
+        }
+
+        List<Appointment> occurrences = new ArrayList<>();
+        for (AppointmentSeries series : seriesList) {
+            for (LocalDate date : occurrenceDates(series, from, to)) {
+                SeriesException exception = exceptions.get(series.getId() + ":" + date);
+                if (exception != null && (exception.isSkipped() || exception.getAppointmentId() != null)) {
+                    continue;
+                }
+                Appointment occurrence = occurrence(series, date, exception);
+                // Moved out of the window
+                if (occurrence.getAppointmentDate().isBefore(from) || occurrence.getAppointmentDate().isAfter(to)) {
+                    continue;
+                }
+                occurrences.add(occurrence);
+            }
+        }
+
+        for (SeriesException exception : movedInto) {
+            AppointmentSeries series = seriesById.get(exception.getSeriesId());
+            if (series == null) {
+                series = seriesRepository.findById(exception.getSeriesId()).orElse(null);
+            }
+            if (series != null) {
+                occurrences.add(occurrence(series, exception.getOriginalDate(), exception));
+            }
+        }
+        occurrences.sort(BY_DATE_AND_TIME);
+        return occurrences;
+    }
+
+    private static Appointment occurrence(AppointmentSeries series, LocalDate originalDate, SeriesException exception) {
+        Appointment appointment = new Appointment(series.getPatientName(), originalDate, series.getAppointmentTime(), series.getTreatment());
+        appointment.setNotes(series.getNotes());
+        appointment.setSeriesId(series.getId());
+        appointment.setOccurrenceDate(originalDate);
+        if (exception != null) {
+            if (exception.getAppointmentDate() != null) {
+                appointment.setAppointmentDate(exception.getAppointmentDate());
+            }
+            if (exception.getAppointmentTime() != null) {
+                appointment.setAppointmentTime(exception.getAppointmentTime());
+            }
+            if (exception.getStatus() != null) {
+                appointment.setStatus(exception.getStatus());
+            }
+            if (exception.getNotes() != null) {
+                appointment.setNotes(exception.getNotes());
+            }
+        }
+        return appointment;
+    }
+
+    private AppointmentSeries requireSeries(Long id) {
+        return seriesRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Appointment series not found with ID: " + id));
+    }
+
+    private void requireOccurrence(AppointmentSeries series, LocalDate date) {
+        if (occurrenceDates(series, date, date).isEmpty()) {
+            throw new NotFoundException("Series " + series.getId() + " has no occurrence on " + date);
+        }
+    }
+
+    private void validate(AppointmentSeries series) {
+        if (series.getEndDate() != null && series.getEndDate().isBefore(series.getStartDate())) {
+            throw new IllegalArgumentException("End date cannot be before the start date");
+        }
+    }
+
+    private static ChronoUnit unit(AppointmentSeries series) {
+        switch (series.getFrequency()) {
+            case DAILY:
+                return ChronoUnit.DAYS;
+            case WEEKLY:
+                return ChronoUnit.WEEKS;
+            default:
+                return ChronoUnit.MONTHS;
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package com.nepbay.dentalclinicapi.service;
 
+import com.nepbay.dentalclinicapi.analytics.NoShowModel;
+import com.nepbay.dentalclinicapi.audit.ChangeRecord;
+import com.nepbay.dentalclinicapi.cache.NearCache;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent.ChangeType;
+import com.nepbay.dentalclinicapi.event.SeriesChangedEvent;
 import com.nepbay.dentalclinicapi.model.Appointment;
 import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.AppointmentSeries;
+import com.nepbay.dentalclinicapi.model.Treatment;
 import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDate;
 import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -21,6 +37,57 @@ public class AppointmentService {
     @Autowired
     private AppointmentRepository appointmentRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    @Autowired
+    private AppointmentSeriesService seriesService;
+    
+    @Autowired
+    private NearCache<Appointment> appointmentCache;
+    
+    @Autowired
+    private TreatmentCatalog treatmentCatalog;
+    
+    @Autowired
+    private DuplicatePatientIndex patientIndex;
+    
+    @Autowired
+    private PatientRepository patientRepository;
+    
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+    
+    @Autowired
+    private NoShowScoringService noShowScoringService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${clinic.series.upcoming-days:30}")
+    private int upcomingSeriesDays;
+    
+    @Value("${clinic.chairs:3}")
+    private int chairs;
+    
+    @Value("${clinic.slot-minutes:30}")
+    private int slotMinutes;
+    
+    @Value("${clinic.hours.open:09:00}")
+    private String openingHour;
+    
+    @Value("${clinic.hours.close:18:00}")
+    private String closingHour;
+    
+    @Value("${clinic.scoring.overbook-confidence:0.6}")
+    private double overbookConfidence;
+    
+    @Value("${clinic.scoring.max-overbook-per-slot:1}")
+    private int maxOverbookPerSlot;
+    
     /**
      * Get all appointments
      */
@@ -29,76 +96,96 @@ public class AppointmentService {
     }
     
     /**
-     * Get appointment by ID
+     * Get appointment by ID (served from the near cache; the returned instance is shared, do not modify it)
      */
     public Appointment getAppointmentById(Long id) {
-        Optional<Appointment> appointment = appointmentRepository.findById(id);
-        return appointment.orElse(null);
+        return appointmentCache.get(id, () -> findAppointment(id));
     }
     
     /**
      * Create new appointment
      */
     public Appointment createAppointment(Appointment appointment) {
-        // Validate appointment date
-        if (appointment.getAppointmentDate().isBefore(LocalDate.now())) {
-            throw new RuntimeException("Cannot schedule appointment in the past");
-        }
-        
-        // Set default treatment if not provided
-        if (appointment.getTreatment() == null || appointment.getTreatment().isEmpty()) {
-            appointment.setTreatment("General Consultation");
-        }
-        
-        return appointmentRepository.save(appointment);
+        prepareNew(appointment);
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+        publishCreated(savedAppointment);
+        return savedAppointment;
     }
     
     /**
      * Update existing appointment
      */
     public Appointment updateAppointment(Long id, Appointment updatedAppointment) {
-        Appointment existingAppointment = getAppointmentById(id);
+        Appointment existingAppointment = findAppointment(id);
         if (existingAppointment == null) {
-            throw new RuntimeException("Appointment not found with ID: " + id);
+            throw new NotFoundException("Appointment not found with ID: " + id);
         }
         
         // Validate new appointment date
         if (updatedAppointment.getAppointmentDate().isBefore(LocalDate.now())) {
-            throw new RuntimeException("Cannot schedule appointment in the past");
+            throw new IllegalArgumentException("Cannot schedule appointment in the past");
         }
         
+        LocalDate previousDate = existingAppointment.getAppointmentDate();
+        Long previousPatientId = existingAppointment.getPatientId();
+        Map<String, Object> before = AuditService.fieldsOf(existingAppointment);
+        
         // Update fields
         existingAppointment.setPatientName(updatedAppointment.getPatientName());
+        existingAppointment.setPatientId(updatedAppointment.getPatientId());
+        resolvePatient(existingAppointment);
         existingAppointment.setAppointmentDate(updatedAppointment.getAppointmentDate());
         existingAppointment.setAppointmentTime(updatedAppointment.getAppointmentTime());
         existingAppointment.setTreatment(updatedAppointment.getTreatment());
+        existingAppointment.setTreatmentId(updatedAppointment.getTreatmentId());
+        resolveTreatment(existingAppointment);
         existingAppointment.setNotes(updatedAppointment.getNotes());
         existingAppointment.setStatus(updatedAppointment.getStatus());
         
-        return appointmentRepository.save(existingAppointment);
+        Appointment savedAppointment = appointmentRepository.save(existingAppointment);
+        eventPublisher.publishEvent(new AppointmentChangedEvent(savedAppointment, previousDate, previousPatientId, ChangeType.UPDATED));
+        auditService.record(AuditService.ENTITY_APPOINTMENT, id, AuditService.ACTION_UPDATED,
+                before, AuditService.fieldsOf(savedAppointment));
+        return savedAppointment;
     }
     
     /**
      * Delete appointment
      */
     public void deleteAppointment(Long id) {
-        if (!appointmentRepository.existsById(id)) {
-            throw new RuntimeException("Appointment not found with ID: " + id);
+        Appointment appointment = findAppointment(id);
+        if (appointment == null) {
+            throw new NotFoundException("Appointment not found with ID: " + id);
         }
-        appointmentRepository.deleteById(id);
+        appointmentRepository.delete(appointment);
+        eventPublisher.publishEvent(new AppointmentChangedEvent(appointment, appointment.getAppointmentDate(), ChangeType.DELETED));
+        auditService.record(AuditService.ENTITY_APPOINTMENT, id, AuditService.ACTION_DELETED,
+                AuditService.fieldsOf(appointment), null);
     }
     
     /**
      * Update appointment status
      */
     public Appointment updateAppointmentStatus(Long id, AppointmentStatus status) {
-        Appointment appointment = getAppointmentById(id);
+        Appointment appointment = findAppointment(id);
         if (appointment == null) {
-            throw new RuntimeException("Appointment not found with ID: " + id);
+            throw new NotFoundException("Appointment not found with ID: " + id);
         }
         
+        Map<String, Object> before = AuditService.fieldsOf(appointment);
         appointment.setStatus(status);
-        return appointmentRepository.save(appointment);
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+        eventPublisher.publishEvent(new AppointmentChangedEvent(savedAppointment, savedAppointment.getAppointmentDate(), ChangeType.STATUS_CHANGED));
+        auditService.record(AuditService.ENTITY_APPOINTMENT, id, AuditService.ACTION_STATUS_CHANGED,
+                before, AuditService.fieldsOf(savedAppointment));
+        return savedAppointment;
+    }
+    
+    /**
+     * Field-level change history of an appointment, oldest first
+     */
+    public List<ChangeRecord> getAppointmentHistory(Long id) {
+        return auditService.getHistory(AuditService.ENTITY_APPOINTMENT, id);
     }
     
     /**
@@ -111,23 +198,31 @@ public class AppointmentService {
     /**
      * Get appointment statistics and filters
      */
+    // Calendar views include occurrences of recurring series, expanded for the viewed window only
     public List<Appointment> getTodayAppointments() {
-        return appointmentRepository.findTodayAppointments();
+        LocalDate today = LocalDate.now();
+        return seriesService.withOccurrences(appointmentRepository.findTodayAppointments(), today, today);
     }
     
+    // Series occurrences are open-ended, so only the next few weeks of them are listed
     public List<Appointment> getUpcomingAppointments() {
-        return appointmentRepository.findUpcomingAppointments();
+        LocalDate today = LocalDate.now();
+        return noShowScoringService.applyScores(seriesService.withOccurrences(appointmentRepository.findUpcomingAppointments(),
+                today, today.plusDays(upcomingSeriesDays)));
     }
     
     public List<Appointment> getAppointmentsThisWeek() {
         LocalDate today = LocalDate.now();
         LocalDate startOfWeek = today.with(DayOfWeek.MONDAY);
         LocalDate endOfWeek = today.with(DayOfWeek.SUNDAY);
-        return appointmentRepository.findAppointmentsThisWeek(startOfWeek, endOfWeek);
+        return seriesService.withOccurrences(appointmentRepository.findAppointmentsThisWeek(startOfWeek, endOfWeek),
+                startOfWeek, endOfWeek);
     }
     
     public List<Appointment> getAppointmentsThisMonth() {
-        return appointmentRepository.findAppointmentsThisMonth();
+        LocalDate today = LocalDate.now();
+        return seriesService.withOccurrences(appointmentRepository.findAppointmentsThisMonth(),
+                today.withDayOfMonth(1), today.withDayOfMonth(today.lengthOfMonth()));
     }
     
     public Long getTotalAppointmentCount() {
@@ -143,6 +238,161 @@ public class AppointmentService {
     }
     
     public List<Appointment> getAppointmentsByDateRange(LocalDate startDate, LocalDate endDate) {
-        return appointmentRepository.findAppointmentsByDateRange(startDate, endDate);
+        return seriesService.withOccurrences(appointmentRepository.findAppointmentsByDateRange(startDate, endDate),
+                startDate, endDate);
+    }
+    
+    /**
+     * Free chairs per slot of a day, with the expected no-shows of the booked ones. A full slot gets
+     * an overbooking suggestion: the largest number of extra bookings k (up to max-overbook-per-slot,
+     * less any overbooking already made) such that at least k of its patients are expected not to
+     * come with probability overbook-confidence.
+     */
+    public Map<String, Object> getAvailability(LocalDate date) {
+        LocalTime openingTime = LocalTime.parse(openingHour);
+        LocalTime closingTime = LocalTime.parse(closingHour);
+        if (slotMinutes <= 0 || !closingTime.isAfter(openingTime)) {
+            throw new IllegalStateException("Opening hours and slot length are not configured");
+        }
+        List<Appointment> appointments = noShowScoringService.applyScores(
+                seriesService.withOccurrences(appointmentRepository.findAppointmentsByDateRange(date, date), date, date));
+        
+        int openMinute = openingTime.toSecondOfDay() / 60;
+        int slotCount = (closingTime.toSecondOfDay() / 60 - openMinute + slotMinutes - 1) / slotMinutes;
+        List<List<Double>> slotRisks = new ArrayList<>(slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotRisks.add(new ArrayList<>());
+        }
+        int outsideHours = 0;
+        for (Appointment appointment : appointments) {
+            AppointmentStatus status = appointment.getStatus();
+            if (status == AppointmentStatus.CANCELLED || status == AppointmentStatus.RESCHEDULED || appointment.getAppointmentTime() == null) {
+                continue;
+            }
+            int minute = appointment.getAppointmentTime().toSecondOfDay() / 60;
+            int slot = minute < openMinute ? -1 : (minute - openMinute) / slotMinutes;
+            if (slot < 0 || slot >= slotCount) {
+                outsideHours++;
+                continue;
+            }
+            // Arrived, finished and missed appointments are certain; unscored open ones count as attending
+            slotRisks.get(slot).add(status == AppointmentStatus.NO_SHOW ? 1.0
+                    : appointment.getNoShowRisk() != null ? appointment.getNoShowRisk() : 0.0);
+        }
+        
+        List<Map<String, Object>> slots = new ArrayList<>(slotCount);
+        int free = 0;
+        int suggested = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            List<Double> risks = slotRisks.get(slot);
+            int booked = risks.size();
+            int overbooking = 0;
+            if (booked >= chairs) {
+                int alreadyOverbooked = booked - chairs;
+                while (alreadyOverbooked + overbooking < maxOverbookPerSlot
+                        && NoShowModel.probabilityOfAtLeast(risks, alreadyOverbooked + overbooking + 1) >= overbookConfidence) {
+                    overbooking++;
+                }
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("time", openingTime.plusMinutes((long) slot * slotMinutes));
+            row.put("booked", booked);
+            row.put("free", Math.max(0, chairs - booked));
+            row.put("expectedNoShows", Math.round(risks.stream().mapToDouble(Double::doubleValue).sum() * 100) / 100.0);
+            row.put("suggestedOverbooking", overbooking);
+            slots.add(row);
+            free += Math.max(0, chairs - booked);
+            suggested += overbooking;
+        }
+        
+        Map<String, Object> availability = new LinkedHashMap<>();
+        availability.put("date", date);
+        availability.put("chairs", chairs);
+        availability.put("slotMinutes", slotMinutes);
+        availability.put("freeChairSlots", free);
+        availability.put("suggestedOverbookings", suggested);
+        availability.put("appointmentsOutsideHours", outsideHours);
+        availability.put("slots", slots);
+        return availability;
+    }
+    
+    /**
+     * Book one occurrence of a recurring series as a regular appointment
+     */
+    public Appointment bookSeriesOccurrence(Long seriesId, LocalDate occurrenceDate) {
+        Appointment appointment = seriesService.prepareBooking(seriesId, occurrenceDate);
+        prepareNew(appointment);
+        // The appointment and the occurrence's hand-over commit together: a concurrent booking of
+        // the same occurrence rolls back whole instead of leaving a second, unlinked appointment
+        Booking booking = transactionTemplate.execute(status -> {
+            Appointment saved = appointmentRepository.save(appointment);
+            return new Booking(saved, seriesService.markBooked(seriesId, occurrenceDate, saved.getId()));
+        });
+        publishCreated(booking.appointment());
+        eventPublisher.publishEvent(new SeriesChangedEvent(booking.series()));
+        return booking.appointment();
+    }
+    
+    private record Booking(Appointment appointment, AppointmentSeries series) {}
+    
+    // Validation and defaults shared by every path that inserts an appointment
+    private void prepareNew(Appointment appointment) {
+        // Validate appointment date
+        if (appointment.getAppointmentDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Cannot schedule appointment in the past");
+        }
+        
+        // Set default treatment if not provided
+        if (isBlank(appointment.getTreatment()) && appointment.getTreatmentId() == null) {
+            appointment.setTreatment(TreatmentCatalog.DEFAULT_TREATMENT);
+        }
+        resolveTreatment(appointment);
+        resolvePatient(appointment);
+    }
+    
+    private void publishCreated(Appointment savedAppointment) {
+        eventPublisher.publishEvent(new AppointmentChangedEvent(savedAppointment, null, ChangeType.CREATED));
+        auditService.record(AuditService.ENTITY_APPOINTMENT, savedAppointment.getId(), AuditService.ACTION_CREATED,
+                null, AuditService.fieldsOf(savedAppointment));
+    }
+    
+    /**
+     * Link the appointment to the catalog. A treatment name wins and is matched by its code;
+     * with only a treatment id, the name is taken from the catalog.
+     */
+    private void resolveTreatment(Appointment appointment) {
+        if (!isBlank(appointment.getTreatment())) {
+            Treatment treatment = treatmentCatalog.resolve(appointment.getTreatment());
+            appointment.setTreatmentId(treatment != null ? treatment.getId() : null);
+        } else if (appointment.getTreatmentId() != null) {
+            Treatment treatment = treatmentCatalog.get(appointment.getTreatmentId());
+            if (treatment == null) {
+                throw new IllegalArgumentException("Treatment not found with ID: " + appointment.getTreatmentId());
+            }
+            appointment.setTreatment(treatment.getName());
+        }
+    }
+    
+    /**
+     * Link the appointment to its patient: an explicit patient id must exist; otherwise the name is
+     * linked when exactly one patient has it (namesakes stay unlinked rather than guessed)
+     */
+    private void resolvePatient(Appointment appointment) {
+        Long patientId = appointment.getPatientId();
+        if (patientId == null) {
+            appointment.setPatientId(patientIndex.findPatientIdByName(appointment.getPatientName()));
+        } else if (!patientIndex.contains(patientId) && !patientRepository.existsById(patientId)) {
+            throw new IllegalArgumentException("Patient not found with ID: " + patientId);
+        }
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+    
+    // Write paths load a fresh instance rather than mutate the cached one
+    private Appointment findAppointment(Long id) {
+        Optional<Appointment> appointment = appointmentRepository.findById(id);
+        return appointment.orElse(null);
     }
-}
\ No newline at end of file
+}
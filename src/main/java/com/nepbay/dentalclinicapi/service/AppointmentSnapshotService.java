@@ -0,0 +1,220 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.analytics.AppointmentSnapshot;
+import com.nepbay.dentalclinicapi.config.WarmupTask;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Time;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appointment Snapshot Service
+ * Periodically copies the appointments table into an off-heap columnar AppointmentSnapshot and
+ * answers analytical questions (no-show rates, treatment mix, utilization) from it, so that
+ * analysts never query the live tables that reception traffic depends on.
+ */
+@Service
+public class AppointmentSnapshotService implements WarmupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentSnapshotService.class);
+
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${clinic.snapshot.fetch-size:10000}")
+    private int fetchSize;
+
+    @Value("${clinic.chairs:3}")
+    private int chairs;
+
+    @Value("${clinic.slot-minutes:30}")
+    private int slotMinutes;
+
+    private volatile AppointmentSnapshot snapshot;
+
+    @Override
+    public String getName() {
+        return "appointment-snapshot";
+    }
+
+    @Override
+    public void warmUp() {
+        refresh();
+    }
+
+    /**
+     * Rebuild the snapshot from a single sequential scan and swap it in atomically
+     */
+    @Scheduled(fixedDelayString = "${clinic.snapshot.refresh-ms:300000}", initialDelayString = "${clinic.snapshot.refresh-ms:300000}")
+    public void refresh() {
+        long start = System.nanoTime();
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM appointments", Long.class);
+        AppointmentSnapshot.Builder builder = new AppointmentSnapshot.Builder((int) Math.min(Integer.MAX_VALUE - 8, count + count / 8));
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT appointment_date, appointment_time, status, treatment, patient_id, patient_name FROM appointments");
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (ResultSet rs) -> {
+            Time time = rs.getTime(2);
+            LocalTime localTime = time == null ? null : time.toLocalTime();
+            builder.add(
+                rs.getDate(1).toLocalDate(),
+                localTime == null ? null : localTime.getHour() * 60 + localTime.getMinute(),
+                AppointmentStatus.valueOf(rs.getString(3)),
+                rs.getString(4),
+                rs.getObject(5, Long.class),
+                rs.getString(6));
+        });
+
+        snapshot = builder.build();
+        log.info("Appointment snapshot rebuilt: {} rows, {} KB off-heap, {} ms",
+                snapshot.getRows(), snapshot.getOffHeapBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Size and age of the current snapshot
+     */
+    public Map<String, Object> getSnapshotInfo() {
+        AppointmentSnapshot current = current();
+        Map<String, Object> info = new HashMap<>();
+        info.put("rows", current.getRows());
+        info.put("distinctPatients", current.getDistinctPatients());
+        info.put("distinctTreatments", current.getDistinctTreatments());
+        info.put("bytesPerRow", AppointmentSnapshot.ROW_BYTES);
+        info.put("offHeapBytes", current.getOffHeapBytes());
+        info.put("builtAt", current.getBuiltAt());
+        return info;
+    }
+
+    /**
+     * No-show rate per weekday and hour: NO_SHOW / (COMPLETED + NO_SHOW)
+     */
+    public List<Map<String, Object>> getNoShowRates(LocalDate from, LocalDate to) {
+        AppointmentSnapshot current = current();
+        int[][][] counts = current.countByWeekdayHourStatus(current.selectDateRange(from, to));
+        int noShow = AppointmentStatus.NO_SHOW.ordinal();
+        int completed = AppointmentStatus.COMPLETED.ordinal();
+
+        List<Map<String, Object>> cells = new ArrayList<>();
+        for (int weekday = 0; weekday < 7; weekday++) {
+            for (int hour = 0; hour < 24; hour++) {
+                int outcomes = counts[weekday][hour][noShow] + counts[weekday][hour][completed];
+                if (outcomes == 0) {
+                    continue;
+                }
+                Map<String, Object> cell = new LinkedHashMap<>();
+                cell.put("weekday", DayOfWeek.of(weekday + 1));
+                cell.put("hour", hour);
+                cell.put("noShows", counts[weekday][hour][noShow]);
+                cell.put("outcomes", outcomes);
+                cell.put("noShowRate", counts[weekday][hour][noShow] * 100.0 / outcomes);
+                cells.add(cell);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Share of appointments per treatment, plus the status breakdown of the period
+     */
+    public Map<String, Object> getTreatmentMix(LocalDate from, LocalDate to) {
+        AppointmentSnapshot current = current();
+        long[] selection = current.selectDateRange(from, to);
+        Map<String, Integer> byTreatment = current.countByTreatment(selection);
+        int[] byStatus = current.countByStatus(selection);
+        long total = byTreatment.values().stream().mapToLong(Integer::longValue).sum();
+
+        List<Map<String, Object>> treatments = new ArrayList<>();
+        byTreatment.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("treatment", entry.getKey());
+                    row.put("appointments", entry.getValue());
+                    row.put("share", total == 0 ? 0.0 : entry.getValue() * 100.0 / total);
+                    treatments.add(row);
+                });
+
+        Map<String, Integer> statuses = new LinkedHashMap<>();
+        for (AppointmentStatus status : STATUSES) {
+            statuses.put(status.name(), byStatus[status.ordinal()]);
+        }
+
+        Map<String, Object> mix = new HashMap<>();
+        mix.put("totalAppointments", total);
+        mix.put("distinctPatients", current.countDistinctPatients(selection));
+        mix.put("treatments", treatments);
+        mix.put("statuses", statuses);
+        return mix;
+    }
+
+    /**
+     * Chair utilization heatmap per weekday and hour: booked (not cancelled/rescheduled)
+     * appointments over chair capacity (chairs x slots per hour x occurrences of that weekday)
+     */
+    public List<Map<String, Object>> getUtilizationHeatmap(LocalDate from, LocalDate to) {
+        AppointmentSnapshot current = current();
+        int[][][] counts = current.countByWeekdayHourStatus(current.selectDateRange(from, to));
+        int[] weekdayOccurrences = new int[7];
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            weekdayOccurrences[day.getDayOfWeek().getValue() - 1]++;
+        }
+        int slotsPerHour = Math.max(1, 60 / slotMinutes);
+
+        List<Map<String, Object>> cells = new ArrayList<>();
+        for (int weekday = 0; weekday < 7; weekday++) {
+            for (int hour = 0; hour < 24; hour++) {
+                int booked = 0;
+                for (AppointmentStatus status : STATUSES) {
+                    if (status != AppointmentStatus.CANCELLED && status != AppointmentStatus.RESCHEDULED) {
+                        booked += counts[weekday][hour][status.ordinal()];
+                    }
+                }
+                if (booked == 0) {
+                    continue;
+                }
+                long capacity = (long) chairs * slotsPerHour * weekdayOccurrences[weekday];
+                Map<String, Object> cell = new LinkedHashMap<>();
+                cell.put("weekday", DayOfWeek.of(weekday + 1));
+                cell.put("hour", hour);
+                cell.put("booked", booked);
+                cell.put("capacity", capacity);
+                cell.put("utilization", capacity == 0 ? 0.0 : booked * 100.0 / capacity);
+                cells.add(cell);
+            }
+        }
+        return cells;
+    }
+
+    private AppointmentSnapshot current() {
+        AppointmentSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+}
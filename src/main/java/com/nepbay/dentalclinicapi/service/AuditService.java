@@ -0,0 +1,326 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nepbay.dentalclinicapi.audit.ChangeRecord;
+import com.nepbay.dentalclinicapi.audit.ChangeRecord.FieldChange;
+import com.nepbay.dentalclinicapi.audit.SegmentedChangeLog;
+import com.nepbay.dentalclinicapi.config.InstanceDirectory;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Patient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Audit Service
+ * Append-only change history for patients and appointments. Callers compute a field-level diff
+ * and enqueue it; a single background writer drains the queue in batches into the
+ * SegmentedChangeLog and forces each batch to disk once, so no write request ever waits for I/O.
+ * An in-memory index (entity key -> log position, time and action of each record) is rebuilt from
+ * the segments at startup, so readers can pick the records they need before reading any.
+ */
+@Service
+public class AuditService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+
+    public static final String ENTITY_PATIENT = "patient";
+    public static final String ENTITY_APPOINTMENT = "appointment";
+
+    public static final String ACTION_CREATED = "CREATED";
+    public static final String ACTION_UPDATED = "UPDATED";
+    public static final String ACTION_STATUS_CHANGED = "STATUS_CHANGED";
+    public static final String ACTION_DELETED = "DELETED";
+
+    private static final String DEFAULT_USER = "system";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Set by the durable profile; when empty each instance writes to a directory of its own
+    @Value("${clinic.audit.dir:}")
+    private String directory;
+
+    @Value("${clinic.audit.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${clinic.audit.batch-size:500}")
+    private int batchSize;
+
+    @Value("${clinic.audit.queue-capacity:100000}")
+    private int queueCapacity;
+
+    // The in-memory database starts empty, so history of a previous run would attach to reused ids
+    @Value("${clinic.audit.reset-on-start:true}")
+    private boolean resetOnStart;
+
+    @Value("${clinic.audit.user-header:X-User}")
+    private String userHeader;
+
+    /**
+     * Index entry of one change record: where it is in the log and enough to decide whether to read it
+     */
+    public record HistoryRef(Long entityId, int index, String action, LocalDateTime changedAt,
+                             SegmentedChangeLog.Position position) {}
+
+    private record Indexed(SegmentedChangeLog.Position position, String action, LocalDateTime changedAt) {}
+
+    private final Map<String, Queue<Indexed>> index = new ConcurrentHashMap<>();
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong settled = new AtomicLong();
+
+    private Path path;
+    private boolean temporary;
+    private BlockingQueue<ChangeRecord> queue;
+    private SegmentedChangeLog changeLog;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        temporary = directory.isBlank();
+        path = temporary ? InstanceDirectory.create("audit") : Path.of(directory);
+        if (resetOnStart) {
+            SegmentedChangeLog.reset(path);
+        }
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        changeLog = new SegmentedChangeLog(path, segmentBytes);
+        changeLog.open((position, payload) -> {
+            try {
+                ChangeRecord record = objectMapper.readValue(payload, ChangeRecord.class);
+                indexRecord(record, position);
+            } catch (IOException e) {
+                log.warn("Skipping unreadable change record at {}", position, e);
+            }
+        });
+        log.info("Change log opened at {}: {} entities with history", path.toAbsolutePath(), index.size());
+
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5000);
+        // Whatever the writer did not get to is flushed here
+        writeBatch(new ArrayList<>(queue));
+        changeLog.close();
+        if (temporary) {
+            InstanceDirectory.delete(path);
+        }
+    }
+
+    /**
+     * Field values of a patient, in a stable order, for diffing
+     */
+    public static Map<String, Object> fieldsOf(Patient patient) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", patient.getName());
+        fields.put("phone", patient.getPhone());
+        fields.put("email", patient.getEmail());
+        fields.put("address", patient.getAddress());
+        return fields;
+    }
+
+    /**
+     * Field values of an appointment, in a stable order, for diffing
+     */
+    public static Map<String, Object> fieldsOf(Appointment appointment) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("patientName", appointment.getPatientName());
+        fields.put("appointmentDate", appointment.getAppointmentDate());
+        fields.put("appointmentTime", appointment.getAppointmentTime());
+        fields.put("treatment", appointment.getTreatment());
+        fields.put("notes", appointment.getNotes());
+        fields.put("status", appointment.getStatus());
+        return fields;
+    }
+
+    /**
+     * Record a change of an entity. Pass null as before for creations and as after for deletions.
+     * Updates that changed nothing are not recorded. Never blocks on disk I/O.
+     */
+    public void record(String entityType, Long entityId, String action, Map<String, Object> before, Map<String, Object> after) {
+        List<FieldChange> changes = diff(before, after);
+        if (changes.isEmpty() && before != null && after != null) {
+            return;
+        }
+        ChangeRecord record = new ChangeRecord(entityType, entityId, action, currentUser(), LocalDateTime.now(), changes);
+        recorded.incrementAndGet();
+        if (!queue.offer(record)) {
+            // Backpressure instead of losing audit entries when the writer falls far behind
+            log.warn("Change log queue full, waiting for the writer");
+            try {
+                queue.put(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                settled.incrementAndGet();
+                log.error("Interrupted while queueing change record for {} {}", entityType, entityId);
+            }
+        }
+    }
+
+    /**
+     * Change history of an entity, oldest first
+     */
+    public List<ChangeRecord> getHistory(String entityType, Long entityId) {
+        Queue<Indexed> entries = index.get(key(entityType, entityId));
+        List<ChangeRecord> history = new ArrayList<>();
+        if (entries == null) {
+            return history;
+        }
+        for (Indexed entry : entries) {
+            history.add(read(entry.position()));
+        }
+        return history;
+    }
+
+    /**
+     * Index entries of the histories of several entities, newest first, leaving out records changed
+     * after notAfter (null for none). Nothing is read from the log; read() the records needed.
+     * The index of a ref is its record's position in getHistory of that entity.
+     */
+    public List<HistoryRef> getHistoryRefs(String entityType, Collection<Long> entityIds, LocalDateTime notAfter) {
+        List<HistoryRef> refs = new ArrayList<>();
+        for (Long entityId : entityIds) {
+            Queue<Indexed> entries = index.get(key(entityType, entityId));
+            if (entries == null) {
+                continue;
+            }
+            int i = 0;
+            for (Indexed entry : entries) {
+                if (notAfter == null || !entry.changedAt().isAfter(notAfter)) {
+                    refs.add(new HistoryRef(entityId, i, entry.action(), entry.changedAt(), entry.position()));
+                }
+                i++;
+            }
+        }
+        refs.sort(Comparator.comparing(HistoryRef::changedAt).reversed());
+        return refs;
+    }
+
+    public ChangeRecord read(HistoryRef ref) {
+        return read(ref.position());
+    }
+
+    /**
+     * Whether some recorded changes are not yet visible in getHistory (still queued for the writer)
+     */
+    public boolean hasPendingRecords() {
+        return settled.get() < recorded.get();
+    }
+
+    private void writeLoop() {
+        List<ChangeRecord> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ChangeRecord first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Could not write {} change records", batch.size(), e);
+            } finally {
+                settled.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private synchronized void writeBatch(List<ChangeRecord> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<SegmentedChangeLog.Position> positions = new ArrayList<>(batch.size());
+        for (ChangeRecord record : batch) {
+            positions.add(changeLog.append(objectMapper.writeValueAsBytes(record)));
+        }
+        changeLog.force();
+        // Only index entries once they are durable
+        for (int i = 0; i < batch.size(); i++) {
+            indexRecord(batch.get(i), positions.get(i));
+        }
+    }
+
+    private void indexRecord(ChangeRecord record, SegmentedChangeLog.Position position) {
+        index.computeIfAbsent(key(record.entityType(), record.entityId()), k -> new ConcurrentLinkedQueue<>())
+                .add(new Indexed(position, record.action(), record.changedAt()));
+    }
+
+    private ChangeRecord read(SegmentedChangeLog.Position position) {
+        try {
+            return objectMapper.readValue(changeLog.read(position), ChangeRecord.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read change history: " + e.getMessage());
+        }
+    }
+
+    private static String key(String entityType, Long entityId) {
+        return entityType + ":" + entityId;
+    }
+
+    private static List<FieldChange> diff(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> fields = after != null ? after : before;
+        List<FieldChange> changes = new ArrayList<>();
+        if (fields == null) {
+            return changes;
+        }
+        for (String field : fields.keySet()) {
+            Object oldValue = before == null ? null : before.get(field);
+            Object newValue = after == null ? null : after.get(field);
+            if (!Objects.equals(oldValue, newValue)) {
+                changes.add(new FieldChange(field, render(oldValue), render(newValue)));
+            }
+        }
+        return changes;
+    }
+
+    private static String render(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private String currentUser() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            String user = servletAttributes.getRequest().getHeader(userHeader);
+            if (user != null && !user.isBlank()) {
+                return user.trim();
+            }
+        }
+        return DEFAULT_USER;
+    }
+}
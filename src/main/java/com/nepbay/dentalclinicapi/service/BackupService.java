@@ -0,0 +1,664 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nepbay.dentalclinicapi.backup.BackupManifest;
+import com.nepbay.dentalclinicapi.backup.BackupManifest.FileEntry;
+import com.nepbay.dentalclinicapi.backup.BackupManifest.TableEntry;
+import com.nepbay.dentalclinicapi.backup.TableSnapshotFile;
+import com.nepbay.dentalclinicapi.model.PatientMatching;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Backup Service
+ * Online backups of the patients and appointments tables. A backup reads both tables inside one
+ * read-only SERIALIZABLE transaction: H2 serves it from an MVCC snapshot without taking locks, so
+ * the clinic keeps writing while the rows stream to gzip-compressed, CRC32-checked files.
+ * A full backup holds every row; an incremental one the rows updated since its parent's snapshot
+ * (minus a safety overlap for transactions still in flight then) and the ids that existed.
+ *
+ * Restore replaces both tables with the state of one backup. The chain is read newest first, so
+ * each row is inserted once, in its latest version, and rows deleted later are skipped; batches
+ * are inserted in parallel on clinic.backup.restore-threads connections into empty staging
+ * tables, which replace the live rows in a single transaction once every batch has landed.
+ * The node reports REFUSING_TRAFFIC on its readiness probe meanwhile, rebuilds its indexes and
+ * caches after, and only then accepts traffic again; after a failed restore it stays out of
+ * rotation until a restore succeeds.
+ */
+@Service
+public class BackupService {
+
+    private static final Logger log = LoggerFactory.getLogger(BackupService.class);
+
+    public static final List<String> TABLES = List.of("patients", "appointments");
+
+    private static final String MANIFEST = "manifest.json";
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9]{8}-[0-9]{9}-[a-z]+");
+    private static final DateTimeFormatter ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmssSSS");
+    // allocationSize of the entity id sequences: Hibernate may hand out up to this many ids below a fetched value
+    private static final int ID_ALLOCATION = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private DuplicatePatientIndex duplicatePatientIndex;
+
+    @Autowired
+    private AppointmentSearchService appointmentSearchService;
+
+    @Autowired
+    private AppointmentSnapshotService appointmentSnapshotService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private NoShowScoringService noShowScoringService;
+
+    @Value("${clinic.backup.dir:${clinic.data-dir:./data}/backups}")
+    private String directory;
+
+    @Value("${clinic.backup.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${clinic.backup.incremental-overlap-ms:300000}")
+    private long overlapMillis;
+
+    @Value("${clinic.backup.restore-threads:4}")
+    private int restoreThreads;
+
+    @Value("${clinic.backup.restore-batch-size:500}")
+    private int batchSize;
+
+    // One backup or restore at a time
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Map<String, Object> lastRestore;
+
+    /**
+     * Take a full or incremental backup while the application keeps serving writes
+     */
+    public BackupManifest createBackup(String type) throws IOException {
+        if (!BackupManifest.FULL.equals(type) && !BackupManifest.INCREMENTAL.equals(type)) {
+            throw new IllegalArgumentException("Backup type must be full or incremental");
+        }
+        if (!lock.tryLock()) {
+            throw new ConflictException("A backup or restore is already running");
+        }
+        try {
+            BackupManifest parent = null;
+            if (BackupManifest.INCREMENTAL.equals(type)) {
+                parent = latest();
+                if (parent == null) {
+                    throw new ConflictException("There is no backup to base an incremental backup on; take a full backup first");
+                }
+            }
+            long start = System.nanoTime();
+            LocalDateTime snapshotAt = LocalDateTime.now();
+            LocalDateTime changedSince = parent == null ? null : parent.snapshotAt().minus(Duration.ofMillis(overlapMillis));
+            Path root = root();
+            Files.createDirectories(root);
+            String id = newId(root, snapshotAt, type);
+            Path staging = root.resolve(id + ".partial");
+            Files.createDirectories(staging);
+            try {
+                List<TableEntry> tables = snapshot(staging, changedSince);
+                BackupManifest manifest = new BackupManifest(id, type, parent == null ? null : parent.id(),
+                        snapshotAt, changedSince, (System.nanoTime() - start) / 1_000_000, tables);
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(staging.resolve(MANIFEST).toFile(), manifest);
+                Files.move(staging, root.resolve(id), StandardCopyOption.ATOMIC_MOVE);
+                log.info("Backup {} written: {} ms, {}", id, manifest.durationMs(), tables.stream()
+                        .map(table -> table.table() + "=" + table.rows().rows())
+                        .collect(Collectors.joining(", ")));
+                return manifest;
+            } catch (IOException | RuntimeException e) {
+                deleteRecursively(staging);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Every finished backup, oldest first
+     */
+    public List<BackupManifest> listBackups() throws IOException {
+        Path root = root();
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        List<BackupManifest> backups = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(root)) {
+            for (Path entry : entries.sorted().collect(Collectors.toList())) {
+                if (ID_PATTERN.matcher(entry.getFileName().toString()).matches() && Files.exists(entry.resolve(MANIFEST))) {
+                    backups.add(objectMapper.readValue(entry.resolve(MANIFEST).toFile(), BackupManifest.class));
+                }
+            }
+        }
+        return backups;
+    }
+
+    /**
+     * Manifest of one backup, or null when there is no such backup
+     */
+    public BackupManifest getBackup(String id) throws IOException {
+        if (id == null || !ID_PATTERN.matcher(id).matches()) {
+            return null;
+        }
+        Path manifest = root().resolve(id).resolve(MANIFEST);
+        return Files.exists(manifest) ? objectMapper.readValue(manifest.toFile(), BackupManifest.class) : null;
+    }
+
+    /**
+     * Check the checksum of every file a restore of this backup would read
+     */
+    public Map<String, Object> verify(String id) throws IOException {
+        List<BackupManifest> chain = chainOf(id);
+        List<String> problems = new ArrayList<>();
+        int files = 0;
+        for (BackupManifest backup : chain) {
+            for (FileEntry file : filesOf(backup)) {
+                files++;
+                String problem = check(backup, file);
+                if (problem != null) {
+                    problems.add(problem);
+                }
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("chain", chain.stream().map(BackupManifest::id).collect(Collectors.toList()));
+        result.put("files", files);
+        result.put("valid", problems.isEmpty());
+        result.put("problems", problems);
+        return result;
+    }
+
+    /**
+     * Outcome of the latest restore on this node, or null when there has been none
+     */
+    public Map<String, Object> getLastRestore() {
+        return lastRestore;
+    }
+
+    /**
+     * Replace the patients and appointments tables with their state at a backup
+     */
+    public Map<String, Object> restore(String id, Integer threads) throws IOException {
+        int workerCount = threads == null ? restoreThreads : threads;
+        if (workerCount < 1 || workerCount > 64) {
+            throw new IllegalArgumentException("Restore threads must be between 1 and 64");
+        }
+        if (!lock.tryLock()) {
+            throw new ConflictException("A backup or restore is already running");
+        }
+        try {
+            List<BackupManifest> chain = chainOf(id);
+            for (BackupManifest backup : chain) {
+                for (FileEntry file : filesOf(backup)) {
+                    String problem = check(backup, file);
+                    if (problem != null) {
+                        throw new ConflictException("Backup cannot be restored: " + problem);
+                    }
+                }
+            }
+
+            long start = System.nanoTime();
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+            lastRestore = restoreStatus(id, "running", null);
+            ExecutorService workers = Executors.newFixedThreadPool(workerCount, daemon("backup-restore"));
+            ExecutorService readers = Executors.newFixedThreadPool(TABLES.size(), daemon("backup-reader"));
+            Map<String, Object> rows = new LinkedHashMap<>();
+            Map<String, Long> orphaned;
+            long loadMillis;
+            try {
+                createStagingTables();
+                Semaphore inFlight = new Semaphore(workerCount * 2);
+                Map<String, CompletableFuture<Long>> restored = new LinkedHashMap<>();
+                for (String table : TABLES) {
+                    restored.put(table, CompletableFuture.supplyAsync(() -> restoreTable(table, chain, workers, inFlight), readers));
+                }
+                for (Map.Entry<String, CompletableFuture<Long>> entry : restored.entrySet()) {
+                    rows.put(entry.getKey(), join(entry.getValue()));
+                }
+                orphaned = swapInStagingTables();
+                for (String table : TABLES) {
+                    advanceSequence(table);
+                }
+                loadMillis = (System.nanoTime() - start) / 1_000_000;
+                rebuildDerivedState();
+            } catch (IOException | RuntimeException e) {
+                // Readiness stays REFUSING_TRAFFIC: only a restore that runs to the end puts the node back
+                lastRestore = restoreStatus(id, "failed", e.getMessage());
+                log.error("Restore of backup {} failed; the node stays out of rotation until a restore succeeds", id, e);
+                throw e;
+            } finally {
+                workers.shutdownNow();
+                readers.shutdownNow();
+                dropStagingTables();
+            }
+            lastRestore = restoreStatus(id, "succeeded", null);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            long total = rows.values().stream().mapToLong(count -> (Long) count).sum();
+            log.info("Restored backup {} ({} rows) in {} ms, {} ms loading with {} threads", id, total, millis, loadMillis, workerCount);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", id);
+            result.put("chain", chain.stream().map(BackupManifest::id).collect(Collectors.toList()));
+            result.put("rows", rows);
+            result.put("threads", workerCount);
+            result.put("loadMs", loadMillis);
+            result.put("durationMs", millis);
+            result.put("rowsPerSecond", loadMillis == 0 ? total : total * 1000 / loadMillis);
+            result.put("orphanedReferences", orphaned);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<TableEntry> snapshot(Path staging, LocalDateTime changedSince) throws IOException {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        try {
+            return template.execute(status -> {
+                List<TableEntry> tables = new ArrayList<>();
+                for (String table : TABLES) {
+                    if (changedSince == null) {
+                        tables.add(new TableEntry(table, dump(staging, table, table + ".rows.gz",
+                                "SELECT * FROM " + table, null), null));
+                    } else {
+                        tables.add(new TableEntry(table,
+                                dump(staging, table, table + ".rows.gz",
+                                        "SELECT * FROM " + table + " WHERE updated_at >= ? OR updated_at IS NULL", changedSince),
+                                dump(staging, table, table + ".ids.gz", "SELECT id FROM " + table, null)));
+                    }
+                }
+                return tables;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private FileEntry dump(Path staging, String table, String fileName, String sql, LocalDateTime parameter) {
+        TableSnapshotFile.Summary summary = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            if (parameter != null) {
+                statement.setTimestamp(1, Timestamp.valueOf(parameter));
+            }
+            return statement;
+        }, (ResultSetExtractor<TableSnapshotFile.Summary>) rs -> {
+            try (TableSnapshotFile.Writer writer = new TableSnapshotFile.Writer(
+                    staging.resolve(fileName), table, TableSnapshotFile.columnsOf(rs))) {
+                while (rs.next()) {
+                    writer.write(rs);
+                }
+                writer.close();
+                return writer.summary();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return new FileEntry(fileName, summary.rows(), summary.bytes(), summary.crc32());
+    }
+
+    /**
+     * Insert the latest version of every row that existed at the target backup; returns the row count
+     */
+    private long restoreTable(String table, List<BackupManifest> chain, ExecutorService workers, Semaphore inFlight) {
+        BackupManifest target = chain.get(chain.size() - 1);
+        AtomicLong inserted = new AtomicLong();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        try {
+            Set<Long> live = target.isFull() ? null : readIds(target, table);
+            Set<Long> seen = chain.size() > 1 ? new HashSet<>() : null;
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                BackupManifest backup = chain.get(i);
+                try (TableSnapshotFile.Reader reader = new TableSnapshotFile.Reader(
+                        root().resolve(backup.id()).resolve(tableOf(backup, table).rows().file()))) {
+                    List<TableSnapshotFile.Column> columns = reader.columns();
+                    int idColumn = indexOf(columns, "id");
+                    String insert = "INSERT INTO " + stagingOf(table) + " (" + columns.stream()
+                            .map(TableSnapshotFile.Column::name).collect(Collectors.joining(", "))
+                            + ") VALUES (" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+                    List<Object[]> batch = new ArrayList<>(batchSize);
+                    Object[] row;
+                    while ((row = reader.next()) != null) {
+                        Long rowId = (Long) row[idColumn];
+                        if ((live != null && !live.contains(rowId)) || (seen != null && !seen.add(rowId))) {
+                            continue;
+                        }
+                        batch.add(row);
+                        if (batch.size() == batchSize) {
+                            batches.add(submit(insert, columns, batch, workers, inFlight, inserted));
+                            batch = new ArrayList<>(batchSize);
+                        }
+                    }
+                    if (!batch.isEmpty()) {
+                        batches.add(submit(insert, columns, batch, workers, inFlight, inserted));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Restore of " + table + " was interrupted");
+        }
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+        return inserted.get();
+    }
+
+    private CompletableFuture<Void> submit(String insert, List<TableSnapshotFile.Column> columns, List<Object[]> batch,
+                                           ExecutorService workers, Semaphore inFlight, AtomicLong inserted) throws InterruptedException {
+        // Bounds the decoded rows held in memory when the readers outpace the inserts
+        inFlight.acquire();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(insert, batch, batch.size(),
+                        (statement, row) -> TableSnapshotFile.bind(statement, columns, row)));
+                inserted.addAndGet(batch.size());
+            } finally {
+                inFlight.release();
+            }
+        }, workers);
+    }
+
+    /**
+     * Empty copies of the restored tables; the batches land here, so a failed load leaves the live tables alone
+     */
+    private void createStagingTables() {
+        for (String table : TABLES) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + stagingOf(table));
+            jdbcTemplate.execute("CREATE TABLE " + stagingOf(table) + " AS SELECT * FROM " + table + " WITH NO DATA");
+        }
+    }
+
+    /**
+     * Replace the live rows with the staged ones in one transaction. Series exceptions and waitlist
+     * entries are not part of a backup and are left as they are; the ones pointing at appointments
+     * the restore removed are counted and logged. The matching code already ignores such ids: a
+     * booked occurrence stays hidden from its series and a stale offer simply expires.
+     */
+    private Map<String, Long> swapInStagingTables() {
+        return transactionTemplate.execute(status -> {
+            // DELETE rather than TRUNCATE: it needs no exclusive table lock while other sessions are open
+            for (String table : TABLES) {
+                jdbcTemplate.update("DELETE FROM " + table);
+                jdbcTemplate.update("INSERT INTO " + table + " SELECT * FROM " + stagingOf(table));
+            }
+            fillCanonicalPhones();
+            Map<String, Long> orphaned = new LinkedHashMap<>();
+            orphaned.put("seriesExceptions", countOrphans("appointment_series_exceptions", "appointment_id"));
+            orphaned.put("waitlistOffers", countOrphans("waitlist_entries", "offered_appointment_id"));
+            orphaned.put("waitlistBookings", countOrphans("waitlist_entries", "booked_appointment_id"));
+            if (orphaned.values().stream().anyMatch(count -> count > 0)) {
+                log.warn("Restore left references to appointments that no longer exist: {}", orphaned);
+            }
+            return orphaned;
+        });
+    }
+
+    /**
+     * Backups taken before patients had a canonical phone restore it as null; derive it, so the
+     * unique constraint covers those rows too (and fails the restore on duplicates)
+     */
+    private void fillCanonicalPhones() {
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, phone FROM patients WHERE canonical_phone IS NULL AND phone IS NOT NULL", rs -> {
+            String canonicalPhone = PatientMatching.canonicalPhone(rs.getString(2));
+            if (canonicalPhone != null) {
+                updates.add(new Object[] {canonicalPhone, rs.getLong(1)});
+            }
+        });
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE patients SET canonical_phone = ? WHERE id = ?", updates);
+        }
+    }
+
+    private long countOrphans(String table, String column) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " t WHERE t." + column
+                + " IS NOT NULL AND NOT EXISTS (SELECT 1 FROM appointments a WHERE a.id = t." + column + ")", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private void dropStagingTables() {
+        for (String table : TABLES) {
+            try {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + stagingOf(table));
+            } catch (RuntimeException e) {
+                log.warn("Could not drop restore staging table {}", stagingOf(table), e);
+            }
+        }
+    }
+
+    private static String stagingOf(String table) {
+        return table + "_restore";
+    }
+
+    private static Map<String, Object> restoreStatus(String id, String state, String error) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", id);
+        status.put("state", state);
+        status.put("at", LocalDateTime.now());
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+
+    private Set<Long> readIds(BackupManifest backup, String table) throws IOException {
+        Set<Long> ids = new HashSet<>();
+        try (TableSnapshotFile.Reader reader = new TableSnapshotFile.Reader(
+                root().resolve(backup.id()).resolve(tableOf(backup, table).ids().file()))) {
+            Object[] row;
+            while ((row = reader.next()) != null) {
+                ids.add((Long) row[0]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Move the id sequence past the restored rows, so new records cannot reuse their ids
+     */
+    private void advanceSequence(String table) {
+        String sequence = table + "_seq";
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        Long next = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = ?", Long.class, sequence);
+        if (next != null && next <= maxId + ID_ALLOCATION) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + ID_ALLOCATION + 1));
+        }
+    }
+
+    /**
+     * The restore bypassed the entity events; rebuild what this node derives from the tables
+     * and drop the cached entities and responses here and on the other nodes
+     */
+    private void rebuildDerivedState() {
+        duplicatePatientIndex.rebuild();
+        appointmentSearchService.rebuild();
+        appointmentSnapshotService.refresh();
+        rollupService.backfill();
+        noShowScoringService.recompute();
+        cacheInvalidationBus.invalidateAll(CacheInvalidationBus.PATIENTS);
+        cacheInvalidationBus.invalidateAll(CacheInvalidationBus.APPOINTMENTS);
+        cacheInvalidationBus.invalidateAll(CacheInvalidationBus.CALENDAR);
+        cacheInvalidationBus.invalidateAll(CacheInvalidationBus.TIMELINE);
+    }
+
+    /**
+     * The backups a restore of this one reads: its full base first, the backup itself last
+     */
+    private List<BackupManifest> chainOf(String id) throws IOException {
+        List<BackupManifest> chain = new ArrayList<>();
+        BackupManifest backup = getBackup(id);
+        if (backup == null) {
+            throw new NotFoundException("Backup not found: " + id);
+        }
+        chain.add(backup);
+        while (!backup.isFull()) {
+            BackupManifest parent = getBackup(backup.parent());
+            if (parent == null) {
+                throw new ConflictException("Backup " + backup.id() + " depends on missing backup " + backup.parent());
+            }
+            chain.add(parent);
+            backup = parent;
+        }
+        Collections.reverse(chain);
+        return chain;
+    }
+
+    private BackupManifest latest() throws IOException {
+        return listBackups().stream().max(Comparator.comparing(BackupManifest::id)).orElse(null);
+    }
+
+    private String check(BackupManifest backup, FileEntry file) throws IOException {
+        Path path = root().resolve(backup.id()).resolve(file.file());
+        if (!Files.exists(path)) {
+            return backup.id() + "/" + file.file() + " is missing";
+        }
+        if (TableSnapshotFile.checksum(path) != file.crc32()) {
+            return backup.id() + "/" + file.file() + " does not match its checksum";
+        }
+        return null;
+    }
+
+    private static List<FileEntry> filesOf(BackupManifest backup) {
+        List<FileEntry> files = new ArrayList<>();
+        for (TableEntry table : backup.tables()) {
+            files.add(table.rows());
+            if (table.ids() != null) {
+                files.add(table.ids());
+            }
+        }
+        return files;
+    }
+
+    private static TableEntry tableOf(BackupManifest backup, String table) {
+        return backup.tables().stream()
+                .filter(entry -> entry.table().equals(table))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Backup " + backup.id() + " has no " + table + " table"));
+    }
+
+    private static int indexOf(List<TableSnapshotFile.Column> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        throw new RuntimeException("Backup file has no " + name + " column");
+    }
+
+    private static String newId(Path root, LocalDateTime snapshotAt, String type) {
+        LocalDateTime at = snapshotAt;
+        String id = ID_FORMAT.format(at) + "-" + type;
+        while (Files.exists(root.resolve(id))) {
+            at = at.plusNanos(1_000_000);
+            id = ID_FORMAT.format(at) + "-" + type;
+        }
+        return id;
+    }
+
+    private Path root() {
+        return Paths.get(directory);
+    }
+
+    private static long join(CompletableFuture<Long> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nepbay.dentalclinicapi.batch.BatchRequest;
+import com.nepbay.dentalclinicapi.batch.BatchResponse;
+import com.nepbay.dentalclinicapi.batch.BatchServletRequest;
+import com.nepbay.dentalclinicapi.batch.BatchServletResponse;
+import com.nepbay.dentalclinicapi.batch.RepositoryCallMemo;
+import com.nepbay.dentalclinicapi.controller.ErrorResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.DispatcherServlet;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batch Service
+ * Runs the requests of POST /api/batch through the DispatcherServlet, so each behaves exactly as if
+ * it had been sent on its own (same controllers, validation and error handling) while the client
+ * pays for one round trip. Consecutive GETs are independent of each other and run concurrently,
+ * sharing a RepositoryCallMemo so identical repository reads hit the database once. Writes run one
+ * at a time, in batch order, and later reads start a fresh memo so they see the write.
+ */
+@Service
+public class BatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchService.class);
+
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE");
+    private static final String BATCH_PATH = "/api/batch";
+    private static final String REACTIVE_PATH = "/api/v2";
+
+    @Autowired
+    private DispatcherServlet dispatcherServlet;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${clinic.batch.max-requests:20}")
+    private int maxRequests;
+
+    @Value("${clinic.batch.threads:4}")
+    private int threads;
+
+    @Value("${clinic.batch.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    private ExecutorService executor;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong deduplicatedCalls = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicLong counter = new AtomicLong();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public BatchResponse execute(BatchRequest batch, HttpServletRequest enclosing, HttpServletResponse enclosingResponse) {
+        List<BatchRequest.Part> parts = validate(batch);
+        ensureInitialized(enclosing.getServletContext());
+        BatchResponse.Part[] responses = new BatchResponse.Part[parts.size()];
+        int deduplicated = 0;
+        int start = 0;
+        while (start < parts.size()) {
+            // A run of GETs goes together; anything else runs on its own
+            int end = start + 1;
+            if (isRead(parts.get(start))) {
+                while (end < parts.size() && isRead(parts.get(end))) {
+                    end++;
+                }
+            }
+            RepositoryCallMemo memo = isRead(parts.get(start)) ? new RepositoryCallMemo() : null;
+            List<Callable<BatchResponse.Part>> tasks = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                String id = idOf(parts.get(i), i);
+                BatchServletRequest request = toServletRequest(parts.get(i), enclosing);
+                tasks.add(() -> dispatch(id, request, new BatchServletResponse(enclosingResponse), memo));
+            }
+            List<Future<BatchResponse.Part>> futures = invokeAll(tasks);
+            for (int i = start; i < end; i++) {
+                responses[i] = resultOf(futures.get(i - start), idOf(parts.get(i), i), pathOf(parts.get(i)));
+            }
+            if (memo != null) {
+                deduplicated += memo.getDeduplicated();
+            }
+            start = end;
+        }
+        batches.incrementAndGet();
+        requests.addAndGet(parts.size());
+        deduplicatedCalls.addAndGet(deduplicated);
+        return new BatchResponse(List.of(responses), deduplicated);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", batches.get());
+        stats.put("requests", requests.get());
+        stats.put("deduplicatedCalls", deduplicatedCalls.get());
+        stats.put("maxRequests", maxRequests);
+        stats.put("threads", threads);
+        return stats;
+    }
+
+    private List<BatchRequest.Part> validate(BatchRequest batch) {
+        if (batch == null || batch.requests() == null || batch.requests().isEmpty()) {
+            throw new IllegalArgumentException("Batch has no requests");
+        }
+        if (batch.requests().size() > maxRequests) {
+            throw new IllegalArgumentException("Batch has " + batch.requests().size() + " requests, at most " + maxRequests + " are allowed");
+        }
+        for (BatchRequest.Part part : batch.requests()) {
+            String path = pathOf(part);
+            if (!path.startsWith("/api/") || path.startsWith(BATCH_PATH)) {
+                throw new IllegalArgumentException("Batch requests must target /api/ endpoints other than " + BATCH_PATH + ": " + part.path());
+            }
+            if (path.equals(REACTIVE_PATH) || path.startsWith(REACTIVE_PATH + "/")) {
+                // Reactive handlers complete asynchronously, which the synchronous dispatch of a part cannot wait for
+                throw new IllegalArgumentException("Batch requests cannot target the reactive " + REACTIVE_PATH + " endpoints: " + part.path());
+            }
+            if (!METHODS.contains(methodOf(part))) {
+                throw new IllegalArgumentException("Unsupported method in batch: " + part.method());
+            }
+        }
+        return batch.requests();
+    }
+
+    /**
+     * The container initializes the DispatcherServlet on its first request; when requests reach the
+     * application another way (MockMvc) it is initialized here, in the enclosing request's context
+     */
+    private synchronized void ensureInitialized(ServletContext servletContext) {
+        if (dispatcherServlet.getServletConfig() != null) {
+            return;
+        }
+        try {
+            dispatcherServlet.init(new ServletConfig() {
+                @Override
+                public String getServletName() {
+                    return "dispatcherServlet";
+                }
+
+                @Override
+                public ServletContext getServletContext() {
+                    return servletContext;
+                }
+
+                @Override
+                public String getInitParameter(String name) {
+                    return null;
+                }
+
+                @Override
+                public Enumeration<String> getInitParameterNames() {
+                    return Collections.emptyEnumeration();
+                }
+            });
+        } catch (ServletException e) {
+            throw new IllegalStateException("Could not initialize the dispatcher for batch requests", e);
+        }
+    }
+
+    private BatchServletRequest toServletRequest(BatchRequest.Part part, HttpServletRequest enclosing) {
+        try {
+            byte[] body = part.body() == null || part.body().isNull() ? null : objectMapper.writeValueAsBytes(part.body());
+            return new BatchServletRequest(enclosing, methodOf(part), part.path(), part.headers(), body);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not serialize the body of " + part.path(), e);
+        }
+    }
+
+    private BatchResponse.Part dispatch(String id, BatchServletRequest request, BatchServletResponse response, RepositoryCallMemo memo) throws Exception {
+        if (memo != null) {
+            memo.bind();
+        }
+        try {
+            dispatcherServlet.service(request, response);
+        } finally {
+            RepositoryCallMemo.unbind();
+        }
+        return toPart(id, request.getPath(), response);
+    }
+
+    private List<Future<BatchResponse.Part>> invokeAll(List<Callable<BatchResponse.Part>> tasks) {
+        try {
+            return executor.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch was interrupted");
+        }
+    }
+
+    private BatchResponse.Part resultOf(Future<BatchResponse.Part> future, String id, String path) {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            return error(id, HttpStatus.GATEWAY_TIMEOUT, "Request did not finish within " + timeoutMillis + " ms", path);
+        } catch (ExecutionException e) {
+            log.warn("Batch request {} {} failed", id, path, e.getCause());
+            return error(id, HttpStatus.INTERNAL_SERVER_ERROR, "Request failed", path);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(id, HttpStatus.SERVICE_UNAVAILABLE, "Batch was interrupted", path);
+        }
+    }
+
+    private BatchResponse.Part toPart(String id, String path, BatchServletResponse response) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        response.getHeaderValues().forEach((name, values) -> {
+            // Content length and CORS variance belong to the batch response itself
+            if (!name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH) && !name.equalsIgnoreCase(HttpHeaders.VARY)) {
+                headers.put(name, String.join(", ", values));
+            }
+        });
+        byte[] body = response.getBody();
+        Object content = null;
+        if (body.length > 0) {
+            String contentType = response.getContentType();
+            content = contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json")
+                    ? objectMapper.readTree(body)
+                    : new String(body, StandardCharsets.UTF_8);
+        } else if (response.getStatus() >= 400) {
+            // sendError (no handler, unsupported method, ...) leaves no body outside a servlet container's error page
+            HttpStatus status = HttpStatus.resolve(response.getStatus());
+            content = new ErrorResponse(LocalDateTime.now(), response.getStatus(),
+                    status != null ? status.getReasonPhrase() : "Error", response.getErrorMessage(), path, null, null);
+        }
+        return new BatchResponse.Part(id, response.getStatus(), headers, content);
+    }
+
+    private static BatchResponse.Part error(String id, HttpStatus status, String message, String path) {
+        return new BatchResponse.Part(id, status.value(), Map.of(),
+                new ErrorResponse(LocalDateTime.now(), status.value(), status.getReasonPhrase(), message, path, null, null));
+    }
+
+    private static boolean isRead(BatchRequest.Part part) {
+        return "GET".equals(methodOf(part));
+    }
+
+    private static String methodOf(BatchRequest.Part part) {
+        return part.method() == null ? "GET" : part.method().toUpperCase(Locale.ROOT);
+    }
+
+    private static String pathOf(BatchRequest.Part part) {
+        if (part.path() == null) {
+            throw new IllegalArgumentException("Batch request without a path");
+        }
+        int query = part.path().indexOf('?');
+        return query < 0 ? part.path() : part.path().substring(0, query);
+    }
+
+    private static String idOf(BatchRequest.Part part, int index) {
+        return part.id() != null ? part.id() : String.valueOf(index);
+    }
+}
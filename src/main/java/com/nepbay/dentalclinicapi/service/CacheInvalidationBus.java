@@ -0,0 +1,190 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.cache.InvalidationMessage;
+import com.nepbay.dentalclinicapi.cache.InvalidationTransport;
+import com.nepbay.dentalclinicapi.cache.LocalInvalidationHub;
+import com.nepbay.dentalclinicapi.cache.NearCache;
+import com.nepbay.dentalclinicapi.cache.UdpInvalidationTransport;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent;
+import com.nepbay.dentalclinicapi.event.PatientChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cache Invalidation Bus
+ * Keeps the near caches of all nodes behind the load balancer in step. A write on one node
+ * invalidates its own cache and broadcasts the key; the other nodes drop it on receipt.
+ * Delivery is best effort, so staleness is bounded twice over: a gap in a node's message
+ * sequence clears every cache on the receiver, and every entry expires after the TTL anyway.
+ *
+ * Transports: "local" (application contexts in the same JVM, the default), "udp" (datagrams
+ * to configured host:port peers) and "none" (this node only).
+ */
+@Service
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String PATIENTS = "patients";
+    public static final String APPOINTMENTS = "appointments";
+    public static final String TREATMENTS = "treatments";
+    public static final String CALENDAR = "calendar";
+    public static final String TIMELINE = "timeline";
+
+    @Value("${clinic.cache.bus.transport:local}")
+    private String transportType;
+
+    @Value("${clinic.cache.bus.channel:dental-clinic}")
+    private String channel;
+
+    @Value("${clinic.cache.bus.udp.port:47600}")
+    private int udpPort;
+
+    @Value("${clinic.cache.bus.udp.peers:}")
+    private String udpPeers;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, NearCache<?>> caches = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastSequenceByOrigin = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong gaps = new AtomicLong();
+
+    private InvalidationTransport transport;
+
+    @PostConstruct
+    public void start() {
+        transport = switch (transportType) {
+            case "none" -> null;
+            case "local" -> new LocalInvalidationHub(channel);
+            case "udp" -> new UdpInvalidationTransport(udpPort, UdpInvalidationTransport.parsePeers(udpPeers));
+            default -> throw new IllegalStateException("Unknown cache bus transport: " + transportType);
+        };
+        if (transport != null) {
+            transport.start(this::receive);
+            log.info("Cache invalidation bus started: node {}, transport {}", nodeId, transport.getName());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    /**
+     * Register a near cache so invalidations for its name reach it
+     */
+    public <V> NearCache<V> register(NearCache<V> cache) {
+        caches.put(cache.getName(), cache);
+        subscribe(cache.getName(), key -> {
+            if (key == null) {
+                cache.invalidateAll();
+            } else {
+                cache.invalidate(key);
+            }
+        });
+        return cache;
+    }
+
+    /**
+     * Be told about invalidations of a cache name (key is null when the whole cache is cleared).
+     * For derived state that is not a NearCache, such as the treatment catalog snapshot.
+     */
+    public void subscribe(String cacheName, Consumer<String> handler) {
+        subscribers.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Drop a key here and on every other node
+     */
+    public void invalidate(String cacheName, Object key) {
+        String cacheKey = key == null ? null : String.valueOf(key);
+        apply(cacheName, cacheKey);
+        publish(cacheName, cacheKey);
+    }
+
+    /**
+     * Clear a whole cache here and on every other node
+     */
+    public void invalidateAll(String cacheName) {
+        invalidate(cacheName, null);
+    }
+
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        invalidate(PATIENTS, event.getPatient().getId());
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        invalidate(APPOINTMENTS, event.getAppointment().getId());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("node", nodeId);
+        stats.put("transport", transport != null ? transport.getName() : "none");
+        stats.put("sent", sent.get());
+        stats.put("received", received.get());
+        stats.put("sequenceGaps", gaps.get());
+        stats.put("peersSeen", lastSequenceByOrigin.size());
+        Map<String, Object> cacheStats = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> cacheStats.put(name, cache.getStats()));
+        stats.put("caches", cacheStats);
+        return stats;
+    }
+
+    private void publish(String cacheName, String key) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.publish(new InvalidationMessage(nodeId, sequence.incrementAndGet(), cacheName, key));
+            sent.incrementAndGet();
+        } catch (RuntimeException e) {
+            // The write has succeeded; other nodes fall back to their TTL
+            log.warn("Could not publish cache invalidation for {}/{}", cacheName, key, e);
+        }
+    }
+
+    private void receive(InvalidationMessage message) {
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+        received.incrementAndGet();
+        Long previous = lastSequenceByOrigin.get(message.origin());
+        lastSequenceByOrigin.merge(message.origin(), message.sequence(), Math::max);
+        if (previous != null && message.sequence() > previous + 1) {
+            // Something from this node was lost: we cannot know which keys, so drop everything
+            gaps.incrementAndGet();
+            log.warn("Cache invalidations from node {} lost ({} -> {}); clearing all caches",
+                    message.origin(), previous, message.sequence());
+            subscribers.values().forEach(handlers -> handlers.forEach(handler -> handler.accept(null)));
+            return;
+        }
+        apply(message.cache(), message.key());
+    }
+
+    private void apply(String cacheName, String key) {
+        for (Consumer<String> handler : subscribers.getOrDefault(cacheName, List.of())) {
+            handler.accept(key);
+        }
+    }
+}
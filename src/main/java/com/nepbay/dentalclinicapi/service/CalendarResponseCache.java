@@ -0,0 +1,198 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent;
+import com.nepbay.dentalclinicapi.event.SeriesChangedEvent;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Calendar Response Cache
+ * Serialized JSON of the today/week/month appointment lists, which every polling client receives
+ * unchanged until a write touches that range. Each view holds one entry for its current date bucket;
+ * when the clock crosses midnight or a week/month boundary the bucket no longer matches and the next
+ * request rebuilds it. An appointment write evicts only the views whose bucket contains the old or
+ * new appointment date, on this node and, via the invalidation bus, on the others.
+ *
+ * Every body built is also kept as the view's last known good copy, which getStale hands out while
+ * the database is unavailable, as long as it still belongs to the current bucket. There is one copy
+ * per view, stored with its bucket, so past buckets do not pile up in the last known good cache.
+ */
+@Service
+public class CalendarResponseCache {
+
+    public static final String TODAY = "today";
+    public static final String WEEK = "week";
+    public static final String MONTH = "month";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private LastKnownGoodCache lastKnownGoodCache;
+
+    @Value("${clinic.cache.calendar-ttl-ms:60000}")
+    private long ttlMillis;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = Map.of(
+            TODAY, new AtomicLong(), WEEK, new AtomicLong(), MONTH, new AtomicLong());
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record Bucket(LocalDate start, LocalDate end) {
+        boolean contains(LocalDate day) {
+            return !day.isBefore(start) && !day.isAfter(end);
+        }
+    }
+
+    private record Entry(Bucket bucket, byte[] body, long expiresAt) {}
+
+    private record StaleBody(Bucket bucket, byte[] body) {}
+
+    @PostConstruct
+    public void init() {
+        cacheInvalidationBus.subscribe(CacheInvalidationBus.CALENDAR, key -> {
+            if (key == null) {
+                evictAll();
+            } else {
+                evict(LocalDate.parse(key));
+            }
+        });
+        // Bulk appointment updates (catalog linking) and lost bus messages clear the appointments cache
+        cacheInvalidationBus.subscribe(CacheInvalidationBus.APPOINTMENTS, key -> {
+            if (key == null) {
+                evictAll();
+            }
+        });
+    }
+
+    /**
+     * JSON body of a calendar view for the current bucket, serialized from the loader on a miss
+     */
+    public byte[] get(String view, Supplier<List<Appointment>> loader) {
+        long now = System.nanoTime();
+        Bucket bucket = bucketOf(view, LocalDate.now());
+        Entry entry = entries.get(view);
+        if (entry != null && entry.bucket().equals(bucket) && now - entry.expiresAt() < 0) {
+            hits.incrementAndGet();
+            return entry.body();
+        }
+        misses.incrementAndGet();
+        AtomicLong generation = generations.get(view);
+        long loadGeneration = generation.get();
+        byte[] body = serialize(loader.get());
+        lastKnownGoodCache.remember(staleKey(view), new StaleBody(bucket, body));
+        // Not cached if the load straddled a bucket boundary or raced with an invalidation
+        if (bucket.equals(bucketOf(view, LocalDate.now())) && ttlMillis > 0) {
+            Entry loaded = new Entry(bucket, body, now + ttlMillis * 1_000_000L);
+            entries.put(view, loaded);
+            if (generation.get() != loadGeneration) {
+                entries.remove(view, loaded);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Last body built for the view's current bucket, or null; may predate writes since made
+     */
+    public LastKnownGoodCache.Snapshot<byte[]> getStale(String view) {
+        LastKnownGoodCache.Snapshot<StaleBody> stale = lastKnownGoodCache.recall(staleKey(view));
+        if (stale == null || !stale.value().bucket().equals(bucketOf(view, LocalDate.now()))) {
+            return null;
+        }
+        return new LastKnownGoodCache.Snapshot<>(stale.value().body(), stale.asOf());
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        LocalDate date = event.getAppointment().getAppointmentDate();
+        LocalDate previousDate = event.getPreviousDate();
+        if (date != null) {
+            cacheInvalidationBus.invalidate(CacheInvalidationBus.CALENDAR, date);
+        }
+        if (previousDate != null && !previousDate.equals(date)) {
+            cacheInvalidationBus.invalidate(CacheInvalidationBus.CALENDAR, previousDate);
+        }
+    }
+
+    /**
+     * Series occurrences can fall in any bucket
+     */
+    @EventListener
+    public void onSeriesChanged(SeriesChangedEvent event) {
+        cacheInvalidationBus.invalidateAll(CacheInvalidationBus.CALENDAR);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("views", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("ttlMs", ttlMillis);
+        return stats;
+    }
+
+    private void evict(LocalDate day) {
+        LocalDate today = LocalDate.now();
+        generations.forEach((view, generation) -> {
+            Entry entry = entries.get(view);
+            boolean cached = entry != null && entry.bucket().contains(day);
+            if (cached || bucketOf(view, today).contains(day)) {
+                generation.incrementAndGet();
+                entries.remove(view);
+                invalidations.incrementAndGet();
+            }
+        });
+    }
+
+    private void evictAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+
+    private byte[] serialize(List<Appointment> appointments) {
+        try {
+            return objectMapper.writeValueAsBytes(appointments);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize appointments", e);
+        }
+    }
+
+    private static String staleKey(String view) {
+        return "calendar." + view;
+    }
+
+    private static Bucket bucketOf(String view, LocalDate today) {
+        switch (view) {
+            case TODAY:
+                return new Bucket(today, today);
+            case WEEK:
+                return new Bucket(today.with(DayOfWeek.MONDAY), today.with(DayOfWeek.SUNDAY));
+            case MONTH:
+                return new Bucket(today.withDayOfMonth(1), today.withDayOfMonth(today.lengthOfMonth()));
+            default:
+                throw new IllegalArgumentException("Unknown calendar view: " + view);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.nepbay.dentalclinicapi.service;
+
+/**
+ * Conflict Exception
+ * The request is valid but clashes with the current state of the data: a slot or occurrence that is
+ * already taken, an offer that has moved on, a backup that is already running. Answered with 409 Conflict.
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,167 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.resilience.Bulkhead;
+import com.nepbay.dentalclinicapi.resilience.CircuitBreaker;
+import com.nepbay.dentalclinicapi.resilience.ServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Database Guard
+ * A circuit breaker and a bulkhead per class of database operation: reads, searches, dashboard
+ * aggregates and writes. Repository calls are routed through it by DatabaseGuardAspect. When the
+ * database or the connection pool is saturated, calls fail fast with ServiceUnavailableException
+ * (503, or a stale fallback in the controller) instead of queueing until the client gives up,
+ * and one class of slow queries cannot starve the others.
+ *
+ * Only infrastructure failures (no connection, lock or query timeouts, transaction timeouts) count
+ * against the breaker and are turned into ServiceUnavailableException; business errors such as a
+ * constraint violation mean the database answered and pass through unchanged.
+ */
+@Service
+public class DatabaseGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseGuard.class);
+
+    public enum Operation {
+        READ,
+        SEARCH,
+        DASHBOARD,
+        WRITE;
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * A database call that may throw anything the repository throws
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws Throwable;
+    }
+
+    private record Guard(CircuitBreaker breaker, Bulkhead bulkhead) {}
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${clinic.resilience.enabled:true}")
+    private boolean enabled;
+
+    private final Map<Operation, Guard> guards = new EnumMap<>(Operation.class);
+
+    // Nested calls (a repository default method calling another) run under the outer call's permit
+    private final ThreadLocal<Operation> active = new ThreadLocal<>();
+
+    @PostConstruct
+    public void init() {
+        for (Operation operation : Operation.values()) {
+            String prefix = "clinic.resilience." + operation.key() + ".";
+            guards.put(operation, new Guard(
+                    new CircuitBreaker(operation.key(),
+                            setting(prefix, "window", 20),
+                            setting(prefix, "minimum-calls", 10),
+                            setting(prefix, "failure-rate-percent", 50),
+                            setting(prefix, "open-ms", 10000),
+                            setting(prefix, "half-open-calls", 3)),
+                    new Bulkhead(operation.key(),
+                            setting(prefix, "max-concurrent", 8),
+                            setting(prefix, "max-wait-ms", 500))));
+        }
+    }
+
+    /**
+     * Run a database call under the breaker and bulkhead of its operation class
+     */
+    public <T> T execute(Operation operation, Call<T> call) throws Throwable {
+        if (!enabled || active.get() != null) {
+            return call.call();
+        }
+        Guard guard = guards.get(operation);
+        if (!guard.breaker().tryAcquire()) {
+            throw new ServiceUnavailableException(operation.key(), "Database " + operation.key()
+                    + "s are paused while the database recovers", guard.breaker().getRetryAfterSeconds(), null);
+        }
+        if (!guard.bulkhead().tryAcquire()) {
+            guard.breaker().onIgnored();
+            throw new ServiceUnavailableException(operation.key(), "Too many concurrent database "
+                    + operation.key() + "s", 1, null);
+        }
+        active.set(operation);
+        try {
+            T result = call.call();
+            guard.breaker().onSuccess();
+            return result;
+        } catch (Throwable e) {
+            if (!isInfrastructureFailure(e)) {
+                guard.breaker().onSuccess();
+                throw e;
+            }
+            guard.breaker().onFailure();
+            if (guard.breaker().getState() != CircuitBreaker.State.CLOSED) {
+                log.warn("Database {} circuit is {} after: {}", operation.key(), guard.breaker().getState(), e.getMessage());
+            }
+            throw new ServiceUnavailableException(operation.key(), "Database is not responding", guard.breaker().getRetryAfterSeconds(), e);
+        } finally {
+            active.remove();
+            guard.bulkhead().release();
+        }
+    }
+
+    /**
+     * Breaker state and bulkhead occupancy per operation class
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        guards.forEach((operation, guard) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("circuit", guard.breaker().getStats());
+            entry.put("bulkhead", guard.bulkhead().getStats());
+            stats.put(operation.key(), entry);
+        });
+        return stats;
+    }
+
+    /**
+     * Close every breaker, e.g. once the database is known to be back
+     */
+    public void reset() {
+        guards.values().forEach(guard -> guard.breaker().reset());
+    }
+
+    static boolean isInfrastructureFailure(Throwable e) {
+        if (e instanceof OptimisticLockingFailureException) {
+            return false;
+        }
+        return e instanceof TransientDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof TransactionTimedOutException;
+    }
+
+    private int setting(String prefix, String name, int defaultValue) {
+        String key = prefix + name;
+        // clinic.resilience.<class>.<name> falls back to clinic.resilience.<name>
+        Integer value = environment.getProperty(key, Integer.class);
+        return value != null ? value : environment.getProperty("clinic.resilience." + name, Integer.class, defaultValue);
+    }
+}
@@ -0,0 +1,25 @@
+package com.nepbay.dentalclinicapi.service;
+
+/**
+ * Duplicate Contact Exception
+ * Another patient already has the phone number or email (in any format) of a patient being saved.
+ * Answered with 409 Conflict.
+ */
+public class DuplicateContactException extends ConflictException {
+
+    private final String reason;
+
+    public DuplicateContactException(String reason) {
+        super(DuplicatePatientIndex.REASON_EMAIL.equals(reason)
+                ? "A patient with this email already exists"
+                : "A patient with this phone number already exists");
+        this.reason = reason;
+    }
+
+    /**
+     * Which contact detail is taken: PHONE or EMAIL
+     */
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,475 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.cache.BloomFilter;
+import com.nepbay.dentalclinicapi.config.WarmupTask;
+import com.nepbay.dentalclinicapi.event.PatientChangedEvent;
+import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.model.PatientMatching;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Duplicate Patient Index
+ * In-memory blocking index over normalized patient keys. Each patient is filed under a few
+ * block keys (canonical phone, email, phonetic name + phone suffix); only patients sharing a
+ * block are ever compared, which keeps both the create-time check and the full scan far
+ * below O(n^2).
+ *
+ * The phone and email blocks double as the uniqueness index for patient writes and the caller ID
+ * lookup, with a Bloom filter in front that answers most lookups of unknown numbers without
+ * touching the blocks. Writes reserve their phone/email keys for the duration of the save, so two
+ * concurrent creates with the same number (in any format) cannot both pass; the unique constraints
+ * on the canonical phone and the email remain the final word for writes made on other nodes.
+ */
+@Service
+public class DuplicatePatientIndex implements WarmupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicatePatientIndex.class);
+
+    public static final String REASON_PHONE = "PHONE";
+    public static final String REASON_EMAIL = "EMAIL";
+    public static final String REASON_NAME = "NAME";
+
+    // Blocks bigger than this are namesake clusters, not duplicates; skip them in the scan
+    private static final int MAX_BLOCK_SIZE = 1000;
+    private static final int SCAN_THRESHOLD = 64;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${clinic.duplicates.name-similarity:0.92}")
+    private double nameSimilarityThreshold;
+
+    @Value("${clinic.duplicates.max-candidates:20}")
+    private int maxCandidates;
+
+    @Value("${clinic.duplicates.contact-filter.expected-keys:100000}")
+    private long expectedContactKeys;
+
+    @Value("${clinic.duplicates.contact-filter.false-positive-rate:0.01}")
+    private double contactFalsePositiveRate;
+
+    private final Map<Long, IndexedPatient> patients = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> blocks = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> namesakes = new ConcurrentHashMap<>();
+    // Phone/email block keys taken by writes that are being saved
+    private final Set<String> reservedContacts = ConcurrentHashMap.newKeySet();
+
+    private volatile BloomFilter contactFilter;
+    private volatile boolean loaded;
+
+    public record IndexedPatient(Long id, String name, String phone, String email, String canonicalPhone, String canonicalEmail) {}
+
+    public record DuplicateCandidate(Long patientId, String name, String phone, String email, double score, List<String> reasons) {}
+
+    public record DuplicatePair(Long firstPatientId, Long secondPatientId, double score, List<String> reasons) {}
+
+    public record ContactMatch(Long patientId, String name, String phone, String email) {}
+
+    /**
+     * Phone/email keys held by a write until it has been saved (and indexed); close releases them
+     */
+    public final class ContactReservation implements AutoCloseable {
+
+        private final List<String> keys;
+
+        private ContactReservation(List<String> keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public void close() {
+            reservedContacts.removeAll(keys);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "duplicate-patient-index";
+    }
+
+    /**
+     * Load every patient into the index
+     */
+    @Override
+    public void warmUp() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patients", Long.class);
+        jdbcTemplate.query("SELECT id, name, phone, email FROM patients", rs -> {
+            put(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+        });
+        // Sized for the table now that it is known; built from the blocks, so it also holds patients indexed meanwhile
+        rebuildContactFilter(count == null ? 0 : count * 2);
+        loaded = true;
+        log.info("Duplicate patient index built: {} patients, {} blocks, contact filter of {} bits",
+                patients.size(), blocks.size(), contactFilter.getBitCount());
+    }
+
+    /**
+     * Whether every patient has been loaded; until then contact checks must also ask the database
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Drop the index and load it again, after the patients table was replaced underneath it (restore)
+     */
+    public void rebuild() {
+        synchronized (this) {
+            loaded = false;
+            patients.clear();
+            blocks.clear();
+            namesakes.clear();
+        }
+        warmUp();
+    }
+
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        Patient patient = event.getPatient();
+        if (event.getChangeType() == PatientChangedEvent.ChangeType.DELETED) {
+            remove(patient.getId());
+        } else {
+            put(patient.getId(), patient.getName(), patient.getPhone(), patient.getEmail());
+        }
+    }
+
+    /**
+     * Existing patient (other than excludeId) with the same canonical phone or email, or a write
+     * saving one right now. Returns the reason (PHONE or EMAIL) or null when the contact details are free.
+     */
+    public String findContactConflict(String phone, String email, Long excludeId) {
+        String canonicalPhone = PatientMatching.canonicalPhone(phone);
+        if (canonicalPhone != null && isTaken(phoneBlock(canonicalPhone), excludeId)) {
+            return REASON_PHONE;
+        }
+        String canonicalEmail = PatientMatching.canonicalEmail(email);
+        if (canonicalEmail != null && isTaken(emailBlock(canonicalEmail), excludeId)) {
+            return REASON_EMAIL;
+        }
+        return null;
+    }
+
+    /**
+     * Check that phone and email are free and hold them until the returned reservation is closed,
+     * which the caller does once the patient has been saved and so indexed
+     */
+    public synchronized ContactReservation reserveContacts(String phone, String email, Long excludeId) {
+        String conflict = findContactConflict(phone, email, excludeId);
+        if (conflict != null) {
+            throw new DuplicateContactException(conflict);
+        }
+        List<String> keys = new ArrayList<>(2);
+        String canonicalPhone = PatientMatching.canonicalPhone(phone);
+        if (canonicalPhone != null) {
+            keys.add(phoneBlock(canonicalPhone));
+        }
+        String canonicalEmail = PatientMatching.canonicalEmail(email);
+        if (canonicalEmail != null) {
+            keys.add(emailBlock(canonicalEmail));
+        }
+        reservedContacts.addAll(keys);
+        return new ContactReservation(keys);
+    }
+
+    /**
+     * Caller ID: the patient with this phone number in any format (the most recently registered
+     * one if older records share it), or null
+     */
+    public ContactMatch findByPhone(String phone) {
+        String canonicalPhone = PatientMatching.canonicalPhone(phone);
+        if (canonicalPhone == null) {
+            return null;
+        }
+        String key = phoneBlock(canonicalPhone);
+        if (!contactFilter().mightContain(key)) {
+            return null;
+        }
+        IndexedPatient match = null;
+        for (Long id : blocks.getOrDefault(key, Set.of())) {
+            IndexedPatient patient = patients.get(id);
+            if (patient != null && (match == null || patient.id() > match.id())) {
+                match = patient;
+            }
+        }
+        return match == null ? null : new ContactMatch(match.id(), match.name(), match.phone(), match.email());
+    }
+
+    /**
+     * Likely duplicates of the given details, best match first
+     */
+    public List<DuplicateCandidate> findCandidates(String name, String phone, String email) {
+        IndexedPatient probe = index(null, name, phone, email);
+        Set<Long> ids = new HashSet<>();
+        for (String key : blockKeys(probe)) {
+            ids.addAll(blocks.getOrDefault(key, Set.of()));
+        }
+        ids.addAll(namesakes.getOrDefault(PatientMatching.phoneticKey(name), Set.of()));
+
+        List<DuplicateCandidate> candidates = new ArrayList<>();
+        for (Long id : ids) {
+            IndexedPatient other = patients.get(id);
+            if (other == null) {
+                continue;
+            }
+            Match match = compare(probe, other);
+            if (!match.reasons.isEmpty()) {
+                candidates.add(new DuplicateCandidate(other.id(), other.name(), other.phone(), other.email(), match.score, match.reasons));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(DuplicateCandidate::score).reversed());
+        return candidates.size() > maxCandidates ? candidates.subList(0, maxCandidates) : candidates;
+    }
+
+    /**
+     * Full duplicate scan: compares patients within each block, blocks processed in parallel (fork-join)
+     */
+    public List<DuplicatePair> scan() {
+        List<Set<Long>> candidateBlocks = new ArrayList<>();
+        for (Set<Long> block : blocks.values()) {
+            if (block.size() > 1 && block.size() <= MAX_BLOCK_SIZE) {
+                candidateBlocks.add(Set.copyOf(block));
+            }
+        }
+        Map<String, DuplicatePair> pairs = ForkJoinPool.commonPool().invoke(new ScanTask(candidateBlocks, 0, candidateBlocks.size()));
+        List<DuplicatePair> result = new ArrayList<>(pairs.values());
+        result.sort(Comparator.comparingDouble(DuplicatePair::score).reversed());
+        return result;
+    }
+
+    public int size() {
+        return patients.size();
+    }
+
+    public boolean contains(Long id) {
+        return patients.containsKey(id);
+    }
+
+    /**
+     * Id of the only patient with exactly this name (ignoring case and surrounding spaces);
+     * null when there is none or there are namesakes
+     */
+    public Long findPatientIdByName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        Long match = null;
+        for (Long id : namesakes.getOrDefault(PatientMatching.phoneticKey(name), Set.of())) {
+            IndexedPatient patient = patients.get(id);
+            if (patient != null && patient.name() != null && patient.name().trim().equalsIgnoreCase(name.trim())) {
+                if (match != null) {
+                    return null;
+                }
+                match = id;
+            }
+        }
+        return match;
+    }
+
+    private synchronized void put(Long id, String name, String phone, String email) {
+        remove(id);
+        IndexedPatient patient = index(id, name, phone, email);
+        patients.put(id, patient);
+        for (String key : blockKeys(patient)) {
+            // Filter first: a key readers can find in the blocks must never be filtered out
+            if (isContactKey(key)) {
+                contactFilter().add(key);
+            }
+            blocks.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        if (contactFilter().isSaturated()) {
+            // Past its capacity the filter lets more and more unknown numbers through; rebuild it twice as large
+            rebuildContactFilter(contactFilter.getCapacity() * 2);
+        }
+        namesakes.computeIfAbsent(PatientMatching.phoneticKey(name), k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private synchronized void remove(Long id) {
+        IndexedPatient previous = patients.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String key : blockKeys(previous)) {
+            removeFrom(blocks, key, id);
+        }
+        removeFrom(namesakes, PatientMatching.phoneticKey(previous.name()), id);
+    }
+
+    private static void removeFrom(Map<String, Set<Long>> map, String key, Long id) {
+        Set<Long> ids = map.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static IndexedPatient index(Long id, String name, String phone, String email) {
+        return new IndexedPatient(id, name, phone, email,
+                PatientMatching.canonicalPhone(phone), PatientMatching.canonicalEmail(email));
+    }
+
+    private static List<String> blockKeys(IndexedPatient patient) {
+        List<String> keys = new ArrayList<>(3);
+        if (patient.canonicalPhone() != null) {
+            keys.add(phoneBlock(patient.canonicalPhone()));
+            String phone = patient.canonicalPhone();
+            keys.add("n:" + PatientMatching.phoneticKey(patient.name()) + "|" + phone.substring(Math.max(0, phone.length() - 4)));
+        }
+        if (patient.canonicalEmail() != null) {
+            keys.add(emailBlock(patient.canonicalEmail()));
+        }
+        return keys;
+    }
+
+    private BloomFilter contactFilter() {
+        BloomFilter filter = contactFilter;
+        if (filter == null) {
+            synchronized (this) {
+                if (contactFilter == null) {
+                    rebuildContactFilter(0);
+                }
+                filter = contactFilter;
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Fill a new filter with every phone/email key in the blocks and only then publish it. Holds the
+     * lock put and remove take, so no key indexed in between can be left out; readers keep using
+     * the old filter, whose extra keys only cost a block lookup, until the assignment.
+     */
+    private synchronized void rebuildContactFilter(long expectedKeys) {
+        BloomFilter filter = new BloomFilter(Math.max(expectedContactKeys, expectedKeys), contactFalsePositiveRate);
+        for (String key : blocks.keySet()) {
+            if (isContactKey(key)) {
+                filter.add(key);
+            }
+        }
+        contactFilter = filter;
+    }
+
+    /**
+     * Whether a phone/email block key is held by a patient other than excludeId or by a write in progress
+     */
+    private boolean isTaken(String key, Long excludeId) {
+        if (reservedContacts.contains(key)) {
+            return true;
+        }
+        // The filter only answers "no" for certain; a "maybe" is confirmed against the block
+        return contactFilter().mightContain(key) && hasOther(blocks.get(key), excludeId);
+    }
+
+    private static boolean isContactKey(String key) {
+        return key.startsWith("p:") || key.startsWith("e:");
+    }
+
+    private static String phoneBlock(String canonicalPhone) {
+        return "p:" + canonicalPhone;
+    }
+
+    private static String emailBlock(String canonicalEmail) {
+        return "e:" + canonicalEmail;
+    }
+
+    private static boolean hasOther(Set<Long> ids, Long excludeId) {
+        if (ids == null) {
+            return false;
+        }
+        for (Long id : ids) {
+            if (!id.equals(excludeId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Match compare(IndexedPatient a, IndexedPatient b) {
+        Match match = new Match();
+        if (a.canonicalPhone() != null && a.canonicalPhone().equals(b.canonicalPhone())) {
+            match.reasons.add(REASON_PHONE);
+        }
+        if (a.canonicalEmail() != null && a.canonicalEmail().equals(b.canonicalEmail())) {
+            match.reasons.add(REASON_EMAIL);
+        }
+        double similarity = PatientMatching.nameSimilarity(a.name(), b.name());
+        if (similarity >= nameSimilarityThreshold) {
+            match.reasons.add(REASON_NAME);
+        }
+        // Contact matches are near-certain; a name match alone is only a hint
+        match.score = Math.min(1.0, (match.reasons.contains(REASON_PHONE) ? 0.6 : 0.0)
+                + (match.reasons.contains(REASON_EMAIL) ? 0.5 : 0.0)
+                + similarity * 0.4);
+        return match;
+    }
+
+    private static class Match {
+        private final List<String> reasons = new ArrayList<>(3);
+        private double score;
+    }
+
+    private class ScanTask extends RecursiveTask<Map<String, DuplicatePair>> {
+        private final List<Set<Long>> blockList;
+        private final int from;
+        private final int to;
+
+        ScanTask(List<Set<Long>> blockList, int from, int to) {
+            this.blockList = blockList;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<String, DuplicatePair> compute() {
+            if (to - from <= SCAN_THRESHOLD) {
+                return scanBlocks();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(blockList, from, middle);
+            left.fork();
+            Map<String, DuplicatePair> right = new ScanTask(blockList, middle, to).compute();
+            Map<String, DuplicatePair> merged = left.join();
+            merged.putAll(right);
+            return merged;
+        }
+
+        private Map<String, DuplicatePair> scanBlocks() {
+            Map<String, DuplicatePair> found = new HashMap<>();
+            for (int b = from; b < to; b++) {
+                Long[] ids = blockList.get(b).toArray(new Long[0]);
+                for (int i = 0; i < ids.length; i++) {
+                    for (int j = i + 1; j < ids.length; j++) {
+                        IndexedPatient first = patients.get(Math.min(ids[i], ids[j]));
+                        IndexedPatient second = patients.get(Math.max(ids[i], ids[j]));
+                        if (first == null || second == null) {
+                            continue;
+                        }
+                        Match match = compare(first, second);
+                        if (!match.reasons.isEmpty()) {
+                            found.put(first.id() + ":" + second.id(),
+                                    new DuplicatePair(first.id(), second.id(), match.score, match.reasons));
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.nepbay.dentalclinicapi.service;
+
+/**
+ * Idempotency Key Reused Exception
+ * A retry carries an Idempotency-Key that was first sent with a different request body.
+ * Answered with 422 Unprocessable Entity.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
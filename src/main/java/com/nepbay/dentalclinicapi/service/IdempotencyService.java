@@ -0,0 +1,163 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nepbay.dentalclinicapi.resilience.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency Service
+ * Deduplicates retried create requests carrying an Idempotency-Key header.
+ * The first request runs normally and its response is remembered; retries with the same key
+ * replay that response without touching the database. Entries expire after a TTL and the
+ * store is bounded: the least recently used completed keys are evicted first. A key whose first
+ * request is still running is never evicted, since a retry would then run the write a second time;
+ * when the store holds nothing but such keys, new keyed requests are refused with 503 instead.
+ * A request that ends in an exception (a 4xx or 5xx from ApiExceptionHandler) is not remembered,
+ * so a retry with the same key runs again.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${clinic.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${clinic.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    // Access order, so iteration starts at the least recently used key
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * Run the action once per (scope, key); later calls with the same key replay the stored response
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        String storeKey = scope + ":" + key;
+        byte[] fingerprint = fingerprint(request);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(storeKey);
+            if (entry != null && entry.isExpired()) {
+                entries.remove(storeKey);
+                entry = null;
+            }
+            if (entry == null) {
+                makeRoom();
+                entries.put(storeKey, new Entry(fingerprint, System.currentTimeMillis() + ttlMinutes * 60_000));
+            }
+        }
+
+        if (entry != null) {
+            return replay(entry, fingerprint);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            forget(storeKey);
+            throw e;
+        }
+
+        if (response.getStatusCode().is5xxServerError()) {
+            // Server-side failures are not final: let the client retry with the same key
+            forget(storeKey);
+        } else {
+            synchronized (entries) {
+                Entry pending = entries.get(storeKey);
+                if (pending != null) {
+                    pending.complete(response);
+                }
+            }
+        }
+        return response;
+    }
+
+    private ResponseEntity<?> replay(Entry entry, byte[] fingerprint) {
+        if (!Arrays.equals(entry.fingerprint, fingerprint)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used with a different request body");
+        }
+        ResponseEntity<?> stored = entry.response;
+        if (stored == null) {
+            throw new ConflictException("A request with this Idempotency-Key is still being processed");
+        }
+        return ResponseEntity.status(stored.getStatusCode())
+                .headers(stored.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.getBody());
+    }
+
+    /**
+     * Evict least recently used keys until a new one fits, skipping keys whose request is still running
+     */
+    private void makeRoom() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() >= maxEntries && iterator.hasNext()) {
+            Entry candidate = iterator.next();
+            if (candidate.response != null || candidate.isExpired()) {
+                iterator.remove();
+            }
+        }
+        if (entries.size() >= maxEntries) {
+            throw new ServiceUnavailableException("write",
+                    "Too many requests with an Idempotency-Key are in progress", 1, null);
+        }
+    }
+
+    private void forget(String storeKey) {
+        synchronized (entries) {
+            entries.remove(storeKey);
+        }
+    }
+
+    private byte[] fingerprint(Object request) {
+        try {
+            byte[] json = request == null ? new byte[0] : objectMapper.writeValueAsBytes(request);
+            return MessageDigest.getInstance("SHA-256").digest(json);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(request).getBytes(StandardCharsets.UTF_8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class Entry {
+        private final byte[] fingerprint;
+        private final long expiresAt;
+        private volatile ResponseEntity<?> response;
+
+        Entry(byte[] fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        void complete(ResponseEntity<?> response) {
+            this.response = response;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.nepbay.dentalclinicapi.service;
+
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last Known Good Cache
+ * The most recent successful result of the views reception cannot work without (dashboard
+ * statistics, today's and upcoming appointments), kept to be served, flagged as stale, while the
+ * database is unavailable. Unlike the near caches these copies are never invalidated: every
+ * successful load simply replaces them.
+ */
+@Service
+public class LastKnownGoodCache {
+
+    public record Snapshot<T>(T value, LocalDateTime asOf) {}
+
+    private final Map<String, Snapshot<?>> snapshots = new ConcurrentHashMap<>();
+
+    public <T> T remember(String key, T value) {
+        if (value != null) {
+            snapshots.put(key, new Snapshot<>(value, LocalDateTime.now()));
+        }
+        return value;
+    }
+
+    /**
+     * Last successful value stored under the key, or null if there never was one
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Snapshot<T> recall(String key) {
+        return (Snapshot<T>) snapshots.get(key);
+    }
+}
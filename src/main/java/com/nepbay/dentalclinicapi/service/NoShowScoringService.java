@@ -0,0 +1,318 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.analytics.NoShowModel;
+import com.nepbay.dentalclinicapi.config.WarmupTask;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * No-Show Scoring Service
+ * Keeps a no-show risk score for every open (scheduled or confirmed, not past) appointment.
+ * A full recompute reads the appointments table in parallel id-range chunks, builds the
+ * NoShowModel from all recorded outcomes and scores the open appointments. Between recomputes,
+ * write paths only mark the patient dirty; a scheduled job re-reads just those patients'
+ * appointments, replaces their history in the model and rescores them. Reads take scores from
+ * memory and never touch the model's inputs, so scoring stays off the request path.
+ */
+@Service
+public class NoShowScoringService implements WarmupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(NoShowScoringService.class);
+
+    private static final String SELECT_COLUMNS =
+            "SELECT id, patient_id, patient_name, appointment_date, appointment_time, created_at, status FROM appointments";
+    private static final int IN_LIST_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${clinic.scoring.threads:0}")
+    private int threads;
+
+    @Value("${clinic.scoring.chunk-rows:50000}")
+    private int chunkRows;
+
+    @Value("${clinic.scoring.fetch-size:10000}")
+    private int fetchSize;
+
+    private volatile NoShowModel model = new NoShowModel(new NoShowModel.Tally());
+
+    private volatile Map<Long, Double> scores = new ConcurrentHashMap<>();
+
+    private final Set<Object> dirtyPatients = ConcurrentHashMap.newKeySet();
+
+    // Applied on the next incremental run too, in case a recompute was reading the row when it was deleted
+    private final Set<Long> deletedAppointments = ConcurrentHashMap.newKeySet();
+
+    /**
+     * An appointment as read for scoring
+     */
+    private record Row(long id, Object patientKey, LocalDate date, LocalTime time, LocalDate bookedOn, AppointmentStatus status) {}
+
+    /**
+     * Outcomes and open appointments of one id-range chunk
+     */
+    private record Chunk(NoShowModel.Tally tally, List<Row> open) {}
+
+    @Override
+    public String getName() {
+        return "no-show-scores";
+    }
+
+    @Override
+    public void warmUp() {
+        recompute();
+    }
+
+    /**
+     * Rebuild the model from all history and rescore every open appointment
+     */
+    @Scheduled(fixedDelayString = "${clinic.scoring.refresh-ms:3600000}", initialDelayString = "${clinic.scoring.refresh-ms:3600000}")
+    public synchronized Map<String, Object> recompute() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM appointments");
+        List<long[]> ranges = new ArrayList<>();
+        if (bounds.get("lo") != null) {
+            long lo = ((Number) bounds.get("lo")).longValue();
+            long hi = ((Number) bounds.get("hi")).longValue();
+            for (long from = lo; from <= hi; from += chunkRows) {
+                ranges.add(new long[] {from, Math.min(hi, from + chunkRows - 1)});
+            }
+        }
+
+        // Dirty marks from before the scan are covered by it
+        dirtyPatients.clear();
+        List<Chunk> chunks = readChunks(ranges, today);
+
+        NoShowModel.Tally tally = new NoShowModel.Tally();
+        List<Row> open = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            tally.merge(chunk.tally());
+            open.addAll(chunk.open());
+        }
+        NoShowModel rebuilt = new NoShowModel(tally);
+        Map<Long, Double> rescored = new ConcurrentHashMap<>(Math.max(16, open.size() * 2));
+        for (Row row : open) {
+            rescored.put(row.id(), rebuilt.score(row.patientKey(), row.date(), row.time(), row.bookedOn()));
+        }
+        model = rebuilt;
+        scores = rescored;
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("No-show scores recomputed: {} appointments in {} chunks, {} outcomes, {} open scored, {} ms",
+                tally.getRows(), ranges.size(), rebuilt.getOutcomes(), open.size(), millis);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("appointments", tally.getRows());
+        summary.put("chunks", ranges.size());
+        summary.put("outcomes", rebuilt.getOutcomes());
+        summary.put("patients", rebuilt.getPatients());
+        summary.put("baseNoShowRate", rebuilt.getBaseRate());
+        summary.put("scored", open.size());
+        summary.put("durationMs", millis);
+        return summary;
+    }
+
+    /**
+     * Mark the patient of a written appointment for rescoring; deleted appointments lose their score at once
+     */
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Appointment appointment = event.getAppointment();
+        if (event.getChangeType() == AppointmentChangedEvent.ChangeType.DELETED && appointment.getId() != null) {
+            scores.remove(appointment.getId());
+            deletedAppointments.add(appointment.getId());
+        }
+        dirtyPatients.add(NoShowModel.patientKey(appointment.getPatientId(), appointment.getPatientName()));
+    }
+
+    /**
+     * Re-read the appointments of the patients marked dirty since the last run and rescore them
+     */
+    @Scheduled(fixedDelayString = "${clinic.scoring.incremental-ms:5000}", initialDelayString = "${clinic.scoring.incremental-ms:5000}")
+    public synchronized void refreshDirtyPatients() {
+        for (Long id : deletedAppointments) {
+            deletedAppointments.remove(id);
+            scores.remove(id);
+        }
+        if (dirtyPatients.isEmpty()) {
+            return;
+        }
+        List<Long> patientIds = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (Object key : dirtyPatients) {
+            // Remove before reading: an outcome recorded meanwhile re-marks the patient for the next run
+            dirtyPatients.remove(key);
+            if (key instanceof Long patientId) {
+                patientIds.add(patientId);
+            } else {
+                names.add((String) key);
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<Object, List<Row>> rowsByPatient = new HashMap<>();
+        RowCallbackHandler collect = rs -> {
+            Row row = readRow(rs);
+            rowsByPatient.computeIfAbsent(row.patientKey(), key -> new ArrayList<>()).add(row);
+        };
+        for (List<Long> batch : batches(patientIds)) {
+            jdbcTemplate.query(SELECT_COLUMNS + " WHERE patient_id IN (" + placeholders(batch.size()) + ")",
+                    collect, batch.toArray());
+        }
+        for (List<String> batch : batches(names)) {
+            jdbcTemplate.query(SELECT_COLUMNS + " WHERE patient_id IS NULL AND LOWER(patient_name) IN (" + placeholders(batch.size()) + ")",
+                    collect, batch.toArray());
+        }
+
+        NoShowModel current = model;
+        Map<Long, Double> currentScores = scores;
+        int rescored = 0;
+        for (Object key : concat(patientIds, names)) {
+            List<Row> rows = rowsByPatient.getOrDefault(key, List.of());
+            NoShowModel.PatientHistory history = new NoShowModel.PatientHistory();
+            rows.forEach(row -> history.add(row.status()));
+            current.replacePatient(key, history);
+            for (Row row : rows) {
+                if (NoShowModel.isOpen(row.status(), row.date(), today)) {
+                    currentScores.put(row.id(), current.score(key, row.date(), row.time(), row.bookedOn()));
+                    rescored++;
+                } else {
+                    currentScores.remove(row.id());
+                }
+            }
+        }
+        log.debug("Rescored {} open appointments of {} patients", rescored, patientIds.size() + names.size());
+    }
+
+    /**
+     * Score of a stored appointment, or null when it is not open (or not scored yet)
+     */
+    public Double getScore(Long appointmentId) {
+        return appointmentId == null ? null : scores.get(appointmentId);
+    }
+
+    /**
+     * Fill in noShowRisk: stored appointments from the precomputed scores, series occurrences
+     * (which have no row to precompute for) from the model as if booked today
+     */
+    public List<Appointment> applyScores(List<Appointment> appointments) {
+        NoShowModel current = model;
+        Map<Long, Double> currentScores = scores;
+        LocalDate today = LocalDate.now();
+        for (Appointment appointment : appointments) {
+            if (appointment.getId() != null) {
+                appointment.setNoShowRisk(currentScores.get(appointment.getId()));
+            } else if (appointment.getSeriesId() != null && NoShowModel.isOpen(appointment.getStatus(), appointment.getAppointmentDate(), today)) {
+                appointment.setNoShowRisk(current.score(
+                        NoShowModel.patientKey(appointment.getPatientId(), appointment.getPatientName()),
+                        appointment.getAppointmentDate(), appointment.getAppointmentTime(), today));
+            }
+        }
+        return appointments;
+    }
+
+    private List<Chunk> readChunks(List<long[]> ranges, LocalDate today) {
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+        int workers = Math.min(ranges.size(), threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Chunk>> futures = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                futures.add(executor.submit(() -> readChunk(range[0], range[1], today)));
+            }
+            List<Chunk> chunks = new ArrayList<>(futures.size());
+            for (Future<Chunk> future : futures) {
+                chunks.add(future.get());
+            }
+            return chunks;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("No-show scoring was interrupted");
+        } catch (Exception e) {
+            throw new RuntimeException("No-show scoring failed: " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Chunk readChunk(long from, long to, LocalDate today) {
+        NoShowModel.Tally tally = new NoShowModel.Tally();
+        List<Row> open = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_COLUMNS + " WHERE id BETWEEN ? AND ?");
+            statement.setLong(1, from);
+            statement.setLong(2, to);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (ResultSet rs) -> {
+            Row row = readRow(rs);
+            tally.add(row.patientKey(), row.date(), row.time(), row.bookedOn(), row.status());
+            if (NoShowModel.isOpen(row.status(), row.date(), today)) {
+                open.add(row);
+            }
+        });
+        return new Chunk(tally, open);
+    }
+
+    private static Row readRow(ResultSet rs) throws SQLException {
+        long patientId = rs.getLong(2);
+        Object key = NoShowModel.patientKey(rs.wasNull() ? null : patientId, rs.getString(3));
+        Time time = rs.getTime(5);
+        Timestamp createdAt = rs.getTimestamp(6);
+        return new Row(rs.getLong(1), key, rs.getDate(4).toLocalDate(),
+                time == null ? null : time.toLocalTime(),
+                createdAt == null ? null : createdAt.toLocalDateTime().toLocalDate(),
+                AppointmentStatus.valueOf(rs.getString(7)));
+    }
+
+    private static <T> List<List<T>> batches(List<T> values) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += IN_LIST_SIZE) {
+            batches.add(values.subList(i, Math.min(values.size(), i + IN_LIST_SIZE)));
+        }
+        return batches;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static List<Object> concat(List<Long> patientIds, List<String> names) {
+        List<Object> keys = new ArrayList<>(patientIds.size() + names.size());
+        keys.addAll(patientIds);
+        keys.addAll(names);
+        return keys;
+    }
+}
@@ -0,0 +1,12 @@
+package com.nepbay.dentalclinicapi.service;
+
+/**
+ * Not Found Exception
+ * The record a request refers to by id does not exist. Answered with 404 Not Found.
+ */
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,10 +1,18 @@
 package com.nepbay.dentalclinicapi.service;
 
+import com.nepbay.dentalclinicapi.audit.ChangeRecord;
+import com.nepbay.dentalclinicapi.cache.NearCache;
+import com.nepbay.dentalclinicapi.event.PatientChangedEvent;
+import com.nepbay.dentalclinicapi.event.PatientChangedEvent.ChangeType;
 import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.model.PatientMatching;
 import com.nepbay.dentalclinicapi.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -18,6 +26,18 @@ public class PatientService {
     @Autowired
     private PatientRepository patientRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private DuplicatePatientIndex duplicatePatientIndex;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    @Autowired
+    private NearCache<Patient> patientCache;
+    
     /**
      * Get all patients
      */
@@ -26,70 +46,98 @@ public class PatientService {
     }
     
     /**
-     * Get patient by ID
+     * Get patient by ID (served from the near cache; the returned instance is shared, do not modify it)
      */
     public Patient getPatientById(Long id) {
-        Optional<Patient> patient = patientRepository.findById(id);
-        return patient.orElse(null);
+        return patientCache.get(id, () -> findPatient(id));
     }
     
     /**
-     * Create a new patient
+     * Create a new patient (DuplicateContactException if the phone or email is taken)
      */
     public Patient createPatient(Patient patient) {
-        // Validate phone number uniqueness
-        if (patientRepository.existsByPhone(patient.getPhone())) {
-            throw new RuntimeException("A patient with this phone number already exists");
+        // Phone/email uniqueness, also written differently ("0555-456-7890" vs "05554567890"), from the index
+        try (DuplicatePatientIndex.ContactReservation reservation = reserveContacts(patient, null)) {
+            Patient savedPatient = saveWithUniqueContacts(patient, null);
+            eventPublisher.publishEvent(new PatientChangedEvent(savedPatient, ChangeType.CREATED));
+            auditService.record(AuditService.ENTITY_PATIENT, savedPatient.getId(), AuditService.ACTION_CREATED,
+                    null, AuditService.fieldsOf(savedPatient));
+            return savedPatient;
         }
-        
-        // Validate email uniqueness (if provided)
-        if (patient.getEmail() != null && !patient.getEmail().isEmpty() 
-            && patientRepository.existsByEmail(patient.getEmail())) {
-            throw new RuntimeException("A patient with this email already exists");
-        }
-        
-        return patientRepository.save(patient);
     }
     
     /**
-     * Update existing patient
+     * Update existing patient (DuplicateContactException if the new phone or email is taken)
      */
     public Patient updatePatient(Long id, Patient updatedPatient) {
-        Patient existingPatient = getPatientById(id);
+        Patient existingPatient = findPatient(id);
         if (existingPatient == null) {
-            throw new RuntimeException("Patient not found with ID: " + id);
+            throw new NotFoundException("Patient not found with ID: " + id);
         }
         
-        // Check phone uniqueness (if changed)
-        if (!existingPatient.getPhone().equals(updatedPatient.getPhone()) 
-            && patientRepository.existsByPhone(updatedPatient.getPhone())) {
-            throw new RuntimeException("A patient with this phone number already exists");
+        try (DuplicatePatientIndex.ContactReservation reservation = reserveContacts(updatedPatient, id)) {
+            Map<String, Object> before = AuditService.fieldsOf(existingPatient);
+            
+            // Update fields
+            existingPatient.setName(updatedPatient.getName());
+            existingPatient.setPhone(updatedPatient.getPhone());
+            existingPatient.setEmail(updatedPatient.getEmail());
+            existingPatient.setAddress(updatedPatient.getAddress());
+            
+            Patient savedPatient = saveWithUniqueContacts(existingPatient, id);
+            eventPublisher.publishEvent(new PatientChangedEvent(savedPatient, ChangeType.UPDATED));
+            auditService.record(AuditService.ENTITY_PATIENT, id, AuditService.ACTION_UPDATED,
+                    before, AuditService.fieldsOf(savedPatient));
+            return savedPatient;
         }
-        
-        // Check email uniqueness (if changed)
-        if (updatedPatient.getEmail() != null && !updatedPatient.getEmail().isEmpty() 
-            && !updatedPatient.getEmail().equals(existingPatient.getEmail())
-            && patientRepository.existsByEmail(updatedPatient.getEmail())) {
-            throw new RuntimeException("A patient with this email already exists");
-        }
-        
-        // Update fields
-        existingPatient.setName(updatedPatient.getName());
-        existingPatient.setPhone(updatedPatient.getPhone());
-        existingPatient.setEmail(updatedPatient.getEmail());
-        existingPatient.setAddress(updatedPatient.getAddress());
-        
-        return patientRepository.save(existingPatient);
     }
     
     /**
      * Delete patient
      */
     public void deletePatient(Long id) {
-        if (!patientRepository.existsById(id)) {
-            throw new RuntimeException("Patient not found with ID: " + id);
+        Patient patient = findPatient(id);
+        if (patient == null) {
+            throw new NotFoundException("Patient not found with ID: " + id);
+        }
+        patientRepository.delete(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(patient, ChangeType.DELETED));
+        auditService.record(AuditService.ENTITY_PATIENT, id, AuditService.ACTION_DELETED,
+                AuditService.fieldsOf(patient), null);
+    }
+    
+    /**
+     * Field-level change history of a patient, oldest first
+     */
+    public List<ChangeRecord> getPatientHistory(Long id) {
+        return auditService.getHistory(AuditService.ENTITY_PATIENT, id);
+    }
+    
+    /**
+     * Find likely duplicates of the given patient details (normalized phone/email, similar names)
+     */
+    public List<DuplicatePatientIndex.DuplicateCandidate> findDuplicateCandidates(String name, String phone, String email) {
+        return duplicatePatientIndex.findCandidates(name, phone, email);
+    }
+    
+    /**
+     * Scan all patients for likely duplicate pairs
+     */
+    public List<DuplicatePatientIndex.DuplicatePair> scanForDuplicates() {
+        return duplicatePatientIndex.scan();
+    }
+    
+    /**
+     * Caller ID lookup by phone number in any format, from the index (null if unknown)
+     */
+    public DuplicatePatientIndex.ContactMatch findPatientByPhone(String phone) {
+        if (duplicatePatientIndex.isLoaded()) {
+            return duplicatePatientIndex.findByPhone(phone);
         }
-        patientRepository.deleteById(id);
+        // Until the index is loaded the unique canonical phone column answers instead
+        return findByCanonicalPhone(phone)
+                .map(patient -> new DuplicatePatientIndex.ContactMatch(patient.getId(), patient.getName(), patient.getPhone(), patient.getEmail()))
+                .orElse(null);
     }
     
     /**
@@ -117,4 +165,51 @@ public class PatientService {
     public List<Patient> getRecentPatients() {
         return patientRepository.findRecentPatients();
     }
-}
\ No newline at end of file
+    
+    private DuplicatePatientIndex.ContactReservation reserveContacts(Patient patient, Long excludeId) {
+        if (!duplicatePatientIndex.isLoaded()) {
+            // Until the index is loaded the exact-match queries stand in for it
+            if (isTakenByOther(findByCanonicalPhone(patient.getPhone()), excludeId)) {
+                throw new DuplicateContactException(DuplicatePatientIndex.REASON_PHONE);
+            }
+            if (patient.getEmail() != null && !patient.getEmail().isEmpty()
+                && isTakenByOther(patientRepository.findByEmail(patient.getEmail()), excludeId)) {
+                throw new DuplicateContactException(DuplicatePatientIndex.REASON_EMAIL);
+            }
+        }
+        return duplicatePatientIndex.reserveContacts(patient.getPhone(), patient.getEmail(), excludeId);
+    }
+    
+    /**
+     * Save, turning a unique constraint violation (the phone or email was taken on another node
+     * since the index check) into DuplicateContactException
+     */
+    private Patient saveWithUniqueContacts(Patient patient, Long excludeId) {
+        try {
+            return patientRepository.save(patient);
+        } catch (DataIntegrityViolationException e) {
+            if (isTakenByOther(findByCanonicalPhone(patient.getPhone()), excludeId)) {
+                throw new DuplicateContactException(DuplicatePatientIndex.REASON_PHONE);
+            }
+            if (patient.getEmail() != null && isTakenByOther(patientRepository.findByEmail(patient.getEmail()), excludeId)) {
+                throw new DuplicateContactException(DuplicatePatientIndex.REASON_EMAIL);
+            }
+            throw e;
+        }
+    }
+    
+    private Optional<Patient> findByCanonicalPhone(String phone) {
+        String canonicalPhone = PatientMatching.canonicalPhone(phone);
+        return canonicalPhone == null ? Optional.empty() : patientRepository.findByCanonicalPhone(canonicalPhone);
+    }
+    
+    private static boolean isTakenByOther(Optional<Patient> holder, Long excludeId) {
+        return holder.isPresent() && !holder.get().getId().equals(excludeId);
+    }
+    
+    // Write paths load a fresh instance rather than mutate the cached one
+    private Patient findPatient(Long id) {
+        Optional<Patient> patient = patientRepository.findById(id);
+        return patient.orElse(null);
+    }
+}
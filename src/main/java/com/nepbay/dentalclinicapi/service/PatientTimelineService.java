@@ -0,0 +1,430 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.audit.ChangeRecord;
+import com.nepbay.dentalclinicapi.audit.ChangeRecord.FieldChange;
+import com.nepbay.dentalclinicapi.config.WarmupTask;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent;
+import com.nepbay.dentalclinicapi.event.PatientChangedEvent;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Patient Timeline Service
+ * A patient's appointments, status changes and note edits merged into one stream, latest first,
+ * paged with opaque cursors. Appointments come from the database by keyset (patient_id index);
+ * status changes and notes come from the audit trail of those appointments, of which a page reads
+ * only the records from the cursor on that it can show.
+ *
+ * Appointments booked by name only are linked to their patient when the name is unambiguous, at
+ * startup and periodically afterwards (for appointments booked before the patient was registered).
+ *
+ * Serving a page starts a background prefetch of the next one into a small LRU of recently opened
+ * charts, so paging through a chart is normally answered from memory. Pages are dropped when one of
+ * the patient's appointments changes (on every node, via the invalidation bus) and expire after a TTL.
+ */
+@Service
+public class PatientTimelineService implements WarmupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientTimelineService.class);
+
+    public static final String TYPE_APPOINTMENT = "APPOINTMENT";
+    public static final String TYPE_STATUS_CHANGE = "STATUS_CHANGE";
+    public static final String TYPE_NOTE = "NOTE";
+
+    // Order of entries sharing a timestamp (higher first)
+    private static final int RANK_APPOINTMENT = 2;
+    private static final int RANK_STATUS_CHANGE = 1;
+    private static final int RANK_NOTE = 0;
+
+    private static final int PAGES_PER_PATIENT = 4;
+
+    private static final int LINK_BATCH_SIZE = 500;
+    private static final long AMBIGUOUS = -1L;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${clinic.timeline.cache-patients:256}")
+    private int cachePatients;
+
+    @Value("${clinic.timeline.cache-ttl-ms:30000}")
+    private long ttlMillis;
+
+    @Value("${clinic.timeline.prefetch-threads:2}")
+    private int prefetchThreads;
+
+    public record TimelineEntry(
+            String type,
+            LocalDateTime at,
+            Long appointmentId,
+            String treatment,
+            String status,
+            String notes,
+            String previousStatus,
+            String changedBy) {}
+
+    public record TimelinePage(Long patientId, List<TimelineEntry> entries, String nextCursor) {}
+
+    private record Key(LocalDateTime at, int rank, long appointmentId, int seq) {}
+
+    private record Item(Key key, TimelineEntry entry) {}
+
+    private record CachedPage(TimelinePage page, long expiresAt) {}
+
+    private static final Comparator<Key> ORDER = Comparator.comparing(Key::at)
+            .thenComparingInt(Key::rank)
+            .thenComparingLong(Key::appointmentId)
+            .thenComparingInt(Key::seq)
+            .reversed();
+
+    // Least recently opened charts are evicted first; each holds the last few pages read or prefetched
+    private final Map<Long, Map<String, CachedPage>> pages = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Map<String, CachedPage>> eldest) {
+            return size() > cachePatients;
+        }
+    };
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong prefetches = new AtomicLong();
+
+    private ThreadPoolExecutor prefetcher;
+
+    @PostConstruct
+    public void start() {
+        // Bounded and lossy: a prefetch that cannot be queued is simply skipped
+        prefetcher = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(64), runnable -> {
+                    Thread thread = new Thread(runnable, "timeline-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+        cacheInvalidationBus.subscribe(CacheInvalidationBus.TIMELINE, key -> {
+            if (key == null) {
+                evictAll();
+            } else {
+                evict(Long.valueOf(key));
+            }
+        });
+        // Bulk appointment updates (patient and catalog linking) and lost bus messages
+        cacheInvalidationBus.subscribe(CacheInvalidationBus.APPOINTMENTS, key -> {
+            if (key == null) {
+                evictAll();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        prefetcher.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return "patient-linking";
+    }
+
+    @Override
+    public void warmUp() {
+        log.info("Linked {} appointments to patients by name", linkPatients());
+    }
+
+    /**
+     * Pick up appointments booked by name before the patient was registered
+     */
+    @Scheduled(fixedDelayString = "${clinic.timeline.link-ms:300000}", initialDelayString = "${clinic.timeline.link-ms:300000}")
+    public void relinkPatients() {
+        int linked = linkPatients();
+        if (linked > 0) {
+            log.info("Linked {} appointments to patients by name", linked);
+        }
+    }
+
+    /**
+     * Link appointments that carry only a patient name to the one patient with that name
+     */
+    public int linkPatients() {
+        // Names are matched in memory and the links written in short batches: a correlated UPDATE
+        // per appointment is quadratic and holds its row locks for the whole run on large tables
+        Map<String, Long> idsByName = new HashMap<>();
+        jdbcTemplate.query("SELECT id, LOWER(name) FROM patients", rs -> {
+            // Namesakes map to AMBIGUOUS and are never linked
+            idsByName.merge(rs.getString(2), rs.getLong(1), (first, second) -> AMBIGUOUS);
+        });
+        List<Object[]> links = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, LOWER(patient_name) FROM appointments WHERE patient_id IS NULL", rs -> {
+            Long patientId = idsByName.get(rs.getString(2));
+            if (patientId != null && patientId != AMBIGUOUS) {
+                links.add(new Object[] {patientId, rs.getLong(1)});
+            }
+        });
+        int linked = 0;
+        for (int from = 0; from < links.size(); from += LINK_BATCH_SIZE) {
+            List<Object[]> batch = links.subList(from, Math.min(links.size(), from + LINK_BATCH_SIZE));
+            int[] updated = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(
+                    "UPDATE appointments SET patient_id = ?, updated_at = LOCALTIMESTAMP WHERE id = ? AND patient_id IS NULL", batch));
+            for (int count : updated) {
+                linked += Math.max(count, 0);
+            }
+        }
+        if (linked > 0) {
+            // Bulk updates bypass the entity caches and events
+            cacheInvalidationBus.invalidateAll(CacheInvalidationBus.APPOINTMENTS);
+        }
+        return linked;
+    }
+
+    /**
+     * One page of a patient's timeline; cursor is null for the first page
+     */
+    public TimelinePage getPage(Long patientId, String cursor, int limit) {
+        Key after = decodeCursor(cursor);
+        String pageKey = pageKey(cursor, limit);
+        TimelinePage page = cached(patientId, pageKey);
+        if (page != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            page = loadAndCache(patientId, after, pageKey, limit);
+        }
+        prefetch(patientId, page.nextCursor(), limit);
+        return page;
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Long patientId = event.getAppointment().getPatientId();
+        if (patientId != null) {
+            cacheInvalidationBus.invalidate(CacheInvalidationBus.TIMELINE, patientId);
+        }
+        // An appointment moved to another chart also leaves the one it came from
+        Long previousPatientId = event.getPreviousPatientId();
+        if (previousPatientId != null && !previousPatientId.equals(patientId)) {
+            cacheInvalidationBus.invalidate(CacheInvalidationBus.TIMELINE, previousPatientId);
+        }
+    }
+
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (event.getChangeType() == PatientChangedEvent.ChangeType.DELETED) {
+            cacheInvalidationBus.invalidate(CacheInvalidationBus.TIMELINE, event.getPatient().getId());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (pages) {
+            stats.put("patients", pages.size());
+        }
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("prefetches", prefetches.get());
+        stats.put("ttlMs", ttlMillis);
+        return stats;
+    }
+
+    private void prefetch(Long patientId, String cursor, int limit) {
+        if (cursor == null || ttlMillis <= 0) {
+            return;
+        }
+        String pageKey = pageKey(cursor, limit);
+        if (cached(patientId, pageKey) != null) {
+            return;
+        }
+        prefetcher.execute(() -> {
+            try {
+                if (cached(patientId, pageKey) == null) {
+                    loadAndCache(patientId, decodeCursor(cursor), pageKey, limit);
+                    prefetches.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                // The client will load the page itself
+                log.debug("Timeline prefetch for patient {} failed: {}", patientId, e.getMessage());
+            }
+        });
+    }
+
+    private TimelinePage loadAndCache(Long patientId, Key after, String pageKey, int limit) {
+        long loadGeneration = generation.get();
+        // Queued audit records are not readable yet; a page built now may miss them, so it is not kept
+        boolean complete = !auditService.hasPendingRecords();
+        TimelinePage page = load(patientId, after, limit);
+        if (complete && ttlMillis > 0) {
+            synchronized (pages) {
+                if (generation.get() == loadGeneration) {
+                    Map<String, CachedPage> patientPages = pages.computeIfAbsent(patientId, id -> new LinkedHashMap<>());
+                    if (patientPages.size() >= PAGES_PER_PATIENT) {
+                        patientPages.remove(patientPages.keySet().iterator().next());
+                    }
+                    patientPages.put(pageKey, new CachedPage(page, System.nanoTime() + ttlMillis * 1_000_000L));
+                }
+            }
+        }
+        return page;
+    }
+
+    private TimelinePage load(Long patientId, Key after, int limit) {
+        List<Item> items = new ArrayList<>();
+
+        // At most limit + 1 appointments can make it into the page, whatever the audit entries are
+        PageRequest window = PageRequest.of(0, limit + 1);
+        List<Appointment> appointments = after == null
+                ? appointmentRepository.findTimelineStart(patientId, LocalTime.MIDNIGHT, window)
+                : appointmentRepository.findTimelineAfter(patientId, after.at().toLocalDate(), after.at().toLocalTime(),
+                        appointmentIdBound(after), LocalTime.MIDNIGHT, window);
+        for (Appointment appointment : appointments) {
+            items.add(appointmentItem(appointment));
+        }
+
+        // Audit records are picked from the in-memory index, newest first from the cursor on, and read
+        // only until limit + 1 entries are in hand: anything older cannot make it into the page
+        List<Item> auditItems = new ArrayList<>();
+        List<AuditService.HistoryRef> refs = auditService.getHistoryRefs(AuditService.ENTITY_APPOINTMENT,
+                appointmentRepository.findIdsByPatientId(patientId), after != null ? after.at() : null);
+        for (AuditService.HistoryRef ref : refs) {
+            if (auditItems.size() > limit && ref.changedAt().isBefore(auditItems.get(limit).key().at())) {
+                break;
+            }
+            if (!AuditService.ACTION_CREATED.equals(ref.action())) {
+                addAuditItems(auditItems, ref.entityId(), ref.index(), auditService.read(ref), after);
+            }
+        }
+        items.addAll(auditItems);
+
+        items.sort(Comparator.comparing(Item::key, ORDER));
+        List<TimelineEntry> entries = new ArrayList<>(Math.min(limit, items.size()));
+        for (int i = 0; i < items.size() && i < limit; i++) {
+            entries.add(items.get(i).entry());
+        }
+        String nextCursor = items.size() > limit ? encodeCursor(items.get(limit - 1).key()) : null;
+        return new TimelinePage(patientId, entries, nextCursor);
+    }
+
+    private static Item appointmentItem(Appointment appointment) {
+        LocalTime time = appointment.getAppointmentTime() != null ? appointment.getAppointmentTime() : LocalTime.MIDNIGHT;
+        LocalDateTime at = appointment.getAppointmentDate().atTime(time);
+        TimelineEntry entry = new TimelineEntry(TYPE_APPOINTMENT, at, appointment.getId(), appointment.getTreatment(),
+                appointment.getStatus() != null ? appointment.getStatus().name() : null, appointment.getNotes(), null, null);
+        return new Item(new Key(at, RANK_APPOINTMENT, appointment.getId(), 0), entry);
+    }
+
+    // Status changes and note edits after creation; the appointment entry itself shows the initial values
+    private static void addAuditItems(List<Item> items, Long appointmentId, int index, ChangeRecord record, Key after) {
+        if (AuditService.ACTION_CREATED.equals(record.action()) || record.changes() == null) {
+            return;
+        }
+        for (FieldChange change : record.changes()) {
+            Item item = null;
+            if ("status".equals(change.field())) {
+                item = new Item(new Key(record.changedAt(), RANK_STATUS_CHANGE, appointmentId, index),
+                        new TimelineEntry(TYPE_STATUS_CHANGE, record.changedAt(), appointmentId, null,
+                                change.newValue(), null, change.oldValue(), record.changedBy()));
+            } else if ("notes".equals(change.field()) && change.newValue() != null && !change.newValue().isBlank()) {
+                item = new Item(new Key(record.changedAt(), RANK_NOTE, appointmentId, index),
+                        new TimelineEntry(TYPE_NOTE, record.changedAt(), appointmentId, null,
+                                null, change.newValue(), null, record.changedBy()));
+            }
+            if (item != null && (after == null || ORDER.compare(item.key(), after) > 0)) {
+                items.add(item);
+            }
+        }
+    }
+
+    // Appointments at the cursor's timestamp sort after it only if they rank lower (or equal, with a lower id)
+    private static long appointmentIdBound(Key after) {
+        if (after.rank() > RANK_APPOINTMENT) {
+            return Long.MAX_VALUE;
+        }
+        return after.rank() == RANK_APPOINTMENT ? after.appointmentId() : Long.MIN_VALUE;
+    }
+
+    private TimelinePage cached(Long patientId, String pageKey) {
+        synchronized (pages) {
+            Map<String, CachedPage> patientPages = pages.get(patientId);
+            CachedPage cached = patientPages != null ? patientPages.get(pageKey) : null;
+            if (cached == null) {
+                return null;
+            }
+            if (System.nanoTime() - cached.expiresAt() >= 0) {
+                patientPages.remove(pageKey);
+                return null;
+            }
+            return cached.page();
+        }
+    }
+
+    private void evict(Long patientId) {
+        synchronized (pages) {
+            generation.incrementAndGet();
+            pages.remove(patientId);
+        }
+    }
+
+    private void evictAll() {
+        synchronized (pages) {
+            generation.incrementAndGet();
+            pages.clear();
+        }
+    }
+
+    private static String pageKey(String cursor, int limit) {
+        return (cursor != null ? cursor : "") + "/" + limit;
+    }
+
+    private static String encodeCursor(Key key) {
+        String raw = key.at() + "|" + key.rank() + "|" + key.appointmentId() + "|" + key.seq();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Key decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Key(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]),
+                    Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid timeline cursor");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.Patient;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reactive Read Service
+ * Read-only queries for the /api/v2 endpoints, executed through R2DBC. Rows are mapped and
+ * emitted one by one, so a subscriber that requests slowly is never handed a whole table.
+ * Series occurrences are not expanded here: v2 returns stored appointments only.
+ */
+@Service
+public class ReactiveReadService {
+
+    private static final String APPOINTMENT_COLUMNS =
+            "SELECT id, patient_name, patient_id, appointment_date, appointment_time, treatment, treatment_id, notes, status, created_at, updated_at FROM appointments";
+
+    private static final String PATIENT_COLUMNS =
+            "SELECT id, name, phone, email, address, created_at, updated_at FROM patients";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    public Flux<Appointment> getAllAppointments() {
+        return appointments(APPOINTMENT_COLUMNS + " ORDER BY appointment_date, appointment_time", null, null);
+    }
+
+    public Flux<Appointment> getTodayAppointments() {
+        LocalDate today = LocalDate.now();
+        return getAppointmentsByDateRange(today, today);
+    }
+
+    public Flux<Appointment> getUpcomingAppointments() {
+        return appointments(APPOINTMENT_COLUMNS + " WHERE appointment_date >= :from ORDER BY appointment_date, appointment_time",
+                LocalDate.now(), null);
+    }
+
+    public Flux<Appointment> getAppointmentsThisWeek() {
+        LocalDate today = LocalDate.now();
+        return getAppointmentsByDateRange(today.with(DayOfWeek.MONDAY), today.with(DayOfWeek.SUNDAY));
+    }
+
+    public Flux<Appointment> getAppointmentsThisMonth() {
+        LocalDate today = LocalDate.now();
+        return getAppointmentsByDateRange(today.withDayOfMonth(1), today.withDayOfMonth(today.lengthOfMonth()));
+    }
+
+    public Flux<Appointment> getAppointmentsByDateRange(LocalDate startDate, LocalDate endDate) {
+        return appointments(APPOINTMENT_COLUMNS + " WHERE appointment_date BETWEEN :from AND :to ORDER BY appointment_date, appointment_time",
+                startDate, endDate);
+    }
+
+    public Mono<Appointment> getAppointmentById(Long id) {
+        return databaseClient.sql(APPOINTMENT_COLUMNS + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveReadService::toAppointment)
+                .one();
+    }
+
+    public Flux<Patient> getAllPatients() {
+        return databaseClient.sql(PATIENT_COLUMNS + " ORDER BY id")
+                .map(ReactiveReadService::toPatient)
+                .all();
+    }
+
+    public Mono<Patient> getPatientById(Long id) {
+        return databaseClient.sql(PATIENT_COLUMNS + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveReadService::toPatient)
+                .one();
+    }
+
+    public Flux<Patient> searchPatientsByName(String name) {
+        return databaseClient.sql(PATIENT_COLUMNS + " WHERE LOWER(name) LIKE :name ORDER BY name")
+                .bind("name", "%" + name.toLowerCase() + "%")
+                .map(ReactiveReadService::toPatient)
+                .all();
+    }
+
+    /**
+     * Dashboard counters, each from its own query, combined when all have completed
+     */
+    public Mono<Map<String, Object>> getDashboardStats() {
+        LocalDate today = LocalDate.now();
+        Mono<Long> totalPatients = count("SELECT COUNT(*) FROM patients", null, null);
+        Mono<Long> newPatientsToday = count("SELECT COUNT(*) FROM patients WHERE created_at >= :from",
+                today.atStartOfDay(), null);
+        Mono<Long> totalAppointments = count("SELECT COUNT(*) FROM appointments", null, null);
+        Mono<Long> todayAppointments = count("SELECT COUNT(*) FROM appointments WHERE appointment_date = :from", today, null);
+        Mono<Long> upcomingAppointments = count("SELECT COUNT(*) FROM appointments WHERE appointment_date >= :from", today, null);
+        Mono<Map<String, Long>> byStatus = databaseClient
+                .sql("SELECT status, COUNT(*) AS total FROM appointments GROUP BY status")
+                .map(row -> Map.entry(row.get("status", String.class), row.get("total", Long.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+
+        return Mono.zip(totalPatients, newPatientsToday, totalAppointments, todayAppointments, upcomingAppointments, byStatus)
+                .map(counts -> {
+                    Map<String, Object> stats = new LinkedHashMap<>();
+                    stats.put("totalPatients", counts.getT1());
+                    stats.put("newPatientsToday", counts.getT2());
+                    stats.put("totalAppointments", counts.getT3());
+                    stats.put("todayAppointments", counts.getT4());
+                    stats.put("upcomingAppointments", counts.getT5());
+                    Map<String, Long> statuses = new HashMap<>();
+                    for (AppointmentStatus status : AppointmentStatus.values()) {
+                        statuses.put(status.name(), counts.getT6().getOrDefault(status.name(), 0L));
+                    }
+                    stats.put("appointmentsByStatus", statuses);
+                    long completed = statuses.get(AppointmentStatus.COMPLETED.name());
+                    stats.put("appointmentCompletionRate", counts.getT3() == 0 ? 0.0 : completed * 100.0 / counts.getT3());
+                    return stats;
+                });
+    }
+
+    private Flux<Appointment> appointments(String sql, Object from, Object to) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        if (from != null) {
+            spec = spec.bind("from", from);
+        }
+        if (to != null) {
+            spec = spec.bind("to", to);
+        }
+        return spec.map(ReactiveReadService::toAppointment).all();
+    }
+
+    private Mono<Long> count(String sql, Object from, Object to) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql);
+        if (from != null) {
+            spec = spec.bind("from", from);
+        }
+        if (to != null) {
+            spec = spec.bind("to", to);
+        }
+        return spec.map(row -> row.get(0, Long.class)).one();
+    }
+
+    private static Appointment toAppointment(Readable row) {
+        Appointment appointment = new Appointment();
+        appointment.setId(row.get("id", Long.class));
+        appointment.setPatientName(row.get("patient_name", String.class));
+        appointment.setPatientId(row.get("patient_id", Long.class));
+        appointment.setAppointmentDate(row.get("appointment_date", LocalDate.class));
+        appointment.setAppointmentTime(row.get("appointment_time", LocalTime.class));
+        appointment.setTreatment(row.get("treatment", String.class));
+        appointment.setTreatmentId(row.get("treatment_id", Long.class));
+        appointment.setNotes(row.get("notes", String.class));
+        appointment.setStatus(AppointmentStatus.valueOf(row.get("status", String.class)));
+        appointment.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        appointment.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return appointment;
+    }
+
+    private static Patient toPatient(Readable row) {
+        Patient patient = new Patient();
+        patient.setId(row.get("id", Long.class));
+        patient.setName(row.get("name", String.class));
+        patient.setPhone(row.get("phone", String.class));
+        patient.setEmail(row.get("email", String.class));
+        patient.setAddress(row.get("address", String.class));
+        patient.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        patient.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return patient;
+    }
+}
@@ -0,0 +1,103 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.Treatment;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Revenue Service
+ * Revenue of completed appointments, priced from the in-memory treatment catalog. The database only
+ * returns counts grouped by day and treatment id; no appointment rows are loaded.
+ */
+@Service
+public class RevenueService {
+
+    private static final String OTHER_TREATMENT = "Other";
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private TreatmentCatalog treatmentCatalog;
+
+    /**
+     * Revenue between two days (inclusive), per period bucket and per treatment
+     */
+    public Map<String, Object> getRevenue(LocalDate from, LocalDate to, String granularity) {
+        Map<LocalDate, BigDecimal> byPeriod = new LinkedHashMap<>();
+        for (LocalDate bucket = RollupService.bucketStart(from, granularity); !bucket.isAfter(to);
+                bucket = RollupService.nextBucket(bucket, granularity)) {
+            byPeriod.put(bucket, BigDecimal.ZERO);
+        }
+
+        Map<Long, long[]> countsByTreatment = new LinkedHashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        long completed = 0;
+        for (Object[] row : appointmentRepository.countByDayAndTreatmentId(AppointmentStatus.COMPLETED, from, to)) {
+            Long treatmentId = (Long) row[1];
+            long count = (Long) row[2];
+            BigDecimal revenue = treatmentCatalog.priceOf(treatmentId).multiply(BigDecimal.valueOf(count));
+
+            byPeriod.merge(RollupService.bucketStart((LocalDate) row[0], granularity), revenue, BigDecimal::add);
+            countsByTreatment.computeIfAbsent(treatmentId, id -> new long[1])[0] += count;
+            total = total.add(revenue);
+            completed += count;
+        }
+
+        List<Map<String, Object>> periods = new ArrayList<>(byPeriod.size());
+        byPeriod.forEach((period, revenue) -> {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("period", period);
+            point.put("revenue", revenue);
+            periods.add(point);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("granularity", granularity);
+        result.put("total", total);
+        result.put("completedAppointments", completed);
+        result.put("byPeriod", periods);
+        result.put("byTreatment", byTreatment(countsByTreatment));
+        return result;
+    }
+
+    /**
+     * Revenue of all completed appointments to date
+     */
+    public BigDecimal getTotalRevenue() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Object[] row : appointmentRepository.countByTreatmentId(AppointmentStatus.COMPLETED)) {
+            total = total.add(treatmentCatalog.priceOf((Long) row[0]).multiply(BigDecimal.valueOf((Long) row[1])));
+        }
+        return total;
+    }
+
+    private List<Map<String, Object>> byTreatment(Map<Long, long[]> countsByTreatment) {
+        List<Map<String, Object>> treatments = new ArrayList<>(countsByTreatment.size());
+        countsByTreatment.forEach((treatmentId, count) -> {
+            Treatment treatment = treatmentCatalog.get(treatmentId);
+            BigDecimal price = treatmentCatalog.priceOf(treatmentId);
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("treatmentId", treatment != null ? treatment.getId() : null);
+            line.put("code", treatment != null ? treatment.getCode() : null);
+            line.put("name", treatment != null ? treatment.getName() : OTHER_TREATMENT);
+            line.put("price", price);
+            line.put("appointments", count[0]);
+            line.put("revenue", price.multiply(BigDecimal.valueOf(count[0])));
+            treatments.add(line);
+        });
+        treatments.sort(Comparator.comparing((Map<String, Object> line) -> (BigDecimal) line.get("revenue")).reversed());
+        return treatments;
+    }
+}
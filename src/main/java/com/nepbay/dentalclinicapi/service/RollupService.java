@@ -0,0 +1,331 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.config.WarmupTask;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent;
+import com.nepbay.dentalclinicapi.event.PatientChangedEvent;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.DailyRollup;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.repository.DailyRollupRepository;
+import com.nepbay.dentalclinicapi.repository.PatientRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rollup Service
+ * Maintains daily pre-aggregated metrics in daily_rollups and answers time-series queries from them.
+ * Write paths only mark the affected days dirty; a scheduled job re-aggregates just those days,
+ * so analytics never scan the raw appointments table on the request path.
+ */
+@Service
+public class RollupService implements WarmupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(RollupService.class);
+
+    public static final String NEW_PATIENTS = "new_patients";
+    public static final String APPOINTMENTS = "appointments";
+    public static final String APPOINTMENTS_BY_STATUS = "appointments.status";
+    public static final String APPOINTMENTS_BY_TREATMENT = "appointments.treatment";
+    public static final String REVENUE = "revenue";
+    public static final String REVENUE_BY_TREATMENT = "revenue.treatment";
+
+    public static final List<String> METRICS = List.of(
+        NEW_PATIENTS, APPOINTMENTS, APPOINTMENTS_BY_STATUS, APPOINTMENTS_BY_TREATMENT, REVENUE, REVENUE_BY_TREATMENT);
+
+    public static final List<String> GRANULARITIES = List.of("day", "week", "month", "year");
+
+    // Ten years of days: every bucket of a series is materialized, empty or not
+    public static final int MAX_BUCKETS = 3660;
+
+    private static final String NO_DIMENSION = "";
+    private static final String UNSPECIFIED_TREATMENT = "Unspecified";
+
+    @Autowired
+    private DailyRollupRepository rollupRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private TreatmentCatalog treatmentCatalog;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Set<LocalDate> dirtyDays = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Mark the days touched by an appointment write for re-aggregation
+     */
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        if (event.getAppointment().getAppointmentDate() != null) {
+            dirtyDays.add(event.getAppointment().getAppointmentDate());
+        }
+        if (event.getPreviousDate() != null) {
+            dirtyDays.add(event.getPreviousDate());
+        }
+    }
+
+    /**
+     * Mark the registration day of a new or removed patient for re-aggregation
+     */
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        if (event.getChangeType() != PatientChangedEvent.ChangeType.UPDATED && event.getPatient().getCreatedAt() != null) {
+            dirtyDays.add(event.getPatient().getCreatedAt().toLocalDate());
+        }
+    }
+
+    /**
+     * Mark the days whose revenue depends on a catalog treatment's price for re-aggregation.
+     * Revenue is priced from the current catalog, so a price change (or appointments newly
+     * linked to a treatment) changes the rollups of every day with completed appointments of it.
+     */
+    public void onTreatmentChanged(Long treatmentId) {
+        dirtyDays.addAll(appointmentRepository.findDaysByStatusAndTreatmentId(AppointmentStatus.COMPLETED, treatmentId));
+    }
+
+    /**
+     * Re-aggregate the days marked dirty since the last run
+     */
+    @Scheduled(fixedDelayString = "${clinic.rollup.refresh-ms:60000}", initialDelayString = "${clinic.rollup.refresh-ms:60000}")
+    public void refreshDirtyDays() {
+        if (dirtyDays.isEmpty()) {
+            return;
+        }
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (LocalDate day : dirtyDays) {
+            // Remove before recomputing: a write arriving meanwhile re-marks the day for the next run
+            dirtyDays.remove(day);
+            days.add(day);
+        }
+
+        // Recompute contiguous runs of days as one range
+        LocalDate rangeStart = null;
+        LocalDate previous = null;
+        for (LocalDate day : days) {
+            if (rangeStart != null && !day.equals(previous.plusDays(1))) {
+                refreshRange(rangeStart, previous);
+                rangeStart = null;
+            }
+            if (rangeStart == null) {
+                rangeStart = day;
+            }
+            previous = day;
+        }
+        refreshRange(rangeStart, previous);
+        log.debug("Refreshed rollups for {} days", days.size());
+    }
+
+    // A failed range goes back into the dirty set for the next run instead of staying stale
+    private void refreshRange(LocalDate from, LocalDate to) {
+        try {
+            recompute(from, to);
+        } catch (RuntimeException e) {
+            from.datesUntil(to.plusDays(1)).forEach(dirtyDays::add);
+            log.warn("Could not refresh rollups from {} to {}, retrying on the next run: {}", from, to, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the rollups of a day range from the raw tables
+     */
+    public void recompute(LocalDate from, LocalDate to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteByDayBetween(from, to);
+            rollupRepository.saveAll(aggregate(from, to));
+        });
+    }
+
+    /**
+     * Backfill all history when the rollup table is empty (first start, or in-memory mode)
+     */
+    @Override
+    public void warmUp() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+        // Revenue is priced by catalog id; warm-up tasks run in parallel, so do not wait for the catalog's linking
+        treatmentCatalog.linkAppointments();
+        backfill();
+    }
+
+    /**
+     * Re-aggregate the whole history of the raw tables, replacing every stored rollup
+     */
+    public void backfill() {
+        LocalDate from = LocalDate.now();
+        LocalDate to = LocalDate.now();
+        List<Object[]> bounds = appointmentRepository.findDateBounds();
+        if (!bounds.isEmpty() && bounds.get(0)[0] != null) {
+            from = min(from, (LocalDate) bounds.get(0)[0]);
+            to = max(to, (LocalDate) bounds.get(0)[1]);
+        }
+        LocalDateTime firstRegistration = patientRepository.findFirstRegistration();
+        if (firstRegistration != null) {
+            from = min(from, firstRegistration.toLocalDate());
+        }
+        LocalDate first = from;
+        LocalDate last = to;
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteAllInBatch();
+            rollupRepository.saveAll(aggregate(first, last));
+        });
+        log.info("Backfilled rollups from {} to {}", from, to);
+    }
+
+    @Override
+    public String getName() {
+        return "rollup-backfill";
+    }
+
+    /**
+     * Time series of a metric over [from, to], summed into day/week/month/year buckets.
+     * Every bucket in the range is present, with 0 where nothing happened.
+     */
+    public List<Map<String, Object>> getTimeSeries(String metric, String dimension, LocalDate from, LocalDate to, String granularity) {
+        List<Object[]> rows = dimension == null || dimension.isEmpty()
+                ? rollupRepository.sumByDay(metric, from, to)
+                : rollupRepository.sumByDay(metric, dimension, from, to);
+
+        Map<LocalDate, Double> buckets = new LinkedHashMap<>();
+        for (LocalDate bucket = bucketStart(from, granularity); !bucket.isAfter(to); bucket = nextBucket(bucket, granularity)) {
+            buckets.put(bucket, 0.0);
+        }
+        for (Object[] row : rows) {
+            LocalDate bucket = bucketStart((LocalDate) row[0], granularity);
+            buckets.merge(bucket, ((Number) row[1]).doubleValue(), Double::sum);
+        }
+
+        List<Map<String, Object>> points = new ArrayList<>(buckets.size());
+        for (Map.Entry<LocalDate, Double> entry : buckets.entrySet()) {
+            Map<String, Object> point = new HashMap<>();
+            point.put("period", entry.getKey());
+            point.put("value", entry.getValue());
+            points.add(point);
+        }
+        return points;
+    }
+
+    /**
+     * Total of a metric between two days (inclusive)
+     */
+    public double getTotal(String metric, LocalDate from, LocalDate to) {
+        return rollupRepository.sumBetween(metric, from, to);
+    }
+
+    /**
+     * Total of a metric over all recorded history
+     */
+    public double getTotal(String metric) {
+        return rollupRepository.sumAll(metric);
+    }
+
+    private List<DailyRollup> aggregate(LocalDate from, LocalDate to) {
+        Map<String, DailyRollup> rollups = new HashMap<>();
+
+        for (Object[] row : appointmentRepository.countByDayStatusAndTreatment(from, to)) {
+            LocalDate day = (LocalDate) row[0];
+            AppointmentStatus status = (AppointmentStatus) row[1];
+            String treatment = row[2] == null || ((String) row[2]).isBlank() ? UNSPECIFIED_TREATMENT : (String) row[2];
+            Long treatmentId = (Long) row[3];
+            long count = (Long) row[4];
+
+            add(rollups, day, APPOINTMENTS, NO_DIMENSION, count);
+            add(rollups, day, APPOINTMENTS_BY_STATUS, status.name(), count);
+            add(rollups, day, APPOINTMENTS_BY_TREATMENT, treatment, count);
+            if (status == AppointmentStatus.COMPLETED) {
+                double revenue = treatmentCatalog.priceOf(treatmentId).doubleValue() * count;
+                add(rollups, day, REVENUE, NO_DIMENSION, revenue);
+                add(rollups, day, REVENUE_BY_TREATMENT, treatment, revenue);
+            }
+        }
+
+        for (Object[] row : patientRepository.countByRegistrationDay(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            add(rollups, (LocalDate) row[0], NEW_PATIENTS, NO_DIMENSION, (Long) row[1]);
+        }
+        return new ArrayList<>(rollups.values());
+    }
+
+    private static void add(Map<String, DailyRollup> rollups, LocalDate day, String metric, String dimension, double value) {
+        DailyRollup rollup = rollups.computeIfAbsent(day + "|" + metric + "|" + dimension,
+                key -> new DailyRollup(day, metric, dimension, 0));
+        rollup.setValue(rollup.getValue() + value);
+    }
+
+    static LocalDate bucketStart(LocalDate day, String granularity) {
+        switch (granularity) {
+            case "week":
+                return day.with(DayOfWeek.MONDAY);
+            case "month":
+                return day.withDayOfMonth(1);
+            case "year":
+                return day.with(TemporalAdjusters.firstDayOfYear());
+            default:
+                return day;
+        }
+    }
+
+    /**
+     * Number of buckets a series over [from, to] has at the granularity
+     */
+    public static long bucketCount(LocalDate from, LocalDate to, String granularity) {
+        return unitOf(granularity).between(bucketStart(from, granularity), bucketStart(to, granularity)) + 1;
+    }
+
+    private static ChronoUnit unitOf(String granularity) {
+        switch (granularity) {
+            case "week":
+                return ChronoUnit.WEEKS;
+            case "month":
+                return ChronoUnit.MONTHS;
+            case "year":
+                return ChronoUnit.YEARS;
+            default:
+                return ChronoUnit.DAYS;
+        }
+    }
+
+    static LocalDate nextBucket(LocalDate bucket, String granularity) {
+        switch (granularity) {
+            case "week":
+                return bucket.plusWeeks(1);
+            case "month":
+                return bucket.plusMonths(1);
+            case "year":
+                return bucket.plusYears(1);
+            default:
+                return bucket.plusDays(1);
+        }
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
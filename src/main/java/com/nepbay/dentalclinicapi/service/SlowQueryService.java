@@ -0,0 +1,326 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.diagnostics.CapturedStatement;
+import com.nepbay.dentalclinicapi.diagnostics.SlowQueryRecord;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.AppointmentSeries.Frequency;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry.WaitlistStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Slow Query Service
+ * Times every call through AppointmentService, PatientService and the repositories (see
+ * SlowQueryAspect) and collects the statements each call issues on the JDBC connection (see
+ * SlowQueryDataSourcePostProcessor). A call slower than clinic.diagnostics.slow-ms becomes a
+ * record with the calling endpoint and its slowest statements; so does a single slow statement
+ * issued outside such a call (JdbcTemplate scans, for instance).
+ *
+ * Bind parameters are redacted: numbers, dates and enum names (statuses) are kept, free
+ * text such as names, phones, emails and notes is replaced by its length. The H2 query plan of
+ * the slowest selects is captured on a background thread with EXPLAIN. Records are kept in a
+ * ring buffer of the last clinic.diagnostics.slow-log-size entries and logged at WARN, so they
+ * can be found in the log after the buffer has moved on.
+ */
+@Service
+public class SlowQueryService {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryService.class);
+
+    private static final int MAX_STATEMENTS_PER_CALL = 1000;
+    private static final int STATEMENTS_PER_RECORD = 10;
+    private static final int PLANS_PER_RECORD = 3;
+    // Enum values bound as strings (JPQL literals, JdbcTemplate queries); any other text may be a name typed in capitals
+    private static final Set<String> CODES = Stream.of(AppointmentStatus.values(), WaitlistStatus.values(), Frequency.values())
+            .flatMap(Arrays::stream)
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern SELECT = Pattern.compile("^\\s*(select|with)\\b.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    // Lazy: the first statement this service sees may be Flyway's, before the JdbcTemplate can exist
+    @Lazy
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${clinic.diagnostics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${clinic.diagnostics.slow-ms:200}")
+    private volatile long thresholdMillis;
+
+    @Value("${clinic.diagnostics.slow-log-size:500}")
+    private int capacity;
+
+    @Value("${clinic.diagnostics.explain:true}")
+    private boolean explain;
+
+    private final Deque<SlowQueryRecord> records = new ArrayDeque<>();
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final ThreadLocal<Call> currentCall = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> suppressed = new ThreadLocal<>();
+
+    private ThreadPoolExecutor planCapture;
+
+    /**
+     * The monitored methods running on this thread (outermost first) and the statements they issued
+     */
+    private static final class Call {
+        private final Deque<String> methods = new ArrayDeque<>();
+        private final List<CapturedStatement> statements = new ArrayList<>();
+        private int statementCount;
+    }
+
+    @PostConstruct
+    public void start() {
+        planCapture = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(32), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-plans");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        planCapture.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * Change the threshold at runtime, e.g. lower it while investigating an endpoint
+     */
+    public void setThresholdMillis(long thresholdMillis) {
+        if (thresholdMillis < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    public void enterCall(String method) {
+        Call call = currentCall.get();
+        if (call == null) {
+            call = new Call();
+            currentCall.set(call);
+        }
+        call.methods.push(method);
+    }
+
+    public void exitCall(long nanos) {
+        Call call = currentCall.get();
+        if (call == null) {
+            return;
+        }
+        String method = call.methods.pop();
+        if (!call.methods.isEmpty()) {
+            return;
+        }
+        currentCall.remove();
+        if (nanos >= thresholdMillis * 1_000_000L) {
+            record(method, nanos, call.statementCount, call.statements);
+        }
+    }
+
+    /**
+     * The innermost monitored method running on this thread, or null
+     */
+    public String currentMethod() {
+        Call call = currentCall.get();
+        return call == null ? null : call.methods.peek();
+    }
+
+    /**
+     * Whether result sets should be wrapped to count rows (only inside a monitored call)
+     */
+    public boolean isTracing() {
+        return currentCall.get() != null;
+    }
+
+    /**
+     * A statement finished executing (for queries: its result set was closed)
+     */
+    public void statementCompleted(CapturedStatement statement) {
+        if (!statement.complete() || suppressed.get() != null) {
+            return;
+        }
+        Call call = currentCall.get();
+        if (call != null) {
+            call.statementCount++;
+            if (call.statements.size() < MAX_STATEMENTS_PER_CALL) {
+                call.statements.add(statement);
+            }
+        } else if (statement.getNanos() >= thresholdMillis * 1_000_000L) {
+            record(null, statement.getNanos(), 1, List.of(statement));
+        }
+    }
+
+    /**
+     * Recorded calls, newest first
+     */
+    public List<SlowQueryRecord> getRecords() {
+        synchronized (records) {
+            return new ArrayList<>(records);
+        }
+    }
+
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public void clear() {
+        synchronized (records) {
+            records.clear();
+        }
+    }
+
+    private void record(String method, long nanos, int statementCount, List<CapturedStatement> statements) {
+        LocalDateTime at = LocalDateTime.now();
+        String endpoint = currentEndpoint();
+        List<CapturedStatement> slowest = statements.stream()
+                .sorted(Comparator.comparingLong(CapturedStatement::getNanos).reversed())
+                .limit(STATEMENTS_PER_RECORD)
+                .collect(Collectors.toList());
+        Runnable task = () -> add(new SlowQueryRecord(at, endpoint, method, millis(nanos), statementCount,
+                toRecordStatements(slowest, explain)));
+        try {
+            planCapture.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Plan capture is backed up: keep the record, without plans
+            add(new SlowQueryRecord(at, endpoint, method, millis(nanos), statementCount, toRecordStatements(slowest, false)));
+        }
+    }
+
+    private List<SlowQueryRecord.Statement> toRecordStatements(List<CapturedStatement> statements, boolean withPlans) {
+        List<SlowQueryRecord.Statement> result = new ArrayList<>(statements.size());
+        for (int i = 0; i < statements.size(); i++) {
+            CapturedStatement statement = statements.get(i);
+            String plan = withPlans && i < PLANS_PER_RECORD ? explain(statement) : null;
+            result.add(new SlowQueryRecord.Statement(
+                    statement.getSql(),
+                    redact(statement.getParameters()),
+                    statement.getBatchSize() > 0 ? statement.getBatchSize() : null,
+                    statement.getRows() >= 0 ? statement.getRows() : null,
+                    millis(statement.getNanos()),
+                    statement.getMethod(),
+                    plan));
+        }
+        return result;
+    }
+
+    private void add(SlowQueryRecord record) {
+        synchronized (records) {
+            if (records.size() >= capacity) {
+                records.removeLast();
+                dropped.incrementAndGet();
+            }
+            records.addFirst(record);
+        }
+        recorded.incrementAndGet();
+        SlowQueryRecord.Statement slowest = record.statements().isEmpty() ? null : record.statements().get(0);
+        log.warn("Slow {} {}: {} ms, {} statements{}", record.endpoint(),
+                record.method() != null ? record.method() : "statement", record.durationMs(), record.statementCount(),
+                slowest == null ? "" : ", slowest " + slowest.durationMs() + " ms: " + slowest.sql().strip().replaceAll("\\s+", " "));
+    }
+
+    /**
+     * H2 plan of a select, with the original values bound; literals in the plan text are redacted
+     */
+    private String explain(CapturedStatement statement) {
+        if (statement.getBatchSize() > 0 || !SELECT.matcher(statement.getSql()).matches()) {
+            return null;
+        }
+        Object[] parameters = statement.getParameters();
+        suppressed.set(Boolean.TRUE);
+        try {
+            List<String> lines = jdbcTemplate.query("EXPLAIN " + statement.getSql(), ps -> {
+                for (int i = 0; i < parameters.length; i++) {
+                    ps.setObject(i + 1, parameters[i]);
+                }
+            }, (rs, rowNum) -> rs.getString(1));
+            return STRING_LITERAL.matcher(String.join("\n", lines)).replaceAll("'***'");
+        } catch (RuntimeException e) {
+            return "EXPLAIN failed: " + e.getMessage();
+        } finally {
+            suppressed.remove();
+        }
+    }
+
+    /**
+     * Bind values with anything that could identify a patient replaced by its length
+     */
+    static List<String> redact(Object[] parameters) {
+        List<String> redacted = new ArrayList<>(parameters.length);
+        for (Object value : parameters) {
+            if (value == null) {
+                redacted.add("NULL");
+            } else if (value instanceof Number || value instanceof Boolean || value instanceof Temporal
+                    || value instanceof java.util.Date || value instanceof Enum) {
+                redacted.add(value.toString());
+            } else if (value instanceof String text && CODES.contains(text)) {
+                redacted.add(text);
+            } else if (value instanceof String text) {
+                redacted.add("<redacted:" + text.length() + " chars>");
+            } else {
+                redacted.add("<" + value.getClass().getSimpleName().toLowerCase(Locale.ROOT) + ">");
+            }
+        }
+        return redacted;
+    }
+
+    private static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            // The mapped pattern, not the URI: no ids, and no query string (which can carry names)
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        }
+        return "thread " + Thread.currentThread().getName();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,181 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.config.TreatmentPricing;
+import com.nepbay.dentalclinicapi.config.WarmupTask;
+import com.nepbay.dentalclinicapi.model.Treatment;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.repository.TreatmentRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Treatment Catalog
+ * Copy-on-write, in-memory view of the treatments table. Readers (appointment writes, revenue,
+ * rollups) go through an immutable snapshot held in a volatile field and never lock or query;
+ * any catalog change builds a new snapshot and swaps it in, on this node and, via the cache
+ * invalidation bus, on every other node.
+ */
+@Service
+public class TreatmentCatalog implements WarmupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(TreatmentCatalog.class);
+
+    public static final String DEFAULT_TREATMENT = "General Consultation";
+
+    @Autowired
+    private TreatmentRepository treatmentRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private TreatmentPricing treatmentPricing;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${clinic.slot-minutes:30}")
+    private int defaultDurationMinutes;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), List.of());
+
+    private record Snapshot(Map<Long, Treatment> byId, Map<String, Treatment> byCode, List<Treatment> all) {}
+
+    /**
+     * Seed the catalog from the configured price table if it is empty, then load it
+     */
+    @PostConstruct
+    public void init() {
+        if (treatmentRepository.count() == 0) {
+            seed();
+        }
+        reload();
+        cacheInvalidationBus.subscribe(CacheInvalidationBus.TREATMENTS, key -> reload());
+    }
+
+    @Override
+    public String getName() {
+        return "treatment-catalog";
+    }
+
+    /**
+     * Link appointments written without a catalog id (seed data, bulk imports) to their treatment
+     */
+    @Override
+    public void warmUp() {
+        int linked = linkAppointments();
+        log.info("Treatment catalog ready: {} treatments, {} appointments linked", snapshot.all().size(), linked);
+    }
+
+    /**
+     * Code of a treatment name: its slug ("Root Canal" -> "root-canal")
+     */
+    public static String codeOf(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+
+    public Treatment get(Long id) {
+        return id == null ? null : snapshot.byId().get(id);
+    }
+
+    /**
+     * Catalog treatment for a free-text name, or null if there is none
+     */
+    public Treatment resolve(String name) {
+        return name == null || name.isBlank() ? null : snapshot.byCode().get(codeOf(name));
+    }
+
+    /**
+     * All treatments, by name (shared instances; do not modify)
+     */
+    public List<Treatment> getAll() {
+        return snapshot.all();
+    }
+
+    /**
+     * Price of one appointment of a catalog treatment; the default price when it is not in the catalog
+     */
+    public BigDecimal priceOf(Long treatmentId) {
+        Treatment treatment = get(treatmentId);
+        return treatment != null ? treatment.getPrice() : treatmentPricing.getDefaultPrice();
+    }
+
+    /**
+     * The catalog was written: rebuild the snapshot here and on every other node
+     */
+    public void changed() {
+        cacheInvalidationBus.invalidateAll(CacheInvalidationBus.TREATMENTS);
+    }
+
+    /**
+     * Set treatment ids on appointments whose free-text name matches a catalog entry
+     */
+    public int linkAppointments() {
+        int linked = 0;
+        for (String name : appointmentRepository.findUnresolvedTreatmentNames()) {
+            Treatment treatment = resolve(name);
+            if (treatment != null) {
+                Integer updated = transactionTemplate.execute(status ->
+                        appointmentRepository.assignTreatmentId(name, treatment.getId()));
+                linked += updated != null ? updated : 0;
+            }
+        }
+        if (linked > 0) {
+            // Bulk updates bypass the entity cache
+            cacheInvalidationBus.invalidateAll(CacheInvalidationBus.APPOINTMENTS);
+        }
+        return linked;
+    }
+
+    private void reload() {
+        List<Treatment> all = treatmentRepository.findAllByOrderByNameAsc();
+        Map<Long, Treatment> byId = new HashMap<>();
+        Map<String, Treatment> byCode = new HashMap<>();
+        for (Treatment treatment : all) {
+            byId.put(treatment.getId(), treatment);
+            byCode.put(treatment.getCode(), treatment);
+        }
+        snapshot = new Snapshot(Map.copyOf(byId), Map.copyOf(byCode), List.copyOf(all));
+        log.debug("Treatment catalog loaded: {} treatments", all.size());
+    }
+
+    private void seed() {
+        Map<String, BigDecimal> prices = new HashMap<>(treatmentPricing.getTreatments());
+        prices.putIfAbsent(codeOf(DEFAULT_TREATMENT), treatmentPricing.getDefaultPrice());
+        List<Treatment> treatments = new ArrayList<>();
+        for (Map.Entry<String, BigDecimal> entry : prices.entrySet()) {
+            String code = codeOf(entry.getKey());
+            int duration = treatmentPricing.getDurations().getOrDefault(code, defaultDurationMinutes);
+            treatments.add(new Treatment(code, nameOf(code), duration, entry.getValue()));
+        }
+        treatmentRepository.saveAll(treatments);
+        log.info("Seeded treatment catalog with {} treatments", treatments.size());
+    }
+
+    // "root-canal" -> "Root Canal"
+    private static String nameOf(String code) {
+        StringBuilder name = new StringBuilder();
+        for (String word : code.split("-")) {
+            if (!word.isEmpty()) {
+                name.append(name.length() > 0 ? " " : "")
+                    .append(Character.toUpperCase(word.charAt(0)))
+                    .append(word.substring(1));
+            }
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.model.Treatment;
+import com.nepbay.dentalclinicapi.repository.TreatmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Treatment Service
+ * Business logic for the treatment catalog. Reads are served from the TreatmentCatalog snapshot;
+ * every write refreshes it.
+ */
+@Service
+public class TreatmentService {
+
+    @Autowired
+    private TreatmentRepository treatmentRepository;
+
+    @Autowired
+    private TreatmentCatalog treatmentCatalog;
+
+    @Autowired
+    private RollupService rollupService;
+
+    /**
+     * Get all treatments
+     */
+    public List<Treatment> getAllTreatments() {
+        return treatmentCatalog.getAll();
+    }
+
+    /**
+     * Get treatment by ID
+     */
+    public Treatment getTreatmentById(Long id) {
+        return treatmentCatalog.get(id);
+    }
+
+    /**
+     * Add a treatment to the catalog and link existing appointments with that treatment name
+     */
+    public Treatment createTreatment(Treatment treatment) {
+        treatment.setId(null);
+        treatment.setCode(TreatmentCatalog.codeOf(treatment.getName()));
+        if (treatmentRepository.existsByCode(treatment.getCode())) {
+            throw new ConflictException("A treatment with this name already exists");
+        }
+        Treatment savedTreatment = treatmentRepository.save(treatment);
+        treatmentCatalog.changed();
+        if (treatmentCatalog.linkAppointments() > 0) {
+            // Linked appointments were priced at the default price until now
+            rollupService.onTreatmentChanged(savedTreatment.getId());
+        }
+        return savedTreatment;
+    }
+
+    /**
+     * Update name, duration, price or active flag of a treatment
+     */
+    public Treatment updateTreatment(Long id, Treatment updatedTreatment) {
+        Treatment existingTreatment = findTreatment(id);
+        if (existingTreatment == null) {
+            throw new NotFoundException("Treatment not found with ID: " + id);
+        }
+
+        String code = TreatmentCatalog.codeOf(updatedTreatment.getName());
+        if (!code.equals(existingTreatment.getCode()) && treatmentRepository.existsByCode(code)) {
+            throw new ConflictException("A treatment with this name already exists");
+        }
+
+        boolean repriced = existingTreatment.getPrice().compareTo(updatedTreatment.getPrice()) != 0;
+        existingTreatment.setCode(code);
+        existingTreatment.setName(updatedTreatment.getName());
+        existingTreatment.setDurationMinutes(updatedTreatment.getDurationMinutes());
+        existingTreatment.setPrice(updatedTreatment.getPrice());
+        existingTreatment.setActive(updatedTreatment.isActive());
+
+        Treatment savedTreatment = treatmentRepository.save(existingTreatment);
+        treatmentCatalog.changed();
+        if (repriced) {
+            rollupService.onTreatmentChanged(id);
+        }
+        return savedTreatment;
+    }
+
+    /**
+     * Retire a treatment. Appointments keep their reference, so it is deactivated rather than deleted.
+     */
+    public Treatment deactivateTreatment(Long id) {
+        Treatment treatment = findTreatment(id);
+        if (treatment == null) {
+            throw new NotFoundException("Treatment not found with ID: " + id);
+        }
+        treatment.setActive(false);
+        Treatment savedTreatment = treatmentRepository.save(treatment);
+        treatmentCatalog.changed();
+        return savedTreatment;
+    }
+
+    // Write paths load a fresh instance rather than mutate the catalog snapshot's
+    private Treatment findTreatment(Long id) {
+        Optional<Treatment> treatment = treatmentRepository.findById(id);
+        return treatment.orElse(null);
+    }
+}
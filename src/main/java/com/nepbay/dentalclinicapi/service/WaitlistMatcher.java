@@ -0,0 +1,300 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.config.WarmupTask;
+import com.nepbay.dentalclinicapi.event.AppointmentChangedEvent;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry.WaitlistStatus;
+import com.nepbay.dentalclinicapi.repository.WaitlistRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Waitlist Matcher
+ * In-memory index of waiting patients, bucketed by each day of their acceptable date window and
+ * ordered within a day by how long they have waited. A cancelled slot only looks at its own
+ * day's bucket and offers it to the longest-waiting patient whose time window and treatment fit.
+ *
+ * Each candidate is claimed with a compare-and-set before the offer is written, and the write is
+ * a conditional update on WAITING, so two cancellations racing for the same patient (in this JVM
+ * or on another node) never both offer to them: the loser moves on to the next candidate. If
+ * the write fails, the candidate is put back and the slot opened again. A slot passed on after a
+ * decline skips everyone who has declined it before (remembered by this node until it is booked).
+ */
+@Service
+public class WaitlistMatcher implements WarmupTask {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistMatcher.class);
+
+    private static final Comparator<Candidate> BY_WAIT_TIME =
+            Comparator.comparing((Candidate c) -> c.createdAt).thenComparingLong(c -> c.id);
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${clinic.waitlist.offer-minutes:30}")
+    private int offerMinutes;
+
+    private final Map<Long, Candidate> candidates = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, NavigableSet<Candidate>> byDay = new ConcurrentSkipListMap<>();
+
+    // Cancelled appointments whose slot is currently offered (or being matched)
+    private final Set<Long> openSlots = ConcurrentHashMap.newKeySet();
+
+    // Entries that declined (or let expire) the offer of a slot, by cancelled appointment; kept until the slot is booked
+    private final Map<Long, Set<Long>> declined = new ConcurrentHashMap<>();
+
+    /**
+     * A freed chair slot: the cancelled appointment and when it was
+     */
+    public record Slot(Long appointmentId, LocalDate date, LocalTime time, String treatment) {}
+
+    private static final class Candidate {
+        private final long id;
+        private final LocalDateTime createdAt;
+        private final long earliestDay;
+        private final long latestDay;
+        private final LocalTime earliestTime;
+        private final LocalTime latestTime;
+        private final String treatment;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Candidate(WaitlistEntry entry) {
+            this.id = entry.getId();
+            this.createdAt = entry.getCreatedAt();
+            this.earliestDay = entry.getEarliestDate().toEpochDay();
+            this.latestDay = entry.getLatestDate().toEpochDay();
+            this.earliestTime = entry.getEarliestTime();
+            this.latestTime = entry.getLatestTime();
+            this.treatment = treatmentKey(entry.getTreatment());
+        }
+
+        private boolean accepts(Slot slot) {
+            if (treatment != null && !treatment.equals(treatmentKey(slot.treatment()))) {
+                return false;
+            }
+            if (slot.time() == null) {
+                return earliestTime == null && latestTime == null;
+            }
+            return (earliestTime == null || !slot.time().isBefore(earliestTime))
+                    && (latestTime == null || !slot.time().isAfter(latestTime));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "waitlist-matcher";
+    }
+
+    /**
+     * Index every waiting entry and remember which cancelled slots already have an open offer
+     */
+    @Override
+    public void warmUp() {
+        for (WaitlistEntry entry : waitlistRepository.findByStatusOrderByCreatedAtAsc(WaitlistStatus.WAITING)) {
+            add(entry);
+        }
+        for (WaitlistEntry entry : waitlistRepository.findByStatusOrderByCreatedAtAsc(WaitlistStatus.OFFERED)) {
+            if (entry.getOfferedAppointmentId() != null) {
+                openSlots.add(entry.getOfferedAppointmentId());
+            }
+        }
+        log.info("Waitlist matcher ready: {} waiting, {} open offers", candidates.size(), openSlots.size());
+    }
+
+    /**
+     * Offer the slot of an appointment that was just cancelled
+     */
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        Appointment appointment = event.getAppointment();
+        if (event.getChangeType() != AppointmentChangedEvent.ChangeType.STATUS_CHANGED
+                || appointment.getStatus() != AppointmentStatus.CANCELLED) {
+            return;
+        }
+        try {
+            offer(new Slot(appointment.getId(), appointment.getAppointmentDate(),
+                    appointment.getAppointmentTime(), appointment.getTreatment()));
+        } catch (RuntimeException e) {
+            // The cancellation itself has succeeded; a failed match must not undo it
+            log.warn("Waitlist matching failed for cancelled appointment {}", appointment.getId(), e);
+        }
+    }
+
+    /**
+     * Offer a slot to the longest-waiting matching patient who has not declined it yet.
+     * Returns the id of the entry that received the offer, or null when nobody matched,
+     * the slot is in the past, or the slot already has an open offer.
+     */
+    public Long offer(Slot slot) {
+        if (slot.date() == null || isPast(slot)) {
+            declined.remove(slot.appointmentId());
+            return null;
+        }
+        if (!openSlots.add(slot.appointmentId())) {
+            return null;
+        }
+        long started = System.nanoTime();
+        Set<Long> excluded = declined.getOrDefault(slot.appointmentId(), Set.of());
+        Long offeredTo = null;
+        try {
+            NavigableSet<Candidate> bucket = byDay.get(slot.date().toEpochDay());
+            if (bucket != null) {
+                for (Candidate candidate : bucket) {
+                    if (excluded.contains(candidate.id) || !candidate.accepts(slot)) {
+                        continue;
+                    }
+                    if (!candidate.claimed.compareAndSet(false, true)) {
+                        continue;
+                    }
+                    unindex(candidate);
+                    boolean written;
+                    try {
+                        written = writeOffer(candidate.id, slot);
+                    } catch (RuntimeException e) {
+                        // Nothing was written: the patient is still waiting and must stay matchable
+                        candidate.claimed.set(false);
+                        index(candidate);
+                        throw e;
+                    }
+                    if (written) {
+                        log.info("Waitlist offer: slot {} {} (cancelled appointment {}) offered to waitlist entry {} in {} us",
+                                slot.date(), slot.time(), slot.appointmentId(), candidate.id, (System.nanoTime() - started) / 1000);
+                        offeredTo = candidate.id;
+                        return offeredTo;
+                    }
+                }
+            }
+            declined.remove(slot.appointmentId());
+            log.debug("No waitlist match for slot {} {} (cancelled appointment {})", slot.date(), slot.time(), slot.appointmentId());
+            return null;
+        } finally {
+            if (offeredTo == null) {
+                openSlots.remove(slot.appointmentId());
+            }
+        }
+    }
+
+    /**
+     * Add or replace a waiting entry; entries in any other status are dropped from the index
+     */
+    public void add(WaitlistEntry entry) {
+        remove(entry.getId());
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            return;
+        }
+        Candidate candidate = new Candidate(entry);
+        candidates.put(candidate.id, candidate);
+        index(candidate);
+    }
+
+    /**
+     * Take an entry out of matching. Returns false if a concurrent match has already claimed it.
+     */
+    public boolean remove(Long entryId) {
+        Candidate candidate = candidates.get(entryId);
+        if (candidate == null) {
+            return true;
+        }
+        if (!candidate.claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        unindex(candidate);
+        return true;
+    }
+
+    /**
+     * The open offer for this slot was declined by (or expired for, or removed with) an entry;
+     * the slot is not offered to that entry again
+     */
+    public void release(Long appointmentId, Long declinedEntryId) {
+        declined.computeIfAbsent(appointmentId, id -> ConcurrentHashMap.newKeySet()).add(declinedEntryId);
+        openSlots.remove(appointmentId);
+    }
+
+    /**
+     * The slot was booked or is no longer free: forget its offer and who declined it
+     */
+    public void close(Long appointmentId) {
+        openSlots.remove(appointmentId);
+        declined.remove(appointmentId);
+    }
+
+    /**
+     * Drop buckets for days that have passed, and entries whose whole window has passed
+     */
+    public void prune() {
+        long today = LocalDate.now().toEpochDay();
+        byDay.headMap(today).clear();
+        candidates.values().removeIf(candidate -> candidate.latestDay < today);
+        declined.keySet().retainAll(openSlots);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "waiting", candidates.size(),
+            "indexedDays", byDay.size(),
+            "openOffers", openSlots.size(),
+            "slotsWithDeclines", declined.size()
+        );
+    }
+
+    private boolean writeOffer(long entryId, Slot slot) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(offerMinutes);
+        Integer updated = transactionTemplate.execute(status ->
+                waitlistRepository.claim(entryId, slot.appointmentId(), slot.date(), slot.time(), expiresAt));
+        return updated != null && updated == 1;
+    }
+
+    private void index(Candidate candidate) {
+        // A concurrent add may have replaced the candidate meanwhile; that one is indexed already
+        Candidate current = candidates.putIfAbsent(candidate.id, candidate);
+        if (current != null && current != candidate) {
+            return;
+        }
+        long first = Math.max(candidate.earliestDay, LocalDate.now().toEpochDay());
+        for (long day = first; day <= candidate.latestDay; day++) {
+            byDay.computeIfAbsent(day, d -> new ConcurrentSkipListSet<>(BY_WAIT_TIME)).add(candidate);
+        }
+    }
+
+    private void unindex(Candidate candidate) {
+        candidates.remove(candidate.id, candidate);
+        for (long day = candidate.earliestDay; day <= candidate.latestDay; day++) {
+            NavigableSet<Candidate> bucket = byDay.get(day);
+            if (bucket != null) {
+                bucket.remove(candidate);
+            }
+        }
+    }
+
+    private static boolean isPast(Slot slot) {
+        LocalDate today = LocalDate.now();
+        return slot.date().isBefore(today)
+                || (slot.date().equals(today) && slot.time() != null && slot.time().isBefore(LocalTime.now()));
+    }
+
+    private static String treatmentKey(String treatment) {
+        return treatment == null || treatment.isBlank() ? null : treatment.trim().toLowerCase();
+    }
+}
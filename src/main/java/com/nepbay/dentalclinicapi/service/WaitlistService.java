@@ -0,0 +1,247 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry.WaitlistStatus;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.repository.WaitlistRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Waitlist Service
+ * Business logic for waitlist entries and the offers made to them. Matching itself happens in
+ * WaitlistMatcher as soon as an appointment is cancelled; this service handles the patient's
+ * answer and passes a declined or expired slot on to the next candidate.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private WaitlistMatcher waitlistMatcher;
+
+    @Value("${clinic.waitlist.max-window-days:90}")
+    private int maxWindowDays;
+
+    /**
+     * Get all entries, longest waiting first, optionally filtered by status
+     */
+    public List<WaitlistEntry> getEntries(WaitlistStatus status) {
+        return status == null
+                ? waitlistRepository.findAllByOrderByCreatedAtAsc()
+                : waitlistRepository.findByStatusOrderByCreatedAtAsc(status);
+    }
+
+    /**
+     * Get entry by ID
+     */
+    public WaitlistEntry getEntryById(Long id) {
+        Optional<WaitlistEntry> entry = waitlistRepository.findById(id);
+        return entry.orElse(null);
+    }
+
+    /**
+     * Put a patient on the waitlist
+     */
+    public WaitlistEntry createEntry(WaitlistEntry entry) {
+        validate(entry);
+        entry.setId(null);
+        entry.setStatus(WaitlistStatus.WAITING);
+        entry.setOfferedAppointmentId(null);
+        entry.setOfferedDate(null);
+        entry.setOfferedTime(null);
+        entry.setOfferExpiresAt(null);
+        entry.setBookedAppointmentId(null);
+        WaitlistEntry savedEntry = waitlistRepository.save(entry);
+        waitlistMatcher.add(savedEntry);
+        return savedEntry;
+    }
+
+    /**
+     * Take a patient off the waitlist; an open offer is passed on to the next candidate
+     */
+    public WaitlistEntry removeEntry(Long id) {
+        WaitlistEntry entry = requireEntry(id);
+        if (entry.getStatus() == WaitlistStatus.WAITING && !waitlistMatcher.remove(id)) {
+            throw new ConflictException("Waitlist entry " + id + " is being offered a slot, try again");
+        }
+        entry = requireEntry(id);
+        if (entry.getStatus() == WaitlistStatus.BOOKED) {
+            throw new ConflictException("Waitlist entry " + id + " has already been booked");
+        }
+        WaitlistMatcher.Slot slot = entry.getStatus() == WaitlistStatus.OFFERED ? offeredSlot(entry) : null;
+        clearOffer(entry);
+        entry.setStatus(WaitlistStatus.REMOVED);
+        WaitlistEntry savedEntry = waitlistRepository.save(entry);
+        if (slot != null) {
+            reoffer(slot, id);
+        }
+        return savedEntry;
+    }
+
+    /**
+     * Entries holding an offer that has not been answered yet
+     */
+    public List<WaitlistEntry> getOpenOffers() {
+        return waitlistRepository.findByStatusOrderByCreatedAtAsc(WaitlistStatus.OFFERED);
+    }
+
+    /**
+     * Accept the offered slot: books an appointment for the patient
+     */
+    public WaitlistEntry acceptOffer(Long id) {
+        WaitlistEntry entry = requireOffer(id);
+        if (entry.getOfferExpiresAt() != null && entry.getOfferExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new ConflictException("The offer for waitlist entry " + id + " has expired");
+        }
+
+        Appointment appointment = new Appointment();
+        appointment.setPatientName(entry.getPatientName());
+        appointment.setAppointmentDate(entry.getOfferedDate());
+        appointment.setAppointmentTime(entry.getOfferedTime());
+        appointment.setTreatment(entry.getTreatment() != null ? entry.getTreatment() : offeredSlot(entry).treatment());
+        appointment.setNotes("Booked from waitlist (slot freed by cancelled appointment " + entry.getOfferedAppointmentId() + ")");
+
+        // Mark the entry first so a concurrent decline or expiry fails on the version check
+        Long slotAppointmentId = entry.getOfferedAppointmentId();
+        LocalDateTime expiresAt = entry.getOfferExpiresAt();
+        entry.setStatus(WaitlistStatus.BOOKED);
+        entry.setOfferExpiresAt(null);
+        WaitlistEntry savedEntry = waitlistRepository.saveAndFlush(entry);
+
+        Appointment booked;
+        try {
+            booked = appointmentService.createAppointment(appointment);
+        } catch (RuntimeException e) {
+            savedEntry.setStatus(WaitlistStatus.OFFERED);
+            savedEntry.setOfferExpiresAt(expiresAt);
+            waitlistRepository.save(savedEntry);
+            throw e;
+        }
+        savedEntry.setBookedAppointmentId(booked.getId());
+        savedEntry = waitlistRepository.save(savedEntry);
+        waitlistMatcher.close(slotAppointmentId);
+        return savedEntry;
+    }
+
+    /**
+     * Decline the offered slot: the patient keeps their place and the slot goes to the next candidate
+     */
+    public WaitlistEntry declineOffer(Long id) {
+        return returnToWaiting(requireOffer(id));
+    }
+
+    /**
+     * Put unanswered offers back on the waitlist and pass their slots on
+     */
+    @Scheduled(fixedDelayString = "${clinic.waitlist.sweep-ms:60000}", initialDelayString = "${clinic.waitlist.sweep-ms:60000}")
+    public void expireOffers() {
+        List<WaitlistEntry> expired = waitlistRepository.findByStatusAndOfferExpiresAtBefore(
+                WaitlistStatus.OFFERED, LocalDateTime.now());
+        for (WaitlistEntry entry : expired) {
+            try {
+                returnToWaiting(entry);
+                log.info("Waitlist offer to entry {} expired", entry.getId());
+            } catch (RuntimeException e) {
+                // Answered while the sweep was running
+                log.debug("Could not expire waitlist offer {}: {}", entry.getId(), e.getMessage());
+            }
+        }
+        waitlistMatcher.prune();
+    }
+
+    /**
+     * Matcher index sizes
+     */
+    public Map<String, Object> getMatcherStats() {
+        return waitlistMatcher.getStats();
+    }
+
+    private WaitlistEntry returnToWaiting(WaitlistEntry entry) {
+        WaitlistMatcher.Slot slot = offeredSlot(entry);
+        clearOffer(entry);
+        entry.setStatus(WaitlistStatus.WAITING);
+        WaitlistEntry savedEntry = waitlistRepository.saveAndFlush(entry);
+        waitlistMatcher.add(savedEntry);
+        reoffer(slot, savedEntry.getId());
+        return savedEntry;
+    }
+
+    private void reoffer(WaitlistMatcher.Slot slot, Long declinedEntryId) {
+        waitlistMatcher.release(slot.appointmentId(), declinedEntryId);
+        // Only pass the slot on while it is still free
+        Appointment cancelled = appointmentRepository.findById(slot.appointmentId()).orElse(null);
+        if (cancelled != null && cancelled.getStatus() == AppointmentStatus.CANCELLED) {
+            waitlistMatcher.offer(slot);
+        } else {
+            waitlistMatcher.close(slot.appointmentId());
+        }
+    }
+
+    private WaitlistMatcher.Slot offeredSlot(WaitlistEntry entry) {
+        Appointment cancelled = appointmentRepository.findById(entry.getOfferedAppointmentId()).orElse(null);
+        return new WaitlistMatcher.Slot(entry.getOfferedAppointmentId(), entry.getOfferedDate(), entry.getOfferedTime(),
+                cancelled != null ? cancelled.getTreatment() : entry.getTreatment());
+    }
+
+    private static void clearOffer(WaitlistEntry entry) {
+        entry.setOfferedAppointmentId(null);
+        entry.setOfferedDate(null);
+        entry.setOfferedTime(null);
+        entry.setOfferExpiresAt(null);
+    }
+
+    private WaitlistEntry requireEntry(Long id) {
+        WaitlistEntry entry = getEntryById(id);
+        if (entry == null) {
+            throw new NotFoundException("Waitlist entry not found with ID: " + id);
+        }
+        return entry;
+    }
+
+    private WaitlistEntry requireOffer(Long id) {
+        WaitlistEntry entry = requireEntry(id);
+        if (entry.getStatus() != WaitlistStatus.OFFERED) {
+            throw new ConflictException("Waitlist entry " + id + " has no open offer");
+        }
+        return entry;
+    }
+
+    private void validate(WaitlistEntry entry) {
+        if (entry.getLatestDate().isBefore(entry.getEarliestDate())) {
+            throw new IllegalArgumentException("Latest date cannot be before earliest date");
+        }
+        if (entry.getLatestDate().isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Waitlist window is already in the past");
+        }
+        if (ChronoUnit.DAYS.between(entry.getEarliestDate(), entry.getLatestDate()) >= maxWindowDays) {
+            throw new IllegalArgumentException("Waitlist window cannot be longer than " + maxWindowDays + " days");
+        }
+        if (entry.getEarliestTime() != null && entry.getLatestTime() != null
+                && entry.getLatestTime().isBefore(entry.getEarliestTime())) {
+            throw new IllegalArgumentException("Latest time cannot be before earliest time");
+        }
+    }
+}
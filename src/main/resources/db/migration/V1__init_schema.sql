@@ -0,0 +1,34 @@
+-- Dental Clinic API - initial schema
+-- Mirrors the Patient and Appointment entities (validated by ddl-auto=validate)
+
+create sequence patients_seq start with 1 increment by 50;
+create sequence appointments_seq start with 1 increment by 50;
+
+create table patients (
+    id bigint not null,
+    name varchar(100) not null,
+    phone varchar(20) not null unique,
+    email varchar(100) unique,
+    address varchar(500),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create table appointments (
+    id bigint not null,
+    patient_name varchar(100) not null,
+    appointment_date date not null,
+    appointment_time time(6),
+    treatment varchar(200),
+    notes varchar(1000),
+    status varchar(255) not null check (status in ('SCHEDULED','CONFIRMED','IN_PROGRESS','COMPLETED','CANCELLED','NO_SHOW','RESCHEDULED')),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_patients_created_at on patients (created_at);
+create index idx_appointments_date_time on appointments (appointment_date, appointment_time);
+create index idx_appointments_status on appointments (status);
+create index idx_appointments_created_at on appointments (created_at);
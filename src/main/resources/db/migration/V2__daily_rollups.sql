@@ -0,0 +1,14 @@
+-- Pre-aggregated daily metrics for the analytics API
+
+create sequence daily_rollups_seq start with 1 increment by 50;
+
+create table daily_rollups (
+    id bigint not null,
+    rollup_day date not null,
+    metric varchar(50) not null,
+    dimension varchar(200) not null,
+    metric_value float(53) not null,
+    computed_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_daily_rollups_day_metric_dimension unique (rollup_day, metric, dimension)
+);
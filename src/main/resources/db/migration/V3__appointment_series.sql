@@ -0,0 +1,39 @@
+-- Recurring appointment rules and their per-occurrence exceptions
+
+create sequence appointment_series_seq start with 1 increment by 50;
+create sequence appointment_series_exceptions_seq start with 1 increment by 50;
+
+create table appointment_series (
+    id bigint not null,
+    patient_name varchar(100) not null,
+    treatment varchar(200),
+    notes varchar(1000),
+    appointment_time time(6),
+    start_date date not null,
+    end_date date,
+    frequency varchar(20) not null check (frequency in ('DAILY','WEEKLY','MONTHLY')),
+    interval_count integer not null,
+    occurrence_count integer,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_appointment_series_dates on appointment_series (start_date, end_date);
+
+create table appointment_series_exceptions (
+    id bigint not null,
+    series_id bigint not null,
+    original_date date not null,
+    skipped boolean not null,
+    appointment_date date,
+    appointment_time time(6),
+    status varchar(20) check (status in ('SCHEDULED','CONFIRMED','IN_PROGRESS','COMPLETED','CANCELLED','NO_SHOW','RESCHEDULED')),
+    notes varchar(1000),
+    appointment_id bigint,
+    updated_at timestamp(6),
+    primary key (id),
+    constraint uk_series_exceptions_series_date unique (series_id, original_date)
+);
+
+create index idx_series_exceptions_appointment_date on appointment_series_exceptions (appointment_date);
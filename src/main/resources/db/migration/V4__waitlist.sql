@@ -0,0 +1,26 @@
+-- Waitlist entries and the slot offers made to them from cancellations
+
+create sequence waitlist_entries_seq start with 1 increment by 50;
+
+create table waitlist_entries (
+    id bigint not null,
+    patient_name varchar(100) not null,
+    phone varchar(20),
+    treatment varchar(200),
+    earliest_date date not null,
+    latest_date date not null,
+    earliest_time time(6),
+    latest_time time(6),
+    status varchar(20) not null check (status in ('WAITING','OFFERED','BOOKED','REMOVED')),
+    offered_appointment_id bigint,
+    offered_date date,
+    offered_time time(6),
+    offer_expires_at timestamp(6),
+    booked_appointment_id bigint,
+    version bigint not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    primary key (id)
+);
+
+create index idx_waitlist_entries_status on waitlist_entries (status, created_at);
@@ -0,0 +1,20 @@
+-- Treatment catalog; appointments reference it by id alongside the free-text name
+
+create sequence treatments_seq start with 1 increment by 50;
+
+create table treatments (
+    id bigint not null,
+    code varchar(60) not null,
+    name varchar(100) not null,
+    duration_minutes integer not null,
+    price numeric(10,2) not null,
+    active boolean not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    primary key (id),
+    constraint uk_treatments_code unique (code)
+);
+
+alter table appointments add column treatment_id bigint;
+
+create index idx_appointments_treatment_id on appointments (treatment_id);
@@ -0,0 +1,5 @@
+-- Appointments reference their patient by id, so a patient's chart no longer depends on name matching
+
+alter table appointments add column patient_id bigint;
+
+create index idx_appointments_patient_timeline on appointments (patient_id, appointment_date, appointment_time, id);
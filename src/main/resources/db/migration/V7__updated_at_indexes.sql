@@ -0,0 +1,4 @@
+-- Incremental backups select the rows changed since the previous backup
+
+create index idx_patients_updated_at on patients (updated_at);
+create index idx_appointments_updated_at on appointments (updated_at);
@@ -0,0 +1,17 @@
+-- Phone numbers are unique in canonical form (PatientMatching.canonicalPhone), not just as typed:
+-- "0555 456 78 90" and "+905554567890" are the same patient. Existing rows get the same
+-- normalization in SQL; merge the duplicates GET /api/patients/duplicates/scan lists before migrating.
+
+alter table patients add column canonical_phone varchar(24);
+
+update patients set canonical_phone = case
+    when regexp_replace(phone, '[^0-9]', '') = '' then null
+    when trim(phone) like '+%' then '+' || regexp_replace(phone, '[^0-9]', '')
+    when regexp_replace(phone, '[^0-9]', '') like '00%' then '+' || substring(regexp_replace(phone, '[^0-9]', ''), 3)
+    when regexp_replace(phone, '[^0-9]', '') like '0%' then '+90' || substring(regexp_replace(phone, '[^0-9]', ''), 2)
+    when length(regexp_replace(phone, '[^0-9]', '')) = 12 and regexp_replace(phone, '[^0-9]', '') like '90%'
+        then '+' || regexp_replace(phone, '[^0-9]', '')
+    else '+90' || regexp_replace(phone, '[^0-9]', '')
+end;
+
+alter table patients add constraint uk_patients_canonical_phone unique (canonical_phone);
@@ -0,0 +1,17 @@
+-- Window queries bound a series by last_date: the earlier of end_date and the date of the last
+-- counted occurrence. It used to be written into end_date itself, so raising occurrence_count later
+-- kept the old bound; end_date now only holds what the client set.
+
+alter table appointment_series add column last_date date;
+
+update appointment_series set last_date = case
+    when occurrence_count is null then end_date
+    else least(coalesce(end_date, date '9999-12-31'), case frequency
+        when 'DAILY' then dateadd(day, (occurrence_count - 1) * interval_count, start_date)
+        when 'WEEKLY' then dateadd(week, (occurrence_count - 1) * interval_count, start_date)
+        else dateadd(month, (occurrence_count - 1) * interval_count, start_date)
+    end)
+end;
+
+drop index idx_appointment_series_dates;
+create index idx_appointment_series_dates on appointment_series (start_date, last_date);
@@ -0,0 +1,128 @@
+package com.nepbay.dentalclinicapi.cache;
+
+import com.nepbay.dentalclinicapi.DentalClinicApiApplication;
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.service.AppointmentService;
+import com.nepbay.dentalclinicapi.service.CacheInvalidationBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Cross-node invalidation: two application contexts on the local hub, the sequence-gap fallback
+ * of the bus, and the UDP transport's wire format over localhost
+ */
+class CacheInvalidationBusTest {
+
+    @Test
+    void writeOnOneNodeEvictsOnTheOther() {
+        String channel = "bus-test-" + UUID.randomUUID();
+        try (ConfigurableApplicationContext nodeA = startNode(channel);
+             ConfigurableApplicationContext nodeB = startNode(channel)) {
+            AppointmentService appointmentsA = nodeA.getBean(AppointmentService.class);
+            NearCache<Appointment> cacheA = appointmentCache(nodeA);
+
+            // Both nodes seed the same sample data, so the id exists on each
+            Long id = appointmentsA.getAllAppointments().get(0).getId();
+            appointmentsA.getAppointmentById(id);
+            assertNotNull(cacheA.get(id, () -> null), "Read should have cached the appointment on node A");
+
+            nodeB.getBean(AppointmentService.class).updateAppointmentStatus(id, AppointmentStatus.CONFIRMED);
+            assertNull(cacheA.get(id, () -> null), "Write on node B should evict the entry on node A");
+        }
+    }
+
+    @Test
+    void sequenceGapClearsEveryCache() {
+        String channel = "bus-test-" + UUID.randomUUID();
+        CacheInvalidationBus bus = new CacheInvalidationBus();
+        ReflectionTestUtils.setField(bus, "transportType", "local");
+        ReflectionTestUtils.setField(bus, "channel", channel);
+        LocalInvalidationHub peer = new LocalInvalidationHub(channel);
+        bus.start();
+        peer.start(message -> {});
+        try {
+            NearCache<String> patients = bus.register(new NearCache<>(CacheInvalidationBus.PATIENTS, 60_000, 100));
+            NearCache<String> appointments = bus.register(new NearCache<>(CacheInvalidationBus.APPOINTMENTS, 60_000, 100));
+            patients.get("1", () -> "patient 1");
+            patients.get("2", () -> "patient 2");
+            appointments.get("7", () -> "appointment 7");
+
+            peer.publish(new InvalidationMessage("peer", 1, CacheInvalidationBus.PATIENTS, "1"));
+            assertNull(patients.get("1", () -> null));
+            assertEquals("patient 2", patients.get("2", () -> null));
+            assertEquals("appointment 7", appointments.get("7", () -> null));
+
+            // Sequence 2 was lost: the receiver cannot know its key, so everything goes
+            peer.publish(new InvalidationMessage("peer", 3, CacheInvalidationBus.PATIENTS, "9"));
+            assertNull(patients.get("2", () -> null));
+            assertNull(appointments.get("7", () -> null));
+            assertEquals(1L, bus.getStats().get("sequenceGaps"));
+        } finally {
+            peer.close();
+            bus.stop();
+        }
+    }
+
+    @Test
+    void udpRoundTrip() throws Exception {
+        int senderPort = freePort();
+        int receiverPort = freePort();
+        BlockingQueue<InvalidationMessage> delivered = new LinkedBlockingQueue<>();
+        UdpInvalidationTransport sender = new UdpInvalidationTransport(senderPort,
+                List.of(new InetSocketAddress("127.0.0.1", receiverPort)));
+        UdpInvalidationTransport receiver = new UdpInvalidationTransport(receiverPort, List.of());
+        receiver.start(delivered::add);
+        sender.start(message -> {});
+        try {
+            InvalidationMessage key = new InvalidationMessage("node-a", 1, CacheInvalidationBus.APPOINTMENTS, "42");
+            InvalidationMessage all = new InvalidationMessage("node-a", 2, CacheInvalidationBus.TREATMENTS, null);
+            sender.publish(key);
+            sender.publish(all);
+            assertEquals(key, delivered.poll(5, TimeUnit.SECONDS));
+            assertEquals(all, delivered.poll(5, TimeUnit.SECONDS));
+        } finally {
+            sender.close();
+            receiver.close();
+        }
+    }
+
+    // One more app instance in this JVM, with its own in-memory database. Passed as arguments:
+    // default properties would lose to application.properties and share the test context's database.
+    private static ConfigurableApplicationContext startNode(String channel) {
+        return new SpringApplicationBuilder(DentalClinicApiApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID(),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--clinic.cache.bus.transport=local",
+                "--clinic.cache.bus.channel=" + channel
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NearCache<Appointment> appointmentCache(ConfigurableApplicationContext context) {
+        return (NearCache<Appointment>) context.getBeanProvider(
+                ResolvableType.forClassWithGenerics(NearCache.class, Appointment.class)).getObject();
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
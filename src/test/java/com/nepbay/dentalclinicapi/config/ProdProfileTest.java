@@ -0,0 +1,46 @@
+package com.nepbay.dentalclinicapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The prod profile on its own in-memory database: the actuator endpoints operators rely on stay exposed
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:prod-profile-test",
+    "clinic.data-dir=target/test-data/prod-profile",
+    "clinic.cache.bus.transport=none",
+    "clinic.seed.async=false"
+})
+@ActiveProfiles("prod")
+@AutoConfigureMockMvc
+@DirtiesContext
+class ProdProfileTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void exposeSlowQueryLog() throws Exception {
+        mockMvc.perform(get("/actuator/slowqueries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true));
+    }
+
+    @Test
+    void exposeHealthAndMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics/hikaricp.connections.max"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value").value(10.0));
+    }
+}
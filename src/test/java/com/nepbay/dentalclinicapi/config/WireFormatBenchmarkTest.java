@@ -0,0 +1,81 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nepbay.dentalclinicapi.service.AppointmentService;
+import com.nepbay.dentalclinicapi.service.PatientService;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CBOR against JSON payload size (raw and gzipped) and encode time for the list endpoints' bodies.
+ * Reports only, no thresholds; left out of "mvn test", run with: mvn -Pbenchmark test
+ */
+@QueryBudgetTest
+@Tag("benchmark")
+class WireFormatBenchmarkTest {
+
+    private static final int ENCODE_ROUNDS = 2_000;
+
+    @Autowired
+    private ObjectMapper jsonMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Test
+    void measureSizeAndEncodeTime() throws Exception {
+        ObjectMapper cborMapper = cborConverter.getObjectMapper();
+        Map<String, List<?>> bodies = Map.of(
+                "appointments", appointmentService.getAllAppointments(),
+                "patients", patientService.getAllPatients());
+        for (Map.Entry<String, List<?>> entry : bodies.entrySet()) {
+            List<?> body = entry.getValue();
+            byte[] json = jsonMapper.writeValueAsBytes(body);
+            byte[] cbor = cborMapper.writeValueAsBytes(body);
+            report("%s (%d rows): JSON %d B (gzip %d B), CBOR %d B (gzip %d B)", entry.getKey(), body.size(),
+                    json.length, gzip(json).length, cbor.length, gzip(cbor).length);
+
+            // Warm up both writers first, so the rounds time steady-state encoding
+            encode(jsonMapper, body, ENCODE_ROUNDS);
+            encode(cborMapper, body, ENCODE_ROUNDS);
+            long jsonNanos = encode(jsonMapper, body, ENCODE_ROUNDS);
+            long cborNanos = encode(cborMapper, body, ENCODE_ROUNDS);
+            report("%s (%d rows): JSON %.1f us/encode, CBOR %.1f us/encode", entry.getKey(), body.size(),
+                    jsonNanos / 1000.0 / ENCODE_ROUNDS, cborNanos / 1000.0 / ENCODE_ROUNDS);
+        }
+    }
+
+    private static long encode(ObjectMapper mapper, Object body, int rounds) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            mapper.writeValueAsBytes(body);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(payload);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void report(String format, Object... args) {
+        System.out.println("wire-format " + String.format(format, args));
+    }
+}
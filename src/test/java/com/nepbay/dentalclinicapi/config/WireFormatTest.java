@@ -0,0 +1,52 @@
+package com.nepbay.dentalclinicapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * CBOR against JSON on the same endpoints: both carry the same document, CBOR is the smaller one.
+ * Payload sizes and encode times are measured by WireFormatBenchmarkTest (mvn -Pbenchmark test).
+ */
+@QueryBudgetTest
+class WireFormatTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper jsonMapper;
+
+    private final ObjectMapper cborReader = new ObjectMapper(new CBORFactory());
+
+    @Test
+    void negotiateCborWithTheSameContent() throws Exception {
+        for (String path : List.of("/api/appointments", "/api/patients")) {
+            byte[] json = fetch(path, MediaType.APPLICATION_JSON);
+            byte[] cbor = fetch(path, MediaType.APPLICATION_CBOR);
+
+            assertEquals(jsonMapper.readTree(json), cborReader.readTree(cbor), path);
+            assertTrue(cbor.length < json.length, path + ": CBOR " + cbor.length + " B, JSON " + json.length + " B");
+        }
+    }
+
+    private byte[] fetch(String path, MediaType format) throws Exception {
+        MvcResult result = mockMvc.perform(get(path).accept(format))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(format))
+                .andReturn();
+        return result.getResponse().getContentAsByteArray();
+    }
+}
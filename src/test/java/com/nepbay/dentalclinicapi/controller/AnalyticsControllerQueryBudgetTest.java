@@ -0,0 +1,142 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.service.DatabaseGuard;
+import com.nepbay.dentalclinicapi.service.PatientService;
+import com.nepbay.dentalclinicapi.service.RollupService;
+import com.nepbay.dentalclinicapi.support.DatabaseOutages;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for the rollup time series, and how writes reach the rollups
+ */
+@QueryBudgetTest
+class AnalyticsControllerQueryBudgetTest {
+
+    private static final AtomicInteger PHONE_SUFFIX = new AtomicInteger(1000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Test
+    void getTimeSeries() throws Exception {
+        LocalDate today = LocalDate.now();
+        perform("analytics.timeseries", get("/api/analytics/timeseries")
+                .param("metric", RollupService.APPOINTMENTS)
+                .param("from", today.minusMonths(3).toString())
+                .param("to", today.toString())
+                .param("granularity", "week"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.points[0].period").value(today.minusMonths(3).with(DayOfWeek.MONDAY).toString()));
+    }
+
+    @Test
+    void rejectUnknownMetric() throws Exception {
+        mockMvc.perform(get("/api/analytics/timeseries")
+                        .param("metric", "appointments.dentist")
+                        .param("from", "2026-01-01")
+                        .param("to", "2026-01-31"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+    }
+
+    @Test
+    void rejectSeriesWithTooManyBuckets() throws Exception {
+        mockMvc.perform(get("/api/analytics/timeseries")
+                        .param("metric", RollupService.APPOINTMENTS)
+                        .param("from", "0001-01-01")
+                        .param("to", "9999-12-31"))
+                .andExpect(status().isBadRequest());
+        // Eleven years are too many days, but fine by month
+        mockMvc.perform(get("/api/analytics/timeseries")
+                        .param("metric", RollupService.APPOINTMENTS)
+                        .param("from", "2016-01-01")
+                        .param("to", "2026-12-31"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/analytics/timeseries")
+                        .param("metric", RollupService.APPOINTMENTS)
+                        .param("from", "2016-01-01")
+                        .param("to", "2026-12-31")
+                        .param("granularity", "month"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.points.length()").value(132));
+    }
+
+    @Test
+    void countPatientRegisteredToday() {
+        rollupService.refreshDirtyDays();
+        int registeredBefore = patientService.getPatientsRegisteredToday().size();
+        double rolledUpBefore = newPatientsToday();
+
+        Patient patient = patientService.createPatient(new Patient("Rollup Newcomer", nextPhone()));
+        try {
+            assertEquals(registeredBefore + 1, patientService.getPatientsRegisteredToday().size());
+            assertTrue(patientService.getPatientsRegisteredToday().stream().anyMatch(p -> p.getId().equals(patient.getId())));
+
+            rollupService.refreshDirtyDays();
+            assertEquals(rolledUpBefore + 1, newPatientsToday());
+        } finally {
+            patientService.deletePatient(patient.getId());
+            rollupService.refreshDirtyDays();
+        }
+        assertEquals(rolledUpBefore, newPatientsToday());
+    }
+
+    @Test
+    void keepDaysDirtyWhenRefreshFails() {
+        rollupService.refreshDirtyDays();
+        double before = newPatientsToday();
+
+        Patient patient = patientService.createPatient(new Patient("Rollup Retry", nextPhone()));
+        try {
+            DatabaseOutages.openAllBreakers(databaseGuard);
+            try {
+                rollupService.refreshDirtyDays();
+            } finally {
+                databaseGuard.reset();
+            }
+            // The failed run must leave today dirty, so the next one picks the patient up
+            rollupService.refreshDirtyDays();
+            assertEquals(before + 1, newPatientsToday());
+        } finally {
+            patientService.deletePatient(patient.getId());
+            rollupService.refreshDirtyDays();
+        }
+    }
+
+    private double newPatientsToday() {
+        return rollupService.getTotal(RollupService.NEW_PATIENTS, LocalDate.now(), LocalDate.now());
+    }
+
+    private static String nextPhone() {
+        return "0543-100-" + PHONE_SUFFIX.incrementAndGet();
+    }
+
+    private ResultActions perform(String budget, MockHttpServletRequestBuilder request) throws Exception {
+        return QueryBudgets.assertWithinBudget(budget, () -> mockMvc.perform(request));
+    }
+}
@@ -0,0 +1,195 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.service.CacheInvalidationBus;
+import com.nepbay.dentalclinicapi.service.DatabaseGuard;
+import com.nepbay.dentalclinicapi.support.DatabaseOutages;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for every AppointmentController endpoint
+ */
+@QueryBudgetTest
+class AppointmentControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Test
+    void getAllAppointments() throws Exception {
+        perform("appointments.list", get("/api/appointments")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getAppointmentById() throws Exception {
+        Appointment appointment = newAppointment("Budget Lookup");
+        perform("appointments.get", get("/api/appointments/{id}", appointment.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void getAppointmentHistory() throws Exception {
+        Appointment appointment = newAppointment("Budget History");
+        perform("appointments.history", get("/api/appointments/{id}/history", appointment.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void createAppointment() throws Exception {
+        perform("appointments.create", post("/api/appointments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("Budget Create")))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void updateAppointment() throws Exception {
+        Appointment appointment = newAppointment("Budget Update");
+        perform("appointments.update", put("/api/appointments/{id}", appointment.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("Budget Updated")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void deleteAppointment() throws Exception {
+        Appointment appointment = newAppointment("Budget Delete");
+        perform("appointments.delete", delete("/api/appointments/{id}", appointment.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void updateAppointmentStatus() throws Exception {
+        Appointment appointment = newAppointment("Budget Status");
+        perform("appointments.status", patch("/api/appointments/{id}/status", appointment.getId())
+                .param("status", "CANCELLED"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void searchAppointments() throws Exception {
+        perform("appointments.search", get("/api/appointments/search").param("patient", "john")).andExpect(status().isOk());
+    }
+
+    @Test
+    void searchAppointmentText() throws Exception {
+        perform("appointments.search.text", get("/api/appointments/search/text").param("q", "root canal"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getSearchIndexInfo() throws Exception {
+        perform("appointments.search.index", get("/api/appointments/search/index")).andExpect(status().isOk());
+    }
+
+    @Test
+    void rebuildSearchIndex() throws Exception {
+        perform("appointments.search.rebuild", post("/api/appointments/search/rebuild")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getTodayAppointments() throws Exception {
+        perform("appointments.today", get("/api/appointments/today")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getUpcomingAppointments() throws Exception {
+        perform("appointments.upcoming", get("/api/appointments/upcoming")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getAvailability() throws Exception {
+        perform("appointments.availability", get("/api/appointments/availability")
+                .param("date", LocalDate.now().plusDays(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.chairs").value(3))
+                .andExpect(jsonPath("$.slots.length()").value(18));
+    }
+
+    @Test
+    void serveLastKnownListsWhileDatabaseUnavailable() throws Exception {
+        mockMvc.perform(get("/api/appointments/today")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/appointments/upcoming")).andExpect(status().isOk());
+        cacheInvalidationBus.invalidateAll(CacheInvalidationBus.CALENDAR);
+        DatabaseOutages.openAllBreakers(databaseGuard);
+        try {
+            mockMvc.perform(get("/api/appointments/today"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(HttpHeaders.WARNING))
+                    .andExpect(header().exists("X-Stale-Since"));
+            mockMvc.perform(get("/api/appointments/upcoming"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(HttpHeaders.WARNING));
+            mockMvc.perform(get("/api/appointments/date-range")
+                            .param("startDate", LocalDate.now().toString())
+                            .param("endDate", LocalDate.now().plusDays(7).toString()))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                    .andExpect(jsonPath("$.operation").value("read"));
+        } finally {
+            databaseGuard.reset();
+        }
+    }
+
+    @Test
+    void getThisWeekAppointments() throws Exception {
+        perform("appointments.week", get("/api/appointments/week")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getThisMonthAppointments() throws Exception {
+        perform("appointments.month", get("/api/appointments/month")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getCachedCalendarViews() throws Exception {
+        for (String view : new String[] {"today", "week", "month"}) {
+            mockMvc.perform(get("/api/appointments/" + view)).andExpect(status().isOk());
+            perform("appointments.calendar.cached", get("/api/appointments/" + view)).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void getAppointmentsByDateRange() throws Exception {
+        LocalDate today = LocalDate.now();
+        perform("appointments.date-range", get("/api/appointments/date-range")
+                .param("startDate", today.toString())
+                .param("endDate", today.plusDays(14).toString()))
+                .andExpect(status().isOk());
+    }
+
+    private ResultActions perform(String budget, MockHttpServletRequestBuilder request) throws Exception {
+        return QueryBudgets.assertWithinBudget(budget, () -> mockMvc.perform(request));
+    }
+
+    private Appointment newAppointment(String patientName) {
+        return appointmentRepository.save(new Appointment(patientName, LocalDate.now().plusDays(3), LocalTime.of(11, 0), "Teeth Cleaning"));
+    }
+
+    private static String json(String patientName) {
+        return "{\"patientName\":\"" + patientName + "\",\"appointmentDate\":\"" + LocalDate.now().plusDays(2)
+                + "\",\"appointmentTime\":\"10:00\",\"treatment\":\"Tooth Filling\"}";
+    }
+}
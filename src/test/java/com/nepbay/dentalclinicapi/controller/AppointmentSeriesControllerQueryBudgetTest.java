@@ -0,0 +1,134 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.AppointmentSeries;
+import com.nepbay.dentalclinicapi.model.AppointmentSeries.Frequency;
+import com.nepbay.dentalclinicapi.service.AppointmentSeriesService;
+import com.nepbay.dentalclinicapi.service.AppointmentService;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for booking series occurrences, and the bounds of a counted series
+ */
+@QueryBudgetTest
+class AppointmentSeriesControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AppointmentSeriesService seriesService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    private final List<Long> createdSeries = new ArrayList<>();
+    private final List<Long> bookedAppointments = new ArrayList<>();
+
+    @AfterEach
+    void removeTestData() {
+        bookedAppointments.forEach(appointmentService::deleteAppointment);
+        createdSeries.forEach(seriesService::deleteSeries);
+    }
+
+    @Test
+    void bookOccurrence() throws Exception {
+        AppointmentSeries series = newSeries("Series Booker", LocalDate.now().plusDays(50), 4);
+        perform("series.book", post("/api/appointment-series/{id}/occurrences/{date}/book",
+                series.getId(), series.getStartDate()))
+                .andExpect(status().isCreated());
+        bookedAppointments.addAll(appointmentIds(series.getStartDate(), "Series Booker"));
+    }
+
+    @Test
+    void raisingOccurrenceCountExtendsSeries() {
+        LocalDate start = LocalDate.now().plusDays(60);
+        AppointmentSeries series = newSeries("Series Extender", start, 3);
+        assertEquals(start.plusWeeks(2), series.getLastDate());
+
+        series.setOccurrenceCount(6);
+        AppointmentSeries updated = seriesService.updateSeries(series.getId(), series);
+        assertEquals(start.plusWeeks(5), updated.getLastDate());
+
+        // The window after the old last occurrence must still find the series
+        List<Appointment> later = appointmentService.getAppointmentsByDateRange(start.plusWeeks(3), start.plusWeeks(6));
+        assertEquals(3, later.stream().filter(a -> series.getId().equals(a.getSeriesId())).count());
+    }
+
+    @Test
+    void bookSameOccurrenceOnceUnderConcurrency() throws Exception {
+        LocalDate start = LocalDate.now().plusDays(70);
+        AppointmentSeries series = newSeries("Series Racer", start, 2);
+
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        int succeeded = 0;
+        try {
+            List<Future<Appointment>> bookings = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                bookings.add(threads.submit(() -> {
+                    go.await();
+                    return appointmentService.bookSeriesOccurrence(series.getId(), start);
+                }));
+            }
+            go.countDown();
+            for (Future<Appointment> booking : bookings) {
+                try {
+                    booking.get();
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof RuntimeException);
+                }
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        List<Long> booked = appointmentIds(start, "Series Racer");
+        bookedAppointments.addAll(booked);
+        assertEquals(1, succeeded);
+        assertEquals(1, booked.size(), "Losing bookings must not leave appointments behind");
+    }
+
+    private AppointmentSeries newSeries(String patientName, LocalDate start, int occurrences) {
+        AppointmentSeries series = new AppointmentSeries(patientName, "Check-up", start, Frequency.WEEKLY, 1);
+        series.setAppointmentTime(LocalTime.of(10, 0));
+        series.setOccurrenceCount(occurrences);
+        AppointmentSeries saved = seriesService.createSeries(series);
+        createdSeries.add(saved.getId());
+        return saved;
+    }
+
+    // Regular (booked) appointments of the patient on that day
+    private List<Long> appointmentIds(LocalDate date, String patientName) {
+        return appointmentService.getAppointmentsByDateRange(date, date).stream()
+                .filter(a -> a.getId() != null && patientName.equals(a.getPatientName()))
+                .map(Appointment::getId)
+                .toList();
+    }
+
+    private ResultActions perform(String budget, MockHttpServletRequestBuilder request) throws Exception {
+        return QueryBudgets.assertWithinBudget(budget, () -> mockMvc.perform(request));
+    }
+}
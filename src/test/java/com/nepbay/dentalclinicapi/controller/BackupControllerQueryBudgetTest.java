@@ -0,0 +1,95 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.backup.BackupManifest;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.repository.PatientRepository;
+import com.nepbay.dentalclinicapi.service.BackupService;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for the backup admin endpoints, and a restore round trip
+ */
+@QueryBudgetTest
+class BackupControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void getAllBackups() throws Exception {
+        perform("admin.backups.list", get("/api/admin/backups")).andExpect(status().isOk());
+    }
+
+    @Test
+    void createFullBackup() throws Exception {
+        perform("admin.backups.create", post("/api/admin/backups").param("type", "full"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.type").value("full"));
+    }
+
+    @Test
+    void createIncrementalBackup() throws Exception {
+        backupService.createBackup(BackupManifest.FULL);
+        perform("admin.backups.create.incremental", post("/api/admin/backups").param("type", "incremental"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.parent").isNotEmpty());
+    }
+
+    @Test
+    void verifyBackup() throws Exception {
+        BackupManifest backup = backupService.createBackup(BackupManifest.FULL);
+        perform("admin.backups.verify", post("/api/admin/backups/{id}/verify", backup.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true));
+    }
+
+    @Test
+    void restoreBackup() throws Exception {
+        long patients = patientRepository.count();
+        long appointments = appointmentRepository.count();
+        BackupManifest backup = backupService.createBackup(BackupManifest.FULL);
+        // No budget: rebuilding the rollups issues one insert per stored rollup
+        mockMvc.perform(post("/api/admin/backups/{id}/restore", backup.id()).param("threads", "2"))
+                .andExpect(status().isOk());
+        assertEquals(patients, patientRepository.count());
+        assertEquals(appointments, appointmentRepository.count());
+        perform("admin.backups.restore-status", get("/api/admin/backups/restore-status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(backup.id()))
+                .andExpect(jsonPath("$.state").value("succeeded"));
+    }
+
+    @Test
+    void rejectUnknownBackup() throws Exception {
+        mockMvc.perform(get("/api/admin/backups/{id}", "../../etc")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/admin/backups/{id}", "20000101-000000000-full"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.error").value("Not Found"));
+        mockMvc.perform(post("/api/admin/backups/{id}/restore", "20000101-000000000-full")).andExpect(status().isNotFound());
+    }
+
+    private ResultActions perform(String budget, MockHttpServletRequestBuilder request) throws Exception {
+        return QueryBudgets.assertWithinBudget(budget, () -> mockMvc.perform(request));
+    }
+}
@@ -0,0 +1,82 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Batch endpoint: sub-requests answered in order, identical reads deduplicated, writes visible to
+ * later reads. Sub-requests run on batch threads, so only the batch stats endpoint has a budget.
+ */
+@QueryBudgetTest
+class BatchControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void executeBatch() throws Exception {
+        String range = "/api/appointments/date-range?startDate=" + LocalDate.now() + "&endDate=" + LocalDate.now().plusDays(7);
+        mockMvc.perform(post("/api/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\": ["
+                                + "{\"id\": \"stats\", \"path\": \"/api/dashboard/quick-stats\"},"
+                                + "{\"id\": \"range\", \"path\": \"" + range + "\"},"
+                                + "{\"id\": \"same-range\", \"path\": \"" + range + "\"},"
+                                + "{\"id\": \"missing\", \"path\": \"/api/patients/999999\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responses.length()").value(4))
+                .andExpect(jsonPath("$.responses[0].id").value("stats"))
+                .andExpect(jsonPath("$.responses[0].status").value(200))
+                .andExpect(jsonPath("$.responses[0].body.patients").exists())
+                .andExpect(jsonPath("$.responses[1].status").value(200))
+                .andExpect(jsonPath("$.responses[3].status").value(404))
+                .andExpect(jsonPath("$.deduplicatedCalls").value(greaterThanOrEqualTo(1)));
+    }
+
+    @Test
+    void writeIsVisibleToLaterReads() throws Exception {
+        mockMvc.perform(post("/api/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\": ["
+                                + "{\"path\": \"/api/patients/search?name=Batch Visible\"},"
+                                + "{\"method\": \"POST\", \"path\": \"/api/patients\", \"body\": {\"name\": \"Batch Visible\", \"phone\": \"0555-000-0417\"}},"
+                                + "{\"path\": \"/api/patients/search?name=Batch Visible\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.responses[0].body.length()").value(0))
+                .andExpect(jsonPath("$.responses[1].status").value(201))
+                .andExpect(jsonPath("$.responses[2].id").value("2"))
+                .andExpect(jsonPath("$.responses[2].body.length()").value(1));
+    }
+
+    @Test
+    void rejectNestedBatch() throws Exception {
+        mockMvc.perform(post("/api/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\": [{\"method\": \"POST\", \"path\": \"/api/batch\"}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rejectReactiveEndpoints() throws Exception {
+        mockMvc.perform(post("/api/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requests\": [{\"method\": \"GET\", \"path\": \"/api/v2/appointments\"}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getBatchStats() throws Exception {
+        QueryBudgets.assertWithinBudget("batch.stats", () -> mockMvc.perform(get("/api/batch/stats")))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,86 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.service.DatabaseGuard;
+import com.nepbay.dentalclinicapi.support.DatabaseOutages;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for every DashboardController endpoint
+ */
+@QueryBudgetTest
+class DashboardControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DatabaseGuard databaseGuard;
+
+    @Test
+    void getDashboardStats() throws Exception {
+        perform("dashboard.stats", get("/api/dashboard/stats")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getRecentActivity() throws Exception {
+        perform("dashboard.recent-activity", get("/api/dashboard/recent-activity")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getQuickStats() throws Exception {
+        perform("dashboard.quick-stats", get("/api/dashboard/quick-stats")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getCacheStats() throws Exception {
+        perform("dashboard.cache", get("/api/dashboard/cache")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getResilienceStats() throws Exception {
+        perform("dashboard.resilience", get("/api/dashboard/resilience"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read.circuit.state").value("CLOSED"));
+    }
+
+    @Test
+    void serveLastKnownStatsWhileDatabaseUnavailable() throws Exception {
+        mockMvc.perform(get("/api/dashboard/stats")).andExpect(status().isOk());
+        DatabaseOutages.openAllBreakers(databaseGuard);
+        try {
+            mockMvc.perform(get("/api/dashboard/stats"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.WARNING, startsWith("110")))
+                    .andExpect(jsonPath("$.stale").value(true))
+                    .andExpect(jsonPath("$.totalPatients").exists());
+            // No fallback for recent activity: a structured 503 the client can back off on
+            mockMvc.perform(get("/api/dashboard/recent-activity"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                    .andExpect(jsonPath("$.status").value(503))
+                    .andExpect(jsonPath("$.path").value("/api/dashboard/recent-activity"));
+        } finally {
+            databaseGuard.reset();
+        }
+        mockMvc.perform(get("/api/dashboard/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.WARNING));
+    }
+
+    private ResultActions perform(String budget, MockHttpServletRequestBuilder request) throws Exception {
+        return QueryBudgets.assertWithinBudget(budget, () -> mockMvc.perform(request));
+    }
+}
@@ -0,0 +1,272 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.repository.PatientRepository;
+import com.nepbay.dentalclinicapi.service.AppointmentService;
+import com.nepbay.dentalclinicapi.service.AuditService;
+import com.nepbay.dentalclinicapi.service.IdempotencyService;
+import com.nepbay.dentalclinicapi.service.PatientTimelineService;
+import com.nepbay.dentalclinicapi.service.PatientTimelineService.TimelineEntry;
+import com.nepbay.dentalclinicapi.service.PatientTimelineService.TimelinePage;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for every PatientController endpoint
+ */
+@QueryBudgetTest
+class PatientControllerQueryBudgetTest {
+
+    private static final AtomicInteger PHONE_SUFFIX = new AtomicInteger(1000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private PatientTimelineService timelineService;
+
+    @Test
+    void getAllPatients() throws Exception {
+        perform("patients.list", get("/api/patients")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getPatientById() throws Exception {
+        Patient patient = newPatient("Budget Lookup");
+        perform("patients.get", get("/api/patients/{id}", patient.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void getPatientHistory() throws Exception {
+        Patient patient = newPatient("Budget History");
+        perform("patients.history", get("/api/patients/{id}/history", patient.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void getPatientTimeline() throws Exception {
+        Patient patient = newPatientWithAppointments("Budget Timeline");
+        perform("patients.timeline", get("/api/patients/{id}/timeline", patient.getId()).param("limit", "2"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getCachedPatientTimeline() throws Exception {
+        Patient patient = newPatientWithAppointments("Budget Timeline Cached");
+        awaitAuditWriter();
+        mockMvc.perform(get("/api/patients/{id}/timeline", patient.getId())).andExpect(status().isOk());
+        perform("patients.timeline.cached", get("/api/patients/{id}/timeline", patient.getId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void pageThroughTimelineWithHistory() throws Exception {
+        Patient patient = newPatientWithAppointments("Budget Timeline Paging");
+        for (Long id : appointmentRepository.findIdsByPatientId(patient.getId())) {
+            appointmentService.updateAppointmentStatus(id, AppointmentStatus.CONFIRMED);
+            appointmentService.updateAppointmentStatus(id, AppointmentStatus.SCHEDULED);
+        }
+        awaitAuditWriter();
+
+        List<TimelineEntry> everything = timelineService.getPage(patient.getId(), null, 100).entries();
+        assertEquals(9, everything.size());
+
+        // Small pages read only part of the audit trail each, and together still give the whole timeline
+        List<TimelineEntry> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            TimelinePage page = timelineService.getPage(patient.getId(), cursor, 2);
+            paged.addAll(page.entries());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(everything, paged);
+    }
+
+    @Test
+    void moveAppointmentOutOfCachedTimeline() throws Exception {
+        Patient from = newPatientWithAppointments("Budget Timeline Mover");
+        Patient to = newPatient("Budget Timeline Receiver");
+        awaitAuditWriter();
+        assertEquals(3, timelineService.getPage(from.getId(), null, 10).entries().size());
+
+        Appointment moved = appointmentRepository.findById(appointmentRepository.findIdsByPatientId(from.getId()).get(0)).orElseThrow();
+        Appointment update = new Appointment(to.getName(), moved.getAppointmentDate(), moved.getAppointmentTime(), moved.getTreatment());
+        update.setPatientId(to.getId());
+        appointmentService.updateAppointment(moved.getId(), update);
+
+        // The cached first page of the old chart must not keep showing the appointment
+        assertEquals(2, timelineService.getPage(from.getId(), null, 10).entries().stream()
+                .filter(entry -> PatientTimelineService.TYPE_APPOINTMENT.equals(entry.type())).count());
+    }
+
+    @Test
+    void linkAppointmentsByUniqueName() {
+        Patient unique = newPatient("Budget Linker Unique");
+        newPatient("Budget Linker Twin");
+        newPatient("Budget Linker Twin");
+        Appointment byUniqueName = appointmentRepository.save(
+                new Appointment("budget linker unique", LocalDate.now().plusDays(5), LocalTime.of(10, 0), "Teeth Cleaning"));
+        Appointment byTwinName = appointmentRepository.save(
+                new Appointment("Budget Linker Twin", LocalDate.now().plusDays(5), LocalTime.of(11, 0), "Teeth Cleaning"));
+
+        timelineService.linkPatients();
+
+        assertEquals(unique.getId(), appointmentRepository.findById(byUniqueName.getId()).orElseThrow().getPatientId());
+        assertNull(appointmentRepository.findById(byTwinName.getId()).orElseThrow().getPatientId(), "Namesakes must stay unlinked");
+    }
+
+    @Test
+    void createPatient() throws Exception {
+        perform("patients.create", post("/api/patients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("Budget Create", nextPhone())))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void createPatientWithTakenPhone() throws Exception {
+        // A seeded patient's number written differently is still taken
+        perform("patients.create.duplicate", post("/api/patients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("Budget Duplicate", "+90 555 123 45 67")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.message").value("A patient with this phone number already exists"))
+                .andExpect(jsonPath("$.path").value("/api/patients"));
+    }
+
+    @Test
+    void replayCreateWithSameIdempotencyKey() throws Exception {
+        String body = json("Budget Idempotent", nextPhone());
+        mockMvc.perform(post("/api/patients").header(IdempotencyService.HEADER, "replay-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+        perform("patients.create.replay", post("/api/patients").header(IdempotencyService.HEADER, "replay-1")
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void rejectPhoneInAnotherFormatInDatabase() {
+        // Past the index (a write on another node), the canonical phone constraint still holds
+        assertThrows(DataIntegrityViolationException.class,
+                () -> patientRepository.save(new Patient("Budget Other Node", "+90 555 123 45 67")));
+    }
+
+    @Test
+    void updatePatient() throws Exception {
+        Patient patient = newPatient("Budget Update");
+        perform("patients.update", put("/api/patients/{id}", patient.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json("Budget Updated", patient.getPhone())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void deletePatient() throws Exception {
+        Patient patient = newPatient("Budget Delete");
+        perform("patients.delete", delete("/api/patients/{id}", patient.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void getPatientByPhone() throws Exception {
+        perform("patients.by-phone", get("/api/patients/by-phone/{phone}", "05551234567"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("John Doe"));
+        perform("patients.by-phone", get("/api/patients/by-phone/{phone}", "0500-000-0000"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void searchPatients() throws Exception {
+        perform("patients.search", get("/api/patients/search").param("name", "john")).andExpect(status().isOk());
+    }
+
+    @Test
+    void checkDuplicates() throws Exception {
+        perform("patients.duplicates.check", get("/api/patients/duplicates/check")
+                .param("name", "Jon Doe").param("phone", "05551234567"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void scanDuplicates() throws Exception {
+        perform("patients.duplicates.scan", get("/api/patients/duplicates/scan")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getPatientCount() throws Exception {
+        perform("patients.count", get("/api/patients/count")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getRecentPatients() throws Exception {
+        perform("patients.recent", get("/api/patients/recent")).andExpect(status().isOk());
+    }
+
+    private ResultActions perform(String budget, MockHttpServletRequestBuilder request) throws Exception {
+        return QueryBudgets.assertWithinBudget(budget, () -> mockMvc.perform(request));
+    }
+
+    private Patient newPatient(String name) {
+        return patientRepository.save(new Patient(name, nextPhone(), null, "Budget Street"));
+    }
+
+    private Patient newPatientWithAppointments(String name) {
+        Patient patient = newPatient(name);
+        for (int i = 1; i <= 3; i++) {
+            Appointment appointment = new Appointment(name, LocalDate.now().plusDays(i), LocalTime.of(9, 0), "Teeth Cleaning");
+            appointment.setPatientId(patient.getId());
+            appointmentRepository.save(appointment);
+        }
+        return patient;
+    }
+
+    // Pages built while audit records are still queued are neither complete nor cached
+    private void awaitAuditWriter() throws InterruptedException {
+        for (int i = 0; i < 100 && auditService.hasPendingRecords(); i++) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static String nextPhone() {
+        return "0544-000-" + PHONE_SUFFIX.incrementAndGet();
+    }
+
+    private static String json(String name, String phone) {
+        return "{\"name\":\"" + name + "\",\"phone\":\"" + phone + "\",\"address\":\"Budget Street\"}";
+    }
+}
@@ -0,0 +1,201 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.repository.PatientRepository;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The R2DBC-backed /api/v2 reads against the seeded sample data: the same rows and counts as v1,
+ * read from the same in-memory database, as a JSON array or streamed as NDJSON
+ */
+@QueryBudgetTest
+class ReactiveReadControllerTest {
+
+    private static final String[] APPOINTMENT_FIELDS =
+            {"patientName", "patientId", "appointmentDate", "appointmentTime", "treatment", "status", "notes"};
+
+    private static final String[] PATIENT_FIELDS = {"name", "phone", "email", "address"};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void listSameAppointmentsAsV1() throws Exception {
+        Map<Long, List<String>> all = appointments(v2("/api/v2/appointments"));
+        assertFalse(all.isEmpty(), "Sample data should hold appointments");
+        assertEquals(appointments(v1("/api/appointments")), all);
+
+        for (String view : List.of("today", "upcoming", "week", "month")) {
+            assertEquals(appointments(v1("/api/appointments/" + view)), appointments(v2("/api/v2/appointments/" + view)), view);
+        }
+
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        String range = "/date-range?startDate=" + monday.minusWeeks(4) + "&endDate=" + monday.plusWeeks(4);
+        assertEquals(appointments(v1("/api/appointments" + range)), appointments(v2("/api/v2/appointments" + range)));
+    }
+
+    @Test
+    void getAppointmentByIdAsV1() throws Exception {
+        Long id = appointments(v2("/api/v2/appointments")).keySet().iterator().next();
+        JsonNode v2 = v2("/api/v2/appointments/" + id);
+        assertEquals(id, v2.get("id").asLong());
+        assertEquals(appointments(v1("/api/appointments/" + id)), appointments(v2));
+
+        MvcResult missing = mockMvc.perform(get("/api/v2/appointments/{id}", Long.MAX_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(missing)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listSamePatientsAsV1() throws Exception {
+        Map<Long, List<String>> all = patients(v2("/api/v2/patients"));
+        assertFalse(all.isEmpty(), "Sample data should hold patients");
+        assertEquals(patients(v1("/api/patients")), all);
+
+        Long id = all.keySet().iterator().next();
+        assertEquals(patients(v1("/api/patients/" + id)), patients(v2("/api/v2/patients/" + id)));
+
+        String name = all.get(id).get(0).split(" ")[0];
+        Map<Long, List<String>> found = patients(v2("/api/v2/patients/search?name=" + name));
+        assertTrue(found.containsKey(id));
+        assertEquals(patients(v1("/api/patients/search?name=" + name)), found);
+    }
+
+    @Test
+    void readTheDatabaseHikariWritesTo() throws Exception {
+        String database = jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+        assertEquals(database, databaseClient.sql("SELECT DATABASE()").map(row -> row.get(0, String.class)).one().block());
+
+        // A row written through JPA is visible to the next v2 read, with no copy in between
+        Patient patient = patientRepository.save(new Patient("Reactive Shared Row", "0532 000 37 37"));
+        try {
+            JsonNode read = v2("/api/v2/patients/" + patient.getId());
+            assertEquals("Reactive Shared Row", read.get("name").asText());
+            assertTrue(patients(v2("/api/v2/patients/search?name=shared row")).containsKey(patient.getId()));
+        } finally {
+            patientRepository.deleteById(patient.getId());
+        }
+    }
+
+    @Test
+    void streamPatientsAsNdjson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v2/patients").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // One JSON object per line, not an array
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        assertTrue(lines.stream().allMatch(JsonNode::isObject));
+        assertEquals(patients(v1("/api/patients")), patients(objectMapper.valueToTree(lines)));
+    }
+
+    @Test
+    void countDashboardStatsAsV1() throws Exception {
+        JsonNode v1 = v1("/api/dashboard/stats");
+        JsonNode v2 = v2("/api/v2/dashboard/stats");
+
+        for (String counter : List.of("totalPatients", "newPatientsToday", "totalAppointments")) {
+            assertEquals(v1.get(counter).asLong(), v2.get(counter).asLong(), counter);
+        }
+        // v1 also lists series occurrences for these two; v2 counts stored appointments only
+        assertEquals(appointments(v1("/api/appointments/today")).size(), v2.get("todayAppointments").asLong());
+        assertEquals(appointments(v1("/api/appointments/upcoming")).size(), v2.get("upcomingAppointments").asLong());
+
+        JsonNode byStatus = v2.get("appointmentsByStatus");
+        assertEquals(v1.get("scheduledAppointments").asLong(), byStatus.get("SCHEDULED").asLong());
+        assertEquals(v1.get("confirmedAppointments").asLong(), byStatus.get("CONFIRMED").asLong());
+        assertEquals(v1.get("completedAppointments").asLong(), byStatus.get("COMPLETED").asLong());
+        assertEquals(v1.get("cancelledAppointments").asLong(), byStatus.get("CANCELLED").asLong());
+        assertEquals(v1.get("noShowAppointments").asLong(), byStatus.get("NO_SHOW").asLong());
+        assertEquals(v1.get("appointmentCompletionRate").asDouble(), v2.get("appointmentCompletionRate").asDouble(), 1e-9);
+    }
+
+    private JsonNode v1(String path) throws Exception {
+        String body = mockMvc.perform(get(path).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    // v2 handlers return a Flux or Mono, answered on an async dispatch
+    private JsonNode v2(String path) throws Exception {
+        MvcResult started = mockMvc.perform(get(path).accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    // Stored appointments by id; v1 lists also carry series occurrences, which have no id
+    private static Map<Long, List<String>> appointments(JsonNode body) {
+        return rows(body, APPOINTMENT_FIELDS);
+    }
+
+    private static Map<Long, List<String>> patients(JsonNode body) {
+        return rows(body, PATIENT_FIELDS);
+    }
+
+    private static Map<Long, List<String>> rows(JsonNode body, String[] fields) {
+        Map<Long, List<String>> rows = new HashMap<>();
+        for (JsonNode row : body.isArray() ? body : List.of(body)) {
+            if (row.path("id").isNull() || row.path("id").isMissingNode()) {
+                continue;
+            }
+            List<String> values = new ArrayList<>();
+            for (String field : fields) {
+                values.add(row.path(field).asText(null));
+            }
+            rows.put(row.get("id").asLong(), values);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,95 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Treatment;
+import com.nepbay.dentalclinicapi.repository.TreatmentRepository;
+import com.nepbay.dentalclinicapi.service.TreatmentCatalog;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for every TreatmentController endpoint and the revenue report
+ */
+@QueryBudgetTest
+class TreatmentControllerQueryBudgetTest {
+
+    private static final AtomicInteger NAME_SUFFIX = new AtomicInteger(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TreatmentRepository treatmentRepository;
+
+    @Autowired
+    private TreatmentCatalog treatmentCatalog;
+
+    @Test
+    void getAllTreatments() throws Exception {
+        perform("treatments.list", get("/api/treatments")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getTreatmentById() throws Exception {
+        Long id = treatmentCatalog.getAll().get(0).getId();
+        perform("treatments.get", get("/api/treatments/{id}", id)).andExpect(status().isOk());
+    }
+
+    @Test
+    void createTreatment() throws Exception {
+        perform("treatments.create", post("/api/treatments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(nextName(), 45, "210.00")))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    void updateTreatment() throws Exception {
+        Treatment treatment = newTreatment();
+        perform("treatments.update", put("/api/treatments/{id}", treatment.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(treatment.getName(), 60, "260.00")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void deactivateTreatment() throws Exception {
+        Treatment treatment = newTreatment();
+        perform("treatments.delete", delete("/api/treatments/{id}", treatment.getId())).andExpect(status().isOk());
+    }
+
+    @Test
+    void getRevenue() throws Exception {
+        perform("analytics.revenue", get("/api/analytics/revenue").param("granularity", "week")).andExpect(status().isOk());
+    }
+
+    private Treatment newTreatment() {
+        String name = nextName();
+        Treatment treatment = treatmentRepository.save(
+                new Treatment(TreatmentCatalog.codeOf(name), name, 30, new BigDecimal("200.00")));
+        treatmentCatalog.changed();
+        return treatment;
+    }
+
+    private static String nextName() {
+        return "Budget Treatment " + NAME_SUFFIX.getAndIncrement();
+    }
+
+    private static String json(String name, int durationMinutes, String price) {
+        return "{\"name\":\"" + name + "\",\"durationMinutes\":" + durationMinutes + ",\"price\":" + price + "}";
+    }
+
+    private ResultActions perform(String budget, MockHttpServletRequestBuilder request) throws Exception {
+        return QueryBudgets.assertWithinBudget(budget, () -> mockMvc.perform(request));
+    }
+}
@@ -0,0 +1,94 @@
+package com.nepbay.dentalclinicapi.controller;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry;
+import com.nepbay.dentalclinicapi.service.AppointmentService;
+import com.nepbay.dentalclinicapi.service.WaitlistService;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budgets for the waitlist endpoints
+ */
+@QueryBudgetTest
+class WaitlistControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    private final List<Long> createdAppointments = new ArrayList<>();
+    private final List<Long> createdEntries = new ArrayList<>();
+
+    // The cancellations would otherwise shift the no-show model other test classes score against
+    @AfterEach
+    void removeTestData() {
+        createdAppointments.forEach(appointmentService::deleteAppointment);
+        createdEntries.forEach(waitlistService::removeEntry);
+    }
+
+    @Test
+    void getEntries() throws Exception {
+        perform("waitlist.list", get("/api/waitlist")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getOpenOffers() throws Exception {
+        perform("waitlist.offers", get("/api/waitlist/offers")).andExpect(status().isOk());
+    }
+
+    @Test
+    void getMatcherStats() throws Exception {
+        perform("waitlist.matcher", get("/api/waitlist/matcher")).andExpect(status().isOk());
+    }
+
+    @Test
+    void declineOffer() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(42);
+        Long entry = newEntry("Budget Decliner", day);
+        newEntry("Budget Next In Line", day);
+        Long slot = newAppointment("Budget Decline", day, LocalTime.of(11, 0));
+        appointmentService.updateAppointmentStatus(slot, AppointmentStatus.CANCELLED);
+
+        perform("waitlist.decline", post("/api/waitlist/{id}/decline", entry)).andExpect(status().isOk());
+    }
+
+    private Long newEntry(String patientName, LocalDate day) {
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatientName(patientName);
+        entry.setEarliestDate(day);
+        entry.setLatestDate(day);
+        Long id = waitlistService.createEntry(entry).getId();
+        createdEntries.add(id);
+        return id;
+    }
+
+    private Long newAppointment(String patientName, LocalDate day, LocalTime time) {
+        Long id = appointmentService.createAppointment(new Appointment(patientName, day, time, "Check-up")).getId();
+        createdAppointments.add(id);
+        return id;
+    }
+
+    private ResultActions perform(String budget, MockHttpServletRequestBuilder request) throws Exception {
+        return QueryBudgets.assertWithinBudget(budget, () -> mockMvc.perform(request));
+    }
+}
@@ -0,0 +1,103 @@
+package com.nepbay.dentalclinicapi.diagnostics;
+
+import com.nepbay.dentalclinicapi.service.SlowQueryService;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import com.nepbay.dentalclinicapi.support.QueryBudgets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Slow query capture through the actuator endpoint: endpoint pattern, redacted binds and plan
+ */
+@QueryBudgetTest
+class SlowQueryEndpointTest {
+
+    private static final String PATIENT = "Johnson";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SlowQueryService slowQueryService;
+
+    private long defaultThreshold;
+
+    @BeforeEach
+    void rememberThreshold() {
+        defaultThreshold = slowQueryService.getThresholdMillis();
+    }
+
+    @AfterEach
+    void restoreThreshold() {
+        slowQueryService.setThresholdMillis(defaultThreshold);
+        slowQueryService.clear();
+    }
+
+    @Test
+    void readSlowQueryLog() throws Exception {
+        QueryBudgets.assertWithinBudget("actuator.slowqueries", () -> mockMvc.perform(get("/actuator/slowqueries")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true));
+    }
+
+    @Test
+    void captureSlowSearch() throws Exception {
+        mockMvc.perform(post("/actuator/slowqueries")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"thresholdMs\": 0}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/appointments/search").param("patient", PATIENT)).andExpect(status().isOk());
+
+        SlowQueryRecord record = awaitRecord("GET /api/appointments/search");
+        assertEquals("AppointmentService.searchAppointmentsByPatient", record.method());
+        SlowQueryRecord.Statement statement = record.statements().get(0);
+        assertTrue(statement.sql().startsWith("select"));
+        assertEquals(List.of("<redacted:" + (PATIENT.length() + 2) + " chars>"), statement.parameters());
+        assertNotNull(statement.plan());
+        assertFalse(statement.plan().contains(PATIENT));
+
+        mockMvc.perform(get("/actuator/slowqueries").param("endpoint", "/api/appointments/search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.thresholdMs").value(0))
+                .andExpect(jsonPath("$.records[0].statements[0].parameters[0]").value(statement.parameters().get(0)));
+    }
+
+    @Test
+    void keepFastCallsOutOfTheLog() throws Exception {
+        slowQueryService.setThresholdMillis(60_000);
+        slowQueryService.clear();
+        mockMvc.perform(get("/api/appointments/search").param("patient", PATIENT)).andExpect(status().isOk());
+        Thread.sleep(200);
+        assertTrue(slowQueryService.getRecords().stream()
+                .noneMatch(record -> "GET /api/appointments/search".equals(record.endpoint())));
+    }
+
+    /**
+     * Plans are captured on a background thread before the record is added
+     */
+    private SlowQueryRecord awaitRecord(String endpoint) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Optional<SlowQueryRecord> record = slowQueryService.getRecords().stream()
+                    .filter(candidate -> endpoint.equals(candidate.endpoint()) && !candidate.statements().isEmpty())
+                    .findFirst();
+            if (record.isPresent()) {
+                return record.get();
+            }
+            Thread.sleep(50);
+        }
+        return fail("No slow query record for " + endpoint);
+    }
+}
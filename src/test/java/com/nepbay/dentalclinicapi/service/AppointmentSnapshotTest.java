@@ -0,0 +1,69 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.repository.PatientRepository;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * How the appointment snapshot tells patients apart: by patient id where the appointment is
+ * linked, by name where it is not yet
+ */
+@QueryBudgetTest
+class AppointmentSnapshotTest {
+
+    private static final AtomicInteger PHONE_SUFFIX = new AtomicInteger(1000);
+
+    @Autowired
+    private AppointmentSnapshotService snapshotService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void countNamesakesAsDistinctPatients() {
+        LocalDate day = LocalDate.now().plusYears(3);
+        Patient first = patientRepository.save(new Patient("Snapshot Namesake", nextPhone()));
+        Patient second = patientRepository.save(new Patient("Snapshot Namesake", nextPhone()));
+        List<Appointment> appointments = new ArrayList<>();
+        appointments.add(linkedAppointment(first, day, LocalTime.of(9, 0)));
+        appointments.add(linkedAppointment(first, day, LocalTime.of(10, 0)));
+        appointments.add(linkedAppointment(second, day, LocalTime.of(11, 0)));
+        // Not linked yet: counted by name
+        appointments.add(appointmentRepository.save(new Appointment("Snapshot Walk-in", day, LocalTime.of(12, 0), "Check-up")));
+        try {
+            snapshotService.refresh();
+            Map<String, Object> mix = snapshotService.getTreatmentMix(day, day);
+            assertEquals(4L, mix.get("totalAppointments"));
+            assertEquals(3, mix.get("distinctPatients"));
+        } finally {
+            appointmentRepository.deleteAll(appointments);
+            patientRepository.deleteAll(List.of(first, second));
+            snapshotService.refresh();
+        }
+    }
+
+    private Appointment linkedAppointment(Patient patient, LocalDate day, LocalTime time) {
+        Appointment appointment = new Appointment(patient.getName(), day, time, "Check-up");
+        appointment.setPatientId(patient.getId());
+        return appointmentRepository.save(appointment);
+    }
+
+    private static String nextPhone() {
+        return "0546-000-" + PHONE_SUFFIX.incrementAndGet();
+    }
+}
@@ -0,0 +1,134 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nepbay.dentalclinicapi.model.Patient;
+import com.nepbay.dentalclinicapi.repository.PatientRepository;
+import com.nepbay.dentalclinicapi.resilience.ServiceUnavailableException;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Idempotency-Key handling: replays, a key reused with another body, retries of a request that is
+ * still running, and eviction from a full store
+ */
+@QueryBudgetTest
+class IdempotencyServiceTest {
+
+    private static final AtomicInteger PHONE_SUFFIX = new AtomicInteger(1000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Test
+    void replayCreateWithSameIdempotencyKey() throws Exception {
+        String body = json("Idempotent Patient", nextPhone());
+        long before = patientRepository.count();
+        String created = mockMvc.perform(post("/api/patients").header(IdempotencyService.HEADER, "replay-test-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/api/patients").header(IdempotencyService.HEADER, "replay-test-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andExpect(content().json(created));
+        assertEquals(before + 1, patientRepository.count());
+    }
+
+    @Test
+    void rejectIdempotencyKeyReusedWithAnotherBody() throws Exception {
+        mockMvc.perform(post("/api/patients").header(IdempotencyService.HEADER, "reuse-test-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(json("Key Owner", nextPhone())))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/patients").header(IdempotencyService.HEADER, "reuse-test-1")
+                        .contentType(MediaType.APPLICATION_JSON).content(json("Key Thief", nextPhone())))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.status").value(422));
+    }
+
+    @Test
+    void runFailedRequestAgainOnRetry() {
+        Patient request = new Patient("Failed First Try", nextPhone());
+        assertThrows(ConflictException.class, () -> idempotencyService.execute("POST /api/patients", "failed-test-1",
+                request, () -> {
+                    throw new ConflictException("taken");
+                }));
+        ResponseEntity<?> retry = idempotencyService.execute("POST /api/patients", "failed-test-1", request,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("second"));
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals("second", retry.getBody());
+    }
+
+    @Test
+    void refuseRetryWhileFirstRequestRuns() {
+        Patient request = new Patient("In Flight", nextPhone());
+        ResponseEntity<?> first = idempotencyService.execute("POST /api/patients", "in-flight-test-1", request, () -> {
+            // The client gave up and retried before the first request finished
+            assertThrows(ConflictException.class, () -> idempotencyService.execute("POST /api/patients", "in-flight-test-1",
+                    request, () -> ResponseEntity.internalServerError().build()));
+            return ResponseEntity.status(HttpStatus.CREATED).body("first");
+        });
+        assertEquals(HttpStatus.CREATED, first.getStatusCode());
+    }
+
+    @Test
+    void neverEvictKeyWhileItsRequestRuns() {
+        IdempotencyService store = new IdempotencyService();
+        ReflectionTestUtils.setField(store, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxEntries", 2);
+        AtomicInteger runs = new AtomicInteger();
+
+        store.execute("test", "running", "a", () -> {
+            runs.incrementAndGet();
+            // Filling the store evicts the completed keys around the running one
+            store.execute("test", "done-1", "b", () -> ResponseEntity.ok("b"));
+            store.execute("test", "done-2", "c", () -> ResponseEntity.ok("c"));
+            assertThrows(ConflictException.class, () -> store.execute("test", "running", "a", () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.ok("a again");
+            }));
+            return ResponseEntity.ok("a");
+        });
+        assertEquals(1, runs.get());
+
+        // With only running keys left, a new key is refused rather than risking a double write
+        ReflectionTestUtils.setField(store, "maxEntries", 1);
+        store.execute("test", "running-2", "d", () -> {
+            assertThrows(ServiceUnavailableException.class,
+                    () -> store.execute("test", "new", "e", () -> ResponseEntity.ok("e")));
+            return ResponseEntity.ok("d");
+        });
+    }
+
+    private static String nextPhone() {
+        return "0545-000-" + PHONE_SUFFIX.incrementAndGet();
+    }
+
+    private static String json(String name, String phone) {
+        return "{\"name\":\"" + name + "\",\"phone\":\"" + phone + "\",\"address\":\"Idempotency Street\"}";
+    }
+}
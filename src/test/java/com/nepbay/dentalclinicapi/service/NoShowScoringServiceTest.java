@@ -0,0 +1,62 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.repository.AppointmentRepository;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * No-show risk scores following recorded outcomes: a settled appointment loses its score and the
+ * patient's upcoming ones are rescored and listed with the new risk
+ */
+@QueryBudgetTest
+class NoShowScoringServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private NoShowScoringService noShowScoringService;
+
+    @Test
+    void rescoreAfterRecordedOutcome() throws Exception {
+        Appointment missed = newAppointment("No-Show Risk");
+        Appointment next = newAppointment("No-Show Risk");
+        try {
+            noShowScoringService.recompute();
+            double before = noShowScoringService.getScore(next.getId());
+
+            mockMvc.perform(patch("/api/appointments/{id}/status", missed.getId()).param("status", "NO_SHOW"))
+                    .andExpect(status().isOk());
+            noShowScoringService.refreshDirtyPatients();
+
+            assertNull(noShowScoringService.getScore(missed.getId()));
+            assertTrue(noShowScoringService.getScore(next.getId()) > before);
+            mockMvc.perform(get("/api/appointments/upcoming"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[?(@.id == " + next.getId() + ")].noShowRisk").value(noShowScoringService.getScore(next.getId())));
+        } finally {
+            appointmentRepository.deleteAll(List.of(missed, next));
+            noShowScoringService.recompute();
+        }
+    }
+
+    private Appointment newAppointment(String patientName) {
+        return appointmentRepository.save(new Appointment(patientName, LocalDate.now().plusDays(3), LocalTime.of(11, 0), "Teeth Cleaning"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.Treatment;
+import com.nepbay.dentalclinicapi.repository.TreatmentRepository;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Catalog changes reaching their readers: a repriced treatment shows the new price in the catalog
+ * snapshot and in the revenue rollups of days already counted
+ */
+@QueryBudgetTest
+class TreatmentCatalogTest {
+
+    private static final AtomicInteger NAME_SUFFIX = new AtomicInteger(1);
+
+    @Autowired
+    private TreatmentRepository treatmentRepository;
+
+    @Autowired
+    private TreatmentCatalog treatmentCatalog;
+
+    @Autowired
+    private TreatmentService treatmentService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Test
+    void repriceRevenueRollups() {
+        Treatment treatment = newTreatment();
+        Appointment appointment = appointmentService.createAppointment(
+                new Appointment("Rollup Payer", LocalDate.now(), LocalTime.of(8, 0), treatment.getName()));
+        try {
+            appointmentService.updateAppointmentStatus(appointment.getId(), AppointmentStatus.COMPLETED);
+            rollupService.refreshDirtyDays();
+            assertEquals(200.0, revenueToday(treatment.getName()));
+
+            treatmentService.updateTreatment(treatment.getId(),
+                    new Treatment(treatment.getCode(), treatment.getName(), 30, new BigDecimal("275.00")));
+            assertEquals(0, new BigDecimal("275.00").compareTo(treatmentCatalog.priceOf(treatment.getId())));
+            rollupService.refreshDirtyDays();
+            assertEquals(275.0, revenueToday(treatment.getName()));
+        } finally {
+            appointmentService.deleteAppointment(appointment.getId());
+            rollupService.refreshDirtyDays();
+        }
+    }
+
+    private Treatment newTreatment() {
+        String name = "Catalog Treatment " + NAME_SUFFIX.getAndIncrement();
+        Treatment treatment = treatmentRepository.save(
+                new Treatment(TreatmentCatalog.codeOf(name), name, 30, new BigDecimal("200.00")));
+        treatmentCatalog.changed();
+        return treatment;
+    }
+
+    private double revenueToday(String treatmentName) {
+        return (Double) rollupService.getTimeSeries(RollupService.REVENUE_BY_TREATMENT, treatmentName,
+                LocalDate.now(), LocalDate.now(), "day").get(0).get("value");
+    }
+}
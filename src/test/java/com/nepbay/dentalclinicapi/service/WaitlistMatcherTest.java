@@ -0,0 +1,128 @@
+package com.nepbay.dentalclinicapi.service;
+
+import com.nepbay.dentalclinicapi.model.Appointment;
+import com.nepbay.dentalclinicapi.model.Appointment.AppointmentStatus;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry;
+import com.nepbay.dentalclinicapi.model.WaitlistEntry.WaitlistStatus;
+import com.nepbay.dentalclinicapi.support.QueryBudgetTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Offer guarantees of the waitlist matcher: one offer per patient and per slot under concurrent
+ * cancellations, and declined slots passed on only to patients who have not declined them
+ */
+@QueryBudgetTest
+class WaitlistMatcherTest {
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private AppointmentService appointmentService;
+
+    private final List<Long> createdAppointments = new ArrayList<>();
+    private final List<Long> createdEntries = new ArrayList<>();
+
+    // The cancellations would otherwise shift the no-show model other test classes score against
+    @AfterEach
+    void removeTestData() {
+        createdAppointments.forEach(appointmentService::deleteAppointment);
+        createdEntries.forEach(waitlistService::removeEntry);
+    }
+
+    @Test
+    void offerEachEntryOneSlotUnderConcurrentCancellations() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(40);
+        List<Long> entryIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            entryIds.add(newEntry("Concurrent Waiter " + i, day));
+        }
+        List<Long> appointmentIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            appointmentIds.add(newAppointment("Concurrent Canceller " + i, day, LocalTime.of(9, 0).plusMinutes(30L * i)));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(appointmentIds.size());
+        try {
+            List<Future<?>> cancellations = new ArrayList<>();
+            for (Long id : appointmentIds) {
+                cancellations.add(threads.submit(() -> {
+                    start.await();
+                    return appointmentService.updateAppointmentStatus(id, AppointmentStatus.CANCELLED);
+                }));
+            }
+            start.countDown();
+            for (Future<?> cancellation : cancellations) {
+                cancellation.get();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        // Four patients, six free slots: every patient holds exactly one offer, each for a different slot
+        Set<Long> offeredSlots = new HashSet<>();
+        for (Long id : entryIds) {
+            WaitlistEntry entry = waitlistService.getEntryById(id);
+            assertEquals(WaitlistStatus.OFFERED, entry.getStatus());
+            assertTrue(appointmentIds.contains(entry.getOfferedAppointmentId()));
+            assertTrue(offeredSlots.add(entry.getOfferedAppointmentId()), "Slot offered twice");
+        }
+    }
+
+    @Test
+    void passDeclinedSlotOnlyToPatientsWhoHaveNotDeclinedIt() {
+        LocalDate day = LocalDate.now().plusDays(41);
+        Long first = newEntry("Decliner First", day);
+        Long second = newEntry("Decliner Second", day);
+        Long third = newEntry("Decliner Third", day);
+        Long slot = newAppointment("Decline Chain", day, LocalTime.of(11, 0));
+
+        appointmentService.updateAppointmentStatus(slot, AppointmentStatus.CANCELLED);
+        assertEquals(WaitlistStatus.OFFERED, waitlistService.getEntryById(first).getStatus());
+
+        waitlistService.declineOffer(first);
+        assertEquals(WaitlistStatus.OFFERED, waitlistService.getEntryById(second).getStatus());
+
+        // The longest-waiting patient declined already, so the slot goes on to the third
+        waitlistService.declineOffer(second);
+        assertEquals(WaitlistStatus.OFFERED, waitlistService.getEntryById(third).getStatus());
+        assertEquals(WaitlistStatus.WAITING, waitlistService.getEntryById(first).getStatus());
+
+        waitlistService.declineOffer(third);
+        for (Long id : List.of(first, second, third)) {
+            assertEquals(WaitlistStatus.WAITING, waitlistService.getEntryById(id).getStatus());
+        }
+    }
+
+    private Long newEntry(String patientName, LocalDate day) {
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setPatientName(patientName);
+        entry.setEarliestDate(day);
+        entry.setLatestDate(day);
+        Long id = waitlistService.createEntry(entry).getId();
+        createdEntries.add(id);
+        return id;
+    }
+
+    private Long newAppointment(String patientName, LocalDate day, LocalTime time) {
+        Long id = appointmentService.createAppointment(new Appointment(patientName, day, time, "Check-up")).getId();
+        createdAppointments.add(id);
+        return id;
+    }
+}
@@ -0,0 +1,31 @@
+package com.nepbay.dentalclinicapi.support;
+
+import com.nepbay.dentalclinicapi.resilience.ServiceUnavailableException;
+import com.nepbay.dentalclinicapi.service.DatabaseGuard;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Database Outages
+ * Simulates an unreachable database by feeding every circuit breaker of the DatabaseGuard enough
+ * connection failures to open it. The context is shared, so tests close the breakers again with
+ * DatabaseGuard.reset when done.
+ */
+public final class DatabaseOutages {
+
+    private static final int FAILURES = 50;
+
+    private DatabaseOutages() {
+    }
+
+    public static void openAllBreakers(DatabaseGuard databaseGuard) {
+        for (DatabaseGuard.Operation operation : DatabaseGuard.Operation.values()) {
+            for (int i = 0; i < FAILURES; i++) {
+                assertThrows(ServiceUnavailableException.class, () -> databaseGuard.execute(operation, () -> {
+                    throw new DataAccessResourceFailureException("Connection refused");
+                }));
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.nepbay.dentalclinicapi.support;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Query Budget Test
+ * Full application context with MockMvc and a statement-counting DataSource. Every test class
+ * carrying this annotation shares one cached context (and its seeded sample data).
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.com.nepbay.dentalclinicapi=INFO",
+    "clinic.data-dir=target/test-data",
+    "clinic.cache.bus.transport=none"
+})
+@AutoConfigureMockMvc
+@Import(QueryCountingDataSourcePostProcessor.class)
+public @interface QueryBudgetTest {
+}
@@ -0,0 +1,87 @@
+package com.nepbay.dentalclinicapi.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+/**
+ * Query Budgets
+ * Asserts the maximum number of SQL statements an action (a service call or a MockMvc request)
+ * may issue. Budgets live in query-budgets.properties on the test classpath and are reviewed
+ * like code: raising one is a deliberate change, not something a refactoring does silently.
+ *
+ * When a budget is exceeded the failure lists the statements, with repeated ones flagged as
+ * likely N+1 loads. Run with -Dquery-budgets.report=true to print actual counts without failing.
+ */
+public final class QueryBudgets {
+
+    private static final String BUDGET_FILE = "query-budgets.properties";
+    private static final int REPEAT_THRESHOLD = 3;
+
+    private static final Properties BUDGETS = load();
+
+    private QueryBudgets() {
+    }
+
+    /**
+     * Run the action, failing if it issues more statements than the named budget allows
+     */
+    public static <T> T assertWithinBudget(String name, Callable<T> action) throws Exception {
+        int budget = budgetFor(name);
+        QueryRecorder.start();
+        T result;
+        List<String> statements;
+        try {
+            result = action.call();
+        } finally {
+            statements = QueryRecorder.stop();
+        }
+        if (Boolean.getBoolean("query-budgets.report")) {
+            System.out.printf("query-budget %s: %d statements (budget %d)%n", name, statements.size(), budget);
+        } else if (statements.size() > budget) {
+            throw new AssertionError(describe(name, budget, statements));
+        }
+        return result;
+    }
+
+    private static int budgetFor(String name) {
+        String value = BUDGETS.getProperty(name);
+        if (value == null) {
+            throw new AssertionError("No query budget for '" + name + "'; add one to " + BUDGET_FILE);
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    private static String describe(String name, int budget, List<String> statements) {
+        StringBuilder message = new StringBuilder()
+                .append(name).append(" issued ").append(statements.size())
+                .append(" SQL statements, budget is ").append(budget).append(":\n");
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String sql : statements) {
+            counts.merge(sql, 1, Integer::sum);
+        }
+        counts.forEach((sql, count) -> {
+            message.append(count >= REPEAT_THRESHOLD ? "  [x" + count + ", possible N+1] " : "  [x" + count + "] ");
+            message.append(sql).append('\n');
+        });
+        return message.toString();
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        try (InputStream in = QueryBudgets.class.getClassLoader().getResourceAsStream(BUDGET_FILE)) {
+            if (in == null) {
+                throw new IllegalStateException(BUDGET_FILE + " not found on the test classpath");
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+}
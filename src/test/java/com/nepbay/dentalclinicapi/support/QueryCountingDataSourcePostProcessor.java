@@ -0,0 +1,56 @@
+package com.nepbay.dentalclinicapi.support;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Query Counting DataSource Post Processor
+ * Wraps the application DataSource so every statement prepared or executed through it is passed
+ * to the QueryRecorder. Counting at the JDBC level (rather than with a Hibernate StatementInspector)
+ * also covers the JdbcTemplate queries used by the search index and the duplicate index.
+ */
+public class QueryCountingDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        return proxy(bean, invocation -> {
+            Object result = invocation.proceed();
+            return result instanceof Connection ? countingConnection(result) : result;
+        });
+    }
+
+    private static Object countingConnection(Object connection) {
+        return proxy(connection, invocation -> {
+            String name = invocation.getMethod().getName();
+            if ((name.equals("prepareStatement") || name.equals("prepareCall")) && invocation.getArguments()[0] instanceof String sql) {
+                QueryRecorder.record(sql);
+            }
+            Object result = invocation.proceed();
+            return name.equals("createStatement") && result instanceof Statement ? countingStatement(result) : result;
+        });
+    }
+
+    private static Object countingStatement(Object statement) {
+        return proxy(statement, invocation -> {
+            String name = invocation.getMethod().getName();
+            Object[] arguments = invocation.getArguments();
+            if ((name.startsWith("execute") || name.equals("addBatch")) && arguments.length > 0 && arguments[0] instanceof String sql) {
+                QueryRecorder.record(sql);
+            }
+            return invocation.proceed();
+        });
+    }
+
+    private static Object proxy(Object target, MethodInterceptor interceptor) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addAdvice(interceptor);
+        return factory.getProxy();
+    }
+}
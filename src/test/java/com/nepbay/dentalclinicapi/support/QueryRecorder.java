@@ -0,0 +1,35 @@
+package com.nepbay.dentalclinicapi.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query Recorder
+ * Collects the SQL statements issued on the current thread while recording is switched on.
+ * Thread-confined, so background work (warm-up, scheduled jobs, the audit writer) never leaks
+ * into a measurement; MockMvc runs the whole request on the test thread.
+ */
+final class QueryRecorder {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    private QueryRecorder() {
+    }
+
+    static void record(String sql) {
+        List<String> recorded = RECORDED.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+    }
+
+    static void start() {
+        RECORDED.set(new ArrayList<>());
+    }
+
+    static List<String> stop() {
+        List<String> recorded = RECORDED.get();
+        RECORDED.remove();
+        return recorded != null ? recorded : List.of();
+    }
+}